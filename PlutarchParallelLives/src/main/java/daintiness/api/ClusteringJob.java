@@ -0,0 +1,120 @@
+package daintiness.api;
+
+import daintiness.clustering.ClusteringMonitor;
+
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * A clustering submitted through the job endpoints. The status transitions are
+ * QUEUED -> RUNNING -> COMPLETED | FAILED | CANCELLED, or QUEUED -> CANCELLED.
+ */
+public class ClusteringJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String jobId;
+    private final String projectId;
+    private final ClusteringMonitor monitor = new ClusteringMonitor();
+    private final long submittedTime = System.currentTimeMillis();
+
+    private Status status = Status.QUEUED;
+    private Map<String, Object> result;
+    private String error;
+    private long finishedTime;
+    private Future<?> future;
+
+    ClusteringJob(String jobId, String projectId) {
+        this.jobId = jobId;
+        this.projectId = projectId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public ClusteringMonitor getMonitor() {
+        return monitor;
+    }
+
+    public long getSubmittedTime() {
+        return submittedTime;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized Map<String, Object> getResult() {
+        return result;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public synchronized long getFinishedTime() {
+        return finishedTime;
+    }
+
+    public synchronized boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return false if the job was cancelled before it started
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        return true;
+    }
+
+    synchronized void complete(Map<String, Object> result) {
+        this.result = result;
+        finish(Status.COMPLETED);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    synchronized void markCancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled at once; a running job stops
+     * before its next merge.
+     * @return false if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        monitor.cancel();
+        if (status == Status.QUEUED) {
+            if (future != null) {
+                future.cancel(false);
+            }
+            markCancelled();
+        }
+        return true;
+    }
+
+    private void finish(Status finalStatus) {
+        status = finalStatus;
+        finishedTime = System.currentTimeMillis();
+    }
+}
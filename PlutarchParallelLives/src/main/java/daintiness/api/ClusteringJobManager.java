@@ -0,0 +1,135 @@
+package daintiness.api;
+
+import daintiness.clustering.ClusteringMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the clustering jobs on a bounded executor, so long clusterings don't hold
+ * the servlet threads. Finished jobs are kept for the retention period and then dropped.
+ */
+@Component
+public class ClusteringJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusteringJobManager.class);
+
+    private final ConcurrentMap<String, ClusteringJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @Value("${daintiness.jobs.threads:2}")
+    private int threads;
+
+    @Value("${daintiness.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${daintiness.jobs.retention-minutes:30}")
+    private int retentionMinutes;
+
+    @PostConstruct
+    public void init() {
+        int effectiveThreads = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                effectiveThreads, effectiveThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "clustering-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        logger.info("ClusteringJobManager initialized with {} threads, queue capacity: {}",
+                    effectiveThreads, Math.max(1, queueCapacity));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(ClusteringJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a clustering job.
+     * @param projectId project that the job belongs to
+     * @param work the clustering; it receives the job's monitor and returns the job's result
+     * @return the queued job
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public ClusteringJob submit(String projectId, Function<ClusteringMonitor, Map<String, Object>> work) {
+        ClusteringJob job = new ClusteringJob(UUID.randomUUID().toString(), projectId);
+        jobs.put(job.getJobId(), job);
+
+        try {
+            job.setFuture(executor.submit(() -> run(job, work)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            logger.warn("Clustering job rejected for project {}: queue is full", projectId);
+            throw e;
+        }
+        logger.debug("Queued clustering job {} for project {}", job.getJobId(), projectId);
+        return job;
+    }
+
+    private void run(ClusteringJob job, Function<ClusteringMonitor, Map<String, Object>> work) {
+        if (!job.start()) {
+            return;
+        }
+
+        try {
+            job.complete(work.apply(job.getMonitor()));
+            logger.debug("Clustering job {} completed", job.getJobId());
+        } catch (CancellationException e) {
+            job.markCancelled();
+            logger.debug("Clustering job {} cancelled", job.getJobId());
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            logger.error("Clustering job {} failed", job.getJobId(), e);
+        }
+    }
+
+    /**
+     * @return the job, if it exists and belongs to the given project
+     */
+    public Optional<ClusteringJob> get(String projectId, String jobId) {
+        if (jobId == null) {
+            return Optional.empty();
+        }
+        ClusteringJob job = jobs.get(jobId);
+        if (job == null || !job.getProjectId().equals(projectId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    /**
+     * Cancels every unfinished job of a project, e.g. when the project is deleted.
+     */
+    public void cancelProjectJobs(String projectId) {
+        jobs.values().removeIf(job -> {
+            if (job.getProjectId().equals(projectId)) {
+                job.cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Scheduled(fixedRate = 300000) // 5 minutes
+    public void cleanupFinishedJobs() {
+        long retentionMillis = retentionMinutes * 60 * 1000L;
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.isFinished() && now - job.getFinishedTime() > retentionMillis);
+    }
+}
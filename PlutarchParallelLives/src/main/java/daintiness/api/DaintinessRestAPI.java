@@ -1,17 +1,22 @@
 package daintiness.api;
 
 import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringMonitor;
 import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.ClusteringSweep;
 import daintiness.clustering.EntityClusteringProfile;
 import daintiness.clustering.EntityGroup;
 import daintiness.clustering.Phase;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.maincontroller.IMainController;
 import daintiness.models.PatternData;
+import daintiness.patterns.patternAlgos.LadderAlgo;
+import daintiness.patterns.patternAlgos.PatternComputationHandler;
 import daintiness.utilities.Constants;
+import daintiness.utilities.ParallelExecutor;
 import javafx.collections.ObservableList;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -19,14 +24,14 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequestMapping("/api")
@@ -40,6 +45,18 @@ public class DaintinessRestAPI {
     @Autowired
     private ProjectStore projectStore;
 
+    @Autowired
+    private ClusteringJobManager clusteringJobManager;
+
+    @Value("${daintiness.clustering.parallelism:1}")
+    private int defaultClusteringParallelism;
+
+    @Value("${daintiness.clustering.max-parallelism:0}")
+    private int maxClusteringParallelism;
+
+    @Value("${daintiness.sweep.max-combinations:500}")
+    private int maxSweepCombinations;
+
     // PROJECT MANAGEMENT 
 
     @PostMapping("/projects")
@@ -59,6 +76,7 @@ public class DaintinessRestAPI {
 
     @DeleteMapping("/projects/{projectId}")
     public ResponseEntity<Void> deleteProject(@PathVariable String projectId) {
+        clusteringJobManager.cancelProjectJobs(projectId);
         boolean deleted = projectStore.delete(projectId);
         return deleted ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
     }
@@ -66,6 +84,7 @@ public class DaintinessRestAPI {
 
     @PostMapping("/projects/{projectId}/cleanup")
     public ResponseEntity<Void> cleanupProject(@PathVariable String projectId) {
+        clusteringJobManager.cancelProjectJobs(projectId);
         projectStore.delete(projectId);
         return ResponseEntity.ok().build();
     }
@@ -102,12 +121,14 @@ public class DaintinessRestAPI {
             file.transferTo(tempFile.toFile());
 
             IMainController controller = controllerOpt.get();
-            controller.load(tempFile.toFile());
-
             Map<String, Object> response = new HashMap<>();
-            response.put("numberOfBeats", controller.getNumberOfBeats());
-            response.put("numberOfEntities", controller.getNumberOfEntities());
-            response.put("numberOfTEMs", controller.getNumberOfTEMs());
+            synchronized (controller) {
+                controller.load(tempFile.toFile());
+
+                response.put("numberOfBeats", controller.getNumberOfBeats());
+                response.put("numberOfEntities", controller.getNumberOfEntities());
+                response.put("numberOfTEMs", controller.getNumberOfTEMs());
+            }
             response.put("success", true);
 
             return ResponseEntity.ok(response);
@@ -151,17 +172,20 @@ public class DaintinessRestAPI {
             transitionsFile.transferTo(transitionsPath.toFile());
 
             IMainController controller = controllerOpt.get();
-            controller.load(tempFolder.toFile());
+            Map<String, Object> response = new HashMap<>();
+            synchronized (controller) {
+                controller.load(tempFolder.toFile());
+
+                response.put("numberOfBeats", controller.getNumberOfBeats());
+                response.put("numberOfEntities", controller.getNumberOfEntities());
+                response.put("numberOfTEMs", controller.getNumberOfTEMs());
+            }
 
             Files.walk(tempFolder)
             .sorted(Comparator.reverseOrder())
             .map(Path::toFile)
             .forEach(file -> file.delete());
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("numberOfBeats", controller.getNumberOfBeats());
-            response.put("numberOfEntities", controller.getNumberOfEntities());
-            response.put("numberOfTEMs", controller.getNumberOfTEMs());
             response.put("success", true);
             response.put("loadType", "SCHEMA_EVO");
 
@@ -196,19 +220,22 @@ public class DaintinessRestAPI {
             gpmFile.transferTo(gpmPath.toFile());
 
             IMainController controller = controllerOpt.get();
-            controller.importProject(tempFolder.toFile());
+            Map<String, Object> response = new HashMap<>();
+            synchronized (controller) {
+                controller.importProject(tempFolder.toFile());
+
+                response.put("numberOfBeats", controller.getNumberOfBeats());
+                response.put("numberOfEntities", controller.getNumberOfEntities());
+                response.put("numberOfTEMs", controller.getNumberOfTEMs());
+                response.put("numberOfPhases", controller.getPhases().size());
+                response.put("numberOfEntityGroups", controller.getEntityGroups().size());
+            }
 
             Files.walk(tempFolder)
                 .sorted(Comparator.reverseOrder())
                 .map(Path::toFile)
                 .forEach(file -> file.delete());
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("numberOfBeats", controller.getNumberOfBeats());
-            response.put("numberOfEntities", controller.getNumberOfEntities());
-            response.put("numberOfTEMs", controller.getNumberOfTEMs());
-            response.put("numberOfPhases", controller.getPhases().size());
-            response.put("numberOfEntityGroups", controller.getEntityGroups().size());
             response.put("success", true);
             response.put("loadType", "PROJECT_IMPORT");
 
@@ -222,70 +249,36 @@ public class DaintinessRestAPI {
     }
 
     @PostMapping("/projects/{projectId}/exportProject")
-    public ResponseEntity<?> exportProject(@PathVariable String projectId) {
+    public ResponseEntity<StreamingResponseBody> exportProject(@PathVariable String projectId) {
         
-        Optional<IMainController> controllerOpt = projectStore.get(projectId);
-        if (controllerOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        IMainController controller = controllerOpt.get();
+        IMainController controller = projectStore.get(projectId)
+            .orElseThrow(() -> new GlobalExceptionHandler.ProjectNotFoundException(projectId));
         
-        try {
+        // The archive is generated straight into the response, after this method returns, from
+        // the data of this request; the lock keeps a clustering, sort or chart type change out meanwhile
+        StreamingResponseBody body;
+        synchronized (controller) {
             if (controller.getNumberOfBeats() == 0 || controller.getNumberOfEntities() == 0) {
-                Map<String, Object> error = new HashMap<>();
-                error.put("success", false);
-                error.put("error", "No data to export. Please load a file first.");
-                return ResponseEntity.badRequest().body(error);
+                throw new IllegalArgumentException("No data to export. Please load a file first.");
             }
-            
-            List<Phase> phases = controller.getPhases();
-            if (phases == null || phases.isEmpty()) {
-                Map<String, Object> error = new HashMap<>();
-                error.put("success", false);
-                error.put("error", "Cannot export project. Please perform clustering first.");
-                return ResponseEntity.badRequest().body(error);
+
+            List<Phase> phases;
+            try {
+                phases = controller.getPhases();
+            } catch (Exception e) {
+                phases = null;
             }
-            
-            Path tempFolder = Files.createTempDirectory("project-export-");
-            controller.exportProject(tempFolder.toFile());
-            
-            Path zipPath = Files.createTempFile("project-", ".zip");
-            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath))) {
-                Files.walk(tempFolder)
-                    .filter(path -> !Files.isDirectory(path))
-                    .forEach(path -> {
-                        try {
-                            ZipEntry zipEntry = new ZipEntry(tempFolder.relativize(path).toString());
-                            zos.putNextEntry(zipEntry);
-                            Files.copy(path, zos);
-                            zos.closeEntry();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    });
+            if (phases == null || phases.isEmpty()) {
+                throw new IllegalArgumentException("Cannot export project. Please perform clustering first.");
             }
-            
-            byte[] data = Files.readAllBytes(zipPath);
-            ByteArrayResource resource = new ByteArrayResource(data);
-            
-            Files.walk(tempFolder)
-                .sorted(Comparator.reverseOrder())
-                .map(Path::toFile)
-                .forEach(file -> file.delete());
-            Files.deleteIfExists(zipPath);
 
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=project-export.zip")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .contentLength(data.length)
-                .body(resource);
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "Cannot export project. Please perform clustering first.");
-            return ResponseEntity.badRequest().body(error);
+            body = controller.createProjectExport()::writeTo;
         }
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=project-export.zip")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .body(body);
     }
 
     @GetMapping("/projects/{projectId}/info")
@@ -297,9 +290,11 @@ public class DaintinessRestAPI {
 
         IMainController controller = controllerOpt.get();
         Map<String, Object> response = new HashMap<>();
-        response.put("numberOfBeats", controller.getNumberOfBeats());
-        response.put("numberOfEntities", controller.getNumberOfEntities());
-        response.put("numberOfTEMs", controller.getNumberOfTEMs());
+        synchronized (controller) {
+            response.put("numberOfBeats", controller.getNumberOfBeats());
+            response.put("numberOfEntities", controller.getNumberOfEntities());
+            response.put("numberOfTEMs", controller.getNumberOfTEMs());
+        }
 
         return ResponseEntity.ok(response);
     }
@@ -311,61 +306,327 @@ public class DaintinessRestAPI {
             @PathVariable String projectId,
             @RequestBody ClusteringRequest request) {
         
-        if (request.getNumberOfPhases() < 1) {
-            return ResponseEntity.badRequest().body(
-                buildErrorResponse("VALIDATION_ERROR", "numberOfPhases must be at least 1"));
+        Map<String, Object> validationError = validateClusteringRequest(request);
+        if (validationError != null) {
+            return ResponseEntity.badRequest().body(validationError);
         }
-        if (request.getNumberOfEntityGroups() < 1) {
-            return ResponseEntity.badRequest().body(
-                buildErrorResponse("VALIDATION_ERROR", "numberOfEntityGroups must be at least 1"));
+        
+        Optional<IMainController> controllerOpt = projectStore.get(projectId);
+        if (controllerOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
-        if (request.getChangesWeight() < 0 || request.getChangesWeight() > 1) {
-            return ResponseEntity.badRequest().body(
-                buildErrorResponse("VALIDATION_ERROR", "changesWeight must be between 0 and 1"));
+
+        IMainController controller = controllerOpt.get();
+        ClusteringProfile profile = buildClusteringProfile(request, new ClusteringMonitor());
+
+        return ResponseEntity.ok(runClustering(controller, profile));
+    }
+
+    // CLUSTERING JOBS
+
+    @PostMapping("/projects/{projectId}/clusterJobs")
+    public ResponseEntity<Map<String, Object>> submitClusteringJob(
+            @PathVariable String projectId,
+            @RequestBody ClusteringRequest request) {
+
+        Map<String, Object> validationError = validateClusteringRequest(request);
+        if (validationError != null) {
+            return ResponseEntity.badRequest().body(validationError);
         }
-        
+
         Optional<IMainController> controllerOpt = projectStore.get(projectId);
         if (controllerOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
         IMainController controller = controllerOpt.get();
+        ClusteringJob job;
+        try {
+            job = clusteringJobManager.submit(projectId,
+                    monitor -> runClustering(controller, buildClusteringProfile(request, monitor)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                buildErrorResponse("SERVER_BUSY", "Too many clustering jobs. Please try again later."));
+        }
+
+        Map<String, Object> response = buildJobStatusResponse(job);
+        response.put("success", true);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/projects/{projectId}/clusterJobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getClusteringJobStatus(
+            @PathVariable String projectId,
+            @PathVariable String jobId) {
+
+        Optional<ClusteringJob> jobOpt = clusteringJobManager.get(projectId, jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = buildJobStatusResponse(jobOpt.get());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/projects/{projectId}/clusterJobs/{jobId}/result")
+    public ResponseEntity<Map<String, Object>> getClusteringJobResult(
+            @PathVariable String projectId,
+            @PathVariable String jobId) {
+
+        Optional<ClusteringJob> jobOpt = clusteringJobManager.get(projectId, jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ClusteringJob job = jobOpt.get();
+        switch (job.getStatus()) {
+            case COMPLETED:
+                return ResponseEntity.ok(job.getResult());
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    buildErrorResponse("CLUSTERING_FAILED", job.getError()));
+            case CANCELLED:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    buildErrorResponse("JOB_CANCELLED", "The clustering job was cancelled"));
+            default:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    buildErrorResponse("JOB_NOT_FINISHED", "The clustering job has not finished yet"));
+        }
+    }
+
+    @DeleteMapping("/projects/{projectId}/clusterJobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelClusteringJob(
+            @PathVariable String projectId,
+            @PathVariable String jobId) {
+
+        Optional<ClusteringJob> jobOpt = clusteringJobManager.get(projectId, jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ClusteringJob job = jobOpt.get();
+        if (!job.cancel()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                buildErrorResponse("JOB_FINISHED", "The clustering job has already finished"));
+        }
+
+        Map<String, Object> response = buildJobStatusResponse(job);
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    // CLUSTERING SWEEPS
+
+    /**
+     * Summarizes the clustering of every combination of the request's parameters, without changing
+     * the project's clustering. The dendrograms are built once per changesWeight and reused by all the
+     * numbers of phases and entityGroups, so a grid costs about as much as one clustering per weight.
+     * The sweep runs as a clustering job; its status and results are read from the clusterJobs endpoints.
+     */
+    @PostMapping("/projects/{projectId}/clusterSweep")
+    public ResponseEntity<Map<String, Object>> sweepClustering(
+            @PathVariable String projectId,
+            @RequestBody ClusteringSweepRequest request) {
+
+        Optional<IMainController> controllerOpt = projectStore.get(projectId);
+        if (controllerOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        IMainController controller = controllerOpt.get();
+
+        if (isEmpty(request.getNumberOfPhases()) || isEmpty(request.getNumberOfEntityGroups()) ||
+                isEmpty(request.getChangesWeights())) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("VALIDATION_ERROR",
+                    "numberOfPhases, numberOfEntityGroups and changesWeights must not be empty"));
+        }
+        long numberOfCombinations = (long) request.getNumberOfPhases().size() *
+                request.getNumberOfEntityGroups().size() * request.getChangesWeights().size();
+        if (numberOfCombinations > Math.max(1, maxSweepCombinations)) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("VALIDATION_ERROR",
+                    "The sweep has " + numberOfCombinations + " combinations, at most " + maxSweepCombinations + " are allowed"));
+        }
+        boolean hasData;
+        synchronized (controller) {
+            hasData = controller.getDataHandler() != null;
+        }
+        if (!hasData) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("VALIDATION_ERROR",
+                    "No data to cluster. Please load a file first."));
+        }
+
+        List<ClusteringRequest> combinations = new ArrayList<>();
+        for (double changesWeight : request.getChangesWeights()) {
+            for (int numberOfPhases : request.getNumberOfPhases()) {
+                for (int numberOfEntityGroups : request.getNumberOfEntityGroups()) {
+                    ClusteringRequest combination = new ClusteringRequest();
+                    combination.setNumberOfPhases(numberOfPhases);
+                    combination.setNumberOfEntityGroups(numberOfEntityGroups);
+                    combination.setChangesWeight(changesWeight);
+                    combination.setTimeClusteringEnabled(true);
+                    combination.setEntityClusteringEnabled(true);
+                    combination.setParallelism(request.getParallelism());
+
+                    Map<String, Object> validationError = validateClusteringRequest(combination);
+                    if (validationError != null) {
+                        return ResponseEntity.badRequest().body(validationError);
+                    }
+                    combinations.add(combination);
+                }
+            }
+        }
+
+        int parallelism = getClusteringParallelism(request.getParallelism());
+        ClusteringJob job;
+        try {
+            job = clusteringJobManager.submit(projectId,
+                    monitor -> runClusteringSweep(projectId, controller, combinations, parallelism, monitor));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                buildErrorResponse("SERVER_BUSY", "Too many clustering jobs. Please try again later."));
+        }
+
+        Map<String, Object> response = buildJobStatusResponse(job);
+        response.put("success", true);
+        response.put("numberOfCombinations", combinations.size());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    private Map<String, Object> runClusteringSweep(String projectId, IMainController controller, List<ClusteringRequest> combinations,
+                                                   int parallelism, ClusteringMonitor monitor) {
+        List<ClusteringProfile> profiles = new ArrayList<>();
+        for (ClusteringRequest combination : combinations) {
+            profiles.add(buildClusteringProfile(combination, monitor));
+        }
+
+        // Unlocked on purpose: the sweep clusters the data handler it starts with and never
+        // touches the clustering of the controller, and the dendrogram cache is keyed by that handler
+        long start = System.nanoTime();
+        List<ClusteringSweep.Result> results = controller.sweepClusteringProfiles(profiles, parallelism, monitor);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Clustering sweep of {} combinations for project {} took {} ms", profiles.size(), projectId, elapsedMillis);
+
+        List<Map<String, Object>> serializedResults = new ArrayList<>();
+        for (ClusteringSweep.Result result : results) {
+            Map<String, Object> resultMap = new HashMap<>();
+            resultMap.put("desiredNumberOfPhases", result.getProfile().getBeatClusteringProfile().getDesiredNumberOfPhases());
+            resultMap.put("desiredNumberOfEntityGroups", result.getProfile().getEntityClusteringProfile().getDesiredNumberOfEntityGroups());
+            resultMap.put("changesWeight", result.getProfile().getBeatClusteringProfile().getChangesWeight());
+            resultMap.put("numberOfPhases", result.getNumberOfPhases());
+            resultMap.put("numberOfEntityGroups", result.getNumberOfEntityGroups());
+            resultMap.put("activeCells", result.getActiveCells());
+            resultMap.put("cellDensity", result.getCellDensity());
+            resultMap.put("largestPhaseBeats", result.getLargestPhase());
+            resultMap.put("largestEntityGroupEntities", result.getLargestEntityGroup());
+            serializedResults.add(resultMap);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("numberOfCombinations", results.size());
+        response.put("elapsedMillis", elapsedMillis);
+        response.put("results", serializedResults);
+        return response;
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    private Map<String, Object> validateClusteringRequest(ClusteringRequest request) {
+        if (request.getNumberOfPhases() < 1) {
+            return buildErrorResponse("VALIDATION_ERROR", "numberOfPhases must be at least 1");
+        }
+        if (request.getNumberOfEntityGroups() < 1) {
+            return buildErrorResponse("VALIDATION_ERROR", "numberOfEntityGroups must be at least 1");
+        }
+        if (request.getChangesWeight() < 0 || request.getChangesWeight() > 1) {
+            return buildErrorResponse("VALIDATION_ERROR", "changesWeight must be between 0 and 1");
+        }
+        if (request.getParallelism() != null && request.getParallelism() < 1) {
+            return buildErrorResponse("VALIDATION_ERROR", "parallelism must be at least 1");
+        }
+        if (request.getParallelism() != null && request.getParallelism() > getMaxClusteringParallelism()) {
+            return buildErrorResponse("VALIDATION_ERROR", "parallelism must be at most " + getMaxClusteringParallelism());
+        }
+        return null;
+    }
+
+    /**
+     * @return the configured max-parallelism, or the threads of the shared pool if it is not set
+     */
+    private int getMaxClusteringParallelism() {
+        return (maxClusteringParallelism > 0) ? maxClusteringParallelism : ParallelExecutor.getMaxParallelism();
+    }
+
+    private int getClusteringParallelism(Integer requestedParallelism) {
+        if (requestedParallelism != null) {
+            return requestedParallelism;
+        }
+        return Math.min(Math.max(1, defaultClusteringParallelism), getMaxClusteringParallelism());
+    }
+
+    private ClusteringProfile buildClusteringProfile(ClusteringRequest request, ClusteringMonitor monitor) {
+        int parallelism = getClusteringParallelism(request.getParallelism());
 
         BeatClusteringProfile beatProfile;
         if (request.isTimeClusteringEnabled()) {
             beatProfile = new BeatClusteringProfile(
                 request.getNumberOfPhases(),
                 request.getChangesWeight(),
-                false
+                false,
+                parallelism
             );
         } else {
-            beatProfile = new BeatClusteringProfile(request.getNumberOfPhases());
+            beatProfile = new BeatClusteringProfile(request.getNumberOfPhases(), 0.5, false, parallelism);
         }
 
         EntityClusteringProfile entityProfile = null;
         if (request.isEntityClusteringEnabled()) {
-            entityProfile = new EntityClusteringProfile(request.getNumberOfEntityGroups());
+            entityProfile = new EntityClusteringProfile(request.getNumberOfEntityGroups(), 0.25, 0.25, 0.5, parallelism);
         }
 
-        ClusteringProfile profile = new ClusteringProfile(beatProfile, entityProfile);
-        controller.fitDataToGroupPhaseMeasurements(profile);
+        return new ClusteringProfile(beatProfile, entityProfile, monitor);
+    }
 
-        List<Constants.MeasurementType> availableMeasurements = controller.getAvailableMeasurementTypesList();
-        List<Constants.AggregationType> availableAggregations = controller.getAvailableAggregationTypesList();
-        
-        if (!availableMeasurements.isEmpty() && !availableAggregations.isEmpty()) {
-            controller.generateChartDataOfType(
-                availableMeasurements.get(0),
-                availableAggregations.get(0)
-            );
+    /**
+     * Clusters the project's data and generates the default chart data.
+     * Synchronized on the controller, so a clustering job and a direct request
+     * never cluster the same project at the same time.
+     */
+    private Map<String, Object> runClustering(IMainController controller, ClusteringProfile profile) {
+        synchronized (controller) {
+            controller.fitDataToGroupPhaseMeasurements(profile);
+
+            List<Constants.MeasurementType> availableMeasurements = controller.getAvailableMeasurementTypesList();
+            List<Constants.AggregationType> availableAggregations = controller.getAvailableAggregationTypesList();
+
+            if (!availableMeasurements.isEmpty() && !availableAggregations.isEmpty()) {
+                controller.generateChartDataOfType(
+                    availableMeasurements.get(0),
+                    availableAggregations.get(0)
+                );
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("numberOfPhases", controller.getPhases().size());
+            response.put("numberOfEntityGroups", controller.getEntityGroups().size());
+            response.put("chartDataFootprintBytes", controller.getChartDataFootprint());
+            return response;
         }
+    }
 
+    private Map<String, Object> buildJobStatusResponse(ClusteringJob job) {
+        ClusteringMonitor monitor = job.getMonitor();
         Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("numberOfPhases", controller.getPhases().size());
-        response.put("numberOfEntityGroups", controller.getEntityGroups().size());
-
-        return ResponseEntity.ok(response);
+        response.put("jobId", job.getJobId());
+        response.put("status", job.getStatus().name());
+        response.put("mergesDone", monitor.getMergesDone());
+        response.put("mergesNeeded", monitor.getMergesNeeded());
+        response.put("percentComplete", job.getStatus() == ClusteringJob.Status.COMPLETED ?
+                100.0 : Math.round(monitor.getProgress() * 1000) / 10.0);
+        return response;
     }
 
     // CHART DATA 
@@ -380,20 +641,23 @@ public class DaintinessRestAPI {
         IMainController controller = controllerOpt.get();
         
         try {
-            ObservableList<ChartGroupPhaseMeasurement> chartData = controller.getChartData();
-            List<Phase> phases = controller.getPhases();
-
-            if (chartData == null || chartData.isEmpty() || phases == null || phases.isEmpty()) {
-                Map<String, Object> error = new HashMap<>();
-                error.put("success", false);
-                error.put("error", "No chart data available. Please perform clustering first.");
-                return ResponseEntity.badRequest().body(error);
-            }
-
             Map<String, Object> response = new HashMap<>();
-            response.put("chartData", serializeChartData(chartData, phases));
-            response.put("phases", serializePhases(phases));
-            response.put("entityGroups", serializeEntityGroups(controller.getEntityGroups()));
+            // The chart rows, phases and groups of one clustering, which a job or a sort would replace meanwhile
+            synchronized (controller) {
+                ObservableList<ChartGroupPhaseMeasurement> chartData = controller.getChartData();
+                List<Phase> phases = controller.getPhases();
+
+                if (chartData == null || chartData.isEmpty() || phases == null || phases.isEmpty()) {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("success", false);
+                    error.put("error", "No chart data available. Please perform clustering first.");
+                    return ResponseEntity.badRequest().body(error);
+                }
+
+                response.put("chartData", serializeChartData(chartData, phases));
+                response.put("phases", serializePhases(phases));
+                response.put("entityGroups", serializeEntityGroups(controller.getEntityGroups()));
+            }
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -416,19 +680,21 @@ public class DaintinessRestAPI {
 
         IMainController controller = controllerOpt.get();
 
-        List<Phase> phases = controller.getPhases();
-        if (phases == null || phases.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "Cannot generate chart data. Please perform clustering first.");
-            return ResponseEntity.badRequest().body(error);
-        }
-        
         try {
             Constants.MeasurementType measurementType = Constants.MeasurementType.valueOf(request.getMeasurementType());
             Constants.AggregationType aggregationType = Constants.AggregationType.valueOf(request.getAggregationType());
             
-            controller.generateChartDataOfType(measurementType, aggregationType);
+            synchronized (controller) {
+                List<Phase> phases = controller.getPhases();
+                if (phases == null || phases.isEmpty()) {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("success", false);
+                    error.put("error", "Cannot generate chart data. Please perform clustering first.");
+                    return ResponseEntity.badRequest().body(error);
+                }
+
+                controller.generateChartDataOfType(measurementType, aggregationType);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -451,14 +717,16 @@ public class DaintinessRestAPI {
         IMainController controller = controllerOpt.get();
         
         Map<String, Object> response = new HashMap<>();
-        response.put("measurementTypes", controller.getAvailableMeasurementTypesList().stream()
-            .map(Enum::name).collect(Collectors.toList()));
-        response.put("aggregationTypes", controller.getAvailableAggregationTypesList().stream()
-            .map(Enum::name).collect(Collectors.toList()));
-        response.put("currentMeasurementType", controller.getMeasurementType() != null ? 
-            controller.getMeasurementType().name() : null);
-        response.put("currentAggregationType", controller.getAggregationType() != null ?
-            controller.getAggregationType().name() : null);
+        synchronized (controller) {
+            response.put("measurementTypes", controller.getAvailableMeasurementTypesList().stream()
+                .map(Enum::name).collect(Collectors.toList()));
+            response.put("aggregationTypes", controller.getAvailableAggregationTypesList().stream()
+                .map(Enum::name).collect(Collectors.toList()));
+            response.put("currentMeasurementType", controller.getMeasurementType() != null ? 
+                controller.getMeasurementType().name() : null);
+            response.put("currentAggregationType", controller.getAggregationType() != null ?
+                controller.getAggregationType().name() : null);
+        }
 
         return ResponseEntity.ok(response);
     }
@@ -476,18 +744,20 @@ public class DaintinessRestAPI {
         }
 
         IMainController controller = controllerOpt.get();
-        
-        ObservableList<ChartGroupPhaseMeasurement> chartData = controller.getChartData();
-        if (chartData == null || chartData.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "No data to sort. Please perform clustering first.");
-            return ResponseEntity.badRequest().body(error);
-        }
 
         try {
             Constants.SortingType type = Constants.SortingType.valueOf(sortType);
-            controller.sortChartData(type);
+            synchronized (controller) {
+                ObservableList<ChartGroupPhaseMeasurement> chartData = controller.getChartData();
+                if (chartData == null || chartData.isEmpty()) {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("success", false);
+                    error.put("error", "No data to sort. Please perform clustering first.");
+                    return ResponseEntity.badRequest().body(error);
+                }
+
+                controller.sortChartData(type);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -510,7 +780,10 @@ public class DaintinessRestAPI {
     @GetMapping("/projects/{projectId}/patterns")
     public ResponseEntity<?> getPatterns(
             @PathVariable String projectId,
-            @RequestParam(required = false, defaultValue = "NO_TYPE") String patternType) {
+            @RequestParam(required = false, defaultValue = "NO_TYPE") String patternType,
+            @RequestParam(required = false) Integer threshold,
+            @RequestParam(required = false) Integer ladderPhaseWindow,
+            @RequestParam(required = false) Integer ladderEntityWindow) {
         
         Optional<IMainController> controllerOpt = projectStore.get(projectId);
         if (controllerOpt.isEmpty()) {
@@ -518,17 +791,32 @@ public class DaintinessRestAPI {
         }
 
         IMainController controller = controllerOpt.get();
+
+        if ((threshold != null && threshold < 0) || (ladderPhaseWindow != null && ladderPhaseWindow < 0) ||
+                (ladderEntityWindow != null && ladderEntityWindow < 0)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "threshold, ladderPhaseWindow and ladderEntityWindow must not be negative");
+            return ResponseEntity.badRequest().body(error);
+        }
         
         try {
-            Constants.PatternType type = Constants.PatternType.valueOf(patternType);
-            List<PatternData> patterns = controller.getPatterns(type);
+            // The patterns are detected on the clustering of the controller and cached until it changes
+            synchronized (controller) {
+                Constants.PatternType type = Constants.PatternType.valueOf(patternType);
+                // Other parameters than the defaults are evaluated from the pattern summary of the chart data
+                List<PatternData> patterns = controller.getPatterns(type,
+                        (threshold != null) ? threshold : PatternComputationHandler.DEFAULT_THRESHOLD,
+                        (ladderPhaseWindow != null) ? ladderPhaseWindow : LadderAlgo.DEFAULT_PHASE_WINDOW,
+                        (ladderEntityWindow != null) ? ladderEntityWindow : LadderAlgo.DEFAULT_ENTITY_WINDOW);
             
-            if (patterns == null) {
-                // Return empty list, not an error - patterns just haven't been computed yet
-                return ResponseEntity.ok(new ArrayList<>());
-            }
+                if (patterns == null) {
+                    // Return empty list, not an error - patterns just haven't been computed yet
+                    return ResponseEntity.ok(new ArrayList<>());
+                }
 
-            return ResponseEntity.ok(serializePatterns(patterns));
+                return ResponseEntity.ok(serializePatterns(patterns));
+            }
         } catch (IllegalArgumentException e) {
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
@@ -554,64 +842,55 @@ public class DaintinessRestAPI {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            daintiness.clustering.EntityGroup entityGroup = controller.getEntityGroupById(entityGroupId);
-            if (entityGroup == null) {
-                return ResponseEntity.badRequest().body(
-                    buildErrorResponse("NOT_FOUND", "EntityGroup not found: " + entityGroupId));
-            }
-            
-            response.put("entityGroupId", entityGroup.getEntityGroupId());
-            response.put("entityNames", entityGroup.getGroupComponentsNames());
-            response.put("birthBeat", entityGroup.getLifeDetails().getBirthBeatId());
-            response.put("deathBeat", entityGroup.getLifeDetails().getDeathBeatId());
-            response.put("isAlive", entityGroup.getLifeDetails().isAlive());
-            response.put("duration", entityGroup.getLifeDetails().getDuration());
-
-            daintiness.clustering.Phase phase = controller.getPhaseById(phaseId);
-            if (phase == null) {
-                return ResponseEntity.badRequest().body(
-                    buildErrorResponse("NOT_FOUND", "Phase not found: " + phaseId));
-            }
-            
-            List<Integer> phaseBeats = phase.getPhaseComponentsIdList();
-            response.put("phaseId", phase.getPhaseId());
-            response.put("phaseBeats", phaseBeats);
-            response.put("phaseStart", phaseBeats.get(0));
-            response.put("phaseEnd", phaseBeats.get(phaseBeats.size() - 1));
-            response.put("phaseBeatCount", phaseBeats.size());
-
-            String gpmType = entityGroup.getGPMType(
-                phaseBeats.get(0),
-                phaseBeats.get(phaseBeats.size() - 1)
-            ).toString();
-            response.put("gpmType", gpmType);
-
-            ObservableList<ChartGroupPhaseMeasurement> chartData = controller.getChartData();
-            Double cellValue = null;
-            String color = null;
+            synchronized (controller) {
+                daintiness.clustering.EntityGroup entityGroup = controller.getEntityGroupById(entityGroupId);
+                if (entityGroup == null) {
+                    return ResponseEntity.badRequest().body(
+                        buildErrorResponse("NOT_FOUND", "EntityGroup not found: " + entityGroupId));
+                }
             
-            for (ChartGroupPhaseMeasurement cgpm : chartData) {
-                if (cgpm.getEntityGroup().getEntityGroupId() == entityGroupId) {
-                    daintiness.models.measurement.IMeasurement measurement = cgpm.getMeasurement(phaseId);
-                    if (measurement != null) {
-                        cellValue = measurement.getValue();
-                        color = measurement.getColor();
-                    }
-                    break;
+                response.put("entityGroupId", entityGroup.getEntityGroupId());
+                response.put("entityNames", entityGroup.getGroupComponentsNames());
+                response.put("birthBeat", entityGroup.getLifeDetails().getBirthBeatId());
+                response.put("deathBeat", entityGroup.getLifeDetails().getDeathBeatId());
+                response.put("isAlive", entityGroup.getLifeDetails().isAlive());
+                response.put("duration", entityGroup.getLifeDetails().getDuration());
+
+                daintiness.clustering.Phase phase = controller.getPhaseById(phaseId);
+                if (phase == null) {
+                    return ResponseEntity.badRequest().body(
+                        buildErrorResponse("NOT_FOUND", "Phase not found: " + phaseId));
                 }
-            }
             
-            response.put("value", cellValue);
-            response.put("color", color);
-            response.put("aggregationType", controller.getAggregationType().toString());
-            response.put("measurementType", controller.getMeasurementType().toString());
+                List<Integer> phaseBeats = phase.getPhaseComponentsIdList();
+                response.put("phaseId", phase.getPhaseId());
+                response.put("phaseBeats", phaseBeats);
+                response.put("phaseStart", phaseBeats.get(0));
+                response.put("phaseEnd", phaseBeats.get(phaseBeats.size() - 1));
+                response.put("phaseBeatCount", phaseBeats.size());
+
+                String gpmType = entityGroup.getGPMType(
+                    phaseBeats.get(0),
+                    phaseBeats.get(phaseBeats.size() - 1)
+                ).toString();
+                response.put("gpmType", gpmType);
+
+                daintiness.models.measurement.IMeasurement measurement = controller.getCellMeasurement(entityGroupId, phaseId);
+                Double cellValue = (measurement != null) ? measurement.getValue() : null;
+                String color = (measurement != null) ? measurement.getColor() : null;
+            
+                response.put("value", cellValue);
+                response.put("color", color);
+                response.put("aggregationType", controller.getAggregationType().toString());
+                response.put("measurementType", controller.getMeasurementType().toString());
             
-            List<Map<String, Object>> breakdown = controller.getCellBreakdown(entityGroupId, phaseId);
-            response.put("breakdown", breakdown);
+                List<Map<String, Object>> breakdown = controller.getCellBreakdown(entityGroupId, phaseId);
+                response.put("breakdown", breakdown);
             
-            String patternType = findPatternForCell(controller, entityGroupId, phaseId);
-            response.put("pattern", patternType);
+                String patternType = findPatternForCell(controller, entityGroupId, phaseId);
+                response.put("pattern", patternType);
             
+            }
             response.put("success", true);
             return ResponseEntity.ok(response);
             
@@ -625,23 +904,8 @@ public class DaintinessRestAPI {
 
     private String findPatternForCell(IMainController controller, int entityGroupId, int phaseId) {
         try {
-            for (Constants.PatternType patternType : Constants.PatternType.values()) {
-                if (patternType == Constants.PatternType.NO_TYPE) continue;
-                
-                List<PatternData> patterns = controller.getPatterns(patternType);
-                if (patterns == null) continue;
-                
-                for (PatternData pattern : patterns) {
-                    for (daintiness.models.CellInfo cell : pattern.getPatternCellsList()) {
-                        daintiness.clustering.EntityGroup group = controller.getEntityGroupById(entityGroupId);
-                        if (group != null && 
-                            group.getGroupComponentsNames().contains(cell.getEntityName()) &&
-                            cell.getPhaseId() == phaseId) {
-                            return pattern.getPatternType().toString();
-                        }
-                    }
-                }
-            }
+            Constants.PatternType patternType = controller.getCellPatternType(entityGroupId, phaseId);
+            return (patternType != null) ? patternType.toString() : null;
         } catch (Exception e) {
             logger.debug("Could not check patterns for cell: {}", e.getMessage());
         }
@@ -649,37 +913,25 @@ public class DaintinessRestAPI {
     }
     
     @PostMapping("/projects/{projectId}/patterns/export")
-    public ResponseEntity<?> exportPatterns(
-            @PathVariable String projectId) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportPatterns(
+            @PathVariable String projectId) {
         
-        Optional<IMainController> controllerOpt = projectStore.get(projectId);
-        if (controllerOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        IMainController controller = controllerOpt.get();
+        IMainController controller = projectStore.get(projectId)
+            .orElseThrow(() -> new GlobalExceptionHandler.ProjectNotFoundException(projectId));
         
-        List<PatternData> patterns = controller.getPatterns(Constants.PatternType.NO_TYPE);
-        if (patterns == null || patterns.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "No patterns to export. Please detect patterns first using the Patterns panel.");
-            return ResponseEntity.badRequest().body(error);
+        StreamingResponseBody body;
+        synchronized (controller) {
+            List<PatternData> patterns = controller.getPatterns(Constants.PatternType.NO_TYPE);
+            if (patterns == null || patterns.isEmpty()) {
+                throw new IllegalArgumentException("No patterns to export. Please detect patterns first using the Patterns panel.");
+            }
+            body = controller.createPatternsExport(patterns)::writeTo;
         }
-        
-        Path tempFile = Files.createTempFile("patterns-", ".txt");
-        controller.printPatterns(tempFile.toFile());
-        
-        byte[] data = Files.readAllBytes(tempFile);
-        ByteArrayResource resource = new ByteArrayResource(data);
-        
-        Files.deleteIfExists(tempFile);
 
         return ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=patterns.txt")
             .contentType(MediaType.TEXT_PLAIN)
-            .contentLength(data.length)
-            .body(resource);
+            .body(body);
     }
 
     // HELPER METHODS 
@@ -714,7 +966,7 @@ public class DaintinessRestAPI {
                 phaseData.put("gpmType", gpmType.name());
                 
                 if (gpmType.equals(Constants.GPMType.ACTIVE) && gpm.containsMeasurementInPhase(phaseId)) {
-                    String color = gpm.getMeasurement(phaseId).getColor();
+                    String color = gpm.getColor(phaseId);
                     phaseData.put("color", color);
                 } else {
                     phaseData.put("color", getColorForGPMType(gpmType));
@@ -820,34 +1072,22 @@ public class DaintinessRestAPI {
     // SAVE DATA 
 
     @PostMapping("/projects/{projectId}/saveData")
-    public ResponseEntity<?> saveData(@PathVariable String projectId) throws IOException {
-        Optional<IMainController> controllerOpt = projectStore.get(projectId);
-        if (controllerOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        IMainController controller = controllerOpt.get();
+    public ResponseEntity<StreamingResponseBody> saveData(@PathVariable String projectId) {
+        IMainController controller = projectStore.get(projectId)
+            .orElseThrow(() -> new GlobalExceptionHandler.ProjectNotFoundException(projectId));
         
-        if (controller.getNumberOfBeats() == 0 || controller.getNumberOfEntities() == 0) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "No data to save. Please load a file first.");
-            return ResponseEntity.badRequest().body(error);
+        StreamingResponseBody body;
+        synchronized (controller) {
+            if (controller.getNumberOfBeats() == 0 || controller.getNumberOfEntities() == 0) {
+                throw new IllegalArgumentException("No data to save. Please load a file first.");
+            }
+            body = controller.createDataExport()::writeTo;
         }
-        
-        Path tempFile = Files.createTempFile("data-export-", ".tsv");
-        controller.save(tempFile.toFile());
-        
-        byte[] data = Files.readAllBytes(tempFile);
-        ByteArrayResource resource = new ByteArrayResource(data);
-        
-        Files.deleteIfExists(tempFile);
 
         return ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=data-export.tsv")
             .contentType(MediaType.parseMediaType("text/tab-separated-values"))
-            .contentLength(data.length)
-            .body(resource);
+            .body(body);
     }
 
     // SESSION MANAGEMENT
@@ -883,6 +1123,7 @@ public class DaintinessRestAPI {
         private double changesWeight;
         private boolean timeClusteringEnabled;
         private boolean entityClusteringEnabled;
+        private Integer parallelism;
 
         public int getNumberOfPhases() { return numberOfPhases; }
         public void setNumberOfPhases(int numberOfPhases) { this.numberOfPhases = numberOfPhases; }
@@ -904,6 +1145,30 @@ public class DaintinessRestAPI {
         public void setEntityClusteringEnabled(boolean entityClusteringEnabled) { 
             this.entityClusteringEnabled = entityClusteringEnabled; 
         }
+
+        public Integer getParallelism() { return parallelism; }
+        public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
+    }
+
+    public static class ClusteringSweepRequest {
+        private List<Integer> numberOfPhases;
+        private List<Integer> numberOfEntityGroups;
+        private List<Double> changesWeights;
+        private Integer parallelism;
+
+        public List<Integer> getNumberOfPhases() { return numberOfPhases; }
+        public void setNumberOfPhases(List<Integer> numberOfPhases) { this.numberOfPhases = numberOfPhases; }
+
+        public List<Integer> getNumberOfEntityGroups() { return numberOfEntityGroups; }
+        public void setNumberOfEntityGroups(List<Integer> numberOfEntityGroups) {
+            this.numberOfEntityGroups = numberOfEntityGroups;
+        }
+
+        public List<Double> getChangesWeights() { return changesWeights; }
+        public void setChangesWeights(List<Double> changesWeights) { this.changesWeights = changesWeights; }
+
+        public Integer getParallelism() { return parallelism; }
+        public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
     }
 
     public static class ChartDataRequest {
@@ -48,10 +48,28 @@ public class ProjectStore {
     @Value("${daintiness.session.max-sessions:100}")
     private int maxSessions;
 
+    @Value("${daintiness.chart.precompute:true}")
+    private boolean precomputeChartData;
+
+    @Value("${daintiness.chart.max-grid-cells:5000000}")
+    private long maxChartGridCells;
+
+    @Value("${daintiness.loading.parallelism:1}")
+    private int loadingParallelism;
+
+    @Value("${daintiness.loading.memory-mapped:true}")
+    private boolean memoryMappedLoading;
+
+    @Value("${daintiness.data.columnar:true}")
+    private boolean columnarData;
+
+    @Value("${daintiness.patterns.parallelism:1}")
+    private int patternParallelism;
+
     @PostConstruct
     public void init() {
-        logger.info("ProjectStore initialized with session timeout: {} minutes, max sessions: {}", 
-                    sessionTimeoutMinutes, maxSessions);
+        logger.info("ProjectStore initialized with session timeout: {} minutes, max sessions: {}, precomputed chart data: {} (at most {} cells), loading parallelism: {}, memory-mapped loading: {}, columnar data: {}, pattern parallelism: {}",
+                    sessionTimeoutMinutes, maxSessions, precomputeChartData, maxChartGridCells, loadingParallelism, memoryMappedLoading, columnarData, patternParallelism);
     }
 
     public String createProject() {
@@ -64,6 +82,12 @@ public class ProjectStore {
         
         String id = UUID.randomUUID().toString();
         IMainController controller = factory.getMainController("SIMPLE_MAIN_CONTROLLER");
+        controller.setPrecomputeChartData(precomputeChartData);
+        controller.setMaxChartGridCells(maxChartGridCells);
+        controller.setLoadingParallelism(loadingParallelism);
+        controller.setMemoryMappedLoading(memoryMappedLoading);
+        controller.setColumnarData(columnarData);
+        controller.setPatternParallelism(patternParallelism);
         projects.put(id, new ProjectSession(controller));
         logger.info("Created project: {} (active sessions: {}/{})", id, projects.size(), effectiveMaxSessions);
         return id;
@@ -2,21 +2,25 @@ package daintiness.clustering;
 
 import java.util.*;
 
+import daintiness.data.ColumnarDataHandler;
 import daintiness.data.DataHandler;
 import daintiness.data.IDataHandler;
 import daintiness.models.Beat;
 import daintiness.models.TimeEntityMeasurements;
 import daintiness.utilities.Constants;
+import daintiness.utilities.ParallelExecutor;
 
 public class AgglomerativePhaseExtractor implements IPhaseExtractor{
     private Constants.MeasurementType measurementType = Constants.MeasurementType.RAW_VALUE;
     private Constants.AggregationType aggregationType = Constants.AggregationType.SUM_OF_ALL;
-    private final BeatClusteringProfile profile;
+    protected final BeatClusteringProfile profile;
+    protected ClusteringMonitor monitor = new ClusteringMonitor();
+    private PhaseDendrogram dendrogram;
 
     private final IDataHandler dataHandler;
 
-    private List<Phase> phaseList;
-    private Map<Integer, Map<String, Double>> phaseToEntityValueMap;
+    protected List<Phase> phaseList;
+    protected Map<Integer, Map<String, Double>> phaseToEntityValueMap;
 
 
     // Default constructor;
@@ -39,50 +43,82 @@ public class AgglomerativePhaseExtractor implements IPhaseExtractor{
         this.dataHandler = dataHandler;
     }
 
+    @Override
+    public void setMonitor(ClusteringMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void setDendrogram(PhaseDendrogram dendrogram) {
+        this.dendrogram = dendrogram;
+    }
+
     public List<Phase> clusterData() {
         // 1. Create a phase for every Beat
         init();
 
         // 2. Repeat until there is the desired number of phases
+        ParallelExecutor executor = new ParallelExecutor(profile.getParallelism());
         while(phaseList.size() > profile.getDesiredNumberOfPhases()) {
+            monitor.checkCancelled();
+            double[] distances = new double[phaseList.size() - 1];
+            executor.forEach(0, distances.length,
+                    i -> distances[i] = calculatePairDistance(phaseList.get(i), phaseList.get(i+1)));
 
             double minDistance = Double.MAX_VALUE;
             int minIndex = 0;
 
-            for (int i=0; i<(phaseList.size() - 1); i++) {
-                int currentPhaseId = phaseList.get(i).getPhaseId();
-                int nextPhaseId = phaseList.get(i+1).getPhaseId();
-
-
-                Map<String, Double> currentTEMMap = phaseToEntityValueMap.get(currentPhaseId);
-                Map<String, Double> nextTEMMap = phaseToEntityValueMap.get(nextPhaseId);
-
-                double changeDistance = calculateDistance(currentTEMMap, nextTEMMap);
-                double timeDistance = calculateTimeDistance(phaseList.get(i), phaseList.get(i+1));
-
-                double distance = (profile.getChangesWeight() * changeDistance) + (profile.getTimeWeight() * timeDistance);
-                if (minDistance > distance) {
-                    minDistance = distance;
+            for (int i=0; i<distances.length; i++) {
+                if (minDistance > distances[i]) {
+                    minDistance = distances[i];
                     minIndex = i;
                 }
             }
             mergePhases(minIndex);
+            monitor.mergeDone();
         }
 
-        // Rename the phases
+        renamePhases();
+
+        return phaseList;
+    }
+
+    protected void renamePhases() {
         int i = 0;
         for (Phase phase : phaseList) {
             phase.setPhaseId(i);
             i++;
         }
-        
-        return phaseList;
+    }
+
+    /**
+     * Weighted distance of two neighbouring phases.
+     * While clustering is in progress the phaseIds are still the ids of the phases' first beats.
+     */
+    protected double calculatePairDistance(Phase currentPhase, Phase nextPhase) {
+        Map<String, Double> currentTEMMap = phaseToEntityValueMap.get(currentPhase.getPhaseId());
+        Map<String, Double> nextTEMMap = phaseToEntityValueMap.get(nextPhase.getPhaseId());
+
+        double changeDistance = calculateDistance(currentTEMMap, nextTEMMap);
+        double timeDistance = calculateTimeDistance(currentPhase, nextPhase);
+
+        return (profile.getChangesWeight() * changeDistance) + (profile.getTimeWeight() * timeDistance);
     }
 
     private void mergePhases(int minIndex) {
-        Phase currentPhase = phaseList.get(minIndex);
-        Phase nextPhase = phaseList.get(minIndex + 1);
+        mergePhaseValues(phaseList.get(minIndex), phaseList.get(minIndex + 1));
+        phaseList.remove(minIndex + 1);
+    }
+
+    /**
+     * Merges nextPhase into currentPhase and folds the entity values of nextPhase into
+     * the values of currentPhase. The caller is responsible for dropping nextPhase.
+     */
+    protected void mergePhaseValues(Phase currentPhase, Phase nextPhase) {
         currentPhase.mergeWithPhase(nextPhase);
+        if (dendrogram != null) {
+            dendrogram.addMerge(nextPhase.getPhaseId());
+        }
 
         // Update map
         for (String entityName: phaseToEntityValueMap.get(nextPhase.getPhaseId()).keySet()) {
@@ -97,17 +133,21 @@ public class AgglomerativePhaseExtractor implements IPhaseExtractor{
 
         // Remove merged phase
         phaseToEntityValueMap.remove(nextPhase.getPhaseId());
-        phaseList.remove(minIndex + 1);
     }
 
     private double calculateTimeDistance(Phase currentPhase, Phase nextPhase) {
         return nextPhase.getPhaseId() - currentPhase.getPhaseId();
     }
 
-    private void init() {
+    protected void init() {
         phaseList = new ArrayList<>();
         phaseToEntityValueMap = new HashMap<>();
 
+        if (dataHandler instanceof ColumnarDataHandler) {
+            initFromColumns((ColumnarDataHandler) dataHandler);
+            return;
+        }
+
         Map<Integer, Map<String , TimeEntityMeasurements>> beatIdToTEMMap = dataHandler.getBeatIdToTEMMap();
 
         int phaseId = 0;
@@ -128,6 +168,30 @@ public class AgglomerativePhaseExtractor implements IPhaseExtractor{
         }
     }
 
+    /**
+     * Like init(), reading the values from the measurement column instead of the TimeEntityMeasurements.
+     */
+    private void initFromColumns(ColumnarDataHandler columnarDataHandler) {
+        int measurementColumn = columnarDataHandler.findMeasurementColumn(measurementType, aggregationType);
+        double[] values = (measurementColumn == -1) ? null : columnarDataHandler.getMeasurementColumn(measurementColumn);
+        int[] columnOffsets = columnarDataHandler.getColumnOffsets();
+        int[] columnCells = columnarDataHandler.getColumnCells();
+        List<Beat> timeline = dataHandler.getTimeline();
+
+        for (int phaseId = 0; phaseId < timeline.size(); phaseId++) {
+            phaseList.add(new Phase(phaseId, timeline.get(phaseId)));
+
+            Map<String, Double> entityValues = new HashMap<>();
+            for (int position = columnOffsets[phaseId]; position < columnOffsets[phaseId + 1]; position++) {
+                int cell = columnCells[position];
+                // A cell without the measurement counts as 0, as getMeasurementOfType returns
+                double value = (values == null || Double.isNaN(values[cell])) ? 0 : values[cell];
+                entityValues.put(dataHandler.getEntity(columnarDataHandler.getCellRow(cell)).getEntityName(), value);
+            }
+            phaseToEntityValueMap.put(phaseId, entityValues);
+        }
+    }
+
     private double calculateDistance(Map<String, Double> currentTEMMap, Map<String, Double> nextTEMMap) {
         int currentMapSize = currentTEMMap.size();
         int nextMapSize = nextTEMMap.size();
@@ -8,6 +8,7 @@ public class BeatClusteringProfile {
     private final int desiredNumberOfPhases;
     private final double changesWeight;
     private final boolean withPreprocessing;
+    private final int parallelism;
 
     /**
      * @param desiredNumberOfPhases number of desired phases
@@ -15,9 +16,20 @@ public class BeatClusteringProfile {
      * @param withPreprocessing boolean
      */
     public BeatClusteringProfile(int desiredNumberOfPhases, double changesWeight, boolean withPreprocessing) {
+        this(desiredNumberOfPhases, changesWeight, withPreprocessing, 1);
+    }
+
+    /**
+     * @param desiredNumberOfPhases number of desired phases
+     * @param changesWeight changes weight
+     * @param withPreprocessing boolean
+     * @param parallelism number of threads used for the distance calculations
+     */
+    public BeatClusteringProfile(int desiredNumberOfPhases, double changesWeight, boolean withPreprocessing, int parallelism) {
         this.desiredNumberOfPhases = desiredNumberOfPhases;
         this.changesWeight = changesWeight;
         this.withPreprocessing = withPreprocessing;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -28,6 +40,7 @@ public class BeatClusteringProfile {
         this.desiredNumberOfPhases = desiredNumberOfPhases;
         this.changesWeight = 0.5f;
         this.withPreprocessing = false;
+        this.parallelism = 1;
     }
 
     /**
@@ -57,4 +70,11 @@ public class BeatClusteringProfile {
     public boolean isWithPreprocessing() {
         return withPreprocessing;
     }
+
+    /**
+     * @return number of threads used for the distance calculations
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
 }
@@ -3,18 +3,23 @@ package daintiness.clustering;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
-import java.text.NumberFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import daintiness.clustering.measurements.ChartEntityGroupMeasurementsComparator;
+import daintiness.clustering.measurements.ChartGrid;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.clustering.measurements.GroupMeasurements;
 import daintiness.clustering.measurements.GroupPhaseMeasurement;
+import daintiness.clustering.measurements.GroupPhaseMeasurementAggregator;
 import daintiness.data.IDataHandler;
+import daintiness.io.output.FastNumberFormatter;
 import daintiness.models.Entity;
 import daintiness.models.LifeDetails;
 import daintiness.models.measurement.IMeasurement;
 import daintiness.utilities.Constants;
+import daintiness.utilities.ParallelExecutor;
 
 public class ClusteringHandler implements IClusteringHandler {
     private IDataHandler dataHandler;
@@ -22,6 +27,11 @@ public class ClusteringHandler implements IClusteringHandler {
     private List<Phase> phases;
     private List<EntityGroup> entityGroups;
     private List<GroupMeasurements> groupMeasurementsList;
+    private int[] beatIdToPhaseIndex;
+    private int parallelism = 1;
+    private DendrogramCache dendrogramCache;
+    private boolean precomputeChartData = true;
+    private long maxChartGridCells = 0;
 
     private Map<Constants.MeasurementType, Map<Constants.AggregationType, Double>> maxMeasurementMap;
     private Map<Constants.MeasurementType, Map<Constants.AggregationType, Double>> minMeasurementMap;
@@ -33,6 +43,7 @@ public class ClusteringHandler implements IClusteringHandler {
     private Constants.AggregationType aggregationType;
 
     private ObservableList<ChartGroupPhaseMeasurement> chartData;
+    private Map<Constants.MeasurementType, Map<Constants.AggregationType, ChartGrid>> chartGrids;
 
 
     public ClusteringHandler() {
@@ -42,6 +53,7 @@ public class ClusteringHandler implements IClusteringHandler {
         phases = new ArrayList<>();
         entityGroups = new ArrayList<>();
         groupMeasurementsList = new ArrayList<>();
+        chartGrids = new HashMap<>();
     }
 
     @Override
@@ -50,6 +62,32 @@ public class ClusteringHandler implements IClusteringHandler {
         initializeMeasurementTypes(dataHandler.getType());
     }
 
+    @Override
+    public void setDendrogramCache(DendrogramCache dendrogramCache) {
+        this.dendrogramCache = dendrogramCache;
+    }
+
+    @Override
+    public void setPrecomputeChartData(boolean precomputeChartData) {
+        this.precomputeChartData = precomputeChartData;
+    }
+
+    @Override
+    public void setMaxChartGridCells(long maxChartGridCells) {
+        this.maxChartGridCells = maxChartGridCells;
+    }
+
+    @Override
+    public long getChartDataFootprint() {
+        long footprint = 0;
+        for (Map<Constants.AggregationType, ChartGrid> aggregationTypeToGridMap : chartGrids.values()) {
+            for (ChartGrid grid : aggregationTypeToGridMap.values()) {
+                footprint += grid.getFootprint();
+            }
+        }
+        return footprint;
+    }
+
     @Override
     public List<Phase> getPhases() {
         return phases;
@@ -93,8 +131,28 @@ public class ClusteringHandler implements IClusteringHandler {
 
     @Override
     public void clusterData(ClusteringProfile profile) {
-        generatePhases(profile.getBeatClusteringProfile());
-        generateEntityGroups(profile.getEntityClusteringProfile());
+        ClusteringMonitor monitor = profile.getMonitor();
+        BeatClusteringProfile beatProfile = profile.getBeatClusteringProfile();
+        EntityClusteringProfile entityProfile = profile.getEntityClusteringProfile();
+        if (beatProfile != null) {
+            parallelism = beatProfile.getParallelism();
+            if (dendrogramCache == null) {
+                monitor.addMergesNeeded(dataHandler.getTimeline().size() - beatProfile.getDesiredNumberOfPhases());
+            } else if (dendrogramCache.getPhaseDendrogram(beatProfile, dataHandler) == null) {
+                // The dendrogram is built down to a single phase
+                monitor.addMergesNeeded(dataHandler.getTimeline().size() - 1);
+            }
+        }
+        if (entityProfile != null) {
+            if (dendrogramCache == null) {
+                monitor.addMergesNeeded(dataHandler.getPopulation().size() - entityProfile.getDesiredNumberOfEntityGroups());
+            } else if (dendrogramCache.getEntityGroupDendrogram(entityProfile, dataHandler) == null) {
+                monitor.addMergesNeeded(dataHandler.getPopulation().size() - 1);
+            }
+        }
+
+        generatePhases(profile.getBeatClusteringProfile(), monitor);
+        generateEntityGroups(profile.getEntityClusteringProfile(), monitor);
         generateGroupMeasurements();
         generateChartData(measurementType, aggregationType);
     }
@@ -104,6 +162,12 @@ public class ClusteringHandler implements IClusteringHandler {
         this.measurementType = measurementType;
         this.aggregationType = aggregationType;
 
+        ChartGrid grid = getChartGrid(measurementType, aggregationType);
+        if (grid != null) {
+            setChartData(grid.getRows());
+            return;
+        }
+
         List<ChartGroupPhaseMeasurement> chartDataList= new ArrayList<>();
         for (GroupMeasurements groupMeasurements: groupMeasurementsList) {
             ChartGroupPhaseMeasurement chartGroupPhaseMeasurement = new ChartGroupPhaseMeasurement(groupMeasurements.getEntityGroup());
@@ -115,7 +179,10 @@ public class ClusteringHandler implements IClusteringHandler {
             }
             chartDataList.add(chartGroupPhaseMeasurement);
         }
+        setChartData(chartDataList);
+    }
 
+    private void setChartData(List<ChartGroupPhaseMeasurement> chartDataList) {
         if (chartData == null) {
             chartData = FXCollections.observableArrayList(chartDataList);
         } else {
@@ -124,11 +191,25 @@ public class ClusteringHandler implements IClusteringHandler {
     }
 
 
-    private void generatePhases(BeatClusteringProfile profile) {
+    private void generatePhases(BeatClusteringProfile profile, ClusteringMonitor monitor) {
     	PhaseExtractorFactory factory = new PhaseExtractorFactory();
-    	IPhaseExtractor phaseExtractor = factory.getPhaseExtractor("AGGLOMERATIVE", profile, dataHandler);
+        if (dendrogramCache == null) {
+            IPhaseExtractor phaseExtractor = factory.getPhaseExtractor("AGGLOMERATIVE_HEAP", profile, dataHandler);
+            phaseExtractor.setMonitor(monitor);
 
-        phases = phaseExtractor.clusterData();
+            phases = phaseExtractor.clusterData();
+            return;
+        }
+
+        PhaseDendrogram dendrogram = dendrogramCache.getPhaseDendrogram(profile, dataHandler);
+        if (dendrogram == null) {
+            // Cluster down to a single phase once; any number of phases is then a cut of the dendrogram
+            dendrogram = new PhaseDendrogram(profile, dataHandler);
+            dendrogram.build(profile.getParallelism(), monitor);
+            monitor.removeMergesNeeded(dataHandler.getTimeline().size() - 1 - dendrogram.getNumberOfMerges());
+            dendrogramCache.setPhaseDendrogram(dendrogram);
+        }
+        phases = dendrogram.cut(profile.getDesiredNumberOfPhases());
     }
 
     @Override
@@ -177,38 +258,117 @@ public class ClusteringHandler implements IClusteringHandler {
 
     }
 
-    private void generateEntityGroups(EntityClusteringProfile profile) {
-        EntityGroupExtractor entityGroupExtractor = new EntityGroupExtractor(profile, dataHandler);
-        
-        entityGroups = entityGroupExtractor.clusterData();
+    private void generateEntityGroups(EntityClusteringProfile profile, ClusteringMonitor monitor) {
+        EntityGroupExtractorFactory factory = new EntityGroupExtractorFactory();
+        if (dendrogramCache == null) {
+            IEntityGroupExtractor entityGroupExtractor = factory.getPhaseExtractor("AGGLOMERATIVE_MATRIX", profile, dataHandler);
+            entityGroupExtractor.setMonitor(monitor);
+
+            entityGroups = entityGroupExtractor.clusterData();
+            return;
+        }
+
+        EntityGroupDendrogram dendrogram = dendrogramCache.getEntityGroupDendrogram(profile, dataHandler);
+        if (dendrogram == null) {
+            // Cluster down to a single entityGroup once; any number of entityGroups is then a cut of the dendrogram
+            dendrogram = new EntityGroupDendrogram(profile, dataHandler);
+            dendrogram.build(profile.getParallelism(), monitor);
+            monitor.removeMergesNeeded(dataHandler.getPopulation().size() - 1 - dendrogram.getNumberOfMerges());
+            dendrogramCache.setEntityGroupDendrogram(dendrogram);
+        }
+        entityGroups = dendrogram.cut(profile.getDesiredNumberOfEntityGroups());
     }
 
 
     private void generateGroupMeasurements() {
         groupMeasurementsList = new ArrayList<>();
+        indexBeatsByPhase();
+
+        GroupPhaseMeasurementAggregator aggregator =
+                new GroupPhaseMeasurementAggregator(dataHandler, phases, entityGroups, beatIdToPhaseIndex);
+        List<List<GroupPhaseMeasurement>> groupPhaseMeasurementLists =
+                aggregator.aggregate(new ParallelExecutor(parallelism));
+
+        for (int i = 0; i < entityGroups.size(); i++) {
+            // Only the non-empty GroupPhaseMeasurements are kept, so every one of them counts as activity
+            //TODO: Could count only gpms of specific type e.g.
+            //  - (RAW_MEASUREMENT, SUM_OF_ALL) -> schema_evo
+            //  - (RAW_MEASUREMENT, NO_AGGREGATION) -> simple
+            List<GroupPhaseMeasurement> tmpGroupPhaseMeasurementList = groupPhaseMeasurementLists.get(i);
+            for (GroupPhaseMeasurement groupPhaseMeasurement : tmpGroupPhaseMeasurementList) {
+                updateMinMaxGroupMeasurementValues(groupPhaseMeasurement);
+            }
+            groupMeasurementsList.add(new GroupMeasurements(entityGroups.get(i),
+                    tmpGroupPhaseMeasurementList.size(), tmpGroupPhaseMeasurementList));
+        }
+        colorizeGroupMeasurementsAllTypes();
+        // The grids of the previous clustering; the new ones are built on demand
+        chartGrids = new HashMap<>();
+    }
 
-        for (EntityGroup group : entityGroups) {
 
-            int tmpActivity = 0;
-            List<GroupPhaseMeasurement> tmpGroupPhaseMeasurementList = new ArrayList<>();
+    /**
+     * @return the chart grid of the pair, built from the GroupPhaseMeasurements on its first request and
+     * kept until the next clustering; null if the grids are disabled, the grid would exceed maxChartGridCells
+     * or the pair is not available.
+     * Only the grids of the types that are shown take memory.
+     */
+    private ChartGrid getChartGrid(Constants.MeasurementType measurementType, Constants.AggregationType aggregationType) {
+        if (!precomputeChartData || !availableMeasurementTypesList.contains(measurementType) ||
+                !availableAggregationTypesList.contains(aggregationType)) {
+            return null;
+        }
+        if (maxChartGridCells > 0 && (long) entityGroups.size() * phases.size() > maxChartGridCells) {
+            return null;
+        }
 
-            for (Phase phase : phases) {
-                GroupPhaseMeasurement groupPhaseMeasurement = generateGroupPhaseMeasurement(group, phase);
+        Map<Constants.AggregationType, ChartGrid> aggregationTypeToGridMap =
+                chartGrids.computeIfAbsent(measurementType, type -> new EnumMap<>(Constants.AggregationType.class));
+        ChartGrid grid = aggregationTypeToGridMap.get(aggregationType);
+        if (grid == null) {
+            grid = buildChartGrid(measurementType, aggregationType);
+            aggregationTypeToGridMap.put(aggregationType, grid);
+        }
+        return grid;
+    }
 
-                if (groupPhaseMeasurement.getMeasurementList().size() > 0) {
-                    //TODO: Could count only gpms of specific type e.g.
-                    //  - (RAW_MEASUREMENT, SUM_OF_ALL) -> schema_evo
-                    //  - (RAW_MEASUREMENT, NO_AGGREGATION) -> simple
-                    tmpActivity ++;
+    /**
+     * Must run after the colorization, as the grid keeps the measurements' colors.
+     */
+    private ChartGrid buildChartGrid(Constants.MeasurementType measurementType, Constants.AggregationType aggregationType) {
+        ChartGrid grid = new ChartGrid(measurementType, aggregationType, entityGroups, phases);
+        for (int row = 0; row < groupMeasurementsList.size(); row++) {
+            for (GroupPhaseMeasurement gpm : groupMeasurementsList.get(row).getGroupPhaseMeasurementsList()) {
+                int phaseId = gpm.getPhase().getPhaseId();
+                // The first measurement of the type, like containsMeasurementType
+                int measurementIndex = gpm.containsMeasurementType(measurementType, aggregationType);
+                if (measurementIndex != -1 && !grid.containsMeasurement(row, phaseId)) {
+                    grid.setMeasurement(row, phaseId, gpm.getMeasurementList().get(measurementIndex));
                 }
+            }
+        }
+        return grid;
+    }
 
-                if (!groupPhaseMeasurement.getMeasurementList().isEmpty()) {
-                    tmpGroupPhaseMeasurementList.add(groupPhaseMeasurement);
-                }
+
+    /**
+     * Builds the beatId -> phase position lookup of the current phases (-1 for beats without phase).
+     */
+    private void indexBeatsByPhase() {
+        int maxBeatId = dataHandler.getTimeline().size() - 1;
+        for (Phase phase : phases) {
+            for (int beatId : phase.getPhaseComponentsIdList()) {
+                maxBeatId = Math.max(maxBeatId, beatId);
+            }
+        }
+
+        beatIdToPhaseIndex = new int[maxBeatId + 1];
+        Arrays.fill(beatIdToPhaseIndex, -1);
+        for (int i = 0; i < phases.size(); i++) {
+            for (int beatId : phases.get(i).getPhaseComponentsIdList()) {
+                beatIdToPhaseIndex[beatId] = i;
             }
-            groupMeasurementsList.add(new GroupMeasurements(group, tmpActivity, tmpGroupPhaseMeasurementList));
         }
-        colorizeGroupMeasurementsAllTypes();
     }
 
 
@@ -239,26 +399,6 @@ public class ClusteringHandler implements IClusteringHandler {
     }
 
 
-    private GroupPhaseMeasurement generateGroupPhaseMeasurement(EntityGroup group, Phase phase) {
-        GroupPhaseMeasurement groupPhaseMeasurement = new GroupPhaseMeasurement(group, phase);
-        for (Entity entity: group.getGroupComponents()) {
-
-            if (dataHandler.getEntityNameToTEMMap().containsKey(entity.getEntityName())) {
-
-                for(int beatId: dataHandler.getEntityNameToTEMMap().get(entity.getEntityName()).keySet()) {
-                    if (phase.containsBeat(beatId)) {
-                        groupPhaseMeasurement.addTEM(dataHandler.getEntityNameToTEMMap().get(entity.getEntityName()).get(beatId));
-                    }
-                }
-            }
-        }
-
-        updateMinMaxGroupMeasurementValues(groupPhaseMeasurement);
-
-        return groupPhaseMeasurement;
-    }
-
-
     private void updateMinMaxGroupMeasurementValues(GroupPhaseMeasurement gpm) {
         for (IMeasurement measurement: gpm.getMeasurementList()) {
             Constants.MeasurementType measurementType = measurement.getMeasurementType();
@@ -297,57 +437,68 @@ public class ClusteringHandler implements IClusteringHandler {
 
     @Override
     public String getGPMString() {
-        StringBuilder stringData = new StringBuilder(getPhasesString());
-        for (ChartGroupPhaseMeasurement gpm: chartData) {
-            stringData.append(generateGPMString(gpm)).append("\n");
+        StringBuilder stringData = new StringBuilder();
+        try {
+            writeGPM(stringData);
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not throw
+            throw new UncheckedIOException(e);
         }
         return stringData.toString();
     }
 
+    @Override
+    public void writeGPM(Appendable output) throws IOException {
+        writeGPM(phases, chartData, output);
+    }
 
-    private String generateGPMString(ChartGroupPhaseMeasurement gpm) {
-        String gpmString = String.format("%d\t{",gpm.getEntityGroup().getEntityGroupId());
+    @Override
+    public void writeGPM(List<Phase> phases, List<ChartGroupPhaseMeasurement> chartRows, Appendable output) throws IOException {
+        writePhases(phases, output);
+        FastNumberFormatter formatter = new FastNumberFormatter(Locale.US);
+        for (ChartGroupPhaseMeasurement gpm: chartRows) {
+            writeGPMRow(gpm, phases, output, formatter);
+            output.append('\n');
+        }
+    }
+
+
+    private void writeGPMRow(ChartGroupPhaseMeasurement gpm, List<Phase> phases, Appendable output, FastNumberFormatter formatter) throws IOException {
+        output.append(Integer.toString(gpm.getEntityGroup().getEntityGroupId())).append("\t{");
 
-        int i = 0;
-        for (Entity componentName: gpm.getEntityGroup().getGroupComponents()) {
-            gpmString = gpmString.concat(componentName.getEntityName());
-            if (i < gpm.getEntityGroup().getGroupComponentsNames().size() - 1) {
-                gpmString = gpmString.concat(",");
-            } else {
-                gpmString = gpmString.concat("}\t{");
+        List<Entity> groupComponents = gpm.getEntityGroup().getGroupComponents();
+        for (int i = 0; i < groupComponents.size(); i++) {
+            if (i > 0) {
+                output.append(',');
             }
-            i++;
+            output.append(groupComponents.get(i).getEntityName());
         }
-        i = 0;
+        output.append("}\t{");
+
+        boolean first = true;
         for (Phase phase: phases) {
             int phaseId = phase.getPhaseId();
             if (gpm.containsMeasurementInPhase(phaseId)) {
-                gpmString = gpmString.concat(String.format("%d:", phaseId))
-                        .concat(NumberFormat.getInstance(Locale.US).format(gpm.getMeasurement(phaseId).getValue()));
-                if ( i < gpm.getNumberOfMeasurements() - 1){
-                    gpmString = gpmString.concat(",");
+                if (!first) {
+                    output.append(',');
                 }
-                i++;
+                output.append(Integer.toString(phaseId)).append(':');
+                formatter.format(gpm.getValue(phaseId), output);
+                first = false;
             }
         }
-        gpmString = gpmString.concat("}");
-        return gpmString;
+        output.append('}');
     }
 
 
-    private String getPhasesString() {
-        String header = "";
-
-        int i = 0;
-        for (Phase phase: phases) {
-            header = header.concat(phase.toString());
-            if (i < phases.size() - 1) {
-                header = header.concat("\t");
+    private void writePhases(List<Phase> phases, Appendable output) throws IOException {
+        for (int i = 0; i < phases.size(); i++) {
+            if (i > 0) {
+                output.append('\t');
             }
-            i++;
+            output.append(phases.get(i).toString());
         }
-
-        return header.concat("\n");
+        output.append('\n');
     }
 
     // TODO: CLEAN THIS
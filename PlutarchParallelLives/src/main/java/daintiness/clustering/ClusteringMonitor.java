@@ -0,0 +1,70 @@
+package daintiness.clustering;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared between a running clustering and its observers.
+ * <p/>
+ * The ClusteringHandler registers the number of merges that the clustering needs and
+ * the extractors report every merge they perform. Observers on other threads can read the
+ * progress and request cancellation, which the extractors check before every merge.
+ */
+public class ClusteringMonitor {
+    private final AtomicInteger mergesNeeded = new AtomicInteger();
+    private final AtomicInteger mergesDone = new AtomicInteger();
+    private volatile boolean cancelled = false;
+
+    public void addMergesNeeded(int merges) {
+        mergesNeeded.addAndGet(Math.max(0, merges));
+    }
+
+    /**
+     * Withdraws registered merges that the clustering could not perform,
+     * e.g. when no pair of entityGroups has a comparable distance.
+     */
+    public void removeMergesNeeded(int merges) {
+        mergesNeeded.addAndGet(-Math.max(0, merges));
+    }
+
+    public void mergeDone() {
+        mergesDone.incrementAndGet();
+    }
+
+    public int getMergesNeeded() {
+        return mergesNeeded.get();
+    }
+
+    public int getMergesDone() {
+        return mergesDone.get();
+    }
+
+    /**
+     * @return merges done / merges needed, in [0, 1]
+     */
+    public double getProgress() {
+        int needed = mergesNeeded.get();
+        if (needed == 0) {
+            return 0;
+        }
+        return Math.min(1, (double) mergesDone.get() / needed);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called by the extractors before every merge.
+     * @throws CancellationException if the clustering has been cancelled
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Clustering was cancelled");
+        }
+    }
+}
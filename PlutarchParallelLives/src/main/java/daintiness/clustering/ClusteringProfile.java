@@ -7,10 +7,21 @@ package daintiness.clustering;
 public class ClusteringProfile {
     private final BeatClusteringProfile beatClusteringProfile;
     private final EntityClusteringProfile entityClusteringProfile;
+    private final ClusteringMonitor monitor;
 
     public ClusteringProfile(BeatClusteringProfile beatClusteringProfile, EntityClusteringProfile entityClusteringProfile) {
+        this(beatClusteringProfile, entityClusteringProfile, new ClusteringMonitor());
+    }
+
+    /**
+     * @param monitor receives the progress of the clustering and can cancel it
+     */
+    public ClusteringProfile(BeatClusteringProfile beatClusteringProfile,
+                             EntityClusteringProfile entityClusteringProfile,
+                             ClusteringMonitor monitor) {
         this.beatClusteringProfile = beatClusteringProfile;
         this.entityClusteringProfile = entityClusteringProfile;
+        this.monitor = monitor;
     }
 
     public BeatClusteringProfile getBeatClusteringProfile() {
@@ -20,4 +31,8 @@ public class ClusteringProfile {
     public EntityClusteringProfile getEntityClusteringProfile() {
         return entityClusteringProfile;
     }
+
+    public ClusteringMonitor getMonitor() {
+        return monitor;
+    }
 }
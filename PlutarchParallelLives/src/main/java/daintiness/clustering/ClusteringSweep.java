@@ -0,0 +1,269 @@
+package daintiness.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.utilities.ParallelExecutor;
+
+/**
+ * Evaluates a grid of clustering profiles on one dataset without clustering it once per profile.
+ * <p/>
+ * The clustering into any number of phases or entityGroups is a cut of the dendrogram of its weights,
+ * so every distinct set of weights is clustered once (or taken from the DendrogramCache) and every
+ * profile is a cut of the dendrograms. The dendrograms are built one at a time, each with all the
+ * threads, so a single distance matrix is in memory at a time. The activity of the entities is read from the
+ * dataHandler once, and the summary of every profile is computed from the cuts concurrently.
+ * The results are in the order of the profiles and do not depend on the parallelism.
+ */
+public class ClusteringSweep {
+    private final IDataHandler dataHandler;
+    private final DendrogramCache dendrogramCache;
+    private final int parallelism;
+
+    /**
+     * @param dendrogramCache cache of the dataset's dendrograms, or null; the last phase and entityGroup
+     *                        dendrogram that the sweep builds are stored in it
+     * @param parallelism number of threads
+     */
+    public ClusteringSweep(IDataHandler dataHandler, DendrogramCache dendrogramCache, int parallelism) {
+        this.dataHandler = dataHandler;
+        this.dendrogramCache = dendrogramCache;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param profiles profiles with both a beat and an entity clustering profile
+     * @param monitor receives the merges of the dendrograms that are built and can cancel the sweep
+     * @return the summary of every profile, in the order of the profiles
+     */
+    public List<Result> evaluate(List<ClusteringProfile> profiles, ClusteringMonitor monitor) {
+        List<PhaseDendrogram> phaseDendrograms = new ArrayList<>();
+        List<EntityGroupDendrogram> entityGroupDendrograms = new ArrayList<>();
+        List<PhaseDendrogram> phaseDendrogramsToBuild = new ArrayList<>();
+        List<EntityGroupDendrogram> entityGroupDendrogramsToBuild = new ArrayList<>();
+        int[] phaseDendrogramOfProfile = new int[profiles.size()];
+        int[] entityGroupDendrogramOfProfile = new int[profiles.size()];
+
+        for (int i = 0; i < profiles.size(); i++) {
+            BeatClusteringProfile beatProfile = profiles.get(i).getBeatClusteringProfile();
+            EntityClusteringProfile entityProfile = profiles.get(i).getEntityClusteringProfile();
+            if (beatProfile == null || entityProfile == null) {
+                throw new IllegalArgumentException("Every profile of a sweep needs a beat and an entity clustering profile");
+            }
+
+            phaseDendrogramOfProfile[i] = findPhaseDendrogram(phaseDendrograms, beatProfile);
+            if (phaseDendrogramOfProfile[i] == -1) {
+                PhaseDendrogram dendrogram = (dendrogramCache == null) ? null : dendrogramCache.getPhaseDendrogram(beatProfile, dataHandler);
+                if (dendrogram == null) {
+                    dendrogram = new PhaseDendrogram(beatProfile, dataHandler);
+                    phaseDendrogramsToBuild.add(dendrogram);
+                }
+                phaseDendrogramOfProfile[i] = phaseDendrograms.size();
+                phaseDendrograms.add(dendrogram);
+            }
+
+            entityGroupDendrogramOfProfile[i] = findEntityGroupDendrogram(entityGroupDendrograms, entityProfile);
+            if (entityGroupDendrogramOfProfile[i] == -1) {
+                EntityGroupDendrogram dendrogram = (dendrogramCache == null) ? null : dendrogramCache.getEntityGroupDendrogram(entityProfile, dataHandler);
+                if (dendrogram == null) {
+                    dendrogram = new EntityGroupDendrogram(entityProfile, dataHandler);
+                    entityGroupDendrogramsToBuild.add(dendrogram);
+                }
+                entityGroupDendrogramOfProfile[i] = entityGroupDendrograms.size();
+                entityGroupDendrograms.add(dendrogram);
+            }
+        }
+
+        buildDendrograms(phaseDendrogramsToBuild, entityGroupDendrogramsToBuild, monitor);
+
+        Map<String, int[]> beatIdsOfEntity = indexEntityActivity();
+        int numberOfBeatIds = getNumberOfBeatIds();
+        Result[] results = new Result[profiles.size()];
+        ParallelExecutor executor = new ParallelExecutor(parallelism);
+        executor.forEach(0, profiles.size(), i -> {
+            monitor.checkCancelled();
+            ClusteringProfile profile = profiles.get(i);
+            List<Phase> phases = phaseDendrograms.get(phaseDendrogramOfProfile[i])
+                    .cut(profile.getBeatClusteringProfile().getDesiredNumberOfPhases());
+            List<EntityGroup> entityGroups = entityGroupDendrograms.get(entityGroupDendrogramOfProfile[i])
+                    .cut(profile.getEntityClusteringProfile().getDesiredNumberOfEntityGroups());
+            results[i] = summarize(profile, phases, entityGroups, beatIdsOfEntity, numberOfBeatIds);
+        });
+        return Arrays.asList(results);
+    }
+
+    private int getNumberOfBeatIds() {
+        int numberOfBeatIds = 0;
+        for (Beat beat : dataHandler.getTimeline()) {
+            numberOfBeatIds = Math.max(numberOfBeatIds, beat.getBeatId() + 1);
+        }
+        return numberOfBeatIds;
+    }
+
+    private int findPhaseDendrogram(List<PhaseDendrogram> phaseDendrograms, BeatClusteringProfile profile) {
+        for (int d = 0; d < phaseDendrograms.size(); d++) {
+            if (phaseDendrograms.get(d).matches(profile, dataHandler)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private int findEntityGroupDendrogram(List<EntityGroupDendrogram> entityGroupDendrograms, EntityClusteringProfile profile) {
+        for (int d = 0; d < entityGroupDendrograms.size(); d++) {
+            if (entityGroupDendrograms.get(d).matches(profile, dataHandler)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the dendrograms one after the other; the threads of the sweep are used by the distance
+     * calculations of every dendrogram. The last dendrogram of each kind is kept in the DendrogramCache.
+     */
+    private void buildDendrograms(List<PhaseDendrogram> phaseDendrograms, List<EntityGroupDendrogram> entityGroupDendrograms,
+                                  ClusteringMonitor monitor) {
+        int timelineMerges = Math.max(0, dataHandler.getTimeline().size() - 1);
+        int populationMerges = Math.max(0, dataHandler.getPopulation().size() - 1);
+        monitor.addMergesNeeded(phaseDendrograms.size() * timelineMerges);
+        monitor.addMergesNeeded(entityGroupDendrograms.size() * populationMerges);
+
+        for (PhaseDendrogram dendrogram : phaseDendrograms) {
+            dendrogram.build(parallelism, monitor);
+            monitor.removeMergesNeeded(timelineMerges - dendrogram.getNumberOfMerges());
+            if (dendrogramCache != null) {
+                dendrogramCache.setPhaseDendrogram(dendrogram);
+            }
+        }
+        for (EntityGroupDendrogram dendrogram : entityGroupDendrograms) {
+            dendrogram.build(parallelism, monitor);
+            monitor.removeMergesNeeded(populationMerges - dendrogram.getNumberOfMerges());
+            if (dendrogramCache != null) {
+                dendrogramCache.setEntityGroupDendrogram(dendrogram);
+            }
+        }
+    }
+
+    /**
+     * @return the beatIds in which every entity has measurements, by entity name
+     */
+    private Map<String, int[]> indexEntityActivity() {
+        Map<String, int[]> beatIdsOfEntity = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, TimeEntityMeasurements>> entry : dataHandler.getEntityNameToTEMMap().entrySet()) {
+            beatIdsOfEntity.put(entry.getKey(), entry.getValue().keySet().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return beatIdsOfEntity;
+    }
+
+    private Result summarize(ClusteringProfile profile, List<Phase> phases, List<EntityGroup> entityGroups,
+                             Map<String, int[]> beatIdsOfEntity, int numberOfBeatIds) {
+        int[] beatIdToPhaseIndex = new int[numberOfBeatIds];
+        Arrays.fill(beatIdToPhaseIndex, -1);
+        int largestPhase = 0;
+        for (int p = 0; p < phases.size(); p++) {
+            List<Integer> beatIds = phases.get(p).getPhaseComponentsIdList();
+            for (int beatId : beatIds) {
+                beatIdToPhaseIndex[beatId] = p;
+            }
+            largestPhase = Math.max(largestPhase, beatIds.size());
+        }
+
+        // The (group, phase) cells with measurements; a phase is stamped with the last group that counted it
+        int[] stamp = new int[phases.size()];
+        Arrays.fill(stamp, -1);
+        long activeCells = 0;
+        int largestEntityGroup = 0;
+        for (int g = 0; g < entityGroups.size(); g++) {
+            List<Entity> components = entityGroups.get(g).getGroupComponents();
+            largestEntityGroup = Math.max(largestEntityGroup, components.size());
+            for (Entity entity : components) {
+                for (int beatId : beatIdsOfEntity.getOrDefault(entity.getEntityName(), new int[0])) {
+                    int phase = (beatId >= 0 && beatId < numberOfBeatIds) ? beatIdToPhaseIndex[beatId] : -1;
+                    if (phase != -1 && stamp[phase] != g) {
+                        stamp[phase] = g;
+                        activeCells++;
+                    }
+                }
+            }
+        }
+        return new Result(profile, phases.size(), entityGroups.size(), activeCells, largestPhase, largestEntityGroup);
+    }
+
+
+    /**
+     * The summary of the clustering of one profile.
+     */
+    public static class Result {
+        private final ClusteringProfile profile;
+        private final int numberOfPhases;
+        private final int numberOfEntityGroups;
+        private final long activeCells;
+        private final int largestPhase;
+        private final int largestEntityGroup;
+
+        Result(ClusteringProfile profile, int numberOfPhases, int numberOfEntityGroups, long activeCells,
+               int largestPhase, int largestEntityGroup) {
+            this.profile = profile;
+            this.numberOfPhases = numberOfPhases;
+            this.numberOfEntityGroups = numberOfEntityGroups;
+            this.activeCells = activeCells;
+            this.largestPhase = largestPhase;
+            this.largestEntityGroup = largestEntityGroup;
+        }
+
+        public ClusteringProfile getProfile() {
+            return profile;
+        }
+
+        /**
+         * @return the number of phases of the clustering, fewer than desired if the timeline is shorter
+         */
+        public int getNumberOfPhases() {
+            return numberOfPhases;
+        }
+
+        /**
+         * @return the number of entityGroups of the clustering, more than desired if no more can be merged
+         */
+        public int getNumberOfEntityGroups() {
+            return numberOfEntityGroups;
+        }
+
+        /**
+         * @return the number of (entityGroup, phase) cells with measurements
+         */
+        public long getActiveCells() {
+            return activeCells;
+        }
+
+        /**
+         * @return the fraction of the chart's cells that have measurements
+         */
+        public double getCellDensity() {
+            long cells = (long) numberOfPhases * numberOfEntityGroups;
+            return (cells == 0) ? 0 : (double) activeCells / cells;
+        }
+
+        /**
+         * @return the number of beats of the longest phase
+         */
+        public int getLargestPhase() {
+            return largestPhase;
+        }
+
+        /**
+         * @return the number of entities of the largest entityGroup
+         */
+        public int getLargestEntityGroup() {
+            return largestEntityGroup;
+        }
+    }
+}
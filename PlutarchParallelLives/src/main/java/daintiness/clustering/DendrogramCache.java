@@ -0,0 +1,46 @@
+package daintiness.clustering;
+
+import daintiness.data.IDataHandler;
+
+/**
+ * Keeps the last phase and entityGroup dendrogram of a dataset, so a clustering that only
+ * changes the desired number of phases or entityGroups is answered by cutting the stored
+ * dendrograms instead of clustering again.
+ */
+public class DendrogramCache {
+    private PhaseDendrogram phaseDendrogram;
+    private EntityGroupDendrogram entityGroupDendrogram;
+
+    /**
+     * @return the cached dendrogram for the dataHandler and the weights of the profile, or null
+     */
+    public synchronized PhaseDendrogram getPhaseDendrogram(BeatClusteringProfile profile, IDataHandler dataHandler) {
+        if (phaseDendrogram != null && phaseDendrogram.matches(profile, dataHandler)) {
+            return phaseDendrogram;
+        }
+        return null;
+    }
+
+    public synchronized void setPhaseDendrogram(PhaseDendrogram phaseDendrogram) {
+        this.phaseDendrogram = phaseDendrogram;
+    }
+
+    /**
+     * @return the cached dendrogram for the dataHandler and the weights of the profile, or null
+     */
+    public synchronized EntityGroupDendrogram getEntityGroupDendrogram(EntityClusteringProfile profile, IDataHandler dataHandler) {
+        if (entityGroupDendrogram != null && entityGroupDendrogram.matches(profile, dataHandler)) {
+            return entityGroupDendrogram;
+        }
+        return null;
+    }
+
+    public synchronized void setEntityGroupDendrogram(EntityGroupDendrogram entityGroupDendrogram) {
+        this.entityGroupDendrogram = entityGroupDendrogram;
+    }
+
+    public synchronized void clear() {
+        phaseDendrogram = null;
+        entityGroupDendrogram = null;
+    }
+}
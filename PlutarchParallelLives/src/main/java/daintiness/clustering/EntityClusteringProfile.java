@@ -8,6 +8,7 @@ public class EntityClusteringProfile {
     private final double birthWeight;
     private final double deathWeight;
     private final double changesWeight;
+    private final int parallelism;
 
     /**
      * @param desiredNumberOfEntityGroups desired number of entityGroups
@@ -19,10 +20,26 @@ public class EntityClusteringProfile {
                                    double birthWeight,
                                    double deathWeight,
                                    double changesWeight) {
+        this(desiredNumberOfEntityGroups, birthWeight, deathWeight, changesWeight, 1);
+    }
+
+    /**
+     * @param desiredNumberOfEntityGroups desired number of entityGroups
+     * @param birthWeight weight of birth date
+     * @param deathWeight weight of death data
+     * @param changesWeight weight of changes
+     * @param parallelism number of threads used for the distance calculations
+     */
+    public EntityClusteringProfile(int desiredNumberOfEntityGroups,
+                                   double birthWeight,
+                                   double deathWeight,
+                                   double changesWeight,
+                                   int parallelism) {
         this.desiredNumberOfEntityGroups = desiredNumberOfEntityGroups;
         this.birthWeight = birthWeight;
         this.deathWeight = deathWeight;
         this.changesWeight = changesWeight;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -35,6 +52,7 @@ public class EntityClusteringProfile {
         this.birthWeight = 0.25;
         this.deathWeight = 0.25;
         this.changesWeight = 0.5;
+        this.parallelism = 1;
     }
 
     /**
@@ -64,4 +82,11 @@ public class EntityClusteringProfile {
     public double getChangesWeight() {
         return changesWeight;
     }
+
+    /**
+     * @return number of threads used for the distance calculations
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
 }
@@ -0,0 +1,120 @@
+package daintiness.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Entity;
+
+/**
+ * The complete merge sequence of an entity clustering, i.e. the clustering run until
+ * no more entityGroups can be merged.
+ * <p/>
+ * The clustering into k entityGroups is exactly the first (n - k) merges of the sequence.
+ * A cut replays these merges on linked lists of the population positions, so every merge
+ * is O(1) and the components keep the order in which the extractor appends them.
+ */
+public class EntityGroupDendrogram {
+    private final IDataHandler dataHandler;
+    private final double birthWeight;
+    private final double deathWeight;
+    private final double changesWeight;
+
+    private final int[] survivorPositions;
+    private final int[] mergedPositions;
+    private int numberOfMerges;
+
+    public EntityGroupDendrogram(EntityClusteringProfile profile, IDataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+        this.birthWeight = profile.getBirthWeight();
+        this.deathWeight = profile.getDeathWeight();
+        this.changesWeight = profile.getChangesWeight();
+
+        int maxMerges = Math.max(0, dataHandler.getPopulation().size() - 1);
+        this.survivorPositions = new int[maxMerges];
+        this.mergedPositions = new int[maxMerges];
+    }
+
+    /**
+     * Runs the entity clustering with the weights of the dendrogram until no more entityGroups can be merged,
+     * recording every merge.
+     * @param parallelism number of threads used for the distance calculations
+     * @param monitor receives every merge and can cancel the clustering
+     */
+    public void build(int parallelism, ClusteringMonitor monitor) {
+        EntityClusteringProfile dendrogramProfile = new EntityClusteringProfile(1, birthWeight, deathWeight, changesWeight, parallelism);
+        IEntityGroupExtractor entityGroupExtractor = new EntityGroupExtractorFactory().getPhaseExtractor("AGGLOMERATIVE_MATRIX", dendrogramProfile, dataHandler);
+        entityGroupExtractor.setMonitor(monitor);
+        entityGroupExtractor.setDendrogram(this);
+        entityGroupExtractor.clusterData();
+    }
+
+    /**
+     * Called by the extractor for every merge, in merge order.
+     * While clustering is in progress the entityGroupIds are the population positions of the groups' first entities.
+     * @param survivorPosition position of the entityGroup that absorbs the other one
+     * @param mergedPosition position of the entityGroup that is absorbed
+     */
+    public void addMerge(int survivorPosition, int mergedPosition) {
+        survivorPositions[numberOfMerges] = survivorPosition;
+        mergedPositions[numberOfMerges] = mergedPosition;
+        numberOfMerges++;
+    }
+
+    public int getNumberOfMerges() {
+        return numberOfMerges;
+    }
+
+    /**
+     * @return True if the dendrogram was built on the dataHandler with the weights of the profile
+     */
+    public boolean matches(EntityClusteringProfile profile, IDataHandler dataHandler) {
+        return this.dataHandler == dataHandler &&
+                Double.compare(birthWeight, profile.getBirthWeight()) == 0 &&
+                Double.compare(deathWeight, profile.getDeathWeight()) == 0 &&
+                Double.compare(changesWeight, profile.getChangesWeight()) == 0;
+    }
+
+    /**
+     * Creates the entityGroups of the clustering into the given number of entityGroups.
+     * The entityGroups are new objects with the same components and ids that the extractor would produce.
+     * @param desiredNumberOfEntityGroups desired number of entityGroups
+     * @return List of EntityGroups in population order
+     */
+    public List<EntityGroup> cut(int desiredNumberOfEntityGroups) {
+        List<Entity> population = dataHandler.getPopulation();
+        int size = population.size();
+        int merges = Math.min(numberOfMerges, Math.max(0, size - desiredNumberOfEntityGroups));
+
+        // Every position heads a linked list of its group's components
+        int[] next = new int[size];
+        int[] tail = new int[size];
+        boolean[] merged = new boolean[size];
+        Arrays.fill(next, -1);
+        for (int i = 0; i < size; i++) {
+            tail[i] = i;
+        }
+
+        for (int i = 0; i < merges; i++) {
+            int survivor = survivorPositions[i];
+            int mergedPosition = mergedPositions[i];
+            next[tail[survivor]] = mergedPosition;
+            tail[survivor] = tail[mergedPosition];
+            merged[mergedPosition] = true;
+        }
+
+        List<EntityGroup> entityGroups = new ArrayList<>(size - merges);
+        for (int position = 0; position < size; position++) {
+            if (merged[position]) {
+                continue;
+            }
+            EntityGroup entityGroup = new EntityGroup(entityGroups.size(), population.get(position));
+            for (int component = next[position]; component != -1; component = next[component]) {
+                entityGroup.addEntityInGroup(population.get(component));
+            }
+            entityGroups.add(entityGroup);
+        }
+        return entityGroups;
+    }
+}
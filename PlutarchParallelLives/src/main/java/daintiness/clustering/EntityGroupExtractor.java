@@ -5,20 +5,24 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import daintiness.data.ColumnarDataHandler;
 import daintiness.data.IDataHandler;
 import daintiness.models.Entity;
 import daintiness.models.TimeEntityMeasurements;
 import daintiness.utilities.Constants;
+import daintiness.utilities.ParallelExecutor;
 
 public class EntityGroupExtractor implements IEntityGroupExtractor{
     private Constants.MeasurementType measurementType = Constants.MeasurementType.RAW_VALUE;
     private Constants.AggregationType aggregationType = Constants.AggregationType.SUM_OF_ALL;
-    private final EntityClusteringProfile profile;
+    protected final EntityClusteringProfile profile;
+    protected ClusteringMonitor monitor = new ClusteringMonitor();
+    private EntityGroupDendrogram dendrogram;
 
     private final IDataHandler dataHandler;
 
-    private List<EntityGroup> entityGroupList;
-    private Map<Integer, Map<Integer, Double>> entityGroupToBeatValueMap;
+    protected List<EntityGroup> entityGroupList;
+    protected Map<Integer, Map<Integer, Double>> entityGroupToBeatValueMap;
 
     public EntityGroupExtractor(EntityClusteringProfile profile, IDataHandler dataHandler) {
         this.profile = profile;
@@ -39,46 +43,59 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
         this.dataHandler = dataHandler;
     }
 
+    @Override
+    public void setMonitor(ClusteringMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void setDendrogram(EntityGroupDendrogram dendrogram) {
+        this.dendrogram = dendrogram;
+    }
+
     public List<EntityGroup> clusterData() {
         // 1. Create an EntityGroup for every Entity
         init();
 
         // 2. Repeat until there is the desired number of entityGroups
+        ParallelExecutor executor = new ParallelExecutor(profile.getParallelism());
         while (entityGroupList.size() > profile.getDesiredNumberOfEntityGroups()) {
-            double minDistance = Double.MAX_VALUE;
-            int entityGroupAIndex = 0;
-            int entityGroupBIndex = 0;
+            monitor.checkCancelled();
+            int size = entityGroupList.size();
+            double[] rowMinDistance = new double[size];
+            int[] rowMinIndex = new int[size];
 
-            for (int i = 0; i < entityGroupList.size(); i++) {
+            // 3. Calculate distance for each pair, one row of pairs per task
+            executor.forEach(0, size, i -> {
                 EntityGroup firstEntityGroup = entityGroupList.get(i);
+                double minDistance = Double.MAX_VALUE;
+                int minIndex = 0;
                 for (int j = 0; j < i; j++) {
-                    EntityGroup secondEntityGroup = entityGroupList.get(j);
-
-                    // 3. Calculate distance for each pair
-                    double birthDistance = calculateBirthDistance(firstEntityGroup.getLifeDetails().getBirthBeatId(),
-                                                                  secondEntityGroup.getLifeDetails().getBirthBeatId());
-
-                    double deathDistance = calculateDeathDistance(firstEntityGroup.getLifeDetails().getDeathBeatId(),
-                            secondEntityGroup.getLifeDetails().getDeathBeatId());
-
-                    double changesDistance = calculateChangesDistance(
-                            entityGroupToBeatValueMap.get(firstEntityGroup.getEntityGroupId()),
-                            entityGroupToBeatValueMap.get(secondEntityGroup.getEntityGroupId()));
-
-                    double distance  = (profile.getBirthWeight() * birthDistance) +
-                                       (profile.getDeathWeight() * deathDistance) +
-                                       (profile.getChangesWeight() * changesDistance);
-
-                    // 4. Update min-distance pair
+                    double distance = calculatePairDistance(firstEntityGroup, entityGroupList.get(j));
                     if (minDistance > distance) {
                         minDistance = distance;
-                        entityGroupAIndex = i;
-                        entityGroupBIndex = j;
+                        minIndex = j;
                     }
                 }
+                rowMinDistance[i] = minDistance;
+                rowMinIndex[i] = minIndex;
+            });
+
+            // 4. Find the min-distance pair in row order (the first pair wins ties)
+            double minDistance = Double.MAX_VALUE;
+            int entityGroupAIndex = 0;
+            int entityGroupBIndex = 0;
+            for (int i = 0; i < size; i++) {
+                if (minDistance > rowMinDistance[i]) {
+                    minDistance = rowMinDistance[i];
+                    entityGroupAIndex = i;
+                    entityGroupBIndex = rowMinIndex[i];
+                }
             }
+
             // 5. Merge the min-distance pair
             mergeEntityGroups(entityGroupAIndex, entityGroupBIndex);
+            monitor.mergeDone();
         }
 
         renameEntityGroups();
@@ -86,7 +103,7 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
         return entityGroupList;
     }
 
-    private void renameEntityGroups() {
+    protected void renameEntityGroups() {
         int i = 0;
         for (EntityGroup group: entityGroupList) {
             group.setEntityGroupId(i);
@@ -94,10 +111,40 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
         }
     }
 
+    /**
+     * Weighted distance of two entityGroups. The first entityGroup must be the one
+     * that comes later in the entityGroup list, as in the pair scan of clusterData.
+     */
+    protected double calculatePairDistance(EntityGroup firstEntityGroup, EntityGroup secondEntityGroup) {
+        double birthDistance = calculateBirthDistance(firstEntityGroup.getLifeDetails().getBirthBeatId(),
+                                                      secondEntityGroup.getLifeDetails().getBirthBeatId());
+
+        double deathDistance = calculateDeathDistance(firstEntityGroup.getLifeDetails().getDeathBeatId(),
+                secondEntityGroup.getLifeDetails().getDeathBeatId());
+
+        double changesDistance = calculateChangesDistance(
+                entityGroupToBeatValueMap.get(firstEntityGroup.getEntityGroupId()),
+                entityGroupToBeatValueMap.get(secondEntityGroup.getEntityGroupId()));
+
+        return (profile.getBirthWeight() * birthDistance) +
+               (profile.getDeathWeight() * deathDistance) +
+               (profile.getChangesWeight() * changesDistance);
+    }
+
     private void mergeEntityGroups(int entityGroupAIndex, int entityGroupBIndex) {
-        EntityGroup firstEntityGroup = entityGroupList.get(entityGroupAIndex);
-        EntityGroup secondEntityGroup = entityGroupList.get(entityGroupBIndex);
+        mergeEntityGroupValues(entityGroupList.get(entityGroupAIndex), entityGroupList.get(entityGroupBIndex));
+        entityGroupList.remove(entityGroupBIndex);
+    }
+
+    /**
+     * Merges the secondEntityGroup into the firstEntityGroup and folds the beat values
+     * of the second into the first. The caller is responsible for dropping the secondEntityGroup.
+     */
+    protected void mergeEntityGroupValues(EntityGroup firstEntityGroup, EntityGroup secondEntityGroup) {
         firstEntityGroup.mergeWithEntityGroup(secondEntityGroup);
+        if (dendrogram != null) {
+            dendrogram.addMerge(firstEntityGroup.getEntityGroupId(), secondEntityGroup.getEntityGroupId());
+        }
 
         for (Integer beatId: entityGroupToBeatValueMap.get(secondEntityGroup.getEntityGroupId()).keySet()) {
             double newValue = entityGroupToBeatValueMap.get(secondEntityGroup.getEntityGroupId()).get(beatId);
@@ -110,7 +157,6 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
 
         // Remove merged entityGroup
         entityGroupToBeatValueMap.remove(secondEntityGroup.getEntityGroupId());
-        entityGroupList.remove(entityGroupBIndex);
     }
 
     // TODO: Try to make this generic to remove duplicate code
@@ -157,10 +203,15 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
         return (double)Math.abs(beatIdA - beatIdB) / dataHandler.getTimeline().size();
     }
 
-    private void init() {
+    protected void init() {
         entityGroupList = new ArrayList<>();
         entityGroupToBeatValueMap = new HashMap<>();
 
+        if (dataHandler instanceof ColumnarDataHandler) {
+            initFromColumns((ColumnarDataHandler) dataHandler);
+            return;
+        }
+
         Map<String, Map<Integer, TimeEntityMeasurements>> entityNameToTEMMap = dataHandler.getEntityNameToTEMMap();
 
         int entityGroupId = 0;
@@ -180,4 +231,27 @@ public class EntityGroupExtractor implements IEntityGroupExtractor{
         }
     }
 
+    /**
+     * Like init(), reading the values from the measurement column instead of the TimeEntityMeasurements.
+     */
+    private void initFromColumns(ColumnarDataHandler columnarDataHandler) {
+        int measurementColumn = columnarDataHandler.findMeasurementColumn(measurementType, aggregationType);
+        double[] values = (measurementColumn == -1) ? null : columnarDataHandler.getMeasurementColumn(measurementColumn);
+        int[] rowOffsets = columnarDataHandler.getRowOffsets();
+        int[] cellColumns = columnarDataHandler.getCellColumns();
+        List<Entity> population = dataHandler.getPopulation();
+
+        for (int entityGroupId = 0; entityGroupId < population.size(); entityGroupId++) {
+            entityGroupList.add(new EntityGroup(entityGroupId, population.get(entityGroupId)));
+
+            Map<Integer, Double> beatValues = new HashMap<>();
+            for (int cell = rowOffsets[entityGroupId]; cell < rowOffsets[entityGroupId + 1]; cell++) {
+                // A cell without the measurement counts as 0, as getMeasurementOfType returns
+                double value = (values == null || Double.isNaN(values[cell])) ? 0 : values[cell];
+                beatValues.put(dataHandler.getBeat(cellColumns[cell]).getBeatId(), value);
+            }
+            entityGroupToBeatValueMap.put(entityGroupId, beatValues);
+        }
+    }
+
 }
@@ -16,6 +16,10 @@ public class EntityGroupExtractorFactory {
             return new EntityGroupExtractor(profile, dataHandler);
         }
 
+        if (type.equals("AGGLOMERATIVE_MATRIX")) {
+            return new MatrixEntityGroupExtractor(profile, dataHandler);
+        }
+
         return null;
 	}
 }
@@ -0,0 +1,145 @@
+package daintiness.clustering;
+
+import java.util.*;
+
+import daintiness.data.IDataHandler;
+import daintiness.utilities.ParallelExecutor;
+
+/**
+ * Agglomerative phase extractor that keeps the distances of the adjacent phase pairs
+ * in a min-heap instead of rescanning the whole timeline after every merge.
+ * <p/>
+ * The phases live in a doubly linked list indexed by their initial position. After a merge
+ * only the two pairs that touch the merged phase are recomputed; their old heap entries
+ * are invalidated lazily through a per-position version counter.
+ * <p/>
+ * Ties are broken by position, exactly like the linear scan of
+ * {@link AgglomerativePhaseExtractor}, so both extractors produce identical phases.
+ * Only the initial pass over the adjacent pairs is parallel; every merge afterwards
+ * recomputes just two distances.
+ */
+public class HeapAgglomerativePhaseExtractor extends AgglomerativePhaseExtractor {
+
+    private Phase[] phases;
+    private int[] previous;
+    private int[] next;
+    private int[] version;
+
+    public HeapAgglomerativePhaseExtractor(BeatClusteringProfile profile, IDataHandler dataHandler) {
+        super(profile, dataHandler);
+    }
+
+    @Override
+    public List<Phase> clusterData() {
+        // 1. Create a phase for every Beat
+        init();
+        initLinkedPhases();
+
+        double[] distances = new double[Math.max(0, phases.length - 1)];
+        ParallelExecutor executor = new ParallelExecutor(profile.getParallelism());
+        executor.forEach(0, distances.length, i -> distances[i] = calculatePairDistance(phases[i], phases[i + 1]));
+
+        PriorityQueue<PhasePair> heap = new PriorityQueue<>(Math.max(1, phases.length));
+        for (int i = 0; i < distances.length; i++) {
+            heap.add(new PhasePair(i, distances[i], version[i]));
+        }
+
+        // 2. Repeat until there is the desired number of phases
+        int numberOfPhases = phases.length;
+        while (numberOfPhases > profile.getDesiredNumberOfPhases() && !heap.isEmpty()) {
+            PhasePair pair = heap.poll();
+            if (isStale(pair)) {
+                continue;
+            }
+            monitor.checkCancelled();
+            mergeWithNextPhase(pair.position, heap);
+            numberOfPhases--;
+            monitor.mergeDone();
+        }
+
+        phaseList = collectPhases();
+        renamePhases();
+
+        return phaseList;
+    }
+
+    private void initLinkedPhases() {
+        phases = phaseList.toArray(new Phase[0]);
+        previous = new int[phases.length];
+        next = new int[phases.length];
+        version = new int[phases.length];
+
+        for (int i = 0; i < phases.length; i++) {
+            previous[i] = i - 1;
+            next[i] = (i < phases.length - 1) ? i + 1 : -1;
+        }
+    }
+
+    private boolean isStale(PhasePair pair) {
+        return phases[pair.position] == null ||
+                next[pair.position] == -1 ||
+                version[pair.position] != pair.version;
+    }
+
+    private void mergeWithNextPhase(int position, PriorityQueue<PhasePair> heap) {
+        int nextPosition = next[position];
+        mergePhaseValues(phases[position], phases[nextPosition]);
+
+        // Unlink the merged phase
+        next[position] = next[nextPosition];
+        if (next[position] != -1) {
+            previous[next[position]] = position;
+        }
+        phases[nextPosition] = null;
+
+        // Only the pairs that touch the merged phase have changed
+        version[position]++;
+        if (next[position] != -1) {
+            heap.add(new PhasePair(position,
+                    calculatePairDistance(phases[position], phases[next[position]]),
+                    version[position]));
+        }
+
+        int previousPosition = previous[position];
+        if (previousPosition != -1) {
+            version[previousPosition]++;
+            heap.add(new PhasePair(previousPosition,
+                    calculatePairDistance(phases[previousPosition], phases[position]),
+                    version[previousPosition]));
+        }
+    }
+
+    private List<Phase> collectPhases() {
+        List<Phase> result = new ArrayList<>();
+        for (int i = 0; i != -1 && i < phases.length; i = next[i]) {
+            result.add(phases[i]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Heap entry for the pair (phase at position, next phase of position).
+     */
+    private static class PhasePair implements Comparable<PhasePair> {
+        private final int position;
+        private final double distance;
+        private final int version;
+
+        PhasePair(int position, double distance, int version) {
+            this.position = position;
+            this.distance = distance;
+            this.version = version;
+        }
+
+        @Override
+        public int compareTo(PhasePair other) {
+            if (distance < other.distance) {
+                return -1;
+            } else if (distance > other.distance) {
+                return 1;
+            }
+            return Integer.compare(position, other.position);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package daintiness.clustering;
 
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +18,35 @@ public interface IClusteringHandler {
      */
     void setDataHandler(IDataHandler dataHandler);
 
+    /**
+     * Sets the cache of the dataset's dendrograms. With a cache the clustering is run once per
+     * set of weights and every desired number of phases/entityGroups is a cut of the cached dendrograms.
+     * Without a cache (default) every clustering runs the extractors.
+     * @param dendrogramCache DendrogramCache of the dataset
+     */
+    void setDendrogramCache(DendrogramCache dendrogramCache);
+
+    /**
+     * Enables (default) or disables the chart grids. The grid of a (MeasurementType, AggregationType)
+     * pair is built the first time its chart data is generated and is kept until the next clustering,
+     * so switching back to a shown type only swaps the rows. Without grids every generateChartData
+     * scans the GroupPhaseMeasurements.
+     * @param precomputeChartData True to keep the chart grids of the shown types
+     */
+    void setPrecomputeChartData(boolean precomputeChartData);
+
+    /**
+     * Clusterings with more (entityGroup x phase) cells than the limit get no chart grids,
+     * as every grid takes 9 bytes per cell.
+     * @param maxChartGridCells most cells of a grid, 0 or less for no limit
+     */
+    void setMaxChartGridCells(long maxChartGridCells);
+
+    /**
+     * @return approximate memory in bytes of the precomputed chart grids (0 when disabled)
+     */
+    long getChartDataFootprint();
+
     /**
      * The List of Phases that is created after the timeline(Beats) clustering.
      * @return List of Phases
@@ -127,4 +157,21 @@ public interface IClusteringHandler {
      * @return Generates a String from the ChartData
      */
     String getGPMString();
+
+    /**
+     * Writes the String of getGPMString() row by row, without building it in memory.
+     * @param output Destination of the rows, e.g. a Writer of an export stream
+     * @throws IOException if the output fails
+     */
+    void writeGPM(Appendable output) throws IOException;
+
+    /**
+     * Like writeGPM(Appendable), for the given phases and chart rows, e.g. copies taken before
+     * the chart data is sorted or generated for another type.
+     * @param phases Phases of the columns
+     * @param chartRows Rows of the chart data
+     * @param output Destination of the rows
+     * @throws IOException if the output fails
+     */
+    void writeGPM(List<Phase> phases, List<ChartGroupPhaseMeasurement> chartRows, Appendable output) throws IOException;
 }
@@ -4,4 +4,16 @@ import java.util.List;
 
 public interface IEntityGroupExtractor {
 	List<EntityGroup> clusterData();
+
+	/**
+	 * Sets the monitor that receives every merge and can cancel the clustering.
+	 * @param monitor ClusteringMonitor of the running clustering
+	 */
+	void setMonitor(ClusteringMonitor monitor);
+
+	/**
+	 * Sets the dendrogram that records every merge of the clustering.
+	 * @param dendrogram EntityGroupDendrogram to be filled
+	 */
+	void setDendrogram(EntityGroupDendrogram dendrogram);
 }
@@ -4,4 +4,16 @@ import java.util.List;
 
 public interface IPhaseExtractor {
 	public List<Phase> clusterData();
+
+	/**
+	 * Sets the monitor that receives every merge and can cancel the clustering.
+	 * @param monitor ClusteringMonitor of the running clustering
+	 */
+	public void setMonitor(ClusteringMonitor monitor);
+
+	/**
+	 * Sets the dendrogram that records every merge of the clustering.
+	 * @param dendrogram PhaseDendrogram to be filled
+	 */
+	public void setDendrogram(PhaseDendrogram dendrogram);
 }
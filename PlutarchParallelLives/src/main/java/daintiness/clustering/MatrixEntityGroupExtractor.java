@@ -0,0 +1,165 @@
+package daintiness.clustering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import daintiness.data.IDataHandler;
+import daintiness.utilities.ParallelExecutor;
+
+/**
+ * Agglomerative entityGroup extractor that caches the pairwise distances
+ * in a condensed (lower triangular) distance matrix.
+ * <p/>
+ * Every row keeps its nearest neighbour among the lower positions, so finding the
+ * closest pair is a scan over the rows instead of a scan over all the pairs. After a merge
+ * only the distances of the merged entityGroup are recomputed and only the rows whose
+ * nearest neighbour was affected are rescanned.
+ * <p/>
+ * The merged entityGroup's changes are the sum of its components' changes, so its
+ * distances cannot be derived from the old distances (Lance–Williams) and are recomputed
+ * from the merged values instead. Ties are broken by position, exactly like the pair scan of
+ * {@link EntityGroupExtractor}, so both extractors produce identical entityGroups.
+ * The distance and nearest neighbour updates of the rows are independent of each other
+ * and run on the profile's parallelism.
+ */
+public class MatrixEntityGroupExtractor extends EntityGroupExtractor {
+
+    private EntityGroup[] groups;
+    private double[] distances;
+    private double[] rowMinDistance;
+    private int[] rowNearestNeighbour;
+
+    public MatrixEntityGroupExtractor(EntityClusteringProfile profile, IDataHandler dataHandler) {
+        super(profile, dataHandler);
+    }
+
+    @Override
+    public List<EntityGroup> clusterData() {
+        // 1. Create an EntityGroup for every Entity
+        init();
+
+        ParallelExecutor executor = new ParallelExecutor(profile.getParallelism());
+        initDistanceMatrix(executor);
+
+        // 2. Repeat until there is the desired number of entityGroups
+        int numberOfGroups = groups.length;
+        while (numberOfGroups > profile.getDesiredNumberOfEntityGroups()) {
+            monitor.checkCancelled();
+            int first = findClosestRow();
+            if (first == -1) {
+                break;
+            }
+            mergeRows(first, rowNearestNeighbour[first], executor);
+            numberOfGroups--;
+            monitor.mergeDone();
+        }
+
+        entityGroupList = collectEntityGroups();
+        renameEntityGroups();
+
+        return entityGroupList;
+    }
+
+    private void initDistanceMatrix(ParallelExecutor executor) {
+        groups = entityGroupList.toArray(new EntityGroup[0]);
+        int size = groups.length;
+
+        distances = new double[Math.toIntExact((long) size * (size - 1) / 2)];
+        rowMinDistance = new double[size];
+        rowNearestNeighbour = new int[size];
+
+        executor.forEach(0, size, i -> {
+            for (int j = 0; j < i; j++) {
+                distances[index(i, j)] = calculatePairDistance(groups[i], groups[j]);
+            }
+            updateRowMinimum(i);
+        });
+    }
+
+    private static int index(int i, int j) {
+        return (int) ((long) i * (i - 1) / 2 + j);
+    }
+
+    private int findClosestRow() {
+        double minDistance = Double.MAX_VALUE;
+        int closestRow = -1;
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null && rowNearestNeighbour[i] != -1 && minDistance > rowMinDistance[i]) {
+                minDistance = rowMinDistance[i];
+                closestRow = i;
+            }
+        }
+        return closestRow;
+    }
+
+    /**
+     * Finds the nearest neighbour of row i among the alive lower positions.
+     * The first (lowest) position wins ties.
+     */
+    private void updateRowMinimum(int i) {
+        double minDistance = Double.MAX_VALUE;
+        int nearestNeighbour = -1;
+        int rowStart = index(i, 0);
+        for (int j = 0; j < i; j++) {
+            if (groups[j] != null && minDistance > distances[rowStart + j]) {
+                minDistance = distances[rowStart + j];
+                nearestNeighbour = j;
+            }
+        }
+        rowMinDistance[i] = minDistance;
+        rowNearestNeighbour[i] = nearestNeighbour;
+    }
+
+    private void mergeRows(int first, int second, ParallelExecutor executor) {
+        mergeEntityGroupValues(groups[first], groups[second]);
+        groups[second] = null;
+
+        // Recompute the distances of the merged entityGroup
+        executor.forEach(0, groups.length, j -> {
+            if (groups[j] == null || j == first) {
+                return;
+            }
+            if (j < first) {
+                distances[index(first, j)] = calculatePairDistance(groups[first], groups[j]);
+            } else {
+                distances[index(j, first)] = calculatePairDistance(groups[j], groups[first]);
+            }
+        });
+
+        // Refresh the nearest neighbours that may have changed; every row only touches its own minimum
+        updateRowMinimum(first);
+        executor.forEach(second + 1, groups.length, k -> {
+            if (groups[k] == null || k == first) {
+                return;
+            }
+
+            int nearestNeighbour = rowNearestNeighbour[k];
+            if (nearestNeighbour == second) {
+                updateRowMinimum(k);
+            } else if (k > first) {
+                double newDistance = distances[index(k, first)];
+                if (nearestNeighbour == first) {
+                    if (newDistance > rowMinDistance[k]) {
+                        updateRowMinimum(k);
+                    } else {
+                        rowMinDistance[k] = newDistance;
+                    }
+                } else if (rowMinDistance[k] > newDistance ||
+                        (rowMinDistance[k] == newDistance && first < nearestNeighbour)) {
+                    rowMinDistance[k] = newDistance;
+                    rowNearestNeighbour[k] = first;
+                }
+            }
+        });
+    }
+
+    private List<EntityGroup> collectEntityGroups() {
+        List<EntityGroup> result = new ArrayList<>();
+        for (EntityGroup group : groups) {
+            if (group != null) {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+}
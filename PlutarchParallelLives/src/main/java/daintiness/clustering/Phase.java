@@ -11,6 +11,12 @@ public class Phase {
     private final List<Beat> phaseComponents;
     private final List<Integer> phaseComponentsIdList;
 
+    // Range form of the phase: while the beat ids are consecutive,
+    // the phase is exactly [firstBeatId, lastBeatId]
+    private int firstBeatId;
+    private int lastBeatId;
+    private boolean contiguous;
+
 
 
     public Phase(int phaseId, Beat firstBeat) {
@@ -19,12 +25,21 @@ public class Phase {
         this.phaseComponentsIdList = new ArrayList<>();
         phaseComponents.add(firstBeat);
         phaseComponentsIdList.add(firstBeat.getBeatId());
+
+        this.firstBeatId = firstBeat.getBeatId();
+        this.lastBeatId = firstBeat.getBeatId();
+        this.contiguous = true;
     }
 
     public Phase(int phaseId, List<Integer> phaseComponentsIdList) {
         this.phaseId = phaseId;
         this.phaseComponentsIdList = phaseComponentsIdList;
         this.phaseComponents = null;
+
+        this.contiguous = true;
+        for (int i = 0; i < phaseComponentsIdList.size(); i++) {
+            updateRange(phaseComponentsIdList.get(i), i == 0);
+        }
     }
 
     public int getPhaseId() {
@@ -45,6 +60,41 @@ public class Phase {
     public void addBeat(Beat newBeat) {
         phaseComponents.add(newBeat);
         phaseComponentsIdList.add(newBeat.getBeatId());
+        updateRange(newBeat.getBeatId(), false);
+    }
+
+
+    private void updateRange(int beatId, boolean isFirstBeat) {
+        if (isFirstBeat) {
+            firstBeatId = beatId;
+        } else if (beatId != lastBeatId + 1) {
+            contiguous = false;
+        }
+        lastBeatId = beatId;
+    }
+
+
+    /**
+     * @return id of the phase's first beat
+     */
+    public int getFirstBeatId() {
+        return firstBeatId;
+    }
+
+
+    /**
+     * @return id of the phase's last beat
+     */
+    public int getLastBeatId() {
+        return lastBeatId;
+    }
+
+
+    /**
+     * @return True if the phase's beat ids are consecutive, i.e. the phase is the range [firstBeatId, lastBeatId]
+     */
+    public boolean isContiguous() {
+        return contiguous;
     }
 
 
@@ -59,6 +109,9 @@ public class Phase {
 
 
     public boolean containsBeat(int beatId) {
+        if (contiguous) {
+            return !phaseComponentsIdList.isEmpty() && beatId >= firstBeatId && beatId <= lastBeatId;
+        }
         return phaseComponentsIdList.contains(beatId);
     }
 
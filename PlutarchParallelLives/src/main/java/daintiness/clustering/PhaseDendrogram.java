@@ -0,0 +1,94 @@
+package daintiness.clustering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+
+/**
+ * The complete merge sequence of a beat clustering, i.e. the clustering run down to a single phase.
+ * <p/>
+ * The agglomerative merging is greedy and does not depend on the desired number of phases,
+ * so the clustering into k phases is exactly the first (n - k) merges of the sequence.
+ * Every merge joins two neighbouring phases, so it removes the boundary in front of the merged
+ * phase's first beat, and a cut is a single pass over the timeline.
+ */
+public class PhaseDendrogram {
+    private final IDataHandler dataHandler;
+    private final double changesWeight;
+    private final boolean withPreprocessing;
+
+    private final int[] mergedPositions;
+    private int numberOfMerges;
+
+    public PhaseDendrogram(BeatClusteringProfile profile, IDataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+        this.changesWeight = profile.getChangesWeight();
+        this.withPreprocessing = profile.isWithPreprocessing();
+        this.mergedPositions = new int[Math.max(0, dataHandler.getTimeline().size() - 1)];
+    }
+
+    /**
+     * Runs the beat clustering with the weights of the dendrogram down to a single phase, recording every merge.
+     * @param parallelism number of threads used for the distance calculations
+     * @param monitor receives every merge and can cancel the clustering
+     */
+    public void build(int parallelism, ClusteringMonitor monitor) {
+        BeatClusteringProfile dendrogramProfile = new BeatClusteringProfile(1, changesWeight, withPreprocessing, parallelism);
+        IPhaseExtractor phaseExtractor = new PhaseExtractorFactory().getPhaseExtractor("AGGLOMERATIVE_HEAP", dendrogramProfile, dataHandler);
+        phaseExtractor.setMonitor(monitor);
+        phaseExtractor.setDendrogram(this);
+        phaseExtractor.clusterData();
+    }
+
+    /**
+     * Called by the extractor for every merge, in merge order.
+     * While clustering is in progress the phaseIds are the timeline positions of the phases' first beats.
+     * @param mergedPosition timeline position of the first beat of the phase that was merged into its previous phase
+     */
+    public void addMerge(int mergedPosition) {
+        mergedPositions[numberOfMerges++] = mergedPosition;
+    }
+
+    public int getNumberOfMerges() {
+        return numberOfMerges;
+    }
+
+    /**
+     * @return True if the dendrogram was built on the dataHandler with the weights of the profile
+     */
+    public boolean matches(BeatClusteringProfile profile, IDataHandler dataHandler) {
+        return this.dataHandler == dataHandler &&
+                Double.compare(changesWeight, profile.getChangesWeight()) == 0 &&
+                withPreprocessing == profile.isWithPreprocessing();
+    }
+
+    /**
+     * Creates the phases of the clustering into the given number of phases.
+     * The phases are new objects with the same beats and ids that the extractor would produce.
+     * @param desiredNumberOfPhases number of desired phases
+     * @return List of Phases in timeline order
+     */
+    public List<Phase> cut(int desiredNumberOfPhases) {
+        List<Beat> timeline = dataHandler.getTimeline();
+        int merges = Math.min(numberOfMerges, Math.max(0, timeline.size() - desiredNumberOfPhases));
+
+        boolean[] merged = new boolean[timeline.size()];
+        for (int i = 0; i < merges; i++) {
+            merged[mergedPositions[i]] = true;
+        }
+
+        List<Phase> phases = new ArrayList<>(timeline.size() - merges);
+        Phase currentPhase = null;
+        for (int position = 0; position < timeline.size(); position++) {
+            if (currentPhase == null || !merged[position]) {
+                currentPhase = new Phase(phases.size(), timeline.get(position));
+                phases.add(currentPhase);
+            } else {
+                currentPhase.addBeat(timeline.get(position));
+            }
+        }
+        return phases;
+    }
+}
@@ -16,6 +16,10 @@ public class PhaseExtractorFactory {
             return new AgglomerativePhaseExtractor(profile, dataHandler);
         }
 
+        if (type.equals("AGGLOMERATIVE_HEAP")) {
+            return new HeapAgglomerativePhaseExtractor(profile, dataHandler);
+        }
+
         return null;
 	}
 }
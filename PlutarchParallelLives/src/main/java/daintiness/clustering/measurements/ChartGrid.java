@@ -0,0 +1,164 @@
+package daintiness.clustering.measurements;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+
+/**
+ * The chart data of one (MeasurementType, AggregationType) pair as a (group x phase) grid.
+ * <p/>
+ * Every cell keeps the measurement's value and the index of its color in a small palette,
+ * so the grid costs 9 bytes per cell instead of a map entry and a Measurement object.
+ * The rows are ChartGroupPhaseMeasurements that read their cells from the grid.
+ */
+public class ChartGrid {
+    private static final byte ABSENT = -1;
+
+    private final Constants.MeasurementType measurementType;
+    private final Constants.AggregationType aggregationType;
+    private final int numberOfPhases;
+    private final int[] phaseIdToColumn;
+
+    private final double[] values;
+    private final byte[] colors;
+    private final int[] rowActivity;
+    private final List<String> palette = new ArrayList<>();
+    private final List<ChartGroupPhaseMeasurement> rows;
+
+    public ChartGrid(Constants.MeasurementType measurementType,
+                     Constants.AggregationType aggregationType,
+                     List<EntityGroup> entityGroups,
+                     List<Phase> phases) {
+        this.measurementType = measurementType;
+        this.aggregationType = aggregationType;
+        this.numberOfPhases = phases.size();
+
+        int maxPhaseId = -1;
+        for (Phase phase : phases) {
+            maxPhaseId = Math.max(maxPhaseId, phase.getPhaseId());
+        }
+        phaseIdToColumn = new int[maxPhaseId + 1];
+        Arrays.fill(phaseIdToColumn, -1);
+        for (int i = 0; i < phases.size(); i++) {
+            phaseIdToColumn[phases.get(i).getPhaseId()] = i;
+        }
+
+        int numberOfCells = entityGroups.size() * numberOfPhases;
+        values = new double[numberOfCells];
+        colors = new byte[numberOfCells];
+        Arrays.fill(colors, ABSENT);
+        rowActivity = new int[entityGroups.size()];
+
+        rows = new ArrayList<>(entityGroups.size());
+        for (int row = 0; row < entityGroups.size(); row++) {
+            rows.add(new ChartGroupPhaseMeasurement(entityGroups.get(row), this, row));
+        }
+    }
+
+    public Constants.MeasurementType getMeasurementType() {
+        return measurementType;
+    }
+
+    public Constants.AggregationType getAggregationType() {
+        return aggregationType;
+    }
+
+    /**
+     * @return the chart rows in entityGroup order
+     */
+    public List<ChartGroupPhaseMeasurement> getRows() {
+        return rows;
+    }
+
+    /**
+     * Stores the value and the color of a measurement in the cell of (row, phaseId).
+     */
+    public void setMeasurement(int row, int phaseId, IMeasurement measurement) {
+        int cell = cell(row, phaseId);
+        if (cell == -1) {
+            return;
+        }
+        if (colors[cell] == ABSENT) {
+            rowActivity[row]++;
+        }
+        values[cell] = measurement.getValue();
+        colors[cell] = colorIndex(measurement.getColor());
+    }
+
+    /**
+     * @return a new Measurement with the value and the color of the cell, or null for an empty cell;
+     * the read paths that only need the value or the color use getValue and getColor instead
+     */
+    public IMeasurement getMeasurement(int row, int phaseId) {
+        int cell = cell(row, phaseId);
+        if (cell == -1 || colors[cell] == ABSENT) {
+            return null;
+        }
+        Measurement measurement = new Measurement(values[cell], measurementType, aggregationType);
+        measurement.setColor(palette.get(colors[cell]));
+        return measurement;
+    }
+
+    /**
+     * @return the value of the cell, without creating its Measurement, or NaN for an empty cell
+     */
+    public double getValue(int row, int phaseId) {
+        int cell = cell(row, phaseId);
+        if (cell == -1 || colors[cell] == ABSENT) {
+            return Double.NaN;
+        }
+        return values[cell];
+    }
+
+    /**
+     * @return the color of the cell, or null for an empty cell
+     */
+    public String getColor(int row, int phaseId) {
+        int cell = cell(row, phaseId);
+        if (cell == -1 || colors[cell] == ABSENT) {
+            return null;
+        }
+        return palette.get(colors[cell]);
+    }
+
+    public boolean containsMeasurement(int row, int phaseId) {
+        int cell = cell(row, phaseId);
+        return cell != -1 && colors[cell] != ABSENT;
+    }
+
+    public int getNumberOfMeasurements(int row) {
+        return rowActivity[row];
+    }
+
+    /**
+     * @return approximate size of the grid in bytes (arrays, palette and rows)
+     */
+    public long getFootprint() {
+        long arrays = 8L * values.length + colors.length + 4L * rowActivity.length + 4L * phaseIdToColumn.length;
+        // Object header and three fields per row, plus the list's reference
+        long rowObjects = 28L * rows.size();
+        return arrays + rowObjects + 64L * palette.size();
+    }
+
+    private int cell(int row, int phaseId) {
+        if (phaseId < 0 || phaseId >= phaseIdToColumn.length || phaseIdToColumn[phaseId] == -1) {
+            return -1;
+        }
+        return row * numberOfPhases + phaseIdToColumn[phaseId];
+    }
+
+    private byte colorIndex(String color) {
+        int index = palette.indexOf(color);
+        if (index == -1) {
+            palette.add(color);
+            index = palette.size() - 1;
+        }
+        return (byte) index;
+    }
+}
@@ -13,11 +13,18 @@ public class ChartGroupPhaseMeasurement {
     private Map<Integer, IMeasurement> measurementToPhaseMap;
     private int activity;
 
+    // Set for the read-only rows of a precomputed ChartGrid
+    private final ChartGrid grid;
+    private final int gridRow;
+
     public EntityGroup getEntityGroup() {
         return entityGroup;
     }
 
     public int getActivity() {
+        if (grid != null) {
+            return grid.getNumberOfMeasurements(gridRow);
+        }
         return activity;
     }
 
@@ -25,26 +32,74 @@ public class ChartGroupPhaseMeasurement {
         this.entityGroup = entityGroup;
         this.activity = 0;
         this.measurementToPhaseMap = new HashMap<>();
+        this.grid = null;
+        this.gridRow = -1;
+    }
+
+    /**
+     * Creates a row that reads its measurements from a precomputed ChartGrid.
+     */
+    public ChartGroupPhaseMeasurement(EntityGroup entityGroup, ChartGrid grid, int gridRow) {
+        this.entityGroup = entityGroup;
+        this.grid = grid;
+        this.gridRow = gridRow;
     }
 
     public void addMeasurement(int phaseId, IMeasurement measurement) {
+        if (grid != null) {
+            throw new UnsupportedOperationException("The rows of a precomputed ChartGrid are read-only");
+        }
         measurementToPhaseMap.put(phaseId, measurement);
         activity++;
     }
 
     public IMeasurement getMeasurement(int phaseId){
+        if (grid != null) {
+            return grid.getMeasurement(gridRow, phaseId);
+        }
         return measurementToPhaseMap.get(phaseId);
     }
 
+    /**
+     * @return the value of the measurement in the phase, NaN if there is none
+     */
+    public double getValue(int phaseId) {
+        if (grid != null) {
+            return grid.getValue(gridRow, phaseId);
+        }
+        IMeasurement measurement = measurementToPhaseMap.get(phaseId);
+        return (measurement == null) ? Double.NaN : measurement.getValue();
+    }
+
+    /**
+     * @return the color of the measurement in the phase, null if there is none
+     */
+    public String getColor(int phaseId) {
+        if (grid != null) {
+            return grid.getColor(gridRow, phaseId);
+        }
+        IMeasurement measurement = measurementToPhaseMap.get(phaseId);
+        return (measurement == null) ? null : measurement.getColor();
+    }
+
     public boolean containsMeasurementInPhase(int phaseId) {
+        if (grid != null) {
+            return grid.containsMeasurement(gridRow, phaseId);
+        }
         return measurementToPhaseMap.containsKey(phaseId);
     }
 
     public int getNumberOfMeasurements() {
+        if (grid != null) {
+            return grid.getNumberOfMeasurements(gridRow);
+        }
         return measurementToPhaseMap.size();
     }
 
     public void setMeasurementToPhaseMap(Map<Integer, IMeasurement> measurementToPhaseMap) {
+        if (grid != null) {
+            throw new UnsupportedOperationException("The rows of a precomputed ChartGrid are read-only");
+        }
         this.measurementToPhaseMap = measurementToPhaseMap;
     }
 }
@@ -7,6 +7,7 @@ import daintiness.clustering.EntityGroup;
 import daintiness.clustering.Phase;
 import daintiness.models.TimeEntityMeasurements;
 import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
 import daintiness.utilities.Constants;
 
 
@@ -23,6 +24,19 @@ public class GroupPhaseMeasurement {
         measurementList = new ArrayList<>();
     }
 
+    /**
+     * Creates an already aggregated GroupPhaseMeasurement.
+     * @param temList the TEMs of the (entityGroup, phase) cell
+     * @param measurementList the sums of the TEMs' measurements, one per (MeasurementType, AggregationType)
+     */
+    public GroupPhaseMeasurement(EntityGroup entityGroup, Phase phase,
+                                 List<TimeEntityMeasurements> temList, List<IMeasurement> measurementList) {
+        this.phase = phase;
+        this.entityGroup = entityGroup;
+        this.temList = temList;
+        this.measurementList = measurementList;
+    }
+
 
     public EntityGroup getEntityGroup() {
         return entityGroup;
@@ -40,6 +54,9 @@ public class GroupPhaseMeasurement {
         return measurementList;
     }
 
+    /**
+     * Adds the TEM to the cell and its values to the sums; the sums are copies, so the TEM keeps its values.
+     */
     public void addTEM(TimeEntityMeasurements tem) {
         temList.add(tem);
 
@@ -54,7 +71,8 @@ public class GroupPhaseMeasurement {
                 }
             }
             if (!measurementTypeFound) {
-                measurementList.add(newTEMMeasurement);
+                measurementList.add(new Measurement(newTEMMeasurement.getValue(),
+                        newTEMMeasurement.getMeasurementType(), newTEMMeasurement.getAggregationType()));
             }
         }
     }
@@ -0,0 +1,268 @@
+package daintiness.clustering.measurements;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.data.ColumnarDataHandler;
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+import daintiness.utilities.ParallelExecutor;
+
+/**
+ * Aggregates the TimeEntityMeasurements into GroupPhaseMeasurements.
+ * <p/>
+ * Every TEM is read exactly once: the TEMs of a group's entities are routed to their phase
+ * through the beatId -> phase position array, and the values of every
+ * (MeasurementType, AggregationType) are summed in primitive arrays. The GroupPhaseMeasurement
+ * objects are only created for the non-empty (group, phase) cells.
+ * <p/>
+ * The groups are independent of each other, so they are partitioned over the executor's threads.
+ * Inside a group the TEMs are visited in the same order as GroupPhaseMeasurement.addTEM would
+ * visit them, so the sums and the order of the measurements are identical.
+ * <p/>
+ * A ColumnarDataHandler is read from its measurement columns, without creating the TEMs; the
+ * TEM lists of its GroupPhaseMeasurements are views that create them when they are read.
+ */
+public class GroupPhaseMeasurementAggregator {
+    private static final Constants.MeasurementType[] MEASUREMENT_TYPES = Constants.MeasurementType.values();
+    private static final Constants.AggregationType[] AGGREGATION_TYPES = Constants.AggregationType.values();
+    private static final int NUMBER_OF_COMBINATIONS = MEASUREMENT_TYPES.length * AGGREGATION_TYPES.length;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final IDataHandler dataHandler;
+    private final List<Phase> phases;
+    private final List<EntityGroup> entityGroups;
+    private final int[] beatIdToPhaseIndex;
+    private final ColumnarDataHandler columnarDataHandler;
+    // Combination index of every measurement column of the columnarDataHandler
+    private final int[] columnCombinations;
+
+    /**
+     * @param beatIdToPhaseIndex position of every beat's phase in the phases list (-1 for none)
+     */
+    public GroupPhaseMeasurementAggregator(IDataHandler dataHandler,
+                                           List<Phase> phases,
+                                           List<EntityGroup> entityGroups,
+                                           int[] beatIdToPhaseIndex) {
+        this.dataHandler = dataHandler;
+        this.phases = phases;
+        this.entityGroups = entityGroups;
+        this.beatIdToPhaseIndex = beatIdToPhaseIndex;
+
+        if (dataHandler instanceof ColumnarDataHandler) {
+            columnarDataHandler = (ColumnarDataHandler) dataHandler;
+            columnCombinations = new int[columnarDataHandler.getNumberOfMeasurementColumns()];
+            for (int column = 0; column < columnCombinations.length; column++) {
+                columnCombinations[column] = combinationIndex(columnarDataHandler.getMeasurementType(column),
+                        columnarDataHandler.getAggregationType(column));
+            }
+        } else {
+            columnarDataHandler = null;
+            columnCombinations = null;
+        }
+    }
+
+    /**
+     * @return for every entityGroup (in list order) its non-empty GroupPhaseMeasurements in phase order
+     */
+    public List<List<GroupPhaseMeasurement>> aggregate(ParallelExecutor executor) {
+        int numberOfGroups = entityGroups.size();
+        List<List<GroupPhaseMeasurement>> result = new ArrayList<>(numberOfGroups);
+        for (int i = 0; i < numberOfGroups; i++) {
+            result.add(null);
+        }
+
+        int parallelism = executor.getParallelism();
+        int numberOfPartitions = Math.min(numberOfGroups, (parallelism == 1) ? 1 : parallelism * PARTITIONS_PER_THREAD);
+        executor.forEach(0, numberOfPartitions, partition -> {
+            Accumulator accumulator = new Accumulator(phases.size());
+            for (int group = partition; group < numberOfGroups; group += numberOfPartitions) {
+                result.set(group, accumulator.aggregateGroup(entityGroups.get(group)));
+            }
+        });
+
+        return result;
+    }
+
+    private static int combinationIndex(IMeasurement measurement) {
+        return combinationIndex(measurement.getMeasurementType(), measurement.getAggregationType());
+    }
+
+    private static int combinationIndex(Constants.MeasurementType measurementType, Constants.AggregationType aggregationType) {
+        return measurementType.ordinal() * AGGREGATION_TYPES.length + aggregationType.ordinal();
+    }
+
+
+    /**
+     * Per-thread accumulation arrays, reused for all the groups of a partition.
+     * Only the entries of the phases touched by a group are reset after the group.
+     */
+    private class Accumulator {
+        private final double[] values;
+        private final boolean[] found;
+        private final int[] measurementOrder;
+        private final int[] numberOfMeasurements;
+        private final List<List<TimeEntityMeasurements>> temLists;
+        // The cells of every phase when the dataHandler is columnar, instead of the temLists
+        private final int[][] cellLists;
+        private final int[] numberOfCells;
+        private final int[] touchedPhases;
+        private int numberOfTouchedPhases;
+
+        Accumulator(int numberOfPhases) {
+            values = new double[numberOfPhases * NUMBER_OF_COMBINATIONS];
+            found = new boolean[numberOfPhases * NUMBER_OF_COMBINATIONS];
+            measurementOrder = new int[numberOfPhases * NUMBER_OF_COMBINATIONS];
+            numberOfMeasurements = new int[numberOfPhases];
+            temLists = new ArrayList<>(numberOfPhases);
+            for (int i = 0; i < numberOfPhases; i++) {
+                temLists.add(null);
+            }
+            touchedPhases = new int[numberOfPhases];
+            cellLists = (columnarDataHandler == null) ? null : new int[numberOfPhases][];
+            numberOfCells = (columnarDataHandler == null) ? null : new int[numberOfPhases];
+        }
+
+        List<GroupPhaseMeasurement> aggregateGroup(EntityGroup group) {
+            if (columnarDataHandler != null) {
+                return aggregateGroupFromColumns(group);
+            }
+            Map<String, Map<Integer, TimeEntityMeasurements>> entityNameToTEMMap = dataHandler.getEntityNameToTEMMap();
+            numberOfTouchedPhases = 0;
+
+            for (Entity entity : group.getGroupComponents()) {
+                Map<Integer, TimeEntityMeasurements> entityTEMs = entityNameToTEMMap.get(entity.getEntityName());
+                if (entityTEMs == null) {
+                    continue;
+                }
+
+                for (Map.Entry<Integer, TimeEntityMeasurements> entry : entityTEMs.entrySet()) {
+                    int beatId = entry.getKey();
+                    if (beatId >= 0 && beatId < beatIdToPhaseIndex.length && beatIdToPhaseIndex[beatId] != -1) {
+                        addTEM(beatIdToPhaseIndex[beatId], entry.getValue());
+                    }
+                }
+            }
+
+            return collectGroupPhaseMeasurements(group);
+        }
+
+        /**
+         * Like aggregateGroup, reading the cells of the group's entities from the measurement columns.
+         */
+        private List<GroupPhaseMeasurement> aggregateGroupFromColumns(EntityGroup group) {
+            int[] rowOffsets = columnarDataHandler.getRowOffsets();
+            int[] cellColumns = columnarDataHandler.getCellColumns();
+            List<Beat> timeline = columnarDataHandler.getTimeline();
+            numberOfTouchedPhases = 0;
+
+            for (Entity entity : group.getGroupComponents()) {
+                int row = columnarDataHandler.getEntityRow(entity.getEntityName());
+                if (row == -1) {
+                    continue;
+                }
+
+                for (int cell = rowOffsets[row]; cell < rowOffsets[row + 1]; cell++) {
+                    int beatId = timeline.get(cellColumns[cell]).getBeatId();
+                    if (beatId >= 0 && beatId < beatIdToPhaseIndex.length && beatIdToPhaseIndex[beatId] != -1) {
+                        addCell(beatIdToPhaseIndex[beatId], cell);
+                    }
+                }
+            }
+
+            return collectGroupPhaseMeasurements(group);
+        }
+
+        private void addCell(int phase, int cell) {
+            if (numberOfCells[phase] == 0) {
+                if (cellLists[phase] == null) {
+                    cellLists[phase] = new int[4];
+                }
+                touchedPhases[numberOfTouchedPhases++] = phase;
+            } else if (numberOfCells[phase] == cellLists[phase].length) {
+                cellLists[phase] = Arrays.copyOf(cellLists[phase], 2 * numberOfCells[phase]);
+            }
+            cellLists[phase][numberOfCells[phase]++] = cell;
+
+            int phaseOffset = phase * NUMBER_OF_COMBINATIONS;
+            for (int column = 0; column < columnCombinations.length; column++) {
+                double value = columnarDataHandler.getMeasurementColumn(column)[cell];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int index = phaseOffset + columnCombinations[column];
+                if (found[index]) {
+                    values[index] += value;
+                } else {
+                    found[index] = true;
+                    values[index] = value;
+                    measurementOrder[phaseOffset + numberOfMeasurements[phase]] = index - phaseOffset;
+                    numberOfMeasurements[phase]++;
+                }
+            }
+        }
+
+        private void addTEM(int phase, TimeEntityMeasurements tem) {
+            if (temLists.get(phase) == null) {
+                temLists.set(phase, new ArrayList<>());
+                touchedPhases[numberOfTouchedPhases++] = phase;
+            }
+            temLists.get(phase).add(tem);
+
+            int phaseOffset = phase * NUMBER_OF_COMBINATIONS;
+            for (IMeasurement measurement : tem.getMeasurements()) {
+                int index = phaseOffset + combinationIndex(measurement);
+                if (found[index]) {
+                    values[index] += measurement.getValue();
+                } else {
+                    found[index] = true;
+                    values[index] = measurement.getValue();
+                    measurementOrder[phaseOffset + numberOfMeasurements[phase]] = index - phaseOffset;
+                    numberOfMeasurements[phase]++;
+                }
+            }
+        }
+
+        private List<GroupPhaseMeasurement> collectGroupPhaseMeasurements(EntityGroup group) {
+            Arrays.sort(touchedPhases, 0, numberOfTouchedPhases);
+
+            List<GroupPhaseMeasurement> groupPhaseMeasurements = new ArrayList<>();
+            for (int i = 0; i < numberOfTouchedPhases; i++) {
+                int phase = touchedPhases[i];
+                int phaseOffset = phase * NUMBER_OF_COMBINATIONS;
+
+                List<IMeasurement> measurementList = new ArrayList<>(numberOfMeasurements[phase]);
+                for (int j = 0; j < numberOfMeasurements[phase]; j++) {
+                    int combination = measurementOrder[phaseOffset + j];
+                    measurementList.add(new Measurement(values[phaseOffset + combination],
+                            MEASUREMENT_TYPES[combination / AGGREGATION_TYPES.length],
+                            AGGREGATION_TYPES[combination % AGGREGATION_TYPES.length]));
+                    found[phaseOffset + combination] = false;
+                }
+
+                if (!measurementList.isEmpty()) {
+                    List<TimeEntityMeasurements> temList = (columnarDataHandler == null) ? temLists.get(phase) :
+                            columnarDataHandler.getTEMs(Arrays.copyOf(cellLists[phase], numberOfCells[phase]));
+                    groupPhaseMeasurements.add(
+                            new GroupPhaseMeasurement(group, phases.get(phase), temList, measurementList));
+                }
+
+                numberOfMeasurements[phase] = 0;
+                temLists.set(phase, null);
+                if (columnarDataHandler != null) {
+                    numberOfCells[phase] = 0;
+                }
+            }
+            return groupPhaseMeasurements;
+        }
+    }
+}
@@ -0,0 +1,838 @@
+package daintiness.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import daintiness.io.output.FastNumberFormatter;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+
+/**
+ * IDataHandler that stores the TimeEntityMeasurements in primitive columns instead of
+ * nested HashMaps of objects.
+ * <p/>
+ * The non-empty cells are kept in a CSR (compressed sparse row) layout: the cells of
+ * entity e are the positions rowOffsets[e] .. rowOffsets[e+1]-1, sorted by beat. Every
+ * available (MeasurementType, AggregationType) pair has its own double column over the cells,
+ * with NaN for the cells that do not contain that measurement. A second int index orders
+ * the cells by beat for the beat-major lookups.
+ * <p/>
+ * TimeEntityMeasurements of entities that are not in the population, or of beats that are not
+ * in the timeline, have no cell and are not stored.
+ * <p/>
+ * The map getters and getTem are served as read-only views that create the
+ * TimeEntityMeasurements objects on demand, so callers cannot modify the stored values.
+ * The clustering reads the columns directly instead (see getMeasurementColumn), so the
+ * views are meant for the occasional lookup.
+ */
+public class ColumnarDataHandler implements IDataHandler {
+    private Constants.FileType type;
+
+    private List<Beat> timeline;
+    private List<Entity> population;
+
+    private Map<String, Integer> entityNameToRow;
+    private int[] entityIdToRow;
+    private Map<Integer, Integer> beatIdToColumn;
+
+    // Entity-major (CSR) cells
+    private int[] rowOffsets;
+    private int[] cellColumns;
+
+    // Beat-major index over the same cells
+    private int[] columnOffsets;
+    private int[] columnCells;
+
+    private Constants.MeasurementType[] measurementTypes;
+    private Constants.AggregationType[] aggregationTypes;
+    private double[][] measurementColumns;
+
+    private Map<String, Map<Integer, TimeEntityMeasurements>> entityNameToTEMView;
+    private Map<Integer, Map<String, TimeEntityMeasurements>> beatIdToTEMView;
+    private int numberOfNonEmptyRows;
+    private int numberOfNonEmptyColumns;
+
+
+    @Override
+    public void init(List<Beat> timeline, List<Entity> population, List<TimeEntityMeasurements> measurementsList) {
+        this.timeline = timeline;
+        this.population = population;
+
+        indexEntitiesAndBeats();
+        List<TimeEntityMeasurements> storedTEMs = findStoredTEMs(measurementsList);
+        findMeasurementColumns(storedTEMs);
+        fillCells(storedTEMs);
+        indexCellsByBeat();
+        countNonEmptyRowsAndColumns();
+
+        entityNameToTEMView = new EntityNameToTEMView();
+        beatIdToTEMView = new BeatIdToTEMView();
+    }
+
+    /**
+     * Initializes the handler from columns that are already decoded, e.g. by the SnapshotLoader,
+     * without creating the TimeEntityMeasurements objects. The arrays are kept, not copied.
+     * @param cellRows the population position of the entity of every cell
+     * @param cellBeatColumns the timeline position of the beat of every cell
+     * @param measurementColumns the values of every (measurementTypes[i], aggregationTypes[i]) over the cells,
+     *                           NaN for the cells without that measurement
+     */
+    public void init(List<Beat> timeline, List<Entity> population, int[] cellRows, int[] cellBeatColumns,
+                     Constants.MeasurementType[] measurementTypes, Constants.AggregationType[] aggregationTypes,
+                     double[][] measurementColumns) {
+        this.timeline = timeline;
+        this.population = population;
+        this.measurementTypes = measurementTypes;
+        this.aggregationTypes = aggregationTypes;
+
+        indexEntitiesAndBeats();
+        fillCells(cellRows, cellBeatColumns, measurementColumns);
+        indexCellsByBeat();
+        countNonEmptyRowsAndColumns();
+
+        entityNameToTEMView = new EntityNameToTEMView();
+        beatIdToTEMView = new BeatIdToTEMView();
+    }
+
+    private void indexEntitiesAndBeats() {
+        entityNameToRow = new HashMap<>();
+        for (int row = 0; row < population.size(); row++) {
+            entityNameToRow.put(population.get(row).getEntityName(), row);
+        }
+
+        int maxEntityId = -1;
+        for (Entity entity : population) {
+            maxEntityId = Math.max(maxEntityId, entity.getEntityId());
+        }
+        entityIdToRow = new int[maxEntityId + 1];
+        Arrays.fill(entityIdToRow, -1);
+        for (int row = 0; row < population.size(); row++) {
+            int entityId = population.get(row).getEntityId();
+            if (entityId >= 0 && entityIdToRow[entityId] == -1) {
+                entityIdToRow[entityId] = row;
+            }
+        }
+
+        beatIdToColumn = new HashMap<>();
+        for (int column = 0; column < timeline.size(); column++) {
+            beatIdToColumn.put(timeline.get(column).getBeatId(), column);
+        }
+    }
+
+    /**
+     * @return the TEMs of the population's entities at the timeline's beats, which are the only ones
+     * with a cell. The others are skipped, like the clustering of a DataHandler, which walks the population, skips them.
+     */
+    private List<TimeEntityMeasurements> findStoredTEMs(List<TimeEntityMeasurements> measurementsList) {
+        List<TimeEntityMeasurements> storedTEMs = new ArrayList<>(measurementsList.size());
+        for (TimeEntityMeasurements tem : measurementsList) {
+            if (entityNameToRow.containsKey(tem.getEntity().getEntityName()) &&
+                    beatIdToColumn.containsKey(tem.getBeat().getBeatId())) {
+                storedTEMs.add(tem);
+            }
+        }
+        return (storedTEMs.size() == measurementsList.size()) ? measurementsList : storedTEMs;
+    }
+
+    private void findMeasurementColumns(List<TimeEntityMeasurements> measurementsList) {
+        List<Constants.MeasurementType> foundMeasurementTypes = new ArrayList<>();
+        List<Constants.AggregationType> foundAggregationTypes = new ArrayList<>();
+
+        for (TimeEntityMeasurements tem : measurementsList) {
+            for (IMeasurement measurement : tem.getMeasurements()) {
+                boolean found = false;
+                for (int i = 0; i < foundMeasurementTypes.size() && !found; i++) {
+                    found = foundMeasurementTypes.get(i) == measurement.getMeasurementType() &&
+                            foundAggregationTypes.get(i) == measurement.getAggregationType();
+                }
+                if (!found) {
+                    foundMeasurementTypes.add(measurement.getMeasurementType());
+                    foundAggregationTypes.add(measurement.getAggregationType());
+                }
+            }
+        }
+
+        measurementTypes = foundMeasurementTypes.toArray(new Constants.MeasurementType[0]);
+        aggregationTypes = foundAggregationTypes.toArray(new Constants.AggregationType[0]);
+    }
+
+    private void fillCells(List<TimeEntityMeasurements> measurementsList) {
+        int numberOfCells = measurementsList.size();
+
+        // Count the cells of every entity
+        rowOffsets = new int[population.size() + 1];
+        for (TimeEntityMeasurements tem : measurementsList) {
+            rowOffsets[entityNameToRow.get(tem.getEntity().getEntityName()) + 1]++;
+        }
+        for (int row = 0; row < population.size(); row++) {
+            rowOffsets[row + 1] += rowOffsets[row];
+        }
+
+        // Place the cells of every entity in beat order
+        TimeEntityMeasurements[] orderedTEMs = new TimeEntityMeasurements[numberOfCells];
+        int[] nextCell = Arrays.copyOf(rowOffsets, population.size());
+        for (TimeEntityMeasurements tem : measurementsList) {
+            orderedTEMs[nextCell[entityNameToRow.get(tem.getEntity().getEntityName())]++] = tem;
+        }
+        Comparator<TimeEntityMeasurements> byColumn = Comparator.comparingInt(tem -> beatIdToColumn.get(tem.getBeat().getBeatId()));
+        for (int row = 0; row < population.size(); row++) {
+            Arrays.sort(orderedTEMs, rowOffsets[row], rowOffsets[row + 1], byColumn);
+        }
+
+        cellColumns = new int[numberOfCells];
+        measurementColumns = new double[measurementTypes.length][numberOfCells];
+        for (double[] column : measurementColumns) {
+            Arrays.fill(column, Double.NaN);
+        }
+
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            TimeEntityMeasurements tem = orderedTEMs[cell];
+            cellColumns[cell] = beatIdToColumn.get(tem.getBeat().getBeatId());
+            for (IMeasurement measurement : tem.getMeasurements()) {
+                int index = findMeasurementColumn(measurement.getMeasurementType(), measurement.getAggregationType());
+                measurementColumns[index][cell] = measurement.getValue();
+            }
+        }
+    }
+
+    private void fillCells(int[] cellRows, int[] cellBeatColumns, double[][] measurementColumns) {
+        int numberOfCells = cellRows.length;
+
+        // The cells of an entity belong to the row of its name, as in fillCells(List)
+        int[] rows = new int[numberOfCells];
+        boolean ordered = true;
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            rows[cell] = entityNameToRow.get(population.get(cellRows[cell]).getEntityName());
+            if (cell > 0 && (rows[cell] < rows[cell - 1] ||
+                    (rows[cell] == rows[cell - 1] && cellBeatColumns[cell] < cellBeatColumns[cell - 1]))) {
+                ordered = false;
+            }
+        }
+
+        rowOffsets = new int[population.size() + 1];
+        for (int row : rows) {
+            rowOffsets[row + 1]++;
+        }
+        for (int row = 0; row < population.size(); row++) {
+            rowOffsets[row + 1] += rowOffsets[row];
+        }
+
+        if (ordered) {
+            cellColumns = cellBeatColumns;
+            this.measurementColumns = measurementColumns;
+            return;
+        }
+
+        // Place the cells of every entity in beat order, keeping the given order of equal beats
+        Integer[] orderedCells = new Integer[numberOfCells];
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            orderedCells[cell] = cell;
+        }
+        Arrays.sort(orderedCells, Comparator.<Integer>comparingInt(cell -> rows[cell]).thenComparingInt(cell -> cellBeatColumns[cell]));
+
+        cellColumns = new int[numberOfCells];
+        this.measurementColumns = new double[measurementColumns.length][numberOfCells];
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            cellColumns[cell] = cellBeatColumns[orderedCells[cell]];
+            for (int i = 0; i < measurementColumns.length; i++) {
+                this.measurementColumns[i][cell] = measurementColumns[i][orderedCells[cell]];
+            }
+        }
+    }
+
+    private void indexCellsByBeat() {
+        columnOffsets = new int[timeline.size() + 1];
+        for (int column : cellColumns) {
+            columnOffsets[column + 1]++;
+        }
+        for (int column = 0; column < timeline.size(); column++) {
+            columnOffsets[column + 1] += columnOffsets[column];
+        }
+
+        columnCells = new int[cellColumns.length];
+        int[] nextCell = Arrays.copyOf(columnOffsets, timeline.size());
+        for (int cell = 0; cell < cellColumns.length; cell++) {
+            columnCells[nextCell[cellColumns[cell]]++] = cell;
+        }
+    }
+
+    private void countNonEmptyRowsAndColumns() {
+        numberOfNonEmptyRows = 0;
+        for (int row = 0; row < population.size(); row++) {
+            if (rowOffsets[row + 1] > rowOffsets[row]) {
+                numberOfNonEmptyRows++;
+            }
+        }
+        numberOfNonEmptyColumns = 0;
+        for (int column = 0; column < timeline.size(); column++) {
+            if (columnOffsets[column + 1] > columnOffsets[column]) {
+                numberOfNonEmptyColumns++;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the measurement column of the given types, or -1 if the dataset doesn't contain it
+     */
+    public int findMeasurementColumn(Constants.MeasurementType measurementType, Constants.AggregationType aggregationType) {
+        for (int i = 0; i < measurementTypes.length; i++) {
+            if (measurementTypes[i] == measurementType && aggregationTypes[i] == aggregationType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Values of the given measurement column over all the cells (NaN for the cells without it).
+     * The cells of the entity at row e are rowOffsets[e] .. rowOffsets[e+1]-1.
+     * <p/>
+     * The array is the stored column; it must not be modified.
+     */
+    public double[] getMeasurementColumn(int measurementColumn) {
+        return measurementColumns[measurementColumn];
+    }
+
+    public int getNumberOfMeasurementColumns() {
+        return measurementColumns.length;
+    }
+
+    public Constants.MeasurementType getMeasurementType(int measurementColumn) {
+        return measurementTypes[measurementColumn];
+    }
+
+    public Constants.AggregationType getAggregationType(int measurementColumn) {
+        return aggregationTypes[measurementColumn];
+    }
+
+    /**
+     * @return the cell offsets of every entity row (length: number of entities + 1)
+     */
+    public int[] getRowOffsets() {
+        return rowOffsets;
+    }
+
+    /**
+     * @return the timeline position of every cell
+     */
+    public int[] getCellColumns() {
+        return cellColumns;
+    }
+
+    /**
+     * @return the position offsets of every timeline column in getColumnCells() (length: number of beats + 1)
+     */
+    public int[] getColumnOffsets() {
+        return columnOffsets;
+    }
+
+    /**
+     * @return the cells ordered by timeline column, and by entity row inside a column
+     */
+    public int[] getColumnCells() {
+        return columnCells;
+    }
+
+    /**
+     * @return the population position of the entity, or -1 if there is none with that name
+     */
+    public int getEntityRow(String entityName) {
+        Integer row = entityNameToRow.get(entityName);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * @return the population position of the entity of the cell
+     */
+    public int getCellRow(int cell) {
+        return findRow(cell);
+    }
+
+    /**
+     * Read-only list view of the TimeEntityMeasurements of the given cells, created when they are requested.
+     * @param cells the cells of the list; the array is kept by the view
+     */
+    public List<TimeEntityMeasurements> getTEMs(int[] cells) {
+        return new AbstractList<>() {
+            @Override
+            public TimeEntityMeasurements get(int index) {
+                return createTEM(cells[index], findRow(cells[index]));
+            }
+
+            @Override
+            public int size() {
+                return cells.length;
+            }
+        };
+    }
+
+    /**
+     * @return approximate number of bytes held by the primitive columns and indexes
+     */
+    public long getColumnsFootprint() {
+        long bytes = 4L * (rowOffsets.length + cellColumns.length + columnOffsets.length + columnCells.length);
+        for (double[] column : measurementColumns) {
+            bytes += 8L * column.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Constants.FileType getType() {
+        return type;
+    }
+
+    @Override
+    public void setType(Constants.FileType type) {
+        this.type = type;
+    }
+
+    @Override
+    public int getNumberOfTEMs() {
+        return cellColumns.length;
+    }
+
+    @Override
+    public List<Beat> getTimeline() {
+        return timeline;
+    }
+
+    @Override
+    public List<Entity> getPopulation() {
+        return population;
+    }
+
+    @Override
+    public Entity getEntity(int index) {
+        return population.get(index);
+    }
+
+    @Override
+    public Entity getEntityByName(String entityName) {
+        Integer row = entityNameToRow.get(entityName);
+        if (row == null) {
+            System.out.println("Oops the entity you are looking doesn't exist");
+            return null;
+        }
+        return population.get(row);
+    }
+
+    @Override
+    public Entity getEntityById(int entityId) {
+        if (entityId < 0 || entityId >= entityIdToRow.length || entityIdToRow[entityId] == -1) {
+            return null;
+        }
+        return population.get(entityIdToRow[entityId]);
+    }
+
+    @Override
+    public Beat getBeat(int index) {
+        return timeline.get(index);
+    }
+
+    @Override
+    public Map<String, Map<Integer, TimeEntityMeasurements>> getEntityNameToTEMMap() {
+        return entityNameToTEMView;
+    }
+
+    @Override
+    public Map<Integer, Map<String, TimeEntityMeasurements>> getBeatIdToTEMMap() {
+        return beatIdToTEMView;
+    }
+
+    @Override
+    public TimeEntityMeasurements getTem(Entity entity, Beat beat) {
+        Integer row = entityNameToRow.get(entity.getEntityName());
+        Integer column = beatIdToColumn.get(beat.getBeatId());
+        if (row != null && column != null) {
+            int cell = findCell(row, column);
+            if (cell != -1) {
+                return createTEM(cell, row);
+            }
+        }
+        return new TimeEntityMeasurements(null, null, null);
+    }
+
+    private int findCell(int row, int column) {
+        int cell = Arrays.binarySearch(cellColumns, rowOffsets[row], rowOffsets[row + 1], column);
+        return cell >= 0 ? cell : -1;
+    }
+
+    private TimeEntityMeasurements createTEM(int cell, int row) {
+        List<IMeasurement> measurements = new ArrayList<>(measurementColumns.length);
+        for (int i = 0; i < measurementColumns.length; i++) {
+            double value = measurementColumns[i][cell];
+            if (!Double.isNaN(value)) {
+                measurements.add(new Measurement(value, measurementTypes[i], aggregationTypes[i]));
+            }
+        }
+        return new TimeEntityMeasurements(population.get(row), timeline.get(cellColumns[cell]), measurements);
+    }
+
+    private int findRow(int cell) {
+        int row = Arrays.binarySearch(rowOffsets, cell);
+        if (row < 0) {
+            return -row - 2;
+        }
+        // Skip the entities without cells
+        while (rowOffsets[row + 1] == cell) {
+            row++;
+        }
+        return row;
+    }
+
+
+    @Override
+    public String getTimeEntityMeasurementAsString() {
+        StringBuilder temSB = new StringBuilder();
+        try {
+            writeTimeEntityMeasurements(temSB);
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return temSB.toString();
+    }
+
+    @Override
+    public void writeTimeEntityMeasurements(Appendable output) throws IOException {
+        String semiHeader = "{name, birthId, deathId, status}\t";
+        output.append(semiHeader).append(getTimelineAsString());
+        writeMeasurements(output);
+    }
+
+    private String getTimelineAsString() {
+        StringJoiner timelineString = new StringJoiner("\t", "", "\n");
+        for (Beat beat : timeline) {
+            timelineString.add(beat.getDateAsString());
+        }
+        return timelineString.toString();
+    }
+
+    private void writeMeasurements(Appendable output) throws IOException {
+        Constants.AggregationType aggregationType;
+        if (type == Constants.FileType.SCHEMA_EVO) {
+            aggregationType = Constants.AggregationType.SUM_OF_ALL;
+        } else  {
+            aggregationType = Constants.AggregationType.NO_AGGREGATION;
+        }
+        int measurementColumn = findMeasurementColumn(Constants.MeasurementType.RAW_VALUE, aggregationType);
+        FastNumberFormatter formatter = new FastNumberFormatter(Locale.US);
+
+        for (int row = 0; row < population.size(); row++) {
+            Entity entity = population.get(row);
+            int birth = entity.getLifeDetails().getBirthBeatId();
+            int death = entity.getLifeDetails().getDeathBeatId();
+            int status = entity.getLifeDetails().isAlive() ? 1 : 0;
+            output.append(String.format("{%s,%d,%d,%d}\t", entity.getEntityName(), birth, death, status));
+
+            int cell = rowOffsets[row];
+            for (int column = 0; column < timeline.size(); column++) {
+                if (cell < rowOffsets[row + 1] && cellColumns[cell] == column) {
+                    if (measurementColumn != -1 && !Double.isNaN(measurementColumns[measurementColumn][cell])) {
+                        formatter.format(measurementColumns[measurementColumn][cell], output);
+                    }
+                    cell++;
+                }
+                output.append("\t");
+            }
+            output.append("\n");
+        }
+    }
+
+
+    /**
+     * Map entry whose TimeEntityMeasurements is only created when it is requested.
+     */
+    private class CellEntry<K> implements Map.Entry<K, TimeEntityMeasurements> {
+        private final K key;
+        private final int cell;
+        private final int row;
+
+        CellEntry(K key, int cell, int row) {
+            this.key = key;
+            this.cell = cell;
+            this.row = row;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public TimeEntityMeasurements getValue() {
+            return createTEM(cell, row);
+        }
+
+        @Override
+        public TimeEntityMeasurements setValue(TimeEntityMeasurements value) {
+            throw new UnsupportedOperationException("ColumnarDataHandler views are read-only");
+        }
+    }
+
+    /**
+     * beatId -> TimeEntityMeasurements view over the cells of one entity.
+     */
+    private class EntityRowView extends AbstractMap<Integer, TimeEntityMeasurements> {
+        private final int row;
+
+        EntityRowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int size() {
+            return rowOffsets[row + 1] - rowOffsets[row];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer column = beatIdToColumn.get(key);
+            return column != null && findCell(row, column) != -1;
+        }
+
+        @Override
+        public TimeEntityMeasurements get(Object key) {
+            if (!(key instanceof Integer)) {
+                return null;
+            }
+            Integer column = beatIdToColumn.get(key);
+            if (column == null) {
+                return null;
+            }
+            int cell = findCell(row, column);
+            return cell == -1 ? null : createTEM(cell, row);
+        }
+
+        @Override
+        public Set<Entry<Integer, TimeEntityMeasurements>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return EntityRowView.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<Integer, TimeEntityMeasurements>> iterator() {
+                    return new Iterator<>() {
+                        private int cell = rowOffsets[row];
+
+                        @Override
+                        public boolean hasNext() {
+                            return cell < rowOffsets[row + 1];
+                        }
+
+                        @Override
+                        public Entry<Integer, TimeEntityMeasurements> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int beatId = timeline.get(cellColumns[cell]).getBeatId();
+                            return new CellEntry<>(beatId, cell++, row);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * entityName -> TimeEntityMeasurements view over the cells of one beat.
+     */
+    private class BeatColumnView extends AbstractMap<String, TimeEntityMeasurements> {
+        private final int column;
+
+        BeatColumnView(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public int size() {
+            return columnOffsets[column + 1] - columnOffsets[column];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer row = entityNameToRow.get(key);
+            return row != null && findCell(row, column) != -1;
+        }
+
+        @Override
+        public TimeEntityMeasurements get(Object key) {
+            Integer row = entityNameToRow.get(key);
+            if (row == null) {
+                return null;
+            }
+            int cell = findCell(row, column);
+            return cell == -1 ? null : createTEM(cell, row);
+        }
+
+        @Override
+        public Set<Entry<String, TimeEntityMeasurements>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return BeatColumnView.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, TimeEntityMeasurements>> iterator() {
+                    return new Iterator<>() {
+                        private int position = columnOffsets[column];
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < columnOffsets[column + 1];
+                        }
+
+                        @Override
+                        public Entry<String, TimeEntityMeasurements> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int cell = columnCells[position++];
+                            int row = findRow(cell);
+                            return new CellEntry<>(population.get(row).getEntityName(), cell, row);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private class EntityNameToTEMView extends AbstractMap<String, Map<Integer, TimeEntityMeasurements>> {
+        // The set is a view over the rows; its iterator creates the entries
+        private final Set<Entry<String, Map<Integer, TimeEntityMeasurements>>> entrySet = new AbstractSet<>() {
+            @Override
+            public int size() {
+                return numberOfNonEmptyRows;
+            }
+
+            @Override
+            public Iterator<Entry<String, Map<Integer, TimeEntityMeasurements>>> iterator() {
+                return new Iterator<>() {
+                    private int row = nextNonEmptyRow(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return row < population.size();
+                    }
+
+                    @Override
+                    public Entry<String, Map<Integer, TimeEntityMeasurements>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Map<Integer, TimeEntityMeasurements>> entry =
+                                new SimpleImmutableEntry<>(population.get(row).getEntityName(), new EntityRowView(row));
+                        row = nextNonEmptyRow(row + 1);
+                        return entry;
+                    }
+                };
+            }
+        };
+
+        private int nextNonEmptyRow(int row) {
+            while (row < population.size() && rowOffsets[row + 1] == rowOffsets[row]) {
+                row++;
+            }
+            return row;
+        }
+
+        @Override
+        public int size() {
+            return numberOfNonEmptyRows;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer row = entityNameToRow.get(key);
+            return row != null && rowOffsets[row + 1] > rowOffsets[row];
+        }
+
+        @Override
+        public Map<Integer, TimeEntityMeasurements> get(Object key) {
+            Integer row = entityNameToRow.get(key);
+            if (row == null || rowOffsets[row + 1] == rowOffsets[row]) {
+                return null;
+            }
+            return new EntityRowView(row);
+        }
+
+        @Override
+        public Set<Entry<String, Map<Integer, TimeEntityMeasurements>>> entrySet() {
+            return entrySet;
+        }
+    }
+
+    private class BeatIdToTEMView extends AbstractMap<Integer, Map<String, TimeEntityMeasurements>> {
+        // The set is a view over the columns; its iterator creates the entries
+        private final Set<Entry<Integer, Map<String, TimeEntityMeasurements>>> entrySet = new AbstractSet<>() {
+            @Override
+            public int size() {
+                return numberOfNonEmptyColumns;
+            }
+
+            @Override
+            public Iterator<Entry<Integer, Map<String, TimeEntityMeasurements>>> iterator() {
+                return new Iterator<>() {
+                    private int column = nextNonEmptyColumn(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return column < timeline.size();
+                    }
+
+                    @Override
+                    public Entry<Integer, Map<String, TimeEntityMeasurements>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<Integer, Map<String, TimeEntityMeasurements>> entry =
+                                new SimpleImmutableEntry<>(timeline.get(column).getBeatId(), new BeatColumnView(column));
+                        column = nextNonEmptyColumn(column + 1);
+                        return entry;
+                    }
+                };
+            }
+        };
+
+        private int nextNonEmptyColumn(int column) {
+            while (column < timeline.size() && columnOffsets[column + 1] == columnOffsets[column]) {
+                column++;
+            }
+            return column;
+        }
+
+        @Override
+        public int size() {
+            return numberOfNonEmptyColumns;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer column = beatIdToColumn.get(key);
+            return column != null && columnOffsets[column + 1] > columnOffsets[column];
+        }
+
+        @Override
+        public Map<String, TimeEntityMeasurements> get(Object key) {
+            Integer column = beatIdToColumn.get(key);
+            if (column == null || columnOffsets[column + 1] == columnOffsets[column]) {
+                return null;
+            }
+            return new BeatColumnView(column);
+        }
+
+        @Override
+        public Set<Entry<Integer, Map<String, TimeEntityMeasurements>>> entrySet() {
+            return entrySet;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package daintiness.data;
 
-import java.text.NumberFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
+import daintiness.io.output.FastNumberFormatter;
 import daintiness.models.Beat;
 import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
 import daintiness.models.TimeEntityMeasurements;
 import daintiness.utilities.Constants;
 
@@ -18,6 +21,9 @@ public class DataHandler implements IDataHandler {
     private Map<String, Map<Integer,TimeEntityMeasurements>> entityIdToTEMMap;
     private Map<Integer, Map<String, TimeEntityMeasurements>> beatIdToTEMMap;
 
+    private Map<String, Entity> entityNameToEntity;
+    private Entity[] entityIdToEntity;
+
 
     @Override
     public void init(List<Beat> timeline, List<Entity> population, List<TimeEntityMeasurements> measurementsList) {
@@ -25,6 +31,7 @@ public class DataHandler implements IDataHandler {
         this.population = population;
         this.measurementsList = measurementsList;
 
+        indexEntities();
         mapTEMs();
     }
 
@@ -70,20 +77,38 @@ public class DataHandler implements IDataHandler {
         return new TimeEntityMeasurements(null, null, null);
     }
 
+    private void indexEntities() {
+        entityNameToEntity = new HashMap<>();
+        int maxEntityId = -1;
+        for (Entity entity : population) {
+            // The first entity with a name wins, like the lookup over the population did
+            entityNameToEntity.putIfAbsent(entity.getEntityName(), entity);
+            maxEntityId = Math.max(maxEntityId, entity.getEntityId());
+        }
+
+        entityIdToEntity = new Entity[maxEntityId + 1];
+        for (Entity entity : population) {
+            if (entity.getEntityId() >= 0 && entityIdToEntity[entity.getEntityId()] == null) {
+                entityIdToEntity[entity.getEntityId()] = entity;
+            }
+        }
+    }
+
     private void mapTEMs() {
         entityIdToTEMMap = new HashMap<>();
         beatIdToTEMMap = new HashMap<>();
 
+        // The loaders add the TEMs entity by entity, so the entity's map is looked up once per entity
+        Entity currentEntity = null;
+        Map<Integer, TimeEntityMeasurements> currentEntityTEMMap = null;
         for (TimeEntityMeasurements tem : measurementsList) {
-            if (!entityIdToTEMMap.containsKey(tem.getEntity().getEntityName())) {
-                entityIdToTEMMap.put(tem.getEntity().getEntityName(), new HashMap<>());
-            }
-            entityIdToTEMMap.get(tem.getEntity().getEntityName()).put(tem.getBeat().getBeatId(), tem);
-
-            if (!beatIdToTEMMap.containsKey(tem.getBeat().getBeatId())) {
-                beatIdToTEMMap.put(tem.getBeat().getBeatId(), new HashMap<>());
+            if (tem.getEntity() != currentEntity) {
+                currentEntity = tem.getEntity();
+                currentEntityTEMMap = entityIdToTEMMap.computeIfAbsent(currentEntity.getEntityName(), k -> new HashMap<>());
             }
-            beatIdToTEMMap.get(tem.getBeat().getBeatId()).put(tem.getEntity().getEntityName(), tem);
+            Integer beatId = tem.getBeat().getBeatId();
+            currentEntityTEMMap.put(beatId, tem);
+            beatIdToTEMMap.computeIfAbsent(beatId, k -> new HashMap<>()).put(currentEntity.getEntityName(), tem);
         }
     }
 
@@ -94,13 +119,19 @@ public class DataHandler implements IDataHandler {
 
     @Override
     public Entity getEntityByName(String entityName) {
-        Optional<Entity> result = population.stream().filter(entity -> entityName.equals(entity.getEntityName())).findFirst();
-        if (result.isPresent()) {
-            return result.get();
-        } else {
+        Entity entity = entityNameToEntity.get(entityName);
+        if (entity == null) {
             System.out.println("Oops the entity you are looking doesn't exist");
+        }
+        return entity;
+    }
+
+    @Override
+    public Entity getEntityById(int entityId) {
+        if (entityId < 0 || entityId >= entityIdToEntity.length) {
             return null;
         }
+        return entityIdToEntity[entityId];
     }
 
     @Override
@@ -111,27 +142,33 @@ public class DataHandler implements IDataHandler {
 
     @Override
     public String getTimeEntityMeasurementAsString() {
+        StringBuilder temSB = new StringBuilder();
+        try {
+            writeTimeEntityMeasurements(temSB);
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return temSB.toString();
+    }
+
+    @Override
+    public void writeTimeEntityMeasurements(Appendable output) throws IOException {
         String semiHeader = "{name, birthId, deathId, status}\t";
-        return semiHeader.concat(getTimelineAsString()).concat(getMeasurementsAsString());
+        output.append(semiHeader).append(getTimelineAsString());
+        writeMeasurements(output);
     }
 
     public String getTimelineAsString() {
-        String timelineString = "";
-        int i = 0;
+        StringJoiner timelineString = new StringJoiner("\t", "", "\n");
         for (Beat beat : timeline) {
-            timelineString = timelineString.concat(beat.getDateAsString());
-            if (i <timeline.size() - 1) {
-                timelineString = timelineString.concat("\t");
-            } else {
-                timelineString = timelineString.concat("\n");
-            }
-            i++;
+            timelineString.add(beat.getDateAsString());
         }
-        return timelineString;
+        return timeline.isEmpty() ? "" : timelineString.toString();
     }
 
 
-    private String getMeasurementsAsString() {
+    private void writeMeasurements(Appendable output) throws IOException {
         Constants.MeasurementType measurementType = Constants.MeasurementType.RAW_VALUE;
         Constants.AggregationType aggregationType;
         if (type == Constants.FileType.SCHEMA_EVO) {
@@ -140,33 +177,37 @@ public class DataHandler implements IDataHandler {
             aggregationType = Constants.AggregationType.NO_AGGREGATION;
         }
 
+        // Boxed once, instead of for every cell of every entity
+        Integer[] beatIds = new Integer[timeline.size()];
+        for (int i = 0; i < beatIds.length; i++) {
+            beatIds[i] = timeline.get(i).getBeatId();
+        }
+        FastNumberFormatter formatter = new FastNumberFormatter(Locale.US);
 
-        StringBuilder temSB = new StringBuilder();
         for (Entity entity : population) {
             String entityName = entity.getEntityName();
-            int birth = entity.getLifeDetails().getBirthBeatId();
-            int death = entity.getLifeDetails().getDeathBeatId();
-            int status = entity.getLifeDetails().isAlive() ? 1 : 0;
-            temSB.append(String.format("{%s,%d,%d,%d}\t", entityName, birth, death, status));
-
-            for (Beat beat: timeline) {
-                double value = Double.NaN;
-
-                if (entityIdToTEMMap.containsKey(entityName) &&
-                        entityIdToTEMMap.get(entityName).containsKey(beat.getBeatId())) {
-                    int measurementIndex =getTem(entity, beat).containsMeasurementType(measurementType, aggregationType);
-
+            LifeDetails lifeDetails = entity.getLifeDetails();
+            output.append('{').append(entityName)
+                    .append(',').append(Integer.toString(lifeDetails.getBirthBeatId()))
+                    .append(',').append(Integer.toString(lifeDetails.getDeathBeatId()))
+                    .append(',').append(lifeDetails.isAlive() ? '1' : '0')
+                    .append("}\t");
+
+            Map<Integer, TimeEntityMeasurements> beatIdToTEM = entityIdToTEMMap.get(entityName);
+            for (Integer beatId : beatIds) {
+                TimeEntityMeasurements tem = (beatIdToTEM == null) ? null : beatIdToTEM.get(beatId);
+                if (tem != null) {
+                    int measurementIndex = tem.containsMeasurementType(measurementType, aggregationType);
                     if (measurementIndex != -1) {
-                        value = getTem(entity, beat).getMeasurements().get(measurementIndex).getValue();
+                        double value = tem.getMeasurements().get(measurementIndex).getValue();
+                        if (!Double.isNaN(value)) {
+                            formatter.format(value, output);
+                        }
                     }
                 }
-                if (!Double.isNaN(value)) {
-                    temSB.append(NumberFormat.getInstance(Locale.US).format(value));
-                }
-                temSB.append("\t");
+                output.append('\t');
             }
-            temSB.append("\n");
+            output.append('\n');
         }
-        return temSB.toString();
     }
 }
@@ -8,6 +8,8 @@ public class DataHandlerFactory {
 
         if (type.equals("SIMPLE_DATA_HANDLER")) {
             return new DataHandler();
+        } else if (type.equals("COLUMNAR_DATA_HANDLER")) {
+            return new ColumnarDataHandler();
         }
         return null;
     }
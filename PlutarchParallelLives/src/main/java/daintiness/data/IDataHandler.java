@@ -1,5 +1,6 @@
 package daintiness.data;
 
+import java.io.IOException;
 import java.util.List;
 
 import daintiness.models.Beat;
@@ -26,6 +27,14 @@ public interface IDataHandler {
      */
     Entity getEntityByName(String entityName);
 
+    /**
+     * Returns an Entity by its entityId
+     *
+     * @param entityId id of the desired Entity
+     * @return the Entity with the given entityId, or null if there is none
+     */
+    Entity getEntityById(int entityId);
+
 
     /**
      * Returns a Beat by its index
@@ -92,6 +101,14 @@ public interface IDataHandler {
      */
     String getTimeEntityMeasurementAsString();
 
+    /**
+     * Writes the intermediate representation of getTimeEntityMeasurementAsString()
+     * row by row, without building it in memory.
+     * @param output Destination of the rows, e.g. a Writer of an export stream
+     * @throws IOException if the output fails
+     */
+    void writeTimeEntityMeasurements(Appendable output) throws IOException;
+
 
     /**
      * It works like a constructor of the DataHandler.
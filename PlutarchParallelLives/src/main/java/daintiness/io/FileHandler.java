@@ -1,15 +1,27 @@
 package daintiness.io;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import daintiness.clustering.IClusteringHandler;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.data.IDataHandler;
-import daintiness.io.input.CsvReader;
+import daintiness.io.input.GPMReader;
 import daintiness.io.input.ILoader;
 import daintiness.io.input.LoaderFactory;
 import daintiness.io.input.schemaevo.SchemaEvoLoader;
+import daintiness.io.snapshot.SnapshotLoader;
+import daintiness.io.snapshot.SnapshotWriter;
 import daintiness.utilities.Constants;
 
 
@@ -21,12 +33,18 @@ public class FileHandler implements IFileHandler {
     @SuppressWarnings("unused")
 	private String projectName;
     private Constants.FileType fileType;
+    private int loadingParallelism = 1;
+    private boolean memoryMappedLoading = true;
+    private boolean columnarData = true;
 
 
     // GPM-only structures
     private List<int[]> phasesData;
     private Map<Integer, String[]> entityGroupIdToComponentsNameMap;
     private Map<Integer, Map<Integer, Double>> entityGroupIdToGPMMap;
+    // Measurements of an imported gpm.tsv, boxed into the entityGroupIdToGPMMap only on demand
+    private Map<Integer, int[]> entityGroupIdToPhaseIds;
+    private Map<Integer, double[]> entityGroupIdToValues;
 
 
     @Override
@@ -36,7 +54,12 @@ public class FileHandler implements IFileHandler {
 
     @Override
     public void setGivenFile(File file, Constants.FileType type) {
-        if (type != Constants.FileType.TEM_GPM) {
+        if (type == Constants.FileType.SNAPSHOT) {
+            // Any file name, the type is not taken from the extension
+            fileType = type;
+            projectName = file.getName();
+            temFile = file;
+        } else if (type != Constants.FileType.TEM_GPM) {
             parseFileInfo(file);
         } else {
             fileType = type;
@@ -49,17 +72,43 @@ public class FileHandler implements IFileHandler {
     @Override
     public IDataHandler loadTEM(){
         LoaderFactory factory = new LoaderFactory();
-        ILoader loader = factory.getLoader(fileType, temFile);
+        ILoader loader = factory.getLoader(fileType, temFile, loadingParallelism, memoryMappedLoading,
+                columnarData ? "COLUMNAR_DATA_HANDLER" : "SIMPLE_DATA_HANDLER");
 
         IDataHandler dataHandler = loader.load();
 
         if (loader instanceof SchemaEvoLoader) {
             outputPath = ((SchemaEvoLoader) loader).getPLDFile();
         }
-        dataHandler.setType(fileType);
+        if (loader instanceof SnapshotLoader) {
+            // The snapshot keeps the type of the saved project and its clustering
+            SnapshotLoader snapshotLoader = (SnapshotLoader) loader;
+            phasesData = snapshotLoader.getPhasesData();
+            entityGroupIdToComponentsNameMap = snapshotLoader.getEntityGroupData();
+            entityGroupIdToGPMMap = snapshotLoader.getLoadedMeasurementMap();
+            entityGroupIdToPhaseIds = null;
+            entityGroupIdToValues = null;
+        } else {
+            dataHandler.setType(fileType);
+        }
         return dataHandler;
     }
 
+    @Override
+    public void setLoadingParallelism(int loadingParallelism) {
+        this.loadingParallelism = Math.max(1, loadingParallelism);
+    }
+
+    @Override
+    public void setMemoryMappedLoading(boolean memoryMappedLoading) {
+        this.memoryMappedLoading = memoryMappedLoading;
+    }
+
+    @Override
+    public void setColumnarData(boolean columnarData) {
+        this.columnarData = columnarData;
+    }
+
     @Override
     public void writeDataToFile(File outputFile, String data) {
         this.outputPath = outputFile;
@@ -75,8 +124,46 @@ public class FileHandler implements IFileHandler {
         }
     }
 
+    @Override
+    public void writeDataToFile(File outputFile, IDataHandler dataHandler) {
+        this.outputPath = outputFile;
+        writeDataToFile(dataHandler);
+    }
+
+    @Override
+    public void writeDataToFile(IDataHandler dataHandler) {
+        try (Writer writer = new BufferedWriter(new FileWriter(outputPath))) {
+            dataHandler.writeTimeEntityMeasurements(writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public void exportProject(File projectFile, String gpmData, String temData) {
+        createProjectFolder(projectFile);
+
+        File temFile = new File(projectFile.getPath() + Constants.FS + "tem.tsv");
+        File gpmFile = new File(projectFile.getPath() + Constants.FS + "gpm.tsv");
+        writeDataToFile(temFile, temData);
+        writeDataToFile(gpmFile, gpmData);
+    }
+
+    @Override
+    public void exportProject(File projectFile, IDataHandler dataHandler, IClusteringHandler clusteringHandler) {
+        createProjectFolder(projectFile);
+
+        File temFile = new File(projectFile.getPath() + Constants.FS + "tem.tsv");
+        File gpmFile = new File(projectFile.getPath() + Constants.FS + "gpm.tsv");
+        writeDataToFile(temFile, dataHandler);
+        try (Writer writer = new BufferedWriter(new FileWriter(gpmFile))) {
+            clusteringHandler.writeGPM(writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void createProjectFolder(File projectFile) {
         if (!projectFile.exists()) {
             if(projectFile.mkdirs()) {
                 System.out.println("Folder was successful created.");
@@ -84,11 +171,41 @@ public class FileHandler implements IFileHandler {
                 System.out.println("Failed to create the folder.");
             }
         }
+    }
 
-        File temFile = new File(projectFile.getPath() + Constants.FS + "tem.tsv");
-        File gpmFile = new File(projectFile.getPath() + Constants.FS + "gpm.tsv");
-        writeDataToFile(temFile, temData);
-        writeDataToFile(gpmFile, gpmData);
+    @Override
+    public void exportProject(OutputStream outputStream, IDataHandler dataHandler, IClusteringHandler clusteringHandler,
+                              List<Phase> phases, List<ChartGroupPhaseMeasurement> chartRows) throws IOException {
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8));
+
+        zipOutputStream.putNextEntry(new ZipEntry("tem.tsv"));
+        dataHandler.writeTimeEntityMeasurements(writer);
+        writer.flush();
+        zipOutputStream.closeEntry();
+
+        zipOutputStream.putNextEntry(new ZipEntry("gpm.tsv"));
+        clusteringHandler.writeGPM(phases, chartRows, writer);
+        writer.flush();
+        zipOutputStream.closeEntry();
+
+        // Writes the central directory, the outputStream stays open
+        zipOutputStream.finish();
+    }
+
+    @Override
+    public void exportSnapshot(File snapshotFile, IDataHandler dataHandler, List<int[]> phasesData,
+                               Map<Integer, String[]> entityGroupData, Map<Integer, Map<Integer, Double>> gpmData) {
+        File parentFolder = snapshotFile.getAbsoluteFile().getParentFile();
+        if (parentFolder != null && !parentFolder.exists() && !parentFolder.mkdirs()) {
+            System.out.println("Failed to create the folder.");
+        }
+
+        try {
+            new SnapshotWriter().write(snapshotFile, dataHandler, phasesData, entityGroupData, gpmData);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
@@ -116,66 +233,42 @@ public class FileHandler implements IFileHandler {
 
     @Override
     public Map<Integer, Map<Integer, Double>> getLoadedMeasurementMap() {
+        if (entityGroupIdToGPMMap == null && entityGroupIdToPhaseIds != null) {
+            entityGroupIdToGPMMap = new HashMap<>();
+            for (Map.Entry<Integer, int[]> entry : entityGroupIdToPhaseIds.entrySet()) {
+                int[] phaseIds = entry.getValue();
+                double[] values = entityGroupIdToValues.get(entry.getKey());
+                Map<Integer, Double> gpmMap = new HashMap<>();
+                for (int i = 0; i < phaseIds.length; i++) {
+                    gpmMap.put(phaseIds[i], values[i]);
+                }
+                entityGroupIdToGPMMap.put(entry.getKey(), gpmMap);
+            }
+        }
         return entityGroupIdToGPMMap;
     }
 
     private void loadGPMData() {
-        CsvReader csvReader = new CsvReader(gpmFile, false, "\t");
-        List<String[]> lines = csvReader.readAll();
-        entityGroupIdToGPMMap = new HashMap<>();
+        phasesData = new ArrayList<>();
         entityGroupIdToComponentsNameMap = new HashMap<>();
-
-
-        int lineNumber = 0;
-        for(String[] line: lines) {
-            if (lineNumber == 0) {
-                loadPhases(line);
-            } else {
-                int entityGroupId = Integer.parseInt(line[0]);
-                entityGroupIdToComponentsNameMap.put(entityGroupId, parseEntityGroupComponents(line[1]));
-                entityGroupIdToGPMMap.put(entityGroupId, parseGroupPhaseMeasurements(line[2]));
+        entityGroupIdToGPMMap = null;
+        entityGroupIdToPhaseIds = new HashMap<>();
+        entityGroupIdToValues = new HashMap<>();
+
+        new GPMReader(gpmFile).read(new GPMReader.RowConsumer() {
+            @Override
+            public void phase(int phaseId, int firstBeatId, int lastBeatId) {
+                phasesData.add(new int[]{phaseId, firstBeatId, lastBeatId});
             }
-            lineNumber++;
-        }
-
-    }
-
-    private String[] parseEntityGroupComponents(String stringComponents) {
-        return parseListFromString(stringComponents);
-    }
 
-    private Map<Integer, Double> parseGroupPhaseMeasurements(String measurementsString) {
-        Map<Integer,Double> gpmMap = new HashMap<>();
-        String[] measurementsArray =parseListFromString(measurementsString);
-        if (measurementsArray.length > 0) {
-            for(String text: measurementsArray) {
-                String[] phaseValueString = text.split(":");
-                int phaseId = Integer.parseInt(phaseValueString[0]);
-                double value = Double.parseDouble(phaseValueString[1]);
-                gpmMap.put(phaseId, value);
+            @Override
+            public void entityGroup(int entityGroupId, String[] componentNames, int[] phaseIds, double[] values,
+                                    int numberOfMeasurements) {
+                entityGroupIdToComponentsNameMap.put(entityGroupId, componentNames);
+                entityGroupIdToPhaseIds.put(entityGroupId, Arrays.copyOf(phaseIds, numberOfMeasurements));
+                entityGroupIdToValues.put(entityGroupId, Arrays.copyOf(values, numberOfMeasurements));
             }
-        }
-
-        return  gpmMap;
-    }
-
-    private void loadPhases(String[] line) {
-        phasesData = new ArrayList<>();
-        for (String s : line) {
-            String[] components = parseListFromString(s);
-            int phasesId = Integer.parseInt(components[0]);
-            int firstBeat = Integer.parseInt(components[1]);
-            int lastBeat = Integer.parseInt(components[2]);
-            phasesData.add(new int[]{phasesId, firstBeat, lastBeat});
-        }
-    }
-
-    private String[] parseListFromString(String text) {
-        String [] componentsList = text.replaceAll("\\{", "").replaceAll("}","").split(",");
-        if (componentsList.length == 1 && componentsList[0].isBlank()) {
-            componentsList = new String[]{};
-        }
-        return componentsList;
+        });
     }
 
 
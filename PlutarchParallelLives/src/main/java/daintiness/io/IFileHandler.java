@@ -1,9 +1,14 @@
 package daintiness.io;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+import daintiness.clustering.IClusteringHandler;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.data.IDataHandler;
 import daintiness.utilities.Constants;
 
@@ -57,6 +62,43 @@ public interface IFileHandler {
     void exportProject(File projectFile, String gpmData, String temData);
 
 
+    /**
+     * Like exportProject(File, String, String), with the tem.tsv and gpm.tsv
+     * written straight from the handlers.
+     * @param projectFile File of the output folder
+     * @param dataHandler the Intermediate Representation
+     * @param clusteringHandler the Summarized Representation
+     */
+    void exportProject(File projectFile, IDataHandler dataHandler, IClusteringHandler clusteringHandler);
+
+
+    /**
+     * Streams the project as a zip archive with the entries tem.tsv and gpm.tsv,
+     * the files that exportProject(File, String, String) writes to a folder.
+     * The rows are generated straight into the archive and the outputStream is not closed.
+     * @param outputStream Output of the zip archive
+     * @param dataHandler the Intermediate Representation
+     * @param clusteringHandler the Summarized Representation
+     * @param phases the phases of the gpm.tsv columns
+     * @param chartRows the chart rows of the gpm.tsv, e.g. a copy taken when the export was requested
+     * @throws IOException if the outputStream fails
+     */
+    void exportProject(OutputStream outputStream, IDataHandler dataHandler, IClusteringHandler clusteringHandler,
+                       List<Phase> phases, List<ChartGroupPhaseMeasurement> chartRows) throws IOException;
+
+
+    /**
+     * Writes the data and the clustering as a binary snapshot, which is loaded as a SNAPSHOT file.
+     * @param snapshotFile File of the snapshot
+     * @param dataHandler the Intermediate Representation
+     * @param phasesData (phaseId, firstBeatId, lastBeatId) of every phase
+     * @param entityGroupData entityGroupId to the names of the group's entities
+     * @param gpmData (entityGroupId, phaseId) to the GroupPhaseMeasurement value
+     */
+    void exportSnapshot(File snapshotFile, IDataHandler dataHandler, List<int[]> phasesData,
+                        Map<Integer, String[]> entityGroupData, Map<Integer, Map<Integer, Double>> gpmData);
+
+
     /**
      * @param outputFile Output File
      * @param timeEntityMeasurementsAsString String of the Intermediate Representation
@@ -69,18 +111,50 @@ public interface IFileHandler {
      */
     void writeDataToFile(String timeEntityMeasurementsAsString);
 
+    /**
+     * Writes the Intermediate Representation straight from the dataHandler to the file,
+     * without building its String.
+     * @param outputFile Output File
+     * @param dataHandler the Intermediate Representation
+     */
+    void writeDataToFile(File outputFile, IDataHandler dataHandler);
+
+    /**
+     * Like writeDataToFile(File, IDataHandler), when the output File is already set.
+     * @param dataHandler the Intermediate Representation
+     */
+    void writeDataToFile(IDataHandler dataHandler);
+
     /**
      * @param file Input File
      */
     void setGivenFile(File file);
 
     /**
-     * This is used only for the TEM_GPM kind of files.
+     * This is used only for the TEM_GPM and SNAPSHOT kinds of files.
      * @param file Input File
      * @param type Type of File
      */
     void setGivenFile(File file, Constants.FileType type);
 
+    /**
+     * Sets the number of threads that the following loadTEM() calls may use (default 1).
+     * @param loadingParallelism number of threads
+     */
+    void setLoadingParallelism(int loadingParallelism);
+
+    /**
+     * Selects how the following loadTEM() calls read the transitions.csv of a SchemaEvo project.
+     * @param memoryMappedLoading True (default) for the memory-mapped reader, false for the CsvReader
+     */
+    void setMemoryMappedLoading(boolean memoryMappedLoading);
+
+    /**
+     * Selects the dataHandler that the following loadTEM() calls create.
+     * @param columnarData True (default) for the ColumnarDataHandler, false for the DataHandler
+     */
+    void setColumnarData(boolean columnarData);
+
     /**
      * @return Type of File
      */
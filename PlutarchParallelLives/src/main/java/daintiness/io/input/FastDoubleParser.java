@@ -0,0 +1,115 @@
+package daintiness.io.input;
+
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+
+/**
+ * Parses the measurement cells of the simple (csv/tsv) files and the values of the gpm.tsv.
+ * <p/>
+ * Plain decimals of the locale ([minus]digits[separator digits], with grouping separators between
+ * the integer digits) with at most 15 significant digits and 22 fraction digits are computed directly:
+ * the digits and the power of ten are exact doubles, so one multiplication or division gives the
+ * correctly rounded value. Every other cell (exponents, NaN, malformed values) is parsed by the
+ * locale's NumberFormat, exactly like SimpleLoader, so both produce the same values.
+ */
+public class FastDoubleParser {
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Locale locale;
+    private final NumberFormat numberFormat;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private final char minusSign;
+
+    public FastDoubleParser(Locale locale) {
+        this.locale = locale;
+        this.numberFormat = NumberFormat.getInstance(locale);
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.minusSign = symbols.getMinusSign();
+    }
+
+    /**
+     * @param text a non blank cell
+     * @return the value of the cell, or -Double.MIN_NORMAL if it cannot be parsed
+     */
+    public double parse(String text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * @param text the text that holds the cell
+     * @param start index of the first char of the cell
+     * @param end index after the last char of the cell
+     * @return the value of the cell, or -Double.MIN_NORMAL if it cannot be parsed
+     */
+    public double parse(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (start < end && text.charAt(start) == minusSign) {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean hasDigits = false;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                hasDigits = true;
+                if (mantissa != 0 || c != '0') {
+                    significantDigits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+                if (significantDigits > MAX_FAST_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                    return parseWithNumberFormat(text, start, end);
+                }
+            } else if (c == decimalSeparator && !inFraction && hasDigits) {
+                inFraction = true;
+            } else if (c != groupingSeparator || inFraction || !hasDigits ||
+                    i + 1 == end || !isDigit(text.charAt(i + 1))) {
+                return parseWithNumberFormat(text, start, end);
+            }
+        }
+        if (!hasDigits || (inFraction && fractionDigits == 0)) {
+            return parseWithNumberFormat(text, start, end);
+        }
+
+        double value = (double) mantissa;
+        if (fractionDigits > 0) {
+            value /= POWERS_OF_TEN[fractionDigits];
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseWithNumberFormat(CharSequence cell, int start, int end) {
+        String text = cell.subSequence(start, end).toString();
+        try {
+            return numberFormat.parse(text).doubleValue();
+        } catch (ParseException e) {
+            System.out.println("Current system locale:" + Locale.getDefault());
+            System.out.println("String tried to parse: " + text);
+        }
+        return -Double.MIN_NORMAL;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+}
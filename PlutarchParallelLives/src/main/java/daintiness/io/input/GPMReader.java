@@ -0,0 +1,254 @@
+package daintiness.io.input;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the gpm.tsv of an exported project (see IClusteringHandler.writeGPM) row by row.
+ * <p/>
+ * The first row holds the phases as {phaseId,firstBeatId,lastBeatId} cells and every other row
+ * an entity group: entityGroupId, {name,name,...} and {phaseId:value,...}. The rows are tokenized
+ * straight from the file's char buffer, without a regex or a String per cell; only the entity
+ * names become Strings and the values are parsed in place by a FastDoubleParser.
+ * <p/>
+ * The values are written by a US NumberFormat, so a value of 1000 or more has grouping commas.
+ * A comma inside a value is a grouping separator, unless the text up to the next comma is
+ * the next phaseId:value pair.
+ */
+public class GPMReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File path;
+
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int rowNumber;
+
+    private final List<String> componentNames = new ArrayList<>();
+    private int[] phaseIds = new int[16];
+    private double[] values = new double[16];
+    private final FastDoubleParser doubleParser = new FastDoubleParser(Locale.US);
+
+
+    /**
+     * Receives the rows of a gpm.tsv, in file order.
+     */
+    public interface RowConsumer {
+        void phase(int phaseId, int firstBeatId, int lastBeatId);
+
+        /**
+         * @param phaseIds the phaseIds of the group's measurements, only the first numberOfMeasurements are valid;
+         *                 the array is reused for the next row
+         * @param values the values of the group's measurements, reused like the phaseIds
+         */
+        void entityGroup(int entityGroupId, String[] componentNames, int[] phaseIds, double[] values, int numberOfMeasurements);
+    }
+
+
+    public GPMReader(File path) {
+        this.path = path;
+    }
+
+    /**
+     * Tokenizes every row of the file and hands it to the consumer, in file order.
+     * @throws IllegalArgumentException if a row is not a gpm.tsv row
+     */
+    public void read(RowConsumer rowConsumer) {
+        rowNumber = 0;
+        try (Reader reader = new FileReader(path)) {
+            char[] buffer = new char[BUFFER_SIZE];
+            line.setLength(0);
+
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c == '\n' || c == '\r') {
+                        line.append(buffer, lineStart, i - lineStart);
+                        lineStart = i + 1;
+                        parseRow(rowConsumer);
+                    }
+                }
+                line.append(buffer, lineStart, read - lineStart);
+            }
+            // Last line without a terminator
+            parseRow(rowConsumer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    private void parseRow(RowConsumer rowConsumer) {
+        // Blank lines, and the second half of "\r\n", are skipped
+        if (line.length() == 0) {
+            return;
+        }
+
+        position = 0;
+        if (rowNumber == 0) {
+            parsePhases(rowConsumer);
+        } else {
+            parseEntityGroup(rowConsumer);
+        }
+        rowNumber++;
+        line.setLength(0);
+    }
+
+    private void parsePhases(RowConsumer rowConsumer) {
+        while (position < line.length()) {
+            if (position > 0) {
+                expect('\t');
+            }
+            expect('{');
+            int phaseId = parseInt();
+            expect(',');
+            int firstBeatId = parseInt();
+            expect(',');
+            int lastBeatId = parseInt();
+            expect('}');
+            rowConsumer.phase(phaseId, firstBeatId, lastBeatId);
+        }
+    }
+
+    private void parseEntityGroup(RowConsumer rowConsumer) {
+        int entityGroupId = parseInt();
+        expect('\t');
+
+        // Entity names contain neither tabs nor commas, every other character is kept
+        int componentsEnd = indexOf('\t', position);
+        if (componentsEnd - position < 2 || line.charAt(position) != '{' || line.charAt(componentsEnd - 1) != '}') {
+            throw malformedRow();
+        }
+        componentNames.clear();
+        int nameStart = position + 1;
+        for (int i = nameStart; i < componentsEnd - 1; i++) {
+            if (line.charAt(i) == ',') {
+                componentNames.add(line.substring(nameStart, i));
+                nameStart = i + 1;
+            }
+        }
+        if (nameStart < componentsEnd - 1 || !componentNames.isEmpty()) {
+            componentNames.add(line.substring(nameStart, componentsEnd - 1));
+        }
+        position = componentsEnd;
+        expect('\t');
+
+        expect('{');
+        int measurementsEnd = line.length() - 1;
+        if (measurementsEnd < position || line.charAt(measurementsEnd) != '}') {
+            throw malformedRow();
+        }
+        int numberOfMeasurements = 0;
+        while (position < measurementsEnd) {
+            if (numberOfMeasurements > 0) {
+                expect(',');
+            }
+            if (numberOfMeasurements == phaseIds.length) {
+                phaseIds = Arrays.copyOf(phaseIds, numberOfMeasurements * 2);
+                values = Arrays.copyOf(values, numberOfMeasurements * 2);
+            }
+            phaseIds[numberOfMeasurements] = parseInt();
+            expect(':');
+            values[numberOfMeasurements] = parseValue(measurementsEnd);
+            numberOfMeasurements++;
+        }
+
+        rowConsumer.entityGroup(entityGroupId, componentNames.toArray(new String[0]), phaseIds, values, numberOfMeasurements);
+    }
+
+
+    private int parseInt() {
+        boolean negative = position < line.length() && line.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        int start = position;
+        long value = 0;
+        while (position < line.length() && isDigit(line.charAt(position))) {
+            value = value * 10 + (line.charAt(position) - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw malformedRow();
+            }
+            position++;
+        }
+        if (position == start) {
+            throw malformedRow();
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw malformedRow();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the value that starts at the position and ends before the comma of the next pair or the end.
+     */
+    private double parseValue(int end) {
+        int start = position;
+        boolean inFraction = false;
+        while (position < end) {
+            char c = line.charAt(position);
+            if (c == ',' && (inFraction || isPairSeparator(position, end))) {
+                break;
+            }
+            inFraction |= (c == '.');
+            position++;
+        }
+
+        double value = doubleParser.parse(line, start, position);
+        if (value == -Double.MIN_NORMAL) {
+            throw malformedRow();
+        }
+        return value;
+    }
+
+    /**
+     * @return true if the comma at the index is followed by a phaseId:value pair
+     */
+    private boolean isPairSeparator(int index, int end) {
+        for (int i = index + 1; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == ':') {
+                return true;
+            } else if (c == ',') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+
+    private void expect(char expected) {
+        if (position >= line.length() || line.charAt(position) != expected) {
+            throw malformedRow();
+        }
+        position++;
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        throw malformedRow();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private IllegalArgumentException malformedRow() {
+        return new IllegalArgumentException("Malformed row " + (rowNumber + 1) + " of " + path.getName() +
+                " at column " + (position + 1) + ": " + line);
+    }
+}
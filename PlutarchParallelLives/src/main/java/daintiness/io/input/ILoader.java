@@ -5,4 +5,10 @@ import daintiness.data.IDataHandler;
 public interface ILoader {
 
     IDataHandler load();
+
+    /**
+     * Sets the DataHandlerFactory type of the dataHandlers that load() creates (default SIMPLE_DATA_HANDLER).
+     * @param dataHandlerType e.g. COLUMNAR_DATA_HANDLER
+     */
+    void setDataHandlerType(String dataHandlerType);
 }
@@ -3,26 +3,60 @@ package daintiness.io.input;
 import java.io.File;
 
 import daintiness.io.input.schemaevo.SchemaEvoLoader;
+import daintiness.io.snapshot.SnapshotLoader;
 import daintiness.utilities.Constants;
 
 public class LoaderFactory {
 
     public ILoader getLoader(Constants.FileType fileType, File inputFile) {
+        return getLoader(fileType, inputFile, 1);
+    }
+
+    /**
+     * @param parallelism number of threads the loader may use
+     */
+    public ILoader getLoader(Constants.FileType fileType, File inputFile, int parallelism) {
+        return getLoader(fileType, inputFile, parallelism, true);
+    }
+
+    /**
+     * @param parallelism number of threads the loader may use
+     * @param memoryMapped if true, the transitions.csv of a SchemaEvo project is scanned through a
+     *                     MappedTransitionsReader, otherwise it is read by the CsvReader
+     */
+    public ILoader getLoader(Constants.FileType fileType, File inputFile, int parallelism, boolean memoryMapped) {
+        return getLoader(fileType, inputFile, parallelism, memoryMapped, "SIMPLE_DATA_HANDLER");
+    }
+
+    /**
+     * @param parallelism number of threads the loader may use
+     * @param memoryMapped if true, the transitions.csv of a SchemaEvo project is scanned through a
+     *                     MappedTransitionsReader, otherwise it is read by the CsvReader
+     * @param dataHandlerType DataHandlerFactory type of the loaded dataHandler, e.g. COLUMNAR_DATA_HANDLER
+     */
+    public ILoader getLoader(Constants.FileType fileType, File inputFile, int parallelism, boolean memoryMapped,
+                             String dataHandlerType) {
         ILoader loader = null;
         switch (fileType) {
             case CSV:
-                loader = new SimpleLoader(inputFile);
+                loader = new StreamingSimpleLoader(inputFile);
                 break;
             case TSV:
             case TEM_GPM:
-                loader = new SimpleLoader(inputFile, "\t");
+                loader = new StreamingSimpleLoader(inputFile, "\t");
                 break;
             case SCHEMA_EVO:
-                loader = new SchemaEvoLoader(inputFile);
+                loader = new SchemaEvoLoader(inputFile, memoryMapped, parallelism);
+                break;
+            case SNAPSHOT:
+                loader = new SnapshotLoader(inputFile);
                 break;
             default:
                 System.out.println("LoaderFactory.getLoader: Not supported fileType -> " + fileType);
         }
+        if (loader != null) {
+            loader.setDataHandlerType(dataHandlerType);
+        }
         return loader;
     }
 }
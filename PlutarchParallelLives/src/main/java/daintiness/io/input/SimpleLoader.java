@@ -23,6 +23,7 @@ public class SimpleLoader implements ILoader{
 
     private final File dataPath;
     private final CsvReader csvReader;
+    protected String dataHandlerType = "SIMPLE_DATA_HANDLER";
 
     public SimpleLoader(File path) {
         this.dataPath = path;
@@ -36,6 +37,12 @@ public class SimpleLoader implements ILoader{
     }
 
 
+    @Override
+    public void setDataHandlerType(String dataHandlerType) {
+        this.dataHandlerType = dataHandlerType;
+    }
+
+
     public IDataHandler load() {
         List<Entity> entities = new ArrayList<>();
         List<Beat> timeLine = new ArrayList<>();
@@ -55,7 +62,7 @@ public class SimpleLoader implements ILoader{
             }
         }
         DataHandlerFactory factory = new DataHandlerFactory();
-        IDataHandler dataHandler = factory.getDataHandler("SIMPLE_DATA_HANDLER");
+        IDataHandler dataHandler = factory.getDataHandler(dataHandlerType);
         dataHandler.init(timeLine, entities, measurements);
         return dataHandler;
     }
@@ -96,7 +103,7 @@ public class SimpleLoader implements ILoader{
     }
 
 
-    private ArrayList<Beat> parseTimeLine(String[] rowData) {
+    protected ArrayList<Beat> parseTimeLine(String[] rowData) {
         ArrayList<Beat> timeline = new ArrayList<>();
 
         for (int i = 1; i < rowData.length; i++) {
@@ -0,0 +1,119 @@
+package daintiness.io.input;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a csv/tsv file row by row, without keeping the file's rows in memory.
+ * <p/>
+ * The file is scanned through a char buffer and a row is split at its separator characters
+ * without a regex. The rows are split like String.split(separator) in CsvReader: the trailing
+ * empty cells are dropped and the line terminators are those of BufferedReader.readLine.
+ * Separators that are longer than one character, or regex metacharacters, are split with String.split.
+ */
+public class StreamingCsvReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String REGEX_METACHARACTERS = ".$|()[{^?*+\\";
+
+    private final File path;
+    private final String separator;
+    private final boolean skipHeader;
+
+    public StreamingCsvReader(File path, boolean skipHeader) {
+        this(path, skipHeader, ",");
+    }
+
+    public StreamingCsvReader(File path, boolean skipHeader, String separator) {
+        this.path = path;
+        this.separator = separator;
+        this.skipHeader = skipHeader;
+    }
+
+    /**
+     * Splits every row of the file and hands it to the consumer, in file order.
+     * The consumer must not keep the row's array beyond the call if memory matters.
+     */
+    public void forEachRow(Consumer<String[]> rowConsumer) {
+        try (Reader reader = new FileReader(path)) {
+            char[] buffer = new char[BUFFER_SIZE];
+            StringBuilder line = new StringBuilder();
+            List<String> cells = new ArrayList<>();
+            boolean skipRow = skipHeader;
+            boolean previousWasCarriageReturn = false;
+            boolean pendingLine = false;
+
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c != '\n' && c != '\r') {
+                        previousWasCarriageReturn = false;
+                        continue;
+                    }
+
+                    // "\r\n" is a single terminator
+                    if (c == '\n' && previousWasCarriageReturn) {
+                        previousWasCarriageReturn = false;
+                        lineStart = i + 1;
+                        continue;
+                    }
+                    previousWasCarriageReturn = (c == '\r');
+
+                    line.append(buffer, lineStart, i - lineStart);
+                    lineStart = i + 1;
+                    if (!skipRow) {
+                        rowConsumer.accept(split(line, cells));
+                    }
+                    skipRow = false;
+                    line.setLength(0);
+                    pendingLine = false;
+                }
+                if (lineStart < read) {
+                    line.append(buffer, lineStart, read - lineStart);
+                    pendingLine = true;
+                }
+            }
+
+            // Last line without a terminator
+            if (pendingLine && !skipRow) {
+                rowConsumer.accept(split(line, cells));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String[] split(CharSequence line, List<String> cells) {
+        if (separator.length() != 1 || REGEX_METACHARACTERS.indexOf(separator.charAt(0)) != -1) {
+            return line.toString().split(separator);
+        }
+
+        char separatorChar = separator.charAt(0);
+        cells.clear();
+        int cellStart = 0;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            if (line.charAt(i) == separatorChar) {
+                cells.add(line.subSequence(cellStart, i).toString());
+                cellStart = i + 1;
+            }
+        }
+        if (cells.isEmpty()) {
+            // No separator: the whole line is the only cell, even if it is empty
+            return new String[]{line.toString()};
+        }
+        cells.add(line.subSequence(cellStart, length).toString());
+
+        int size = cells.size();
+        while (size > 0 && cells.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return cells.subList(0, size).toArray(new String[0]);
+    }
+}
@@ -0,0 +1,97 @@
+package daintiness.io.input;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import daintiness.data.DataHandlerFactory;
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.MeasurementFactory;
+import daintiness.utilities.Constants;
+
+/**
+ * SimpleLoader that parses the file while it is read.
+ * <p/>
+ * Every row is split by the StreamingCsvReader, turned into its entity and TEMs and dropped,
+ * so only the parsed data stays in memory instead of every line of the file as a String[].
+ * The cells are parsed by one FastDoubleParser instead of a NumberFormat per cell.
+ * The resulting dataHandler is identical to the one of SimpleLoader.
+ */
+public class StreamingSimpleLoader extends SimpleLoader {
+
+    private final StreamingCsvReader csvReader;
+    private final FastDoubleParser doubleParser = new FastDoubleParser(Locale.US);
+    private final MeasurementFactory measurementFactory = new MeasurementFactory();
+
+    private List<Beat> timeLine;
+    private List<Entity> entities;
+    private List<TimeEntityMeasurements> measurements;
+    private int rowIndex;
+
+    public StreamingSimpleLoader(File path) {
+        super(path);
+        this.csvReader = new StreamingCsvReader(path, false);
+    }
+
+
+    public StreamingSimpleLoader(File path, String delimiter) {
+        super(path, delimiter);
+        this.csvReader = new StreamingCsvReader(path, false, delimiter);
+    }
+
+
+    @Override
+    public IDataHandler load() {
+        timeLine = new ArrayList<>();
+        entities = new ArrayList<>();
+        measurements = new ArrayList<>();
+        rowIndex = 0;
+
+        csvReader.forEachRow(this::parseRow);
+
+        DataHandlerFactory factory = new DataHandlerFactory();
+        IDataHandler dataHandler = factory.getDataHandler(dataHandlerType);
+        dataHandler.init(timeLine, entities, measurements);
+        return dataHandler;
+    }
+
+
+    private void parseRow(String[] row) {
+        if (rowIndex == 0) {
+            timeLine = parseTimeLine(row);
+        } else {
+            SimpleRowParser rowHandler = new SimpleRowParser(row, rowIndex - 1);
+            rowHandler.splitNameAndValue(timeLine.size());
+
+            entities.add(rowHandler.getEntity());
+            parseMeasurements(rowHandler.getEntity(), rowHandler.getRowValue());
+        }
+        rowIndex++;
+    }
+
+
+    private void parseMeasurements(Entity entity, String[] rowData) {
+        double value;
+        double previousValue = 0;
+
+        for (int i = 0; i < rowData.length; i++) {
+            if (!rowData[i].isBlank()) {
+                List<IMeasurement> measurementList = new ArrayList<>(2);
+                value = doubleParser.parse(rowData[i]);
+
+                measurementList.add(measurementFactory.getRawMeasurement(value, Constants.AggregationType.NO_AGGREGATION));
+                if (i != 0) {
+                    measurementList.add(measurementFactory.getDeltaMeasurement(value - previousValue, Constants.AggregationType.NO_AGGREGATION));
+                    previousValue = value;
+                }
+
+                measurements.add(new TimeEntityMeasurements(entity, timeLine.get(i), measurementList));
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package daintiness.io.input.schemaevo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.models.Entity;
+import daintiness.utilities.Constants.TransactionType;
+
+/**
+ * Reads the atomic changes of a transitions.csv through a memory-mapped FileChannel.
+ * <p/>
+ * The lines are scanned as byte ranges and only the beat id, the table name and the
+ * event type of a line are looked at; the rest of the line is never decoded. The event type
+ * is compared against the bytes of the supported types and the table name is resolved to the
+ * index of the loaded entity with the same name, without creating a String.
+ * The lines are handled like CsvReader.readAll(), with String.split(";") and the header skipped,
+ * so the changes are those that SchemaEvoLoader finds in the List<String[]> of the file.
+ * <p/>
+ * The lines after the header can be split into line-aligned chunks that are mapped and read
+ * independently, so that several threads can read a large file and files over 2 GB can be mapped.
+ */
+class MappedTransitionsReader {
+
+    interface AtomicChangeConsumer {
+        void accept(int beatId, int entityIndex, TransactionType transactionType);
+    }
+
+    /**
+     * A line-aligned byte range of the file, with what was found while reading it.
+     */
+    static class Chunk {
+        private final long start;
+        private final long end;
+        private int numberOfLines;
+        // Pairs of (line number in the chunk, problem)
+        private final List<Integer> problems = new ArrayList<>();
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final byte SEPARATOR = ';';
+    private static final int EVENT_TYPE_FIELD = 4;
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+    private static final int ALIGNMENT_BUFFER_SIZE = 1 << 13;
+
+    private static final int NO_PROBLEM = 0;
+    private static final int CORRUPTED_LINE = 1;
+    private static final int UNKNOWN_TABLE = 2;
+
+    private static final byte[] INSERTION = "Insertion:UpdateTable".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DELETION = "Deletion:UpdateTable".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CHANGE = "Update:KeyChange".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TYPE_CHANGE = "Update:TypeChange".getBytes(StandardCharsets.US_ASCII);
+
+    private final File path;
+    private final Charset charset;
+
+    // Open addressing table from the encoded entity names to their index
+    private final byte[][] tableNames;
+    private final int[] tableIndices;
+    private final int tableMask;
+    private final Map<String, Integer> entityNameToIndex;
+
+    MappedTransitionsReader(File path, List<Entity> entities) {
+        this.path = path;
+        // The file is decoded by FileReader, with the default charset
+        this.charset = Charset.defaultCharset();
+
+        int capacity = Integer.highestOneBit(Math.max(entities.size(), 1) * 2) << 1;
+        this.tableNames = new byte[capacity][];
+        this.tableIndices = new int[capacity];
+        this.tableMask = capacity - 1;
+        this.entityNameToIndex = new HashMap<>();
+
+        for (int i = 0; i < entities.size(); i++) {
+            String name = entities.get(i).getEntityName();
+            entityNameToIndex.put(name, i);
+
+            byte[] encodedName = name.getBytes(charset);
+            int slot = hash(encodedName, 0, encodedName.length) & tableMask;
+            while (tableNames[slot] != null && !equals(tableNames[slot], encodedName, 0, encodedName.length)) {
+                slot = (slot + 1) & tableMask;
+            }
+            // A repeated name keeps the last index, like the entityNameToIndex map of the loader
+            tableNames[slot] = encodedName;
+            tableIndices[slot] = i;
+        }
+    }
+
+    /**
+     * Separators and line terminators are found as single bytes, which needs an ASCII compatible charset.
+     */
+    static boolean canRead() {
+        Charset charset = Charset.defaultCharset();
+        return charset.equals(StandardCharsets.UTF_8) ||
+                charset.equals(StandardCharsets.US_ASCII) ||
+                charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Hands every supported atomic change of the file to the consumer, in file order.
+     */
+    void read(AtomicChangeConsumer consumer) {
+        List<Chunk> chunks = split(1);
+        for (Chunk chunk : chunks) {
+            read(chunk, consumer);
+        }
+        printProblems(chunks);
+    }
+
+    /**
+     * Splits the lines after the header into consecutive, line-aligned byte ranges.
+     * Ranges longer than the largest mappable region are split further.
+     * @param numberOfChunks desired number of chunks
+     * @return the chunks in file order, some of them may be empty
+     */
+    List<Chunk> split(int numberOfChunks) {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = alignToLineStart(channel, 1, size);
+            long dataSize = size - dataStart;
+            numberOfChunks = (int) Math.max(numberOfChunks, (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+            numberOfChunks = Math.max(1, numberOfChunks);
+
+            long start = dataStart;
+            for (int k = 1; k <= numberOfChunks; k++) {
+                long end = (k == numberOfChunks) ? size :
+                        Math.max(start, alignToLineStart(channel, dataStart + dataSize * k / numberOfChunks, size));
+                if (end - start > MAX_CHUNK_SIZE) {
+                    // A single line longer than a mappable region
+                    throw new IOException("transitions.csv has a line longer than " + MAX_CHUNK_SIZE + " bytes");
+                }
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            chunks.clear();
+        }
+        return chunks;
+    }
+
+    /**
+     * Hands the supported atomic changes of the chunk to the consumer, in file order.
+     * Different chunks can be read concurrently; the lines with problems are kept in the chunk.
+     */
+    void read(Chunk chunk, AtomicChangeConsumer consumer) {
+        if (chunk.start == chunk.end) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+            int limit = buffer.limit();
+            int[] fieldStarts = new int[EVENT_TYPE_FIELD + 1];
+
+            int position = 0;
+            while (position < limit) {
+                int lineEnd = findLineEnd(buffer, position, limit);
+                int problem = handleLine(buffer, position, lineEnd, fieldStarts, consumer);
+                if (problem != NO_PROBLEM) {
+                    chunk.problems.add(chunk.numberOfLines);
+                    chunk.problems.add(problem);
+                }
+                position = skipLineTerminator(buffer, lineEnd, limit);
+                chunk.numberOfLines++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Prints the lines with problems of the chunks with their line number in the file.
+     */
+    void printProblems(List<Chunk> chunks) {
+        int firstLineNumber = 0;
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.problems.size(); i += 2) {
+                int lineNumber = firstLineNumber + chunk.problems.get(i);
+                if (chunk.problems.get(i + 1) == CORRUPTED_LINE) {
+                    System.out.println("Line: " + lineNumber + " in transitions.csv is corrupted.");
+                } else {
+                    System.out.println("Line: " + lineNumber + " in transitions.csv refers to an unknown table.");
+                }
+            }
+            firstLineNumber += chunk.numberOfLines;
+        }
+    }
+
+    private int handleLine(MappedByteBuffer buffer, int lineStart, int lineEnd, int[] fieldStarts, AtomicChangeConsumer consumer) {
+        int fields = 1;
+        fieldStarts[0] = lineStart;
+        int eventTypeEnd = lineEnd;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer.get(i) == SEPARATOR) {
+                if (fields <= EVENT_TYPE_FIELD) {
+                    fieldStarts[fields++] = i + 1;
+                } else {
+                    eventTypeEnd = i;
+                    break;
+                }
+            }
+        }
+
+        if (fields <= EVENT_TYPE_FIELD || !hasNonEmptyField(buffer, fieldStarts[EVENT_TYPE_FIELD], lineEnd)) {
+            // Fewer than 5 cells after String.split drops the trailing empty ones
+            return CORRUPTED_LINE;
+        }
+
+        TransactionType transactionType = parseTransactionType(buffer, fieldStarts[EVENT_TYPE_FIELD], eventTypeEnd);
+        if (transactionType == TransactionType.NOT_SUPPORTED) {
+            return NO_PROBLEM;
+        }
+
+        int beatId = parseBeatId(buffer, fieldStarts[0], fieldStarts[1] - 1);
+        int entityIndex = findEntityIndex(buffer, fieldStarts[3], fieldStarts[4] - 1);
+        if (entityIndex == -1) {
+            return UNKNOWN_TABLE;
+        }
+        consumer.accept(beatId, entityIndex, transactionType);
+        return NO_PROBLEM;
+    }
+
+    private boolean hasNonEmptyField(MappedByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) != SEPARATOR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TransactionType parseTransactionType(MappedByteBuffer buffer, int start, int end) {
+        if (equals(INSERTION, buffer, start, end)) {
+            return TransactionType.INSERTION;
+        } else if (equals(DELETION, buffer, start, end)) {
+            return TransactionType.DELETION;
+        } else if (equals(KEY_CHANGE, buffer, start, end) || equals(TYPE_CHANGE, buffer, start, end)) {
+            return TransactionType.UPDATE;
+        }
+        return TransactionType.NOT_SUPPORTED;
+    }
+
+    private int parseBeatId(MappedByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > 0 && length < 10) {
+            int beatId = 0;
+            int i = start;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                beatId = beatId * 10 + (b - '0');
+            }
+            if (i == end) {
+                return beatId;
+            }
+        }
+        // Signs, long or malformed ids are left to Integer.parseInt, as in SchemaEvoLoader
+        return Integer.parseInt(decode(buffer, start, end));
+    }
+
+    private int findEntityIndex(MappedByteBuffer buffer, int start, int end) {
+        int slot = hash(buffer, start, end) & tableMask;
+        while (tableNames[slot] != null) {
+            if (equals(tableNames[slot], buffer, start, end)) {
+                return tableIndices[slot];
+            }
+            slot = (slot + 1) & tableMask;
+        }
+
+        // Names that do not round trip through the charset (e.g. malformed bytes) are matched as decoded
+        Integer index = entityNameToIndex.get(decode(buffer, start, end));
+        return index == null ? -1 : index;
+    }
+
+    private String decode(MappedByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private static int findLineEnd(MappedByteBuffer buffer, int position, int limit) {
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == '\n' || b == '\r') {
+                return position;
+            }
+            position++;
+        }
+        return limit;
+    }
+
+    /**
+     * @return the start of the first line that starts at or after position, or size
+     */
+    private static long alignToLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+
+        // A line starts after a terminator, and "\r\n" is one terminator
+        ByteBuffer buffer = ByteBuffer.allocate(ALIGNMENT_BUFFER_SIZE);
+        long offset = position - 1;
+        boolean afterCarriageReturn = false;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (afterCarriageReturn) {
+                    return (b == '\n') ? offset + i + 1 : offset + i;
+                }
+                if (b == '\n') {
+                    return offset + i + 1;
+                }
+                afterCarriageReturn = (b == '\r');
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static int skipLineTerminator(MappedByteBuffer buffer, int lineEnd, int limit) {
+        if (lineEnd < limit && buffer.get(lineEnd) == '\r' && lineEnd + 1 < limit && buffer.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(MappedByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(byte[] expected, byte[] bytes, int start, int end) {
+        if (expected.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] expected, MappedByteBuffer buffer, int start, int end) {
+        if (expected.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -5,7 +5,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +23,7 @@ import daintiness.models.measurement.IMeasurement;
 import daintiness.models.measurement.MeasurementFactory;
 import daintiness.utilities.Constants;
 import daintiness.utilities.Constants.TransactionType;
+import daintiness.utilities.ParallelExecutor;
 
 public class SchemaEvoLoader implements ILoader {
     private File transitionsPath;
@@ -39,8 +42,37 @@ public class SchemaEvoLoader implements ILoader {
     private List<TimeEntityMeasurements> timeEntityMeasurements;
     private Map<String, Map<Integer, TableBeatMetrics>> tableBeatMetricsMap;
 
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final boolean memoryMappedTransitions;
+    private final int parallelism;
+    private String dataHandlerType = "SIMPLE_DATA_HANDLER";
+    private long transitionsParseNanos;
+
 
     public SchemaEvoLoader(File projectFolder) {
+        this(projectFolder, false);
+    }
+
+    /**
+     * @param memoryMappedTransitions if true, transitions.csv is scanned through a MappedTransitionsReader
+     *                                instead of being read into a List<String[]> by the CsvReader
+     */
+    public SchemaEvoLoader(File projectFolder, boolean memoryMappedTransitions) {
+        this(projectFolder, memoryMappedTransitions, 1);
+    }
+
+    /**
+     * With a parallelism over 1, SchemaHeartbeat.tsv and tables_DetailedStats.tsv are read concurrently,
+     * and the memory-mapped transitions.csv is split into line-aligned chunks that are read by
+     * different threads. The chunks' metrics are merged in file order, so the result is identical
+     * to the serial loading.
+     * @param memoryMappedTransitions if true, transitions.csv is scanned through a MappedTransitionsReader
+     * @param parallelism number of threads used for the loading
+     */
+    public SchemaEvoLoader(File projectFolder, boolean memoryMappedTransitions, int parallelism) {
+        this.memoryMappedTransitions = memoryMappedTransitions;
+        this.parallelism = Math.max(1, parallelism);
         this.projectName = projectFolder.getName();
         resultsFolder = generateFolderPath(projectFolder, "results");
         figuresFolder = generateFolderPath(projectFolder, "figures");
@@ -105,14 +137,27 @@ public class SchemaEvoLoader implements ILoader {
     }
 
 
+    @Override
+    public void setDataHandlerType(String dataHandlerType) {
+        this.dataHandlerType = dataHandlerType;
+    }
+
+
     public IDataHandler load() {
-        loadTimeLine();
-        loadEntities();
-        loadMetrics();
+        ParallelExecutor executor = new ParallelExecutor(parallelism);
+        // The timeline and the tables are independent files
+        executor.forEach(0, 2, file -> {
+            if (file == 0) {
+                loadTimeLine();
+            } else {
+                loadEntities();
+            }
+        });
+        loadMetrics(executor);
         generateTimeEntityMeasurements();
 
         DataHandlerFactory factory = new DataHandlerFactory();
-        IDataHandler dataHandler = factory.getDataHandler("SIMPLE_DATA_HANDLER");
+        IDataHandler dataHandler = factory.getDataHandler(dataHandlerType);
         dataHandler.init(timeline, entities, timeEntityMeasurements);
 
         return dataHandler;
@@ -190,7 +235,31 @@ public class SchemaEvoLoader implements ILoader {
 
 
     public void loadMetrics() {
+        loadMetrics(new ParallelExecutor(parallelism));
+    }
+
+
+    private void loadMetrics(ParallelExecutor executor) {
+        long start = System.nanoTime();
+        if (memoryMappedTransitions && MappedTransitionsReader.canRead()) {
+            loadMappedMetrics(executor);
+        } else {
+            loadCsvMetrics();
+        }
+        transitionsParseNanos = System.nanoTime() - start;
+    }
+
+
+    /**
+     * @return the MB/s at which transitions.csv was parsed by the last loadMetrics()
+     */
+    public double getTransitionsThroughput() {
+        double megabytes = transitionsPath.length() / (1024.0 * 1024.0);
+        return megabytes / (transitionsParseNanos / 1e9);
+    }
+
 
+    private void loadCsvMetrics() {
         CsvReader csvReader = new CsvReader(transitionsPath, true, ";");
         List<String[]> rawLines = csvReader.readAll();
 
@@ -210,6 +279,58 @@ public class SchemaEvoLoader implements ILoader {
     }
 
 
+    private void loadMappedMetrics(ParallelExecutor executor) {
+        initTablesInMap();
+
+        // The metrics of every entity index, so that the changes need no lookup by table name
+        List<Map<Integer, TableBeatMetrics>> metricsByEntityIndex = new ArrayList<>(entities.size());
+        for (Entity entity : entities) {
+            metricsByEntityIndex.add(tableBeatMetricsMap.get(entity.getEntityName()));
+        }
+
+        MappedTransitionsReader reader = new MappedTransitionsReader(transitionsPath, entities);
+        if (executor.getParallelism() == 1) {
+            reader.read((beatId, entityIndex, transactionType) ->
+                    addToMetrics(metricsByEntityIndex.get(entityIndex), beatId, transactionType));
+            return;
+        }
+
+        List<MappedTransitionsReader.Chunk> chunks = reader.split(executor.getParallelism() * CHUNKS_PER_THREAD);
+        List<List<Map<Integer, TableBeatMetrics>>> chunkMetrics = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        executor.forEach(0, chunks.size(), chunk -> {
+            // The beats of a table keep the order of their first change in the chunk
+            List<Map<Integer, TableBeatMetrics>> metrics = new ArrayList<>(Collections.nCopies(entities.size(), null));
+            reader.read(chunks.get(chunk), (beatId, entityIndex, transactionType) -> {
+                if (metrics.get(entityIndex) == null) {
+                    metrics.set(entityIndex, new LinkedHashMap<>());
+                }
+                addToMetrics(metrics.get(entityIndex), beatId, transactionType);
+            });
+            chunkMetrics.set(chunk, metrics);
+        });
+        reader.printProblems(chunks);
+
+        // Merged in file order, so the beats are put in the tables' maps in the order of the serial loading
+        for (List<Map<Integer, TableBeatMetrics>> metrics : chunkMetrics) {
+            for (int entityIndex = 0; entityIndex < metrics.size(); entityIndex++) {
+                if (metrics.get(entityIndex) == null) {
+                    continue;
+                }
+
+                Map<Integer, TableBeatMetrics> beatMetrics = metricsByEntityIndex.get(entityIndex);
+                for (Map.Entry<Integer, TableBeatMetrics> entry : metrics.get(entityIndex).entrySet()) {
+                    TableBeatMetrics existingMetrics = beatMetrics.get(entry.getKey());
+                    if (existingMetrics == null) {
+                        beatMetrics.put(entry.getKey(), entry.getValue());
+                    } else {
+                        existingMetrics.add(entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+
     private void generateTimeEntityMeasurements() {
         timeEntityMeasurements = new ArrayList<>();
 
@@ -321,4 +442,27 @@ public class SchemaEvoLoader implements ILoader {
         }
     }
 
+
+    private void addToMetrics(Map<Integer, TableBeatMetrics> beatMetrics, int beatId, TransactionType transactionType) {
+        TableBeatMetrics metrics = beatMetrics.get(beatId);
+        if (metrics == null) {
+            metrics = new TableBeatMetrics();
+            beatMetrics.put(beatId, metrics);
+        }
+
+        switch (transactionType) {
+            case INSERTION:
+                metrics.addInsertion();
+                break;
+            case DELETION:
+                metrics.addDeletion();
+                break;
+            case UPDATE:
+                metrics.addUpdate();
+                break;
+            default:
+                System.out.println("mapToMetrics: Not supported type.");
+        }
+    }
+
 }
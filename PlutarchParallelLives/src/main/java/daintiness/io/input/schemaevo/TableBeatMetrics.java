@@ -38,6 +38,15 @@ public class TableBeatMetrics {
         numberOfUpdates++;
     }
 
+    /**
+     * Adds the changes of the other metrics of the same table and beat.
+     */
+    public void add(TableBeatMetrics other) {
+        numberOfInsertions += other.numberOfInsertions;
+        numberOfDeletions += other.numberOfDeletions;
+        numberOfUpdates += other.numberOfUpdates;
+    }
+
     public double getValueByAggregationType(AggregationType aggregationType) {
         double value = 0;
 
@@ -0,0 +1,108 @@
+package daintiness.io.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Formats the measurement values of the exported files (tem.tsv, gpm.tsv) like the
+ * locale's NumberFormat, reusing one formatter and one digit buffer for all the values.
+ * <p/>
+ * Integral values below 10^15 (most of the measurements are counts) are written digit by digit,
+ * with the sign and the grouping of the locale's DecimalFormat, straight to the output.
+ * Every other value (fractions, -0.0, NaN, infinities, huge values) is formatted by the
+ * NumberFormat itself, so both produce the same text.
+ * <p/>
+ * An instance is not thread-safe, it is meant to be created for every export.
+ */
+public class FastNumberFormatter {
+    private static final double MAX_FAST_VALUE = 1e15;
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+    private final NumberFormat numberFormat;
+    private final boolean fastIntegers;
+    private final boolean groupingUsed;
+    private final int groupingSize;
+    private final char groupingSeparator;
+    private final char minusSign;
+    private final char[] digits = new char[32];
+
+    public FastNumberFormatter(Locale locale) {
+        this.numberFormat = NumberFormat.getInstance(locale);
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.minusSign = symbols.getMinusSign();
+
+        if (numberFormat instanceof DecimalFormat) {
+            DecimalFormat decimalFormat = (DecimalFormat) numberFormat;
+            this.groupingUsed = decimalFormat.isGroupingUsed() && decimalFormat.getGroupingSize() > 0;
+            this.groupingSize = decimalFormat.getGroupingSize();
+            this.fastIntegers = symbols.getZeroDigit() == '0' &&
+                    decimalFormat.getPositivePrefix().isEmpty() && decimalFormat.getPositiveSuffix().isEmpty() &&
+                    decimalFormat.getNegativePrefix().equals(String.valueOf(minusSign)) &&
+                    decimalFormat.getNegativeSuffix().isEmpty();
+        } else {
+            this.groupingUsed = false;
+            this.groupingSize = 0;
+            this.fastIntegers = false;
+        }
+    }
+
+    /**
+     * @param value the value to format
+     * @return the value as the locale's NumberFormat formats it
+     */
+    public String format(double value) {
+        StringBuilder text = new StringBuilder();
+        try {
+            format(value, text);
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends the value, as the locale's NumberFormat formats it, to the output.
+     * @param value the value to format
+     * @param output destination of the text
+     * @throws IOException if the output fails
+     */
+    public void format(double value, Appendable output) throws IOException {
+        if (!fastIntegers || value != (long) value || Math.abs(value) >= MAX_FAST_VALUE ||
+                Double.doubleToRawLongBits(value) == NEGATIVE_ZERO) {
+            output.append(numberFormat.format(value));
+            return;
+        }
+
+        long remaining = Math.abs((long) value);
+        int position = digits.length;
+        int numberOfDigits = 0;
+        do {
+            if (groupingUsed && numberOfDigits > 0 && numberOfDigits % groupingSize == 0) {
+                digits[--position] = groupingSeparator;
+            }
+            digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+            numberOfDigits++;
+        } while (remaining > 0);
+        if (value < 0) {
+            digits[--position] = minusSign;
+        }
+
+        int length = digits.length - position;
+        if (output instanceof StringBuilder) {
+            ((StringBuilder) output).append(digits, position, length);
+        } else if (output instanceof Writer) {
+            ((Writer) output).write(digits, position, length);
+        } else {
+            for (int i = position; i < digits.length; i++) {
+                output.append(digits[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package daintiness.io.snapshot;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Layout of the binary project snapshots (.snapshot files).
+ * <p/>
+ * All numbers are big-endian and every section is stored column by column. A snapshot consists
+ * of the following sections, in this order:
+ * <pre>
+ * header       int MAGIC, int VERSION, int fileType (string)
+ * strings      int count, int column of the UTF-8 lengths, the UTF-8 bytes of all the strings
+ * beats        int count, int columns beatId and rawDate (string), long column of the dates' epoch seconds
+ *              (NO_DATE for none), int column of the dates' nanoseconds
+ * entities     int count, int columns entityId, name (string), birth, death, isAlive (0/1) and duration
+ * columns      int count, int columns measurementType (string) and aggregationType (string)
+ * layouts      int count, int column of the lengths, int column of all the layouts' columns
+ * TEMs         int count, int columns entity position, beat position and layout
+ * values       per column: its values over the TEMs whose layout contains it, in TEM order, as a value column
+ * phases       int count, int columns phaseId, firstBeatId and lastBeatId
+ * groups       int count, int columns groupId and length, int column of all the groups' component names (string)
+ * gpm          int count, int columns groupId and length, int column of all the phaseIds, value column of all the values
+ * </pre>
+ * Strings are indices into the string table, NO_STRING for null. A rawDate is DATE_AS_RAW_DATE when it
+ * is the beat's date formatted by RAW_DATE_FORMATTER, as in the timeline of a tem.tsv.
+ * A layout is the ordered list of the (MeasurementType, AggregationType) columns of a TEM, so the
+ * measurements of every TEM are restored in their original order.
+ * <p/>
+ * An int column is a byte width (INT8, INT16 or INT32) followed by the values of that width.
+ * A long column is a byte encoding: LONG_DELTAS followed by the first value and an int column of the
+ * differences from the previous value, or INT64 followed by the values.
+ * A value column is an int count, a byte encoding (INT8, INT16, INT32 or FLOAT64) and the values;
+ * the integer encodings are only used when every value of the column is such an integer.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x50504C53;
+    static final int VERSION = 1;
+
+    static final int NO_STRING = -1;
+    static final int DATE_AS_RAW_DATE = -2;
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final DateTimeFormatter RAW_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    static final byte INT8 = 1;
+    static final byte INT16 = 2;
+    static final byte INT32 = 4;
+    static final byte INT64 = 8;
+    static final byte FLOAT64 = 9;
+    static final byte LONG_DELTAS = 10;
+
+    private SnapshotFormat() {
+    }
+}
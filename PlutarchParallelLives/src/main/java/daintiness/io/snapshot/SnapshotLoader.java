@@ -0,0 +1,344 @@
+package daintiness.io.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.data.ColumnarDataHandler;
+import daintiness.data.DataHandlerFactory;
+import daintiness.data.IDataHandler;
+import daintiness.io.input.ILoader;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+
+/**
+ * Loads a binary project snapshot written by the SnapshotWriter, see SnapshotFormat.
+ * <p/>
+ * The file is memory-mapped and every value is decoded straight from the mapping, without
+ * reading the file into buffers or parsing any text. A ColumnarDataHandler is filled with the decoded
+ * columns directly; the TimeEntityMeasurements objects are only created for the other handlers. The dataHandler gets the file type of the
+ * project that was saved, and the phases, entity groups and chart measurements are available in the
+ * structures that the FileHandler reads from a gpm.tsv.
+ */
+public class SnapshotLoader implements ILoader {
+    private final File snapshotFile;
+    private String dataHandlerType = "SIMPLE_DATA_HANDLER";
+
+    private String[] strings;
+    private List<int[]> phasesData;
+    private Map<Integer, String[]> entityGroupData;
+    private Map<Integer, Map<Integer, Double>> gpmData;
+
+    public SnapshotLoader(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+
+    @Override
+    public void setDataHandlerType(String dataHandlerType) {
+        this.dataHandlerType = dataHandlerType;
+    }
+
+
+    @Override
+    public IDataHandler load() {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the project snapshot " + snapshotFile, e);
+        }
+    }
+
+
+    private IDataHandler read(MappedByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt() != SnapshotFormat.MAGIC) {
+            throw new IllegalArgumentException(snapshotFile.getName() + " is not a project snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != SnapshotFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported project snapshot version " + version + " in " + snapshotFile.getName());
+        }
+        int fileType = buffer.getInt();
+
+        DataHandlerFactory factory = new DataHandlerFactory();
+        IDataHandler dataHandler = factory.getDataHandler(dataHandlerType);
+
+        readStrings(buffer);
+        List<Beat> timeline = readBeats(buffer);
+        List<Entity> population = readEntities(buffer);
+        readTEMs(buffer, dataHandler, timeline, population);
+        readPhases(buffer);
+        readEntityGroups(buffer);
+        readGPM(buffer);
+
+        if (fileType != SnapshotFormat.NO_STRING) {
+            dataHandler.setType(Constants.FileType.valueOf(strings[fileType]));
+        }
+        return dataHandler;
+    }
+
+
+    private void readStrings(MappedByteBuffer buffer) {
+        strings = new String[buffer.getInt()];
+        int[] lengths = readIntColumn(buffer, strings.length);
+        byte[] bytes = new byte[0];
+        for (int i = 0; i < strings.length; i++) {
+            if (bytes.length < lengths[i]) {
+                bytes = new byte[lengths[i]];
+            }
+            buffer.get(bytes, 0, lengths[i]);
+            strings[i] = new String(bytes, 0, lengths[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    private String getString(int index) {
+        return index == SnapshotFormat.NO_STRING ? null : strings[index];
+    }
+
+    private List<Beat> readBeats(MappedByteBuffer buffer) {
+        int numberOfBeats = buffer.getInt();
+        int[] beatIds = readIntColumn(buffer, numberOfBeats);
+        int[] rawDates = readIntColumn(buffer, numberOfBeats);
+        long[] epochSeconds = readLongColumn(buffer, numberOfBeats);
+        int[] nanos = readIntColumn(buffer, numberOfBeats);
+
+        List<Beat> timeline = new ArrayList<>(numberOfBeats);
+        for (int i = 0; i < numberOfBeats; i++) {
+            LocalDateTime date = (epochSeconds[i] == SnapshotFormat.NO_DATE) ? null :
+                    LocalDateTime.ofEpochSecond(epochSeconds[i], nanos[i], ZoneOffset.UTC);
+            String rawDate = (rawDates[i] == SnapshotFormat.DATE_AS_RAW_DATE) ?
+                    date.format(SnapshotFormat.RAW_DATE_FORMATTER) : getString(rawDates[i]);
+            timeline.add(new Beat(beatIds[i], rawDate, date));
+        }
+        return timeline;
+    }
+
+    private List<Entity> readEntities(MappedByteBuffer buffer) {
+        int numberOfEntities = buffer.getInt();
+        int[] entityIds = readIntColumn(buffer, numberOfEntities);
+        int[] names = readIntColumn(buffer, numberOfEntities);
+        int[] births = readIntColumn(buffer, numberOfEntities);
+        int[] deaths = readIntColumn(buffer, numberOfEntities);
+        int[] isAlive = readIntColumn(buffer, numberOfEntities);
+        int[] durations = readIntColumn(buffer, numberOfEntities);
+
+        List<Entity> population = new ArrayList<>(numberOfEntities);
+        for (int i = 0; i < numberOfEntities; i++) {
+            population.add(new Entity(entityIds[i], getString(names[i]),
+                    new LifeDetails(births[i], deaths[i], isAlive[i] == 1, durations[i])));
+        }
+        return population;
+    }
+
+    /**
+     * Reads the TEMs into the dataHandler. A ColumnarDataHandler takes the decoded columns as its own,
+     * any other one is initialized with the TimeEntityMeasurements objects.
+     */
+    private void readTEMs(MappedByteBuffer buffer, IDataHandler dataHandler, List<Beat> timeline, List<Entity> population) {
+        int numberOfColumns = buffer.getInt();
+        int[] measurementTypeNames = readIntColumn(buffer, numberOfColumns);
+        int[] aggregationTypeNames = readIntColumn(buffer, numberOfColumns);
+        Constants.MeasurementType[] measurementTypes = new Constants.MeasurementType[numberOfColumns];
+        Constants.AggregationType[] aggregationTypes = new Constants.AggregationType[numberOfColumns];
+        for (int column = 0; column < numberOfColumns; column++) {
+            measurementTypes[column] = Constants.MeasurementType.valueOf(strings[measurementTypeNames[column]]);
+            aggregationTypes[column] = Constants.AggregationType.valueOf(strings[aggregationTypeNames[column]]);
+        }
+
+        int[][] layouts = new int[buffer.getInt()][];
+        int[] layoutLengths = readIntColumn(buffer, layouts.length);
+        int[] layoutColumns = readIntColumn(buffer, sum(layoutLengths));
+        for (int layout = 0, offset = 0; layout < layouts.length; offset += layoutLengths[layout], layout++) {
+            layouts[layout] = Arrays.copyOfRange(layoutColumns, offset, offset + layoutLengths[layout]);
+        }
+
+        int numberOfTEMs = buffer.getInt();
+        int[] temEntities = readIntColumn(buffer, numberOfTEMs);
+        int[] temBeats = readIntColumn(buffer, numberOfTEMs);
+        int[] temLayouts = readIntColumn(buffer, numberOfTEMs);
+        double[][] values = new double[numberOfColumns][];
+        for (int column = 0; column < numberOfColumns; column++) {
+            values[column] = readValueColumn(buffer);
+        }
+
+        int[] nextValue = new int[numberOfColumns];
+        if (dataHandler instanceof ColumnarDataHandler) {
+            // The TEMs are saved in the entity and beat order of the handler's cells
+            double[][] measurementColumns = new double[numberOfColumns][numberOfTEMs];
+            for (int column = 0; column < numberOfColumns; column++) {
+                Arrays.fill(measurementColumns[column], Double.NaN);
+            }
+            for (int tem = 0; tem < numberOfTEMs; tem++) {
+                for (int column : layouts[temLayouts[tem]]) {
+                    measurementColumns[column][tem] = values[column][nextValue[column]++];
+                }
+            }
+            ((ColumnarDataHandler) dataHandler).init(timeline, population, temEntities, temBeats,
+                    measurementTypes, aggregationTypes, measurementColumns);
+            return;
+        }
+
+        List<TimeEntityMeasurements> measurements = new ArrayList<>(numberOfTEMs);
+        for (int tem = 0; tem < numberOfTEMs; tem++) {
+            int[] layout = layouts[temLayouts[tem]];
+            List<IMeasurement> measurementList = new ArrayList<>(layout.length);
+            for (int column : layout) {
+                measurementList.add(new Measurement(values[column][nextValue[column]++],
+                        measurementTypes[column], aggregationTypes[column]));
+            }
+            measurements.add(new TimeEntityMeasurements(population.get(temEntities[tem]), timeline.get(temBeats[tem]), measurementList));
+        }
+        dataHandler.init(timeline, population, measurements);
+    }
+
+    private int[] readIntColumn(MappedByteBuffer buffer, int size) {
+        byte width = buffer.get();
+        int[] column = new int[size];
+        for (int i = 0; i < size; i++) {
+            switch (width) {
+                case SnapshotFormat.INT8:
+                    column[i] = buffer.get();
+                    break;
+                case SnapshotFormat.INT16:
+                    column[i] = buffer.getShort();
+                    break;
+                default:
+                    column[i] = buffer.getInt();
+            }
+        }
+        return column;
+    }
+
+    private long[] readLongColumn(MappedByteBuffer buffer, int size) {
+        byte encoding = buffer.get();
+        long[] column = new long[size];
+        if (encoding == SnapshotFormat.LONG_DELTAS) {
+            long value = buffer.getLong();
+            int[] deltas = readIntColumn(buffer, Math.max(size - 1, 0));
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    value += deltas[i - 1];
+                }
+                column[i] = value;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                column[i] = buffer.getLong();
+            }
+        }
+        return column;
+    }
+
+    private double[] readValueColumn(MappedByteBuffer buffer) {
+        int size = buffer.getInt();
+        byte encoding = buffer.get();
+        double[] column = new double[size];
+        for (int i = 0; i < size; i++) {
+            switch (encoding) {
+                case SnapshotFormat.INT8:
+                    column[i] = buffer.get();
+                    break;
+                case SnapshotFormat.INT16:
+                    column[i] = buffer.getShort();
+                    break;
+                case SnapshotFormat.INT32:
+                    column[i] = buffer.getInt();
+                    break;
+                default:
+                    column[i] = buffer.getDouble();
+            }
+        }
+        return column;
+    }
+
+    private void readPhases(MappedByteBuffer buffer) {
+        int numberOfPhases = buffer.getInt();
+        int[] phaseIds = readIntColumn(buffer, numberOfPhases);
+        int[] firstBeatIds = readIntColumn(buffer, numberOfPhases);
+        int[] lastBeatIds = readIntColumn(buffer, numberOfPhases);
+        phasesData = new ArrayList<>(numberOfPhases);
+        for (int i = 0; i < numberOfPhases; i++) {
+            phasesData.add(new int[]{phaseIds[i], firstBeatIds[i], lastBeatIds[i]});
+        }
+    }
+
+    private void readEntityGroups(MappedByteBuffer buffer) {
+        int numberOfGroups = buffer.getInt();
+        int[] entityGroupIds = readIntColumn(buffer, numberOfGroups);
+        int[] lengths = readIntColumn(buffer, numberOfGroups);
+        int[] componentNames = readIntColumn(buffer, sum(lengths));
+
+        entityGroupData = new HashMap<>();
+        for (int i = 0, offset = 0; i < numberOfGroups; offset += lengths[i], i++) {
+            String[] groupComponentNames = new String[lengths[i]];
+            for (int j = 0; j < lengths[i]; j++) {
+                groupComponentNames[j] = getString(componentNames[offset + j]);
+            }
+            entityGroupData.put(entityGroupIds[i], groupComponentNames);
+        }
+    }
+
+    private void readGPM(MappedByteBuffer buffer) {
+        int numberOfGroups = buffer.getInt();
+        int[] entityGroupIds = readIntColumn(buffer, numberOfGroups);
+        int[] lengths = readIntColumn(buffer, numberOfGroups);
+        int[] phaseIds = readIntColumn(buffer, sum(lengths));
+        double[] values = readValueColumn(buffer);
+
+        gpmData = new HashMap<>();
+        for (int i = 0, offset = 0; i < numberOfGroups; offset += lengths[i], i++) {
+            Map<Integer, Double> phaseToValue = new HashMap<>();
+            for (int j = offset; j < offset + lengths[i]; j++) {
+                phaseToValue.put(phaseIds[j], values[j]);
+            }
+            gpmData.put(entityGroupIds[i], phaseToValue);
+        }
+    }
+
+    private int sum(int[] lengths) {
+        int sum = 0;
+        for (int length : lengths) {
+            sum += length;
+        }
+        return sum;
+    }
+
+
+    /**
+     * @return (phaseId, firstBeatId, lastBeatId) of every saved phase, empty if the project was not clustered
+     */
+    public List<int[]> getPhasesData() {
+        return phasesData;
+    }
+
+    /**
+     * @return entityGroupId to the names of the group's entities
+     */
+    public Map<Integer, String[]> getEntityGroupData() {
+        return entityGroupData;
+    }
+
+    /**
+     * @return entityGroupId to the (phaseId, value) of the saved chart measurements
+     */
+    public Map<Integer, Map<Integer, Double>> getLoadedMeasurementMap() {
+        return gpmData;
+    }
+}
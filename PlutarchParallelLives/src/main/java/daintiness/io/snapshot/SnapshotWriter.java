@@ -0,0 +1,459 @@
+package daintiness.io.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+
+/**
+ * Writes a project (the loaded data and its clustering) as a binary snapshot, see SnapshotFormat.
+ * <p/>
+ * The TEMs are written entity by entity in the population order and beat by beat in the timeline order,
+ * which is the order a tem.tsv is loaded in. Every measurement of a TEM is kept, with every
+ * aggregation type, and the values are stored exactly instead of formatted by a NumberFormat.
+ */
+public class SnapshotWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Map<String, Integer> stringTable = new LinkedHashMap<>();
+
+    private final Map<String, Integer> columnKeyToIndex = new HashMap<>();
+    private final List<IMeasurement> columnTypes = new ArrayList<>();
+    private final List<ValueColumn> valueColumns = new ArrayList<>();
+
+    private final Map<List<Integer>, Integer> layoutToIndex = new HashMap<>();
+    private final List<List<Integer>> layouts = new ArrayList<>();
+
+
+    /**
+     * @param snapshotFile output file
+     * @param dataHandler the loaded data
+     * @param phasesData (phaseId, firstBeatId, lastBeatId) of every phase, in order
+     * @param entityGroupData entityGroupId to the names of the group's entities
+     * @param gpmData entityGroupId to the (phaseId, value) of the group's chart measurements
+     */
+    public void write(File snapshotFile, IDataHandler dataHandler, List<int[]> phasesData,
+                      Map<Integer, String[]> entityGroupData, Map<Integer, Map<Integer, Double>> gpmData) throws IOException {
+        stringTable.clear();
+        columnKeyToIndex.clear();
+        columnTypes.clear();
+        valueColumns.clear();
+        layoutToIndex.clear();
+        layouts.clear();
+
+        List<Beat> timeline = dataHandler.getTimeline();
+        List<Entity> population = dataHandler.getPopulation();
+
+        int fileType = addString(dataHandler.getType() == null ? null : dataHandler.getType().name());
+        for (Beat beat : timeline) {
+            if (!isDateAsRawDate(beat)) {
+                addString(beat.getRawDate());
+            }
+        }
+        for (Entity entity : population) {
+            addString(entity.getEntityName());
+        }
+        for (String[] componentNames : entityGroupData.values()) {
+            for (String componentName : componentNames) {
+                addString(componentName);
+            }
+        }
+
+        IntColumn temEntities = new IntColumn();
+        IntColumn temBeats = new IntColumn();
+        IntColumn temLayouts = new IntColumn();
+        collectTEMs(dataHandler, temEntities, temBeats, temLayouts);
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(snapshotFile), BUFFER_SIZE))) {
+            output.writeInt(SnapshotFormat.MAGIC);
+            output.writeInt(SnapshotFormat.VERSION);
+            output.writeInt(fileType);
+
+            writeStrings(output);
+            writeBeats(output, timeline);
+            writeEntities(output, population);
+            writeColumns(output);
+            writeLayouts(output);
+
+            output.writeInt(temEntities.size);
+            temEntities.write(output);
+            temBeats.write(output);
+            temLayouts.write(output);
+            for (ValueColumn valueColumn : valueColumns) {
+                valueColumn.write(output);
+            }
+
+            writePhases(output, phasesData);
+            writeEntityGroups(output, entityGroupData);
+            writeGPM(output, gpmData);
+        }
+    }
+
+
+    private void collectTEMs(IDataHandler dataHandler, IntColumn temEntities, IntColumn temBeats, IntColumn temLayouts) {
+        List<Beat> timeline = dataHandler.getTimeline();
+        List<Entity> population = dataHandler.getPopulation();
+        Map<String, Map<Integer, TimeEntityMeasurements>> entityNameToTEMMap = dataHandler.getEntityNameToTEMMap();
+
+        for (int entityPosition = 0; entityPosition < population.size(); entityPosition++) {
+            Map<Integer, TimeEntityMeasurements> beatIdToTEM = entityNameToTEMMap.get(population.get(entityPosition).getEntityName());
+            if (beatIdToTEM == null) {
+                continue;
+            }
+
+            for (int beatPosition = 0; beatPosition < timeline.size(); beatPosition++) {
+                TimeEntityMeasurements tem = beatIdToTEM.get(timeline.get(beatPosition).getBeatId());
+                if (tem == null) {
+                    continue;
+                }
+
+                List<Integer> layout = new ArrayList<>(tem.getMeasurements().size());
+                for (IMeasurement measurement : tem.getMeasurements()) {
+                    int column = getColumn(measurement);
+                    layout.add(column);
+                    valueColumns.get(column).add(measurement.getValue());
+                }
+
+                temEntities.add(entityPosition);
+                temBeats.add(beatPosition);
+                temLayouts.add(getLayout(layout));
+            }
+        }
+    }
+
+    private int getColumn(IMeasurement measurement) {
+        String key = measurement.getMeasurementType() + "/" + measurement.getAggregationType();
+        Integer column = columnKeyToIndex.get(key);
+        if (column == null) {
+            column = columnTypes.size();
+            columnKeyToIndex.put(key, column);
+            columnTypes.add(measurement);
+            valueColumns.add(new ValueColumn());
+            addString(measurement.getMeasurementType().name());
+            addString(measurement.getAggregationType().name());
+        }
+        return column;
+    }
+
+    private int getLayout(List<Integer> layout) {
+        Integer index = layoutToIndex.get(layout);
+        if (index == null) {
+            index = layouts.size();
+            layoutToIndex.put(layout, index);
+            layouts.add(layout);
+        }
+        return index;
+    }
+
+    private int addString(String string) {
+        if (string == null) {
+            return SnapshotFormat.NO_STRING;
+        }
+        Integer index = stringTable.get(string);
+        if (index == null) {
+            index = stringTable.size();
+            stringTable.put(string, index);
+        }
+        return index;
+    }
+
+    private int getString(String string) {
+        return string == null ? SnapshotFormat.NO_STRING : stringTable.get(string);
+    }
+
+
+    private boolean isDateAsRawDate(Beat beat) {
+        return beat.getDate() != null && beat.getRawDate() != null &&
+                beat.getRawDate().equals(beat.getDate().format(SnapshotFormat.RAW_DATE_FORMATTER));
+    }
+
+
+    private void writeStrings(DataOutputStream output) throws IOException {
+        List<byte[]> encodedStrings = new ArrayList<>(stringTable.size());
+        IntColumn lengths = new IntColumn();
+        for (String string : stringTable.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(bytes);
+            lengths.add(bytes.length);
+        }
+
+        output.writeInt(stringTable.size());
+        lengths.write(output);
+        for (byte[] bytes : encodedStrings) {
+            output.write(bytes);
+        }
+    }
+
+    private void writeBeats(DataOutputStream output, List<Beat> timeline) throws IOException {
+        IntColumn beatIds = new IntColumn();
+        IntColumn rawDates = new IntColumn();
+        long[] epochSeconds = new long[timeline.size()];
+        IntColumn nanos = new IntColumn();
+
+        for (int i = 0; i < timeline.size(); i++) {
+            Beat beat = timeline.get(i);
+            beatIds.add(beat.getBeatId());
+            rawDates.add(isDateAsRawDate(beat) ? SnapshotFormat.DATE_AS_RAW_DATE : getString(beat.getRawDate()));
+            if (beat.getDate() == null) {
+                epochSeconds[i] = SnapshotFormat.NO_DATE;
+                nanos.add(0);
+            } else {
+                epochSeconds[i] = beat.getDate().toEpochSecond(ZoneOffset.UTC);
+                nanos.add(beat.getDate().getNano());
+            }
+        }
+
+        output.writeInt(timeline.size());
+        beatIds.write(output);
+        rawDates.write(output);
+        writeLongColumn(output, epochSeconds);
+        nanos.write(output);
+    }
+
+    private void writeEntities(DataOutputStream output, List<Entity> population) throws IOException {
+        IntColumn entityIds = new IntColumn();
+        IntColumn names = new IntColumn();
+        IntColumn births = new IntColumn();
+        IntColumn deaths = new IntColumn();
+        IntColumn isAlive = new IntColumn();
+        IntColumn durations = new IntColumn();
+
+        for (Entity entity : population) {
+            LifeDetails lifeDetails = entity.getLifeDetails();
+            entityIds.add(entity.getEntityId());
+            names.add(getString(entity.getEntityName()));
+            births.add(lifeDetails.getBirthBeatId());
+            deaths.add(lifeDetails.getDeathBeatId());
+            isAlive.add(lifeDetails.isAlive() ? 1 : 0);
+            durations.add(lifeDetails.getDuration());
+        }
+
+        output.writeInt(population.size());
+        entityIds.write(output);
+        names.write(output);
+        births.write(output);
+        deaths.write(output);
+        isAlive.write(output);
+        durations.write(output);
+    }
+
+    private void writeColumns(DataOutputStream output) throws IOException {
+        IntColumn measurementTypes = new IntColumn();
+        IntColumn aggregationTypes = new IntColumn();
+        for (IMeasurement columnType : columnTypes) {
+            measurementTypes.add(getString(columnType.getMeasurementType().name()));
+            aggregationTypes.add(getString(columnType.getAggregationType().name()));
+        }
+
+        output.writeInt(columnTypes.size());
+        measurementTypes.write(output);
+        aggregationTypes.write(output);
+    }
+
+    private void writeLayouts(DataOutputStream output) throws IOException {
+        IntColumn lengths = new IntColumn();
+        IntColumn columns = new IntColumn();
+        for (List<Integer> layout : layouts) {
+            lengths.add(layout.size());
+            for (int column : layout) {
+                columns.add(column);
+            }
+        }
+
+        output.writeInt(layouts.size());
+        lengths.write(output);
+        columns.write(output);
+    }
+
+    private void writePhases(DataOutputStream output, List<int[]> phasesData) throws IOException {
+        IntColumn phaseIds = new IntColumn();
+        IntColumn firstBeatIds = new IntColumn();
+        IntColumn lastBeatIds = new IntColumn();
+        for (int[] phase : phasesData) {
+            phaseIds.add(phase[0]);
+            firstBeatIds.add(phase[1]);
+            lastBeatIds.add(phase[2]);
+        }
+
+        output.writeInt(phasesData.size());
+        phaseIds.write(output);
+        firstBeatIds.write(output);
+        lastBeatIds.write(output);
+    }
+
+    private void writeEntityGroups(DataOutputStream output, Map<Integer, String[]> entityGroupData) throws IOException {
+        IntColumn entityGroupIds = new IntColumn();
+        IntColumn lengths = new IntColumn();
+        IntColumn componentNames = new IntColumn();
+        for (Map.Entry<Integer, String[]> entityGroup : entityGroupData.entrySet()) {
+            entityGroupIds.add(entityGroup.getKey());
+            lengths.add(entityGroup.getValue().length);
+            for (String componentName : entityGroup.getValue()) {
+                componentNames.add(getString(componentName));
+            }
+        }
+
+        output.writeInt(entityGroupData.size());
+        entityGroupIds.write(output);
+        lengths.write(output);
+        componentNames.write(output);
+    }
+
+    private void writeGPM(DataOutputStream output, Map<Integer, Map<Integer, Double>> gpmData) throws IOException {
+        IntColumn entityGroupIds = new IntColumn();
+        IntColumn lengths = new IntColumn();
+        IntColumn phaseIds = new IntColumn();
+        ValueColumn values = new ValueColumn();
+        for (Map.Entry<Integer, Map<Integer, Double>> groupMeasurements : gpmData.entrySet()) {
+            entityGroupIds.add(groupMeasurements.getKey());
+            lengths.add(groupMeasurements.getValue().size());
+            for (Map.Entry<Integer, Double> phaseMeasurement : groupMeasurements.getValue().entrySet()) {
+                phaseIds.add(phaseMeasurement.getKey());
+                values.add(phaseMeasurement.getValue());
+            }
+        }
+
+        output.writeInt(gpmData.size());
+        entityGroupIds.write(output);
+        lengths.write(output);
+        phaseIds.write(output);
+        values.write(output);
+    }
+
+    private void writeLongColumn(DataOutputStream output, long[] values) throws IOException {
+        IntColumn deltas = new IntColumn();
+        for (int i = 1; i < values.length; i++) {
+            long delta = values[i] - values[i - 1];
+            boolean overflow = ((values[i] ^ values[i - 1]) & (values[i] ^ delta)) < 0;
+            if (overflow || delta != (int) delta) {
+                output.writeByte(SnapshotFormat.INT64);
+                for (long value : values) {
+                    output.writeLong(value);
+                }
+                return;
+            }
+            deltas.add((int) delta);
+        }
+
+        output.writeByte(SnapshotFormat.LONG_DELTAS);
+        output.writeLong(values.length == 0 ? 0 : values[0]);
+        deltas.write(output);
+    }
+
+
+    /**
+     * Growable int column, written with the narrowest width that holds all its values.
+     */
+    private static class IntColumn {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            int min = 0;
+            int max = 0;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+
+            if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+                output.writeByte(SnapshotFormat.INT8);
+                for (int i = 0; i < size; i++) {
+                    output.writeByte(values[i]);
+                }
+            } else if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+                output.writeByte(SnapshotFormat.INT16);
+                for (int i = 0; i < size; i++) {
+                    output.writeShort(values[i]);
+                }
+            } else {
+                output.writeByte(SnapshotFormat.INT32);
+                for (int i = 0; i < size; i++) {
+                    output.writeInt(values[i]);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Growable double column, written as integers when every value is an integer of that width.
+     */
+    private static class ValueColumn {
+        private double[] values = new double[16];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            output.writeInt(size);
+            byte encoding = findEncoding();
+            output.writeByte(encoding);
+            for (int i = 0; i < size; i++) {
+                switch (encoding) {
+                    case SnapshotFormat.INT8:
+                        output.writeByte((int) values[i]);
+                        break;
+                    case SnapshotFormat.INT16:
+                        output.writeShort((int) values[i]);
+                        break;
+                    case SnapshotFormat.INT32:
+                        output.writeInt((int) values[i]);
+                        break;
+                    default:
+                        output.writeDouble(values[i]);
+                }
+            }
+        }
+
+        private byte findEncoding() {
+            int min = 0;
+            int max = 0;
+            for (int i = 0; i < size; i++) {
+                double value = values[i];
+                // NaN, fractions, -0.0 and values beyond int keep their exact double
+                if (value != (int) value || Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0)) {
+                    return SnapshotFormat.FLOAT64;
+                }
+                min = Math.min(min, (int) value);
+                max = Math.max(max, (int) value);
+            }
+
+            if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+                return SnapshotFormat.INT8;
+            } else if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+                return SnapshotFormat.INT16;
+            }
+            return SnapshotFormat.INT32;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package daintiness.maincontroller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.models.CellInfo;
+import daintiness.models.Entity;
+import daintiness.models.PatternData;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.utilities.Constants.PatternType;
+
+/**
+ * Index of the cells of a clustering, so that a cell (entityGroupId, phaseId) is looked up
+ * in constant time instead of scanning the groups, the phases, the chart data and the patterns.
+ * <p/>
+ * It is built for one clustering and one chart generation; the patterns that contain each cell
+ * are added once the patterns have been detected.
+ */
+public class CellIndex {
+    private final Map<Integer, EntityGroup> entityGroupIdToGroup = new HashMap<>();
+    private final Map<Integer, Phase> phaseIdToPhase = new HashMap<>();
+    private final Map<Integer, ChartGroupPhaseMeasurement> entityGroupIdToChartRow = new HashMap<>();
+    private final Map<String, EntityGroup> entityNameToGroup = new HashMap<>();
+    private Map<Long, List<PatternData>> cellToPatterns;
+
+
+    public CellIndex(List<EntityGroup> entityGroups, List<Phase> phases, List<ChartGroupPhaseMeasurement> chartData) {
+        if (entityGroups != null) {
+            for (EntityGroup entityGroup : entityGroups) {
+                entityGroupIdToGroup.putIfAbsent(entityGroup.getEntityGroupId(), entityGroup);
+                for (Entity entity : entityGroup.getGroupComponents()) {
+                    entityNameToGroup.putIfAbsent(entity.getEntityName(), entityGroup);
+                }
+            }
+        }
+        if (phases != null) {
+            for (Phase phase : phases) {
+                phaseIdToPhase.putIfAbsent(phase.getPhaseId(), phase);
+            }
+        }
+        if (chartData != null) {
+            for (ChartGroupPhaseMeasurement chartRow : chartData) {
+                entityGroupIdToChartRow.putIfAbsent(chartRow.getEntityGroup().getEntityGroupId(), chartRow);
+            }
+        }
+    }
+
+    public EntityGroup getEntityGroup(int entityGroupId) {
+        return entityGroupIdToGroup.get(entityGroupId);
+    }
+
+    public Phase getPhase(int phaseId) {
+        return phaseIdToPhase.get(phaseId);
+    }
+
+    /**
+     * @return the measurement of the cell in the chart data, or null if the cell has none
+     */
+    public IMeasurement getMeasurement(int entityGroupId, int phaseId) {
+        ChartGroupPhaseMeasurement chartRow = entityGroupIdToChartRow.get(entityGroupId);
+        return (chartRow == null) ? null : chartRow.getMeasurement(phaseId);
+    }
+
+
+    public boolean hasPatterns() {
+        return cellToPatterns != null;
+    }
+
+    /**
+     * Adds the patterns to the cells they contain. The patterns name a cell by an entity of its group,
+     * and every cell keeps its patterns in the order they were indexed.
+     */
+    public void indexPatterns(List<PatternData> patterns) {
+        if (cellToPatterns == null) {
+            cellToPatterns = new HashMap<>();
+        }
+        if (patterns == null) {
+            return;
+        }
+        for (PatternData pattern : patterns) {
+            for (CellInfo cell : pattern.getPatternCellsList()) {
+                EntityGroup entityGroup = entityNameToGroup.get(cell.getEntityName());
+                if (entityGroup == null) {
+                    continue;
+                }
+                List<PatternData> cellPatterns = cellToPatterns.computeIfAbsent(
+                        cellKey(entityGroup.getEntityGroupId(), cell.getPhaseId()), k -> new ArrayList<>(1));
+                if (cellPatterns.isEmpty() || cellPatterns.get(cellPatterns.size() - 1) != pattern) {
+                    cellPatterns.add(pattern);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the indexed patterns that contain the cell, in the order they were indexed
+     */
+    public List<PatternData> getPatterns(int entityGroupId, int phaseId) {
+        List<PatternData> cellPatterns = (cellToPatterns == null) ? null : cellToPatterns.get(cellKey(entityGroupId, phaseId));
+        return (cellPatterns == null) ? Collections.emptyList() : Collections.unmodifiableList(cellPatterns);
+    }
+
+    /**
+     * @return the type of the first indexed pattern that contains the cell, or null if there is none
+     */
+    public PatternType getPatternType(int entityGroupId, int phaseId) {
+        List<PatternData> cellPatterns = (cellToPatterns == null) ? null : cellToPatterns.get(cellKey(entityGroupId, phaseId));
+        return (cellPatterns == null) ? null : cellPatterns.get(0).getPatternType();
+    }
+
+    private static long cellKey(int entityGroupId, int phaseId) {
+        return ((long) entityGroupId << 32) | (phaseId & 0xFFFFFFFFL);
+    }
+}
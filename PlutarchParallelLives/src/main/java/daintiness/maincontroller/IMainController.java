@@ -3,13 +3,18 @@ package daintiness.maincontroller;
 import javafx.collections.ObservableList;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
+import daintiness.clustering.ClusteringMonitor;
 import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.ClusteringSweep;
 import daintiness.clustering.EntityGroup;
 import daintiness.clustering.Phase;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.models.PatternData;
+import daintiness.models.measurement.IMeasurement;
 import daintiness.utilities.Constants;
 import daintiness.utilities.Constants.PatternType;
 
@@ -19,6 +24,20 @@ import daintiness.utilities.Constants.PatternType;
  */
 public interface IMainController {
 
+    /**
+     * Output of an export that is written after it is created, e.g. by a streaming response.
+     * The export holds the data of the moment it was created, so the following clusterings,
+     * sorts or chart types do not change what it writes.
+     */
+    @FunctionalInterface
+    interface StreamExport {
+        /**
+         * @param outputStream the output, it is not closed
+         * @throws IOException if the outputStream fails
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
     /**
      * Loads the specified dataset in the DataHandler (intermediate representation)
      *
@@ -44,6 +63,23 @@ public interface IMainController {
     void save();
 
 
+    /**
+     * Writes the current DataHandler (intermediate representation), as save(File)
+     * does, to the outputStream without building it in memory.
+     *
+     * @param outputStream the output, it is not closed
+     * @throws IOException if the outputStream fails
+     */
+    void save(OutputStream outputStream) throws IOException;
+
+
+    /**
+     * Creates the output of save(OutputStream) for the current DataHandler.
+     * @return the export, to be written later
+     */
+    StreamExport createDataExport();
+
+
     /**
      * @return if the output file for the save method is set returns true, else false
      */
@@ -126,12 +162,84 @@ public interface IMainController {
 
 
     /**
-     * Clusters data using the specified ClusteringProfile
+     * Enables (default) or disables the chart grids of the following clusterings. The grid of a
+     * measurement and aggregation type is built when the type is first shown, after which switching
+     * back to it only swaps the chart rows.
+     * @param precomputeChartData True to keep the chart grids of the shown types
+     */
+    void setPrecomputeChartData(boolean precomputeChartData);
+
+
+    /**
+     * Sets the most (entityGroup x phase) cells of a chart grid; larger clusterings get no grids.
+     * @param maxChartGridCells most cells of a grid, 0 or less for no limit (default)
+     */
+    void setMaxChartGridCells(long maxChartGridCells);
+
+
+    /**
+     * Sets the number of threads used by the following loads (default 1).
+     * SchemaEvo projects read their files concurrently and split transitions.csv among the threads.
+     * @param loadingParallelism number of threads
+     */
+    void setLoadingParallelism(int loadingParallelism);
+
+
+    /**
+     * Enables (default) or disables the memory-mapped reading of the transitions.csv of the following
+     * SchemaEvo loads. Disabled, the file is read into memory by the CsvReader.
+     * @param memoryMappedLoading True to scan transitions.csv through a memory-mapped reader
+     */
+    void setMemoryMappedLoading(boolean memoryMappedLoading);
+
+
+    /**
+     * Selects the dataHandler of the following loads. The ColumnarDataHandler keeps the measurements in
+     * primitive columns, which the clustering reads directly, instead of a map of objects per cell.
+     * @param columnarData True (default) for the ColumnarDataHandler, false for the DataHandler
+     */
+    void setColumnarData(boolean columnarData);
+
+
+    /**
+     * Sets the number of threads that detect the patterns of the following clusterings (default 1).
+     * The phases are classified concurrently; the patterns are identical to the sequential detection.
+     * @param patternParallelism number of threads
+     */
+    void setPatternParallelism(int patternParallelism);
+
+
+    /**
+     * @return approximate memory in bytes of the current precomputed chart data
+     */
+    long getChartDataFootprint();
+
+
+    /**
+     * Clusters data using the specified ClusteringProfile.
+     * <p/>
+     * If the profile's ClusteringMonitor is cancelled the clustering stops with a
+     * java.util.concurrent.CancellationException and the previous clustering is kept.
+     * <p/>
+     * The merge dendrograms of the loaded dataset are cached per set of weights, so a profile
+     * that only changes the desired number of phases or entityGroups is answered without clustering again.
      * @param profile ClusteringProfile
      */
     void fitDataToGroupPhaseMeasurements(ClusteringProfile profile);
 
 
+    /**
+     * Summarizes the clustering of every profile on the loaded data, without changing the current clustering.
+     * The dendrogram of every distinct set of weights is built once (or taken from the dendrogram cache)
+     * and every profile is a cut of the dendrograms; the last dendrograms it builds replace the cached ones.
+     * @param profiles profiles with both a beat and an entity clustering profile
+     * @param parallelism number of threads
+     * @param monitor receives the progress and can cancel the sweep
+     * @return the summary of every profile, in the order of the profiles
+     */
+    List<ClusteringSweep.Result> sweepClusteringProfiles(List<ClusteringProfile> profiles, int parallelism, ClusteringMonitor monitor);
+
+
     /**
      * @return dataset's number of Time Beats (columns)
      */
@@ -159,6 +267,23 @@ public interface IMainController {
     void exportProject(File projectFolder);
 
 
+    /**
+     * Streams the TimeEntityMeasurements and the GroupPhaseData as a zip archive
+     * with the entries tem.tsv and gpm.tsv.
+     *
+     * @param outputStream the output, it is not closed
+     * @throws IOException if the outputStream fails
+     */
+    void exportProject(OutputStream outputStream) throws IOException;
+
+
+    /**
+     * Creates the output of exportProject(OutputStream) for the current data, phases and chart rows.
+     * @return the export, to be written later
+     */
+    StreamExport createProjectExport();
+
+
     /**
      * Imports the TimeEntityMeasurements and the GroupPhaseData from
      * the specified folder.
@@ -170,10 +295,50 @@ public interface IMainController {
     void importProject(File projectFolder);
 
 
+    /**
+     * Exports the TimeEntityMeasurements, with all their measurements, and the
+     * GroupPhaseData as a binary snapshot (see daintiness.io.snapshot.SnapshotFormat).
+     *
+     * @param snapshotFile output file, named *.snapshot to be loadable by load(File)
+     */
+    void exportSnapshot(File snapshotFile);
+
+
+    /**
+     * Imports the TimeEntityMeasurements and the GroupPhaseData from a snapshot
+     * written by exportSnapshot(File), like importProject(File) does from a folder.
+     *
+     * @param snapshotFile input file
+     */
+    void importSnapshot(File snapshotFile);
+
+
 
 	List<PatternData> getPatterns(PatternType patternType);
+
+	/**
+	 * Returns the patterns of other parameters than the defaults. The cells are classified once per clustering
+	 * and chart data, and every following set of parameters is evaluated from that summary.
+	 * @param threshold the BDU patterns have more cells than the threshold, the ladders at least as many steps
+	 * @param ladderPhaseWindow the most phases between the births of consecutive ladder steps
+	 * @param ladderEntityWindow the most rows between the births of consecutive ladder steps
+	 */
+	List<PatternData> getPatterns(PatternType patternType, int threshold, int ladderPhaseWindow, int ladderEntityWindow);
 	
 	void printPatterns(File outputFile);
+	
+	/**
+	 * Writes the report of printPatterns(File) to the outputStream, which is not closed.
+	 */
+	void printPatterns(OutputStream outputStream) throws IOException;
+
+	/**
+	 * Creates the report of printPatterns(OutputStream) for the given patterns; the summary is computed now,
+	 * with the computation time of the last getPatterns.
+	 * @param patterns the patterns of the report, e.g. the result of getPatterns(PatternType)
+	 * @return the export, to be written later
+	 */
+	StreamExport createPatternsExport(List<PatternData> patterns);
 
 	// ============ CELL DETAILS METHODS ============
 
@@ -191,6 +356,30 @@ public interface IMainController {
 	 */
 	Phase getPhaseById(int phaseId);
 
+	/**
+	 * Returns the chart measurement of a cell (entity group + phase combination)
+	 * @param entityGroupId the entity group ID
+	 * @param phaseId the phase ID
+	 * @return the measurement or null if the cell has none
+	 */
+	IMeasurement getCellMeasurement(int entityGroupId, int phaseId);
+
+	/**
+	 * Returns the type of the first pattern that contains a cell, detecting the patterns if needed
+	 * @param entityGroupId the entity group ID
+	 * @param phaseId the phase ID
+	 * @return the pattern type or null if the cell is not part of a pattern
+	 */
+	PatternType getCellPatternType(int entityGroupId, int phaseId);
+
+	/**
+	 * Returns the patterns of every type that contain a cell, detecting the patterns if needed
+	 * @param entityGroupId the entity group ID
+	 * @param phaseId the phase ID
+	 * @return the patterns, empty if the cell is not part of a pattern
+	 */
+	List<PatternData> getCellPatterns(int entityGroupId, int phaseId);
+
 	/**
 	 * Returns detailed breakdown of a cell (entity group + phase combination)
 	 * showing individual entity contributions within the group
@@ -2,9 +2,20 @@ package daintiness.maincontroller;
 
 import javafx.collections.ObservableList;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import daintiness.clustering.*;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
@@ -12,8 +23,12 @@ import daintiness.data.IDataHandler;
 import daintiness.io.FileHandlerFactory;
 import daintiness.io.IFileHandler;
 import daintiness.models.PatternData;
+import daintiness.models.measurement.IMeasurement;
 import daintiness.patterns.IPatternManager;
 import daintiness.patterns.PatternManagerFactory;
+import daintiness.patterns.patternAlgos.LadderAlgo;
+import daintiness.patterns.patternAlgos.PatternComputationHandler;
+import daintiness.patterns.patternAlgos.PatternSummary;
 import daintiness.utilities.Constants;
 import daintiness.utilities.Constants.PatternType;
 
@@ -22,25 +37,39 @@ public class MainController implements IMainController {
     private IFileHandler fileHandler;
     private IDataHandler dataHandler;
     private IClusteringHandler clusteringHandler;
-    private IPatternManager patternManager;
+    private final DendrogramCache dendrogramCache = new DendrogramCache();
+    private boolean precomputeChartData = true;
+    private long maxChartGridCells = 0;
+    private int loadingParallelism = 1;
+    private boolean memoryMappedLoading = true;
+    private boolean columnarData = true;
+    private int patternParallelism = 1;
     private List<PatternData> totalPatternList = new ArrayList<PatternData>();
+    // Nanoseconds that the detection of totalPatternList took, for the summary of the report
+    private long totalPatternsComputationTime;
+    // Patterns of the current clustering and chart data, by the type they were detected for.
+    // These caches are filled lazily, so the callers hold the lock of the controller, like the clustering does
+    private final Map<PatternType, List<PatternData>> patternCache = new EnumMap<>(PatternType.class);
+    private final Map<PatternType, Long> patternComputationTimes = new EnumMap<>(PatternType.class);
+    // Summary of the chart data for the other thresholds and ladder windows, under the same lock
+    private PatternSummary patternSummary;
+    private CellIndex cellIndex;
     File selectedFile = new File("");
-    boolean fileHasChanged;
-    PatternType previousPatternType;
 
 
     @Override
     public void load(File inputFile){
-    	if(inputFile != selectedFile) {
-    		fileHasChanged = true;
-    	}
-    	
         FileHandlerFactory factory = new FileHandlerFactory();
         fileHandler = factory.getFileHandler("SIMPLE_FILE_HANDLER");
         fileHandler.setGivenFile(inputFile);
+        fileHandler.setLoadingParallelism(loadingParallelism);
+        fileHandler.setMemoryMappedLoading(memoryMappedLoading);
+        fileHandler.setColumnarData(columnarData);
         dataHandler = fileHandler.loadTEM();
+        dendrogramCache.clear();
+        clearClusteringResults();
         if (fileHandler.getFileType() == Constants.FileType.SCHEMA_EVO) {
-            fileHandler.writeDataToFile(dataHandler.getTimeEntityMeasurementAsString());
+            fileHandler.writeDataToFile(dataHandler);
         }
         selectedFile = inputFile;
     }
@@ -48,21 +77,54 @@ public class MainController implements IMainController {
 
     @Override
     public void save(File outputFile) {
-        fileHandler.writeDataToFile(outputFile, dataHandler.getTimeEntityMeasurementAsString());
+        fileHandler.writeDataToFile(outputFile, dataHandler);
     }
 
 
     @Override
     public void save() {
-        fileHandler.writeDataToFile(dataHandler.getTimeEntityMeasurementAsString());
+        fileHandler.writeDataToFile(dataHandler);
+    }
+
+
+    @Override
+    public void save(OutputStream outputStream) throws IOException {
+        createDataExport().writeTo(outputStream);
+    }
+
+
+    @Override
+    public StreamExport createDataExport() {
+        IDataHandler exportedData = dataHandler;
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            exportedData.writeTimeEntityMeasurements(writer);
+            writer.flush();
+        };
     }
 
 
     @Override
     public void exportProject(File projectFolder) {
-        fileHandler.exportProject(projectFolder,
-                clusteringHandler.getGPMString(),
-                dataHandler.getTimeEntityMeasurementAsString());
+        fileHandler.exportProject(projectFolder, dataHandler, clusteringHandler);
+    }
+
+
+    @Override
+    public void exportProject(OutputStream outputStream) throws IOException {
+        createProjectExport().writeTo(outputStream);
+    }
+
+
+    @Override
+    public StreamExport createProjectExport() {
+        IFileHandler exportingFileHandler = fileHandler;
+        IDataHandler exportedData = dataHandler;
+        IClusteringHandler exportedClustering = clusteringHandler;
+        // The handlers are replaced by the next load or clustering, but the chart rows are sorted and swapped in place
+        List<Phase> phases = new ArrayList<>(clusteringHandler.getPhases());
+        List<ChartGroupPhaseMeasurement> chartRows = new ArrayList<>(clusteringHandler.getChartData());
+        return outputStream -> exportingFileHandler.exportProject(outputStream, exportedData, exportedClustering, phases, chartRows);
     }
 
 
@@ -72,11 +134,62 @@ public class MainController implements IMainController {
         fileHandler = fileHandlerFactory.getFileHandler("SIMPLE_FILE_HANDLER");
 
         fileHandler.setGivenFile(projectFolder, Constants.FileType.TEM_GPM);
+        fileHandler.setLoadingParallelism(loadingParallelism);
+        fileHandler.setMemoryMappedLoading(memoryMappedLoading);
+        fileHandler.setColumnarData(columnarData);
         dataHandler = fileHandler.loadTEM();
+        loadImportedClustering();
+    }
+
+
+    @Override
+    public void exportSnapshot(File snapshotFile) {
+        List<int[]> phasesData = new ArrayList<>();
+        Map<Integer, String[]> entityGroupData = new LinkedHashMap<>();
+        Map<Integer, Map<Integer, Double>> gpmData = new LinkedHashMap<>();
+
+        if (clusteringHandler != null) {
+            for (Phase phase : clusteringHandler.getPhases()) {
+                phasesData.add(new int[]{phase.getPhaseId(), phase.getFirstBeatId(), phase.getLastBeatId()});
+            }
+            for (EntityGroup entityGroup : clusteringHandler.getEntityGroups()) {
+                entityGroupData.put(entityGroup.getEntityGroupId(), entityGroup.getGroupComponentsNames().toArray(new String[0]));
+            }
+            for (ChartGroupPhaseMeasurement gpm : clusteringHandler.getChartData()) {
+                Map<Integer, Double> phaseToValue = new LinkedHashMap<>();
+                for (Phase phase : clusteringHandler.getPhases()) {
+                    if (gpm.containsMeasurementInPhase(phase.getPhaseId())) {
+                        phaseToValue.put(phase.getPhaseId(), gpm.getValue(phase.getPhaseId()));
+                    }
+                }
+                gpmData.put(gpm.getEntityGroup().getEntityGroupId(), phaseToValue);
+            }
+        }
+
+        fileHandler.exportSnapshot(snapshotFile, dataHandler, phasesData, entityGroupData, gpmData);
+    }
+
+
+    @Override
+    public void importSnapshot(File snapshotFile) {
+        FileHandlerFactory fileHandlerFactory = new FileHandlerFactory();
+        fileHandler = fileHandlerFactory.getFileHandler("SIMPLE_FILE_HANDLER");
+
+        fileHandler.setGivenFile(snapshotFile, Constants.FileType.SNAPSHOT);
+        dataHandler = fileHandler.loadTEM();
+        loadImportedClustering();
+    }
+
+
+    private void loadImportedClustering() {
+        dendrogramCache.clear();
+        clearClusteringResults();
 
         ClusteringHandlerFactory clusteringHandlerFactory = new ClusteringHandlerFactory();
         clusteringHandler = clusteringHandlerFactory.getClusteringHandler("SIMPLE_CLUSTERING_HANDLER");
         clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.setPrecomputeChartData(precomputeChartData);
+        clusteringHandler.setMaxChartGridCells(maxChartGridCells);
 
         clusteringHandler.loadPhases(fileHandler.getPhasesData());
         clusteringHandler.loadEntityGroup(fileHandler.getEntityGroupData());
@@ -91,6 +204,7 @@ public class MainController implements IMainController {
     @Override
     public void sortChartData(Constants.SortingType type) {
         clusteringHandler.sortChartData(type);
+        clearClusteringResults();
     }
 
 
@@ -137,17 +251,69 @@ public class MainController implements IMainController {
         return clusteringHandler.getChartData();
     }
 
+    @Override
+    public void setPrecomputeChartData(boolean precomputeChartData) {
+        this.precomputeChartData = precomputeChartData;
+    }
+
+    @Override
+    public void setMaxChartGridCells(long maxChartGridCells) {
+        this.maxChartGridCells = maxChartGridCells;
+    }
+
+    @Override
+    public void setLoadingParallelism(int loadingParallelism) {
+        this.loadingParallelism = loadingParallelism;
+    }
+
+    @Override
+    public void setMemoryMappedLoading(boolean memoryMappedLoading) {
+        this.memoryMappedLoading = memoryMappedLoading;
+    }
+
+    @Override
+    public void setColumnarData(boolean columnarData) {
+        this.columnarData = columnarData;
+    }
+
+    @Override
+    public void setPatternParallelism(int patternParallelism) {
+        this.patternParallelism = patternParallelism;
+    }
+
+    @Override
+    public long getChartDataFootprint() {
+        if (clusteringHandler == null) {
+            return 0;
+        }
+        return clusteringHandler.getChartDataFootprint();
+    }
+
     @Override
     public void generateChartDataOfType(Constants.MeasurementType measurementType, Constants.AggregationType aggregationType) {
         clusteringHandler.generateChartData(measurementType, aggregationType);
+        clearClusteringResults();
     }
 
     @Override
     public void fitDataToGroupPhaseMeasurements(ClusteringProfile profile) {
         ClusteringHandlerFactory factory = new ClusteringHandlerFactory();
-        clusteringHandler = factory.getClusteringHandler("SIMPLE_CLUSTERING_HANDLER");
-        clusteringHandler.setDataHandler(dataHandler);
-        clusteringHandler.clusterData(profile);
+        IClusteringHandler newClusteringHandler = factory.getClusteringHandler("SIMPLE_CLUSTERING_HANDLER");
+        newClusteringHandler.setDataHandler(dataHandler);
+        newClusteringHandler.setDendrogramCache(dendrogramCache);
+        newClusteringHandler.setPrecomputeChartData(precomputeChartData);
+        newClusteringHandler.setMaxChartGridCells(maxChartGridCells);
+        newClusteringHandler.clusterData(profile);
+
+        // Replaced only after a complete clustering, so a cancelled one keeps the previous results
+        clusteringHandler = newClusteringHandler;
+        clearClusteringResults();
+    }
+
+    @Override
+    public List<ClusteringSweep.Result> sweepClusteringProfiles(List<ClusteringProfile> profiles, int parallelism, ClusteringMonitor monitor) {
+        ClusteringSweep sweep = new ClusteringSweep(dataHandler, dendrogramCache, parallelism);
+        return sweep.evaluate(profiles, monitor);
     }
 
     @Override
@@ -168,55 +334,158 @@ public class MainController implements IMainController {
     
     @Override
     public List<PatternData> getPatterns(PatternType patternType) {
-    	if(totalPatternList.isEmpty() || fileHasChanged || (patternType != previousPatternType)) {
+    	totalPatternList = getCachedPatterns(patternType);
+    	totalPatternsComputationTime = patternComputationTimes.get(patternType);
+    	return totalPatternList;
+    }
+
+    @Override
+    public List<PatternData> getPatterns(PatternType patternType, int threshold, int ladderPhaseWindow, int ladderEntityWindow) {
+    	if (threshold == PatternComputationHandler.DEFAULT_THRESHOLD && ladderPhaseWindow == LadderAlgo.DEFAULT_PHASE_WINDOW &&
+    			ladderEntityWindow == LadderAlgo.DEFAULT_ENTITY_WINDOW) {
+    		return getPatterns(patternType);
+    	}
+    	long start = System.nanoTime();
+    	if (patternSummary == null) {
+    		PatternManagerFactory patternManagerFactory = new PatternManagerFactory();
+        	IPatternManager summaryManager = patternManagerFactory.getPatternManager("SIMPLE_PATTERN_MANAGER");
+        	summaryManager.setParallelism(patternParallelism);
+        	patternSummary = summaryManager.getPatternSummary(clusteringHandler.getChartData(), clusteringHandler.getPhases());
+    	}
+    	totalPatternList = patternSummary.getPatterns(patternType, threshold, ladderPhaseWindow, ladderEntityWindow);
+    	totalPatternsComputationTime = System.nanoTime() - start;
+    	return totalPatternList;
+    }
+
+    /**
+     * The patterns of a type are detected once per clustering and chart data, every type separately
+     */
+    private List<PatternData> getCachedPatterns(PatternType patternType) {
+    	List<PatternData> patterns = patternCache.get(patternType);
+    	if (patterns == null) {
     		PatternManagerFactory patternManagerFactory = new PatternManagerFactory();
-        	patternManager = patternManagerFactory.getPatternManager("SIMPLE_PATTERN_MANAGER");
+        	IPatternManager patternManager = patternManagerFactory.getPatternManager("SIMPLE_PATTERN_MANAGER");
+        	patternManager.setParallelism(patternParallelism);
 
-        	
         	ObservableList<ChartGroupPhaseMeasurement> TotalValues = clusteringHandler.getChartData();
         	List<Phase> TotalPhases = clusteringHandler.getPhases();
-        	totalPatternList = patternManager.getPatterns(TotalValues, TotalPhases, patternType);
+        	long start = System.nanoTime();
+        	patterns = patternManager.getPatterns(TotalValues, TotalPhases, patternType);
+        	patternComputationTimes.put(patternType, System.nanoTime() - start);
+        	patternCache.put(patternType, patterns);
     	}
-    	fileHasChanged = false;
-    	previousPatternType = patternType;    			
-    	//patternManager.printPatterns(totalPatternList, patternType.toString(), selectedFile.getName(), file);
-    	return totalPatternList;
+    	return patterns;
+    }
+
+    /**
+     * Forgets everything that was derived from the previous clustering or chart data
+     */
+    private void clearClusteringResults() {
+        patternCache.clear();
+        patternComputationTimes.clear();
+        patternSummary = null;
+        totalPatternList = new ArrayList<PatternData>();
+        totalPatternsComputationTime = 0;
+        cellIndex = null;
     }
     
     @Override
     public void printPatterns(File file) {
-    	
-    	patternManager.printPatterns(totalPatternList, file, selectedFile.getName());
+    	try (OutputStream outputStream = new FileOutputStream(file)) {
+    		printPatterns(outputStream);
+    	} catch (IOException e) {
+    		e.printStackTrace();
+    	}
+    }
+    
+    @Override
+    public void printPatterns(OutputStream outputStream) throws IOException {
+    	createPatternsExport(totalPatternList).writeTo(outputStream);
+    }
+    
+    @Override
+    public StreamExport createPatternsExport(List<PatternData> patterns) {
+    	List<PatternData> exportedPatterns = new ArrayList<PatternData>(patterns);
+    	IPatternManager exportingPatternManager = new PatternManagerFactory().getPatternManager("SIMPLE_PATTERN_MANAGER");
+    	ObservableList<ChartGroupPhaseMeasurement> chartData = (clusteringHandler != null) ? clusteringHandler.getChartData() : null;
+    	List<Phase> phases = (clusteringHandler != null) ? clusteringHandler.getPhases() : null;
+    	int numberOfRows = (chartData != null) ? chartData.size() : 0;
+    	int numberOfColumns = (phases != null) ? phases.size() : 0;
+    	StringBuilder summary = new StringBuilder();
+    	try {
+    		// The patterns may come from the caches, so the time is the one stored with the last getPatterns
+    		exportingPatternManager.writeSummary(exportedPatterns, numberOfRows, numberOfColumns,
+    				(exportedPatterns.size() > 0) ? totalPatternsComputationTime : 0, summary, selectedFile.getName());
+    	} catch (IOException e) {
+    		// Appending to a StringBuilder does not throw
+    		throw new UncheckedIOException(e);
+    	}
+    	return outputStream -> {
+    		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    		writer.append(summary);
+    		exportingPatternManager.writePatternCells(exportedPatterns, writer);
+    		writer.flush();
+    	};
     }
 
     // CELL DETAILS METHODS 
 
     @Override
     public EntityGroup getEntityGroupById(int entityGroupId) {
-        if (clusteringHandler == null) return null;
-        List<EntityGroup> groups = clusteringHandler.getEntityGroups();
-        if (groups == null) return null;
-        
-        for (EntityGroup group : groups) {
-            if (group.getEntityGroupId() == entityGroupId) {
-                return group;
-            }
-        }
-        return null;
+        CellIndex index = getCellIndex();
+        return (index == null) ? null : index.getEntityGroup(entityGroupId);
     }
 
     @Override
     public Phase getPhaseById(int phaseId) {
-        if (clusteringHandler == null) return null;
-        List<Phase> phases = clusteringHandler.getPhases();
-        if (phases == null) return null;
-        
-        for (Phase phase : phases) {
-            if (phase.getPhaseId() == phaseId) {
-                return phase;
+        CellIndex index = getCellIndex();
+        return (index == null) ? null : index.getPhase(phaseId);
+    }
+
+    @Override
+    public IMeasurement getCellMeasurement(int entityGroupId, int phaseId) {
+        CellIndex index = getCellIndex();
+        return (index == null) ? null : index.getMeasurement(entityGroupId, phaseId);
+    }
+
+    @Override
+    public PatternType getCellPatternType(int entityGroupId, int phaseId) {
+        CellIndex index = getIndexedPatterns();
+        return (index == null) ? null : index.getPatternType(entityGroupId, phaseId);
+    }
+
+    @Override
+    public List<PatternData> getCellPatterns(int entityGroupId, int phaseId) {
+        CellIndex index = getIndexedPatterns();
+        return (index == null) ? new ArrayList<PatternData>() : index.getPatterns(entityGroupId, phaseId);
+    }
+
+    /**
+     * @return the cell index with the patterns of every type, detecting the ones that are not cached
+     */
+    private CellIndex getIndexedPatterns() {
+        CellIndex index = getCellIndex();
+        if (index != null && !index.hasPatterns()) {
+            // Every pattern is detected for exactly one of these types (NO_TYPE and BIRTH detect them all),
+            // and they are indexed in the order the cell details have always reported them
+            for (PatternType patternType : new PatternType[]{PatternType.MULTIPLE_BIRTHS, PatternType.MULTIPLE_UPDATES,
+                    PatternType.MULTIPLE_DEATHS, PatternType.LADDER}) {
+                index.indexPatterns(getCachedPatterns(patternType));
             }
         }
-        return null;
+        return index;
+    }
+
+    /**
+     * @return the index of the current clustering and chart data, built on the first lookup after they change
+     */
+    private CellIndex getCellIndex() {
+        if (clusteringHandler == null) return null;
+        if (cellIndex == null) {
+            cellIndex = new CellIndex(clusteringHandler.getEntityGroups(), clusteringHandler.getPhases(),
+                    clusteringHandler.getChartData());
+        }
+        return cellIndex;
     }
 
     @Override
@@ -233,12 +502,10 @@ public class MainController implements IMainController {
         List<Integer> beatIds = phase.getPhaseComponentsIdList();
         
         // for each entity in the group
-        for (String entityName : group.getGroupComponentsNames()) {
-            java.util.Map<String, Object> entityBreakdown = new java.util.HashMap<>();
-            entityBreakdown.put("entityName", entityName);
-            
-            daintiness.models.Entity entity = dataHandler.getEntityByName(entityName);
+        for (daintiness.models.Entity entity : group.getGroupComponents()) {
             if (entity == null) continue;
+            java.util.Map<String, Object> entityBreakdown = new java.util.HashMap<>();
+            entityBreakdown.put("entityName", entity.getEntityName());
             
             // calculate total value across all beats in the phase
             double total = 0;
@@ -5,6 +5,8 @@ import java.time.format.DateTimeFormatter;
 
 
 public class Beat {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final int beatId;
     private final String rawDate;
     private final LocalDateTime date;
@@ -37,7 +39,7 @@ public class Beat {
         if (date == null) {
             return String.valueOf(beatId);
         } else {
-            return date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            return date.format(DATE_FORMATTER);
         }
     }
 }
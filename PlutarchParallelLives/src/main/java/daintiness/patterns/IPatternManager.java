@@ -1,18 +1,54 @@
 package daintiness.patterns;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import daintiness.clustering.Phase;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.models.PatternData;
+import daintiness.patterns.patternAlgos.PatternSummary;
 import daintiness.utilities.Constants.PatternType;
 import javafx.collections.ObservableList;
 
 
 public interface IPatternManager {
 
+	/**
+	 * Sets the number of threads that classify the phases in the following getPatterns calls (default 1).
+	 * The patterns are identical for every parallelism.
+	 */
+	void setParallelism(int parallelism);
+
 	List<PatternData> getPatterns(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> phases, PatternType patternType);
 	
+	/**
+	 * Classifies the cells once; the summary evaluates the patterns of any threshold and ladder window.
+	 */
+	PatternSummary getPatternSummary(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> phases);
+	
 	void printPatterns(List<PatternData> patternDataList, File file, String projectName);
+	
+	/**
+	 * Writes the report of printPatterns(List, File, String) to the output, pattern by pattern.
+	 */
+	void writePatterns(List<PatternData> patternDataList, Appendable output, String projectName) throws IOException;
+
+	/**
+	 * Writes the summary that heads the report of writePatterns(List, Appendable, String).
+	 */
+	void writeSummary(List<PatternData> patternDataList, Appendable output, String projectName) throws IOException;
+
+	/**
+	 * Writes the summary of writeSummary(List, Appendable, String) for patterns detected elsewhere,
+	 * e.g. cached ones, with the size of their chart data and the time of their computation.
+	 * @param computationTime the time of the computation in nanoseconds
+	 */
+	void writeSummary(List<PatternData> patternDataList, int numberOfRows, int numberOfColumns, long computationTime,
+			Appendable output, String projectName) throws IOException;
+
+	/**
+	 * Writes the cells of every pattern, the rest of the report after writeSummary(List, Appendable, String).
+	 */
+	void writePatternCells(List<PatternData> patternDataList, Appendable output) throws IOException;
 }
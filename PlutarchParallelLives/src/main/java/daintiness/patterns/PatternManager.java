@@ -4,14 +4,16 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import daintiness.clustering.Phase;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.models.*;
 import daintiness.patterns.patternAlgos.IPatternComputationHandler;
 import daintiness.patterns.patternAlgos.PatternComputationHandlerFactory;
+import daintiness.patterns.patternAlgos.PatternSummary;
 import daintiness.utilities.Constants.PatternType;
 import javafx.collections.ObservableList;
 
@@ -20,12 +22,16 @@ public class PatternManager implements IPatternManager {
 	private Long patternsComputationTime;
 	private int numberOfTotalRows;
 	private int numberOfTotalColumns;
+	private int parallelism = 1;
 	
 
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
 	public List<PatternData> getPatterns(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, PatternType patternType) {
 		
-		PatternComputationHandlerFactory patternComputationHandlerFactory = new PatternComputationHandlerFactory();
-		patternComputationHandler = patternComputationHandlerFactory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER");
+		createPatternComputationHandler();
 		
 		//Data for printing purposes
 		numberOfTotalRows = totalValues.size();
@@ -43,107 +49,122 @@ public class PatternManager implements IPatternManager {
         return patternList;
 	}
 
+	public PatternSummary getPatternSummary(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases) {
+		createPatternComputationHandler();
+		return patternComputationHandler.summarize(totalValues, totalPhases);
+	}
+
+	private void createPatternComputationHandler() {
+		PatternComputationHandlerFactory patternComputationHandlerFactory = new PatternComputationHandlerFactory();
+		if (parallelism > 1) {
+			patternComputationHandler = patternComputationHandlerFactory.getPatternComputationHandler("PARALLEL_PATTERN_COMPUTATION_HANDLER", parallelism);
+		}
+		else {
+			patternComputationHandler = patternComputationHandlerFactory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER");
+		}
+	}
+
 	public void printPatterns(List<PatternData> patternList, File file, String projectName) {
-		try {
-			FileWriter fileWriter = new FileWriter(file);
-			fileWriter.write("Project Name:\t" + projectName + "\n");  
-			
-			
-			int birthsPatterns = 0;
-			int deathsPatterns = 0;
-			int updatesPatterns = 0;
-			int ladderPatterns = 0;
-			
-			
-			List<String> allEntities = new ArrayList<String>();
-			List<Integer> allPhases = new ArrayList<Integer>();
+		try (FileWriter fileWriter = new FileWriter(file)) {
+			writePatterns(patternList, fileWriter, projectName);
+		} catch (IOException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+		
+	}
+
+	public void writePatterns(List<PatternData> patternList, Appendable output, String projectName) throws IOException {
+		writeSummary(patternList, output, projectName);
+		writePatternCells(patternList, output);
+	}
+
+	public void writeSummary(List<PatternData> patternList, Appendable output, String projectName) throws IOException {
+		writeSummary(patternList, numberOfTotalRows, numberOfTotalColumns, (patternList.size() > 0) ? patternsComputationTime : 0,
+				output, projectName);
+	}
+
+	public void writeSummary(List<PatternData> patternList, int numberOfRows, int numberOfColumns, long computationTime,
+			Appendable output, String projectName) throws IOException {
+		output.append("Project Name:\t" + projectName + "\n");
+		
+		
+		int birthsPatterns = 0;
+		int deathsPatterns = 0;
+		int updatesPatterns = 0;
+		int ladderPatterns = 0;
+		
+		
+		Set<String> distinctAllEntities = new HashSet<String>();
+		Set<Integer> distinctAllPhases = new HashSet<Integer>();
+		
+		// The summary comes before the patterns, so they are counted first and written afterwards
+		for (var pattern : patternList) {
 			
-			String patternDataInfo = "";
+			if(pattern.getPatternType() == PatternType.MULTIPLE_BIRTHS) {
+				birthsPatterns+=1;
 			
-			for (var pattern : patternList) {
-				
-				patternDataInfo+=pattern.getPatternType().toString() + "\n";
-				
-				if(pattern.getPatternType() == PatternType.MULTIPLE_BIRTHS) {
-					birthsPatterns+=1;
-				
-				}
-				else if(pattern.getPatternType() == PatternType.MULTIPLE_DEATHS) {
-					deathsPatterns+=1;
-				
-				}
-				else if(pattern.getPatternType() == PatternType.MULTIPLE_UPDATES) {
-					updatesPatterns+=1;
-				
-				}
-				else if(pattern.getPatternType() == PatternType.LADDER) {
-					ladderPatterns+=1;
-				
-				}
-				
-				if (pattern.getPatternCellsList().size() > 0) {
-					
-					patternDataInfo+="The pattern consists of " + pattern.getPatternCellsList().size() +" cells\n";
-					
-					for (var item : pattern.getPatternCellsList()) {
-						allEntities.add(item.getEntityName());
-						allPhases.add(item.getPhaseId());
-						
-						patternDataInfo+="Entity Name : " + item.getEntityName() + " PhaseId: " + item.getPhaseId() + "\n";
-					}
-				}
-				patternDataInfo+="\n";
-				
 			}
+			else if(pattern.getPatternType() == PatternType.MULTIPLE_DEATHS) {
+				deathsPatterns+=1;
 			
-			List<String> distinctAllEntities = allEntities.stream().distinct().collect(Collectors.toList());
-			List<Integer> distinctAllPhases = allPhases.stream().distinct().collect(Collectors.toList());
+			}
+			else if(pattern.getPatternType() == PatternType.MULTIPLE_UPDATES) {
+				updatesPatterns+=1;
 			
-			fileWriter.write(projectName + "\tNumber of columns:\t" + numberOfTotalColumns + "\n");
-			fileWriter.write(projectName + "\tNumber of rows:\t" + numberOfTotalRows + "\n");
+			}
+			else if(pattern.getPatternType() == PatternType.LADDER) {
+				ladderPatterns+=1;
 			
-			fileWriter.write(projectName + "\tNumber of columns that participate in patterns:\t" + distinctAllPhases.size() + "\n");
-			fileWriter.write(projectName + "\tNumber of rows that participate in patterns:\t" + distinctAllEntities.size() + "\n");
+			}
 			
-			fileWriter.write(projectName + "\tNumber of total patterns:\t" + patternList.size() + "\n"); 
-			fileWriter.write(projectName + "\tNumber of births patterns:\t" + birthsPatterns + "\n");
-			fileWriter.write(projectName + "\tNumber of deaths patterns:\t" + deathsPatterns + "\n");
+			for (var item : pattern.getPatternCellsList()) {
+				distinctAllEntities.add(item.getEntityName());
+				distinctAllPhases.add(item.getPhaseId());
+			}
+		}
+		
+		output.append(projectName + "\tNumber of columns:\t" + numberOfColumns + "\n");
+		output.append(projectName + "\tNumber of rows:\t" + numberOfRows + "\n");
+		
+		output.append(projectName + "\tNumber of columns that participate in patterns:\t" + distinctAllPhases.size() + "\n");
+		output.append(projectName + "\tNumber of rows that participate in patterns:\t" + distinctAllEntities.size() + "\n");
+		
+		output.append(projectName + "\tNumber of total patterns:\t" + patternList.size() + "\n"); 
+		output.append(projectName + "\tNumber of births patterns:\t" + birthsPatterns + "\n");
+		output.append(projectName + "\tNumber of deaths patterns:\t" + deathsPatterns + "\n");
 
-			fileWriter.write(projectName + "\tNumber of updates patterns:\t" + updatesPatterns + "\n");
+		output.append(projectName + "\tNumber of updates patterns:\t" + updatesPatterns + "\n");
 
-			fileWriter.write(projectName + "\tNumber of ladder patterns:\t" + ladderPatterns + "\n");
+		output.append(projectName + "\tNumber of ladder patterns:\t" + ladderPatterns + "\n");
 
-			if(patternList.size() > 0) {
-				double patternsComputationTimeSeconds = (double) patternsComputationTime / 1_000_000_000;
+		if(patternList.size() > 0) {
+			double patternsComputationTimeSeconds = (double) computationTime / 1_000_000_000;
+			
+			output.append(projectName + "\tPatterns computation(sec):\t" + patternsComputationTimeSeconds + "\n");
+		}
+		else {
+			output.append(projectName + "\tPatterns computation(sec):\t0\n");
+		}
+					
+		output.append("\n");
+	}
+
+	public void writePatternCells(List<PatternData> patternList, Appendable output) throws IOException {
+		for (var pattern : patternList) {
+			
+			output.append(pattern.getPatternType().toString()).append("\n");
+			
+			if (pattern.getPatternCellsList().size() > 0) {
 				
-				fileWriter.write(projectName + "\tPatterns computation(sec):\t" + patternsComputationTimeSeconds + "\n");
-			}
-			else {
-				fileWriter.write(projectName + "\tPatterns computation(sec):\t0\n");
+				output.append("The pattern consists of " + pattern.getPatternCellsList().size() +" cells\n");
+				
+				for (var item : pattern.getPatternCellsList()) {
+					output.append("Entity Name : " + item.getEntityName() + " PhaseId: " + item.getPhaseId() + "\n");
+				}
 			}
-						
-			fileWriter.write("\n");
-			/*
-			 * for (var pattern : patternList) {
-			 * fileWriter.write(pattern.getPatternType().toString() + "\n");
-			 * 
-			 * if (pattern.getPatternCellsList().size() > 0) {
-			 * fileWriter.write("The pattern consists of " +
-			 * pattern.getPatternCellsList().size() +" cells\n"); for (var item :
-			 * pattern.getPatternCellsList()) { fileWriter.write("Entity Name : " +
-			 * item.getEntityName() + " PhaseId: " + item.getPhaseId() + "\n"); } }
-			 * fileWriter.write("\n");
-			 * 
-			 * }
-			 */
-						
-			fileWriter.write(patternDataInfo);
+			output.append("\n");
 			
-			fileWriter.close();
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		}
-		
 	}
 }
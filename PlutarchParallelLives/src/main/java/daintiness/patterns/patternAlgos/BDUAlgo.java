@@ -1,19 +1,246 @@
 package daintiness.patterns.patternAlgos;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import daintiness.clustering.Phase;
 import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
 import daintiness.models.CellInfo;
+import daintiness.models.LifeDetails;
 import daintiness.models.PatternData;
 import daintiness.utilities.Constants;
 import daintiness.utilities.Constants.PatternType;
 import javafx.collections.ObservableList;
 
+/**
+ * Detects the MULTIPLE_BIRTHS, MULTIPLE_UPDATES and MULTIPLE_DEATHS patterns: the phases in which
+ * more than threshold entity groups are born, updated or die.
+ * <p/>
+ * When the phases are sorted, disjoint beat ranges (as the clustering creates them), the phase of
+ * each group's birth and death is found once by a binary search, the groups are bucketed by those
+ * phases, and the updated groups of every phase are collected in a bitset over the rows. Only the
+ * patterns above the threshold allocate their cells. Any other phase layout is scanned cell by cell.
+ * <p/>
+ * Summarize keeps that classification as a PatternSummary, to evaluate other thresholds without a rescan.
+ */
 public class BDUAlgo {
 
 	public static List<PatternData> FindPattern(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, int threshold, PatternType patternType){
+		boolean findBirths = patternType != PatternType.MULTIPLE_UPDATES && patternType != PatternType.MULTIPLE_DEATHS;
+		boolean findUpdates = patternType != PatternType.MULTIPLE_BIRTHS && patternType != PatternType.MULTIPLE_DEATHS;
+		boolean findDeaths = patternType != PatternType.MULTIPLE_BIRTHS && patternType != PatternType.MULTIPLE_UPDATES;
+
+		int numberOfPhases = totalPhases.size();
+		int numberOfRows = totalValues.size();
+		String[] entityNames = new String[numberOfRows];
+		int[] birthPhases = new int[numberOfRows];
+		int[] deathPhases = new int[numberOfRows];
+		BitSet[] updatedRows = new BitSet[findUpdates ? numberOfPhases : 0];
+		if (!classifyRows(totalValues, totalPhases, entityNames, birthPhases, deathPhases, updatedRows)) {
+			return FindPatternPerCell(totalValues, totalPhases, threshold, patternType);
+		}
+
+		int[][] bornRows = findBirths ? bucketRowsByPhase(birthPhases, numberOfPhases) : null;
+		int[][] deadRows = findDeaths ? bucketRowsByPhase(deathPhases, numberOfPhases) : null;
+
+		List<PatternData> patternList = new ArrayList<PatternData>();
+		for (int p = 0; p < numberOfPhases; p++) {
+			int phaseId = totalPhases.get(p).getPhaseId();
+			if (findBirths && bornRows[p].length > threshold) {
+				List<CellInfo> cells = new ArrayList<CellInfo>(bornRows[p].length);
+				for (int row : bornRows[p]) {
+					cells.add(new CellInfo(entityNames[row], phaseId));
+				}
+				patternList.add(new PatternData(Constants.PatternType.MULTIPLE_BIRTHS, cells));
+			}
+			if (findUpdates && updatedRows[p].cardinality() > threshold) {
+				List<CellInfo> cells = new ArrayList<CellInfo>(updatedRows[p].cardinality());
+				for (int row = updatedRows[p].nextSetBit(0); row >= 0; row = updatedRows[p].nextSetBit(row + 1)) {
+					cells.add(new CellInfo(entityNames[row], phaseId));
+				}
+				patternList.add(new PatternData(Constants.PatternType.MULTIPLE_UPDATES, cells));
+			}
+			if (findDeaths && deadRows[p].length > threshold) {
+				List<CellInfo> cells = new ArrayList<CellInfo>(deadRows[p].length);
+				for (int row : deadRows[p]) {
+					cells.add(new CellInfo(entityNames[row], phaseId));
+				}
+				patternList.add(new PatternData(Constants.PatternType.MULTIPLE_DEATHS, cells));
+			}
+		}
+		return patternList;
+	}
+
+	/**
+	 * Classifies every cell once, for PatternSummary: the born, updated and dead rows of every phase.
+	 */
+	public static PatternSummary Summarize(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases){
+		int numberOfPhases = totalPhases.size();
+		int numberOfRows = totalValues.size();
+		String[] entityNames = new String[numberOfRows];
+		int[] birthPhases = new int[numberOfRows];
+		int[] deathPhases = new int[numberOfRows];
+		BitSet[] updatedRows = new BitSet[numberOfPhases];
+		if (!classifyRows(totalValues, totalPhases, entityNames, birthPhases, deathPhases, updatedRows)) {
+			return SummarizePerCell(totalValues, totalPhases, entityNames);
+		}
+
+		int[][] updatedRowsOfPhase = new int[numberOfPhases][];
+		for (int p = 0; p < numberOfPhases; p++) {
+			updatedRowsOfPhase[p] = updatedRows[p].stream().toArray();
+		}
+		return new PatternSummary(totalPhases, entityNames, bucketRowsByPhase(birthPhases, numberOfPhases),
+				updatedRowsOfPhase, bucketRowsByPhase(deathPhases, numberOfPhases));
+	}
+
+	/**
+	 * Finds the phase of every row's birth and death, and the updated rows of every phase when updatedRows
+	 * has a slot per phase.
+	 * @return false, with nothing classified, if the phases are not sorted, disjoint ranges
+	 */
+	private static boolean classifyRows(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases,
+										String[] entityNames, int[] birthPhases, int[] deathPhases, BitSet[] updatedRows){
+		int numberOfPhases = totalPhases.size();
+		int[] firstBeatIds = new int[numberOfPhases];
+		int[] lastBeatIds = new int[numberOfPhases];
+		for (int p = 0; p < numberOfPhases; p++) {
+			firstBeatIds[p] = totalPhases.get(p).getFirstBeatId();
+			lastBeatIds[p] = totalPhases.get(p).getLastBeatId();
+			boolean sorted = firstBeatIds[p] <= lastBeatIds[p] && (p == 0 || lastBeatIds[p - 1] < firstBeatIds[p]);
+			if (!sorted) {
+				return false;
+			}
+		}
+
+		boolean findUpdates = updatedRows.length > 0;
+		int numberOfRows = totalValues.size();
+		for (int p = 0; p < updatedRows.length; p++) {
+			updatedRows[p] = new BitSet(numberOfRows);
+		}
+
+		for (int row = 0; row < numberOfRows; row++) {
+			ChartGroupPhaseMeasurement tab = totalValues.get(row);
+			LifeDetails lifeDetails = tab.getEntityGroup().getLifeDetails();
+			int birth = lifeDetails.getBirthBeatId();
+			int death = lifeDetails.getDeathBeatId();
+			boolean alive = lifeDetails.isAlive();
+			entityNames[row] = tab.getEntityGroup().getGroupComponentsNames().get(0);
+
+			// A phase that holds the birth is a BIRTH cell, even when it also holds the death
+			birthPhases[row] = findPhase(firstBeatIds, lastBeatIds, birth);
+			int deathPhase = alive ? -1 : findPhase(firstBeatIds, lastBeatIds, death);
+			deathPhases[row] = (deathPhase == birthPhases[row]) ? -1 : deathPhase;
+
+			if (findUpdates) {
+				// ACTIVE cells: the phases that end after the birth and, for a dead group, before the death
+				int firstActivePhase = firstPhaseEndingAfter(lastBeatIds, birth);
+				int lastActivePhase = alive ? numberOfPhases : firstPhaseEndingAfter(lastBeatIds, death - 1);
+				for (int p = firstActivePhase; p < lastActivePhase; p++) {
+					if (p != birthPhases[row] && tab.containsMeasurementInPhase(totalPhases.get(p).getPhaseId())) {
+						updatedRows[p].set(row);
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the index of the phase whose beat range holds the beat, or -1
+	 */
+	private static int findPhase(int[] firstBeatIds, int[] lastBeatIds, int beatId) {
+		int p = firstPhaseEndingAfter(lastBeatIds, beatId - 1);
+		return (p < lastBeatIds.length && firstBeatIds[p] <= beatId) ? p : -1;
+	}
+
+	/**
+	 * @return the index of the first phase whose last beat is after the beat, or the number of phases
+	 */
+	private static int firstPhaseEndingAfter(int[] lastBeatIds, int beatId) {
+		int low = 0;
+		int high = lastBeatIds.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (lastBeatIds[middle] > beatId) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return for every phase, the rows (in ascending order) whose phase is that phase
+	 */
+	private static int[][] bucketRowsByPhase(int[] rowPhases, int numberOfPhases) {
+		int[] counts = new int[numberOfPhases];
+		for (int phase : rowPhases) {
+			if (phase >= 0) {
+				counts[phase]++;
+			}
+		}
+		int[][] buckets = new int[numberOfPhases][];
+		for (int p = 0; p < numberOfPhases; p++) {
+			buckets[p] = new int[counts[p]];
+			counts[p] = 0;
+		}
+		for (int row = 0; row < rowPhases.length; row++) {
+			int phase = rowPhases[row];
+			if (phase >= 0) {
+				buckets[phase][counts[phase]++] = row;
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * The summary of every (phase, row) cell by its GPMType, for phases that are not sorted, disjoint ranges.
+	 */
+	private static PatternSummary SummarizePerCell(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, String[] entityNames){
+		int numberOfPhases = totalPhases.size();
+		int numberOfRows = totalValues.size();
+		for (int row = 0; row < numberOfRows; row++) {
+			entityNames[row] = totalValues.get(row).getEntityGroup().getGroupComponentsNames().get(0);
+		}
+
+		int[][] bornRows = new int[numberOfPhases][];
+		int[][] updatedRows = new int[numberOfPhases][];
+		int[][] deadRows = new int[numberOfPhases][];
+		int[] born = new int[numberOfRows];
+		int[] updated = new int[numberOfRows];
+		int[] dead = new int[numberOfRows];
+		for (int p = 0; p < numberOfPhases; p++) {
+			Phase phase = totalPhases.get(p);
+			int births = 0;
+			int updates = 0;
+			int deaths = 0;
+			for (int row = 0; row < numberOfRows; row++) {
+				ChartGroupPhaseMeasurement tab = totalValues.get(row);
+				var cellMeasurementType = tab.getEntityGroup().getGPMType(phase.getFirstBeatId(), phase.getLastBeatId());
+				if (cellMeasurementType == Constants.GPMType.BIRTH) {
+					born[births++] = row;
+				}
+				else if (cellMeasurementType == Constants.GPMType.ACTIVE && tab.containsMeasurementInPhase(phase.getPhaseId())) {
+					updated[updates++] = row;
+				}
+				else if (cellMeasurementType == Constants.GPMType.DEATH) {
+					dead[deaths++] = row;
+				}
+			}
+			bornRows[p] = Arrays.copyOf(born, births);
+			updatedRows[p] = Arrays.copyOf(updated, updates);
+			deadRows[p] = Arrays.copyOf(dead, deaths);
+		}
+		return new PatternSummary(totalPhases, entityNames, bornRows, updatedRows, deadRows);
+	}
+
+	/**
+	 * The detection of every (phase, row) cell by its GPMType, for phases that are not sorted, disjoint ranges.
+	 */
+	private static List<PatternData> FindPatternPerCell(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, int threshold, PatternType patternType){
 		List<PatternData> patternList = new ArrayList<PatternData>();
 		for(Phase phase: totalPhases) {  		
     		List<CellInfo> cellsMultipleBirths = new ArrayList<CellInfo>();
@@ -22,7 +249,7 @@ public class BDUAlgo {
     		
     		for(ChartGroupPhaseMeasurement tab: totalValues) {
     			
-    			var cellMeasurementType = tab.getEntityGroup().getGPMType(phase.getFirstPhaseBeat().getBeatId(), phase.getLastPhaseBeat().getBeatId());    			
+    			var cellMeasurementType = tab.getEntityGroup().getGPMType(phase.getFirstBeatId(), phase.getLastBeatId());    			
     			
     			int phaseId = phase.getPhaseId();
     			String entityName = tab.getEntityGroup().getGroupComponentsNames().get(0);
@@ -32,7 +259,7 @@ public class BDUAlgo {
     			if(cellMeasurementType == Constants.GPMType.BIRTH){
     				cellsMultipleBirths.add(cell);
     			}
-    			else if(cellMeasurementType == Constants.GPMType.ACTIVE && tab.getMeasurement(phase.getPhaseId()) != null) {			
+    			else if(cellMeasurementType == Constants.GPMType.ACTIVE && tab.containsMeasurementInPhase(phase.getPhaseId())) {			
     				cellsMultipleUpdates.add(cell);
     			}
     			else if(cellMeasurementType == Constants.GPMType.DEATH) {
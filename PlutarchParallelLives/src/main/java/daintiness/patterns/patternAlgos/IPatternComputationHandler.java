@@ -10,4 +10,9 @@ import javafx.collections.ObservableList;
 
 public interface IPatternComputationHandler {
 	List<PatternData> computePatterns(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, PatternType patternType);
+
+	/**
+	 * Classifies the cells once, so that the patterns of any threshold and ladder window are evaluated from the summary.
+	 */
+	PatternSummary summarize(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases);
 }
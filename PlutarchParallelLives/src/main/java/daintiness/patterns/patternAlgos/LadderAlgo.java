@@ -1,65 +1,102 @@
 package daintiness.patterns.patternAlgos;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import daintiness.models.CellInfo;
 import daintiness.models.PatternData;
 import daintiness.utilities.Constants;
 
+/**
+ * Detects the LADDER patterns: runs of phases with births in which every phase's first birth is at most
+ * three phases and three rows (in the ascending order of births) after the previous phase's last birth,
+ * or within the given phase and entity windows.
+ * <p/>
+ * The rows of the entities come from an index built once, and a ladder is kept as the range of its phases,
+ * so the detection is linear in the number of birth cells. Every birth cell is in at most one ladder.
+ */
 public class LadderAlgo {
-	
+
+	public static final int DEFAULT_PHASE_WINDOW = 3;
+	public static final int DEFAULT_ENTITY_WINDOW = 3;
+
 	public static List<PatternData> FindPattern(List<List<CellInfo>> listOfBirthsEachPhase, List<String> TotalEntitiesNamesAscOrder, int threshold){
+		return FindPattern(listOfBirthsEachPhase, TotalEntitiesNamesAscOrder, threshold, DEFAULT_PHASE_WINDOW, DEFAULT_ENTITY_WINDOW);
+	}
+
+	/**
+	 * @param phaseWindow the most phases between the last birth of a phase and the first birth of the next one
+	 * @param entityWindow the most rows between the last birth of a phase and the first birth of the next one
+	 */
+	public static List<PatternData> FindPattern(List<List<CellInfo>> listOfBirthsEachPhase, List<String> TotalEntitiesNamesAscOrder, int threshold,
+												int phaseWindow, int entityWindow){
+		//To achieve the Ladder pattern we need to rearrange the table based on the ascending order of births, so we have to find the new position of the entities in the table.
+		Map<String, Integer> entityNameToRow = new HashMap<String, Integer>();
+		for (int row = 0; row < TotalEntitiesNamesAscOrder.size(); row++) {
+			entityNameToRow.putIfAbsent(TotalEntitiesNamesAscOrder.get(row), row);
+		}
+
+		int[] firstBirthRows = new int[listOfBirthsEachPhase.size()];
+		int[] lastBirthRows = new int[listOfBirthsEachPhase.size()];
+		for (int j = 0; j < listOfBirthsEachPhase.size(); j++) {
+			List<CellInfo> phaseCells = listOfBirthsEachPhase.get(j);
+			firstBirthRows[j] = entityNameToRow.getOrDefault(phaseCells.get(0).getEntityName(), -1);
+			lastBirthRows[j] = entityNameToRow.getOrDefault(phaseCells.get(phaseCells.size() - 1).getEntityName(), -1);
+		}
+		return FindPattern(listOfBirthsEachPhase, firstBirthRows, lastBirthRows, threshold, phaseWindow, entityWindow);
+	}
+
+	/**
+	 * The detection on the rows (in the ascending order of births) of every phase's first and last birth,
+	 * -1 for the entities that are not in the order.
+	 */
+	public static List<PatternData> FindPattern(List<List<CellInfo>> listOfBirthsEachPhase, int[] firstBirthRows, int[] lastBirthRows,
+												int threshold, int phaseWindow, int entityWindow){
 		List<PatternData> patternList = new ArrayList<PatternData>();
-		List<CellInfo> cellsLadderPattern = new ArrayList<CellInfo>();
+		// First phase of the current ladder, -1 while it has no step
+		int ladderStart = -1;
 		int totalCellsInRow = 1;
-		
-		for(int j = 0; j < listOfBirthsEachPhase.size() - 1;j++) {  
-			int currentPhaseCellsSize = listOfBirthsEachPhase.get(j).size();
 
-    		CellInfo currentLastCell = listOfBirthsEachPhase.get(j).get(currentPhaseCellsSize-1);
+		for(int j = 0; j < listOfBirthsEachPhase.size() - 1;j++) {
+			List<CellInfo> currentPhaseCells = listOfBirthsEachPhase.get(j);
+    		CellInfo currentLastCell = currentPhaseCells.get(currentPhaseCells.size() - 1);
     		CellInfo nextfirstCell = listOfBirthsEachPhase.get(j+1).get(0);
-    		
-    		int currentCellPhaseId = currentLastCell.getPhaseId();
 
-    		int difPhases = nextfirstCell.getPhaseId() - currentCellPhaseId;
+    		int difPhases = nextfirstCell.getPhaseId() - currentLastCell.getPhaseId();
+			int difEntities = firstBirthRows[j+1] - lastBirthRows[j];
 
-    		//To achieve the Ladder pattern we need to rearrange the table based on the ascending order of births, so we have to find the new position of the entities in the table.
-    		int currentCellEntityNameIndex = TotalEntitiesNamesAscOrder.indexOf(currentLastCell.getEntityName());
-			int nextCellEntityNameIndex = TotalEntitiesNamesAscOrder.indexOf(nextfirstCell.getEntityName());
-			
-			int difEntities = nextCellEntityNameIndex - currentCellEntityNameIndex;
-
-			if (difPhases <= 3 && difEntities <= 3 ) {
-				for(CellInfo cell: listOfBirthsEachPhase.get(j)) {
-					cellsLadderPattern.add(cell);
-				}
-				
-				for(CellInfo cell: listOfBirthsEachPhase.get(j+1)) {
-					cellsLadderPattern.add(cell);
+			if (difPhases <= phaseWindow && difEntities <= entityWindow ) {
+				if (ladderStart == -1) {
+					ladderStart = j;
 				}
-
 				totalCellsInRow = totalCellsInRow + 1;
-				
 			}
 			else {
-				List<CellInfo> distinctCellsLadderPattern = cellsLadderPattern.stream().distinct().collect(Collectors.toList());
 		    	if(totalCellsInRow >= threshold) {
-					PatternData patternLadder = new PatternData(Constants.PatternType.LADDER, distinctCellsLadderPattern);
-					patternList.add(patternLadder);
-
+					patternList.add(createLadder(listOfBirthsEachPhase, ladderStart, j));
 				}
 		    	totalCellsInRow = 1;
-				cellsLadderPattern = new ArrayList<CellInfo>();
+				ladderStart = -1;
 			}
-			
     	}
-		List<CellInfo> distinctCellsLadderPattern = cellsLadderPattern.stream().distinct().collect(Collectors.toList());
     	if(totalCellsInRow >= threshold) {
-			PatternData patternLadder = new PatternData(Constants.PatternType.LADDER, distinctCellsLadderPattern);
-			patternList.add(patternLadder);
+			patternList.add(createLadder(listOfBirthsEachPhase, ladderStart, listOfBirthsEachPhase.size() - 1));
 		}
     	return patternList;
 	}
+
+	/**
+	 * @return the ladder of the birth cells of the phases from firstPhase to lastPhase, empty if it has no step
+	 */
+	private static PatternData createLadder(List<List<CellInfo>> listOfBirthsEachPhase, int firstPhase, int lastPhase) {
+		List<CellInfo> cellsLadderPattern = new ArrayList<CellInfo>();
+		if (firstPhase != -1) {
+			for (int j = firstPhase; j <= lastPhase; j++) {
+				cellsLadderPattern.addAll(listOfBirthsEachPhase.get(j));
+			}
+		}
+		return new PatternData(Constants.PatternType.LADDER, cellsLadderPattern);
+	}
 }
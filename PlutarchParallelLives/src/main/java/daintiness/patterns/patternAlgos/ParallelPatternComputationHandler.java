@@ -0,0 +1,114 @@
+package daintiness.patterns.patternAlgos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.models.CellInfo;
+import daintiness.models.PatternData;
+import daintiness.utilities.Constants.PatternType;
+import daintiness.utilities.ParallelExecutor;
+import javafx.collections.ObservableList;
+
+/**
+ * Computes the same patterns as PatternComputationHandler, classifying the phases concurrently.
+ * <p/>
+ * The phases are split into contiguous chunks. Every chunk detects its BDU patterns and collects
+ * the births of its phases on its own, and the chunks are merged in phase order on the calling
+ * thread, so the patterns and their order are identical to the sequential handler. The ladders
+ * span phases of different chunks and are detected on the merged births afterwards. The summary
+ * is merged from the summaries of the chunks the same way.
+ */
+public class ParallelPatternComputationHandler implements IPatternComputationHandler {
+	private static final int CHUNKS_PER_THREAD = 2;
+
+	private final int _threshold = PatternComputationHandler.DEFAULT_THRESHOLD;
+	private final int parallelism;
+
+	public ParallelPatternComputationHandler(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public List<PatternData> computePatterns(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases, PatternType patternType){
+		boolean findLadders = patternType != PatternType.MULTIPLE_BIRTHS &&
+				patternType != PatternType.MULTIPLE_UPDATES && patternType != PatternType.MULTIPLE_DEATHS;
+		boolean findBDU = patternType != PatternType.LADDER;
+		PatternType bduType = findLadders ? PatternType.NO_TYPE : patternType;
+
+		int numberOfPhases = totalPhases.size();
+		int numberOfChunks = Math.min(numberOfPhases, parallelism * CHUNKS_PER_THREAD);
+		List<List<PatternData>> bduPatternsOfChunk = new ArrayList<List<PatternData>>();
+		List<List<PatternData>> birthsOfChunk = new ArrayList<List<PatternData>>();
+		for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+			bduPatternsOfChunk.add(null);
+			birthsOfChunk.add(null);
+		}
+
+		ParallelExecutor executor = new ParallelExecutor(parallelism);
+		executor.forEach(0, numberOfChunks, chunk -> {
+			List<Phase> phases = totalPhases.subList(chunkStart(chunk, numberOfPhases, numberOfChunks),
+					chunkStart(chunk + 1, numberOfPhases, numberOfChunks));
+			if (findBDU) {
+				bduPatternsOfChunk.set(chunk, BDUAlgo.FindPattern(totalValues, phases, _threshold, bduType));
+			}
+			if (findLadders) {
+				// Every phase with at least one birth, as PatternComputationHandler collects them
+				birthsOfChunk.set(chunk, BDUAlgo.FindPattern(totalValues, phases, 0, PatternType.MULTIPLE_BIRTHS));
+			}
+		});
+
+		List<PatternData> listToReturn = new ArrayList<PatternData>();
+		if (findBDU) {
+			for (List<PatternData> patterns : bduPatternsOfChunk) {
+				listToReturn.addAll(patterns);
+			}
+		}
+		if (findLadders) {
+			List<List<CellInfo>> listOfBirthsEachPhase = new ArrayList<List<CellInfo>>();
+			for (List<PatternData> births : birthsOfChunk) {
+				for (PatternData phaseBirths : births) {
+					listOfBirthsEachPhase.add(phaseBirths.getPatternCellsList());
+				}
+			}
+			listToReturn.addAll(LadderAlgo.FindPattern(listOfBirthsEachPhase, getEntityNamesAscOrder(totalValues, totalPhases), _threshold));
+		}
+		return listToReturn;
+	}
+
+	public PatternSummary summarize(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases) {
+		int numberOfPhases = totalPhases.size();
+		int numberOfChunks = Math.min(numberOfPhases, parallelism * CHUNKS_PER_THREAD);
+		if (numberOfChunks < 2) {
+			return BDUAlgo.Summarize(totalValues, totalPhases);
+		}
+
+		List<PatternSummary> summaryOfChunk = new ArrayList<PatternSummary>();
+		for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+			summaryOfChunk.add(null);
+		}
+		ParallelExecutor executor = new ParallelExecutor(parallelism);
+		executor.forEach(0, numberOfChunks, chunk -> summaryOfChunk.set(chunk, BDUAlgo.Summarize(totalValues,
+				totalPhases.subList(chunkStart(chunk, numberOfPhases, numberOfChunks), chunkStart(chunk + 1, numberOfPhases, numberOfChunks)))));
+		return PatternSummary.merge(totalPhases, summaryOfChunk);
+	}
+
+	private static int chunkStart(int chunk, int numberOfPhases, int numberOfChunks) {
+		return (int) ((long) chunk * numberOfPhases / numberOfChunks);
+	}
+
+	/**
+	 * @return the names of the rows once for every phase with id 0, like the sequential pre-processing
+	 */
+	private static List<String> getEntityNamesAscOrder(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases) {
+		List<String> totalEntitiesNamesAscOrder = new ArrayList<String>();
+		for (Phase phase : totalPhases) {
+			if (phase.getPhaseId() == 0) {
+				for (ChartGroupPhaseMeasurement tab : totalValues) {
+					totalEntitiesNamesAscOrder.add(tab.getEntityGroup().getGroupComponentsNames().get(0));
+				}
+			}
+		}
+		return totalEntitiesNamesAscOrder;
+	}
+}
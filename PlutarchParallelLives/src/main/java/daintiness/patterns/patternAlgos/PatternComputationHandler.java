@@ -13,7 +13,9 @@ import javafx.collections.ObservableList;
 
 public class PatternComputationHandler implements IPatternComputationHandler{
 	
-	private final int _threshold = 3;
+	public static final int DEFAULT_THRESHOLD = 3;
+
+	private final int _threshold = DEFAULT_THRESHOLD;
 	private List<List<CellInfo>> listOfBirthsEachPhase = new ArrayList<List<CellInfo>>();
 	private List<String> TotalEntitiesNamesAscOrder = new ArrayList<String>(); 
 	
@@ -43,6 +45,10 @@ public class PatternComputationHandler implements IPatternComputationHandler{
 		
 	}
 	
+	public PatternSummary summarize(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases) {
+		return BDUAlgo.Summarize(totalValues, totalPhases);
+	}
+	
 	private void preProcessing(ObservableList<ChartGroupPhaseMeasurement> totalValues, List<Phase> totalPhases){
 
 		for(Phase phase: totalPhases) {  		
@@ -2,6 +2,13 @@ package daintiness.patterns.patternAlgos;
 
 public class PatternComputationHandlerFactory {
 	public IPatternComputationHandler getPatternComputationHandler(String type) {
+        return getPatternComputationHandler(type, 1);
+    }
+
+    /**
+     * @param parallelism number of threads the handler may use
+     */
+    public IPatternComputationHandler getPatternComputationHandler(String type, int parallelism) {
         if (type.isBlank()) {
             return null;
         }
@@ -9,7 +16,9 @@ public class PatternComputationHandlerFactory {
         if (type.equals("SIMPLE_PATTERN_COMPUTATION_HANDLER")) {
             return new PatternComputationHandler();
         }
+        if (type.equals("PARALLEL_PATTERN_COMPUTATION_HANDLER")) {
+            return new ParallelPatternComputationHandler(parallelism);
+        }
         return null;
     }
 }
-
@@ -0,0 +1,152 @@
+package daintiness.patterns.patternAlgos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import daintiness.clustering.Phase;
+import daintiness.models.CellInfo;
+import daintiness.models.PatternData;
+import daintiness.utilities.Constants.PatternType;
+
+/**
+ * The classification of the cells that the patterns are detected on: the born, updated and dead rows
+ * of every phase, and the row of every entity in the ascending order of births.
+ * <p/>
+ * It is built once per chart data, after which any threshold and ladder window is evaluated in time
+ * linear in the number of phases (plus the cells of the ladders), without classifying the cells again.
+ * The pattern of a phase is created on its first evaluation and shared by the following ones, and the
+ * patterns equal those of IPatternComputationHandler.computePatterns for the same parameters.
+ * The evaluations are synchronized on the summary, since they fill these shared patterns and the
+ * rows of the ladders lazily.
+ */
+public class PatternSummary {
+	private static final PatternType[] BDU_TYPES = {PatternType.MULTIPLE_BIRTHS, PatternType.MULTIPLE_UPDATES,
+			PatternType.MULTIPLE_DEATHS};
+	private static final int BIRTHS = 0;
+	private static final int UPDATES = 1;
+	private static final int DEATHS = 2;
+
+	private final List<Phase> phases;
+	private final String[] entityNames;
+	// [births, updates, deaths][phase index] -> rows in ascending order
+	private final int[][][] rowsOfPhase;
+	private final PatternData[][] patternsOfPhase;
+	// Row of every entity in the ascending order of births, -1 if there is no phase 0
+	private final int[] ladderRows;
+
+	private List<List<CellInfo>> listOfBirthsEachPhase;
+	private int[] firstBirthRows;
+	private int[] lastBirthRows;
+
+
+	public PatternSummary(List<Phase> phases, String[] entityNames, int[][] bornRows, int[][] updatedRows, int[][] deadRows) {
+		this.phases = phases;
+		this.entityNames = entityNames;
+		this.rowsOfPhase = new int[][][]{bornRows, updatedRows, deadRows};
+		this.patternsOfPhase = new PatternData[BDU_TYPES.length][phases.size()];
+
+		boolean hasFirstPhase = false;
+		for (Phase phase : phases) {
+			hasFirstPhase |= phase.getPhaseId() == 0;
+		}
+		Map<String, Integer> entityNameToRow = new HashMap<String, Integer>();
+		ladderRows = new int[entityNames.length];
+		for (int row = 0; row < entityNames.length; row++) {
+			entityNameToRow.putIfAbsent(entityNames[row], row);
+			ladderRows[row] = hasFirstPhase ? entityNameToRow.get(entityNames[row]) : -1;
+		}
+	}
+
+	/**
+	 * @return the summary of all the phases of the parts, which summarize consecutive sublists of the phases
+	 */
+	public static PatternSummary merge(List<Phase> phases, List<PatternSummary> parts) {
+		int[][][] rowsOfPhase = new int[BDU_TYPES.length][phases.size()][];
+		int p = 0;
+		for (PatternSummary part : parts) {
+			for (int kind = 0; kind < BDU_TYPES.length; kind++) {
+				System.arraycopy(part.rowsOfPhase[kind], 0, rowsOfPhase[kind], p, part.phases.size());
+			}
+			p += part.phases.size();
+		}
+		return new PatternSummary(phases, parts.get(0).entityNames, rowsOfPhase[BIRTHS], rowsOfPhase[UPDATES], rowsOfPhase[DEATHS]);
+	}
+
+
+	public int getNumberOfBirths(int phaseIndex) {
+		return rowsOfPhase[BIRTHS][phaseIndex].length;
+	}
+
+	public int getNumberOfUpdates(int phaseIndex) {
+		return rowsOfPhase[UPDATES][phaseIndex].length;
+	}
+
+	public int getNumberOfDeaths(int phaseIndex) {
+		return rowsOfPhase[DEATHS][phaseIndex].length;
+	}
+
+	/**
+	 * @param patternType LADDER, one of the BDU types, or any other type for all of them
+	 * @param threshold the BDU patterns have more cells than the threshold, the ladders at least as many steps
+	 * @param phaseWindow the ladder window in phases, see LadderAlgo
+	 * @param entityWindow the ladder window in rows, see LadderAlgo
+	 */
+	public synchronized List<PatternData> getPatterns(PatternType patternType, int threshold, int phaseWindow, int entityWindow) {
+		if (patternType == PatternType.LADDER) {
+			return getLadders(threshold, phaseWindow, entityWindow);
+		}
+
+		boolean allTypes = true;
+		for (PatternType bduType : BDU_TYPES) {
+			allTypes &= patternType != bduType;
+		}
+		List<PatternData> patternList = new ArrayList<PatternData>();
+		for (int p = 0; p < phases.size(); p++) {
+			for (int kind = 0; kind < BDU_TYPES.length; kind++) {
+				if ((allTypes || patternType == BDU_TYPES[kind]) && rowsOfPhase[kind][p].length > threshold) {
+					patternList.add(getPattern(kind, p));
+				}
+			}
+		}
+		if (allTypes) {
+			patternList.addAll(getLadders(threshold, phaseWindow, entityWindow));
+		}
+		return patternList;
+	}
+
+	private List<PatternData> getLadders(int threshold, int phaseWindow, int entityWindow) {
+		if (listOfBirthsEachPhase == null) {
+			listOfBirthsEachPhase = new ArrayList<List<CellInfo>>();
+			List<Integer> birthPhases = new ArrayList<Integer>();
+			for (int p = 0; p < phases.size(); p++) {
+				if (rowsOfPhase[BIRTHS][p].length > 0) {
+					listOfBirthsEachPhase.add(getPattern(BIRTHS, p).getPatternCellsList());
+					birthPhases.add(p);
+				}
+			}
+
+			firstBirthRows = new int[birthPhases.size()];
+			lastBirthRows = new int[birthPhases.size()];
+			for (int j = 0; j < birthPhases.size(); j++) {
+				int[] bornRows = rowsOfPhase[BIRTHS][birthPhases.get(j)];
+				firstBirthRows[j] = ladderRows[bornRows[0]];
+				lastBirthRows[j] = ladderRows[bornRows[bornRows.length - 1]];
+			}
+		}
+		return LadderAlgo.FindPattern(listOfBirthsEachPhase, firstBirthRows, lastBirthRows, threshold, phaseWindow, entityWindow);
+	}
+
+	private PatternData getPattern(int kind, int p) {
+		if (patternsOfPhase[kind][p] == null) {
+			int phaseId = phases.get(p).getPhaseId();
+			List<CellInfo> cells = new ArrayList<CellInfo>(rowsOfPhase[kind][p].length);
+			for (int row : rowsOfPhase[kind][p]) {
+				cells.add(new CellInfo(entityNames[row], phaseId));
+			}
+			patternsOfPhase[kind][p] = new PatternData(BDU_TYPES[kind], cells);
+		}
+		return patternsOfPhase[kind][p];
+	}
+}
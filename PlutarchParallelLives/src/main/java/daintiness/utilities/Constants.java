@@ -6,7 +6,7 @@ public class Constants {
     public static final String FS = File.separator;
 
     public enum FileType {
-        CSV, TSV, SCHEMA_EVO, TEM_GPM
+        CSV, TSV, SCHEMA_EVO, TEM_GPM, SNAPSHOT
     }
 
     public enum RowFormatType {
@@ -0,0 +1,97 @@
+package daintiness.utilities;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs independent tasks, given by their index, with at most the given parallelism.
+ * With parallelism 1 everything runs on the calling thread.
+ * <p/>
+ * All the executors share one ForkJoinPool of one thread per available processor, so the
+ * clustering, loading and pattern requests of all the projects never create more threads
+ * than the machine has. The calling thread takes part in every forEach, and an executor
+ * never runs more than its parallelism of tasks at the same time.
+ * <p/>
+ * The executor only distributes the work. The callers write the result of every index to its
+ * own slot and combine the slots in index order, so their results do not depend on the parallelism.
+ */
+public class ParallelExecutor {
+    private static final int TASKS_PER_THREAD = 8;
+    private static final int MAX_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final ForkJoinPool POOL = new ForkJoinPool(MAX_PARALLELISM);
+
+    private final int parallelism;
+
+    public ParallelExecutor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @return the number of threads of the shared pool
+     */
+    public static int getMaxParallelism() {
+        return MAX_PARALLELISM;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Calls the action for every index in [from, to). The calls may run concurrently,
+     * so the action must only write state that belongs to its own index.
+     * An exception of any call is thrown after the running calls have returned.
+     */
+    public void forEach(int from, int to, IntConsumer action) {
+        int tasks = Math.min(parallelism, to - from);
+        if (tasks < 2) {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+
+        int chunkSize = Math.max(1, (to - from) / (parallelism * TASKS_PER_THREAD));
+        AtomicInteger nextIndex = new AtomicInteger(from);
+        Runnable task = () -> {
+            try {
+                int start;
+                while ((start = nextIndex.getAndAdd(chunkSize)) < to) {
+                    int end = Math.min(to, start + chunkSize);
+                    for (int i = start; i < end; i++) {
+                        action.accept(i);
+                    }
+                }
+            } catch (RuntimeException e) {
+                nextIndex.set(to);
+                throw e;
+            }
+        };
+
+        ForkJoinTask<?>[] forkedTasks = new ForkJoinTask<?>[tasks - 1];
+        for (int t = 0; t < forkedTasks.length; t++) {
+            forkedTasks[t] = POOL.submit(task);
+        }
+
+        RuntimeException failure = null;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (ForkJoinTask<?> forkedTask : forkedTasks) {
+            try {
+                forkedTask.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
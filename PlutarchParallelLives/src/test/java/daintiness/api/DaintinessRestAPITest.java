@@ -12,14 +12,23 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import daintiness.maincontroller.IMainController;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "daintiness.clustering.max-parallelism=4")
 @AutoConfigureMockMvc
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class DaintinessRestAPITest {
@@ -147,7 +156,8 @@ class DaintinessRestAPITest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.numberOfPhases").exists())
-                .andExpect(jsonPath("$.numberOfEntityGroups").exists());
+                .andExpect(jsonPath("$.numberOfEntityGroups").exists())
+                .andExpect(jsonPath("$.chartDataFootprintBytes").isNumber());
 
         projectStore.delete(projectId);
     }
@@ -252,6 +262,252 @@ class DaintinessRestAPITest {
         projectStore.delete(projectId);
     }
 
+    @Test
+    @Order(25)
+    @DisplayName("POST /api/projects/{id}/cluster - Should cluster data with parallel distance evaluation")
+    void clusterData_WithParallelism_ShouldSucceed() throws Exception {
+        String projectId = createAndLoadProject();
+
+        String clusterRequest = "{" +
+                "\"numberOfPhases\": 2," +
+                "\"numberOfEntityGroups\": 2," +
+                "\"changesWeight\": 0.5," +
+                "\"timeClusteringEnabled\": true," +
+                "\"entityClusteringEnabled\": true," +
+                "\"parallelism\": 4" +
+                "}";
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/cluster")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(clusterRequest)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.numberOfPhases").value(2))
+                .andExpect(jsonPath("$.numberOfEntityGroups").value(2));
+
+        projectStore.delete(projectId);
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("POST /api/projects/{id}/cluster - Should reject invalid parallelism (0 or above the maximum)")
+    void clusterData_InvalidParallelism_ShouldReturn400() throws Exception {
+        String projectId = createAndLoadProject();
+
+        String clusterRequest = "{" +
+                "\"numberOfPhases\": 2," +
+                "\"numberOfEntityGroups\": 2," +
+                "\"changesWeight\": 0.5," +
+                "\"timeClusteringEnabled\": true," +
+                "\"entityClusteringEnabled\": true," +
+                "\"parallelism\": 0" +
+                "}";
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/cluster")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(clusterRequest)
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/cluster")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(clusterRequest.replace("\"parallelism\": 0", "\"parallelism\": 100000"))
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        projectStore.delete(projectId);
+    }
+
+    // CLUSTERING JOB TESTS
+
+    @Test
+    @Order(27)
+    @DisplayName("POST /api/projects/{id}/clusterJobs - Should run clustering as a job and return its result")
+    void clusteringJob_ValidRequest_ShouldComplete() throws Exception {
+        String projectId = createAndLoadProject();
+
+        String clusterRequest = "{" +
+                "\"numberOfPhases\": 2," +
+                "\"numberOfEntityGroups\": 2," +
+                "\"changesWeight\": 0.5," +
+                "\"timeClusteringEnabled\": true," +
+                "\"entityClusteringEnabled\": true" +
+                "}";
+
+        MvcResult result = mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterJobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(clusterRequest)
+        )
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.jobId").exists())
+                .andReturn();
+
+        String jobId = objectMapper.readTree(result.getResponse().getContentAsString()).get("jobId").asText();
+
+        String status = "QUEUED";
+        for (int i = 0; i < 100 && !status.equals("COMPLETED"); i++) {
+            MvcResult statusResult = mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.percentComplete").exists())
+                    .andReturn();
+            status = objectMapper.readTree(statusResult.getResponse().getContentAsString()).get("status").asText();
+            Thread.sleep(50);
+        }
+        assertEquals("COMPLETED", status);
+
+        MvcResult statusResult = mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/" + jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.percentComplete").value(100.0))
+                .andReturn();
+        JsonNode statusJson = objectMapper.readTree(statusResult.getResponse().getContentAsString());
+        assertTrue(statusJson.get("mergesNeeded").asInt() > 0);
+        assertEquals(statusJson.get("mergesNeeded").asInt(), statusJson.get("mergesDone").asInt());
+
+        mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/" + jobId + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.numberOfPhases").value(2))
+                .andExpect(jsonPath("$.numberOfEntityGroups").value(2));
+
+        mockMvc.perform(delete("/api/projects/" + projectId + "/clusterJobs/" + jobId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+
+        projectStore.delete(projectId);
+    }
+
+    @Test
+    @Order(28)
+    @DisplayName("GET /api/projects/{id}/clusterJobs/{jobId} - Should return 404 for unknown job")
+    void clusteringJob_UnknownJob_ShouldReturn404() throws Exception {
+        String projectId = createAndLoadProject();
+
+        mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/unknown-job"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/unknown-job/result"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/projects/" + projectId + "/clusterJobs/unknown-job"))
+                .andExpect(status().isNotFound());
+
+        projectStore.delete(projectId);
+    }
+
+    @Test
+    @Order(29)
+    @DisplayName("POST /api/projects/{id}/clusterJobs - Should reject invalid numberOfPhases (0)")
+    void clusteringJob_InvalidPhases_ShouldReturn400() throws Exception {
+        String projectId = createAndLoadProject();
+
+        String clusterRequest = "{" +
+                "\"numberOfPhases\": 0," +
+                "\"numberOfEntityGroups\": 2," +
+                "\"changesWeight\": 0.5," +
+                "\"timeClusteringEnabled\": true," +
+                "\"entityClusteringEnabled\": true" +
+                "}";
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterJobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(clusterRequest)
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        projectStore.delete(projectId);
+    }
+
+    // CLUSTERING SWEEP TESTS
+
+    @Test
+    @Order(33)
+    @DisplayName("POST /api/projects/{id}/clusterSweep - Should summarize every combination of the grid as a job")
+    void clusterSweep_ValidRequest_ShouldReturnResults() throws Exception {
+        String projectId = createAndLoadProject();
+
+        String sweepRequest = "{" +
+                "\"numberOfPhases\": [1, 2]," +
+                "\"numberOfEntityGroups\": [1, 2]," +
+                "\"changesWeights\": [0.3, 0.7]," +
+                "\"parallelism\": 2" +
+                "}";
+
+        MvcResult result = mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterSweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(sweepRequest)
+        )
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.jobId").exists())
+                .andExpect(jsonPath("$.numberOfCombinations").value(8))
+                .andReturn();
+
+        String jobId = objectMapper.readTree(result.getResponse().getContentAsString()).get("jobId").asText();
+
+        String status = "QUEUED";
+        for (int i = 0; i < 100 && !status.equals("COMPLETED"); i++) {
+            MvcResult statusResult = mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            status = objectMapper.readTree(statusResult.getResponse().getContentAsString()).get("status").asText();
+            Thread.sleep(50);
+        }
+        assertEquals("COMPLETED", status);
+
+        mockMvc.perform(get("/api/projects/" + projectId + "/clusterJobs/" + jobId + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.numberOfCombinations").value(8))
+                .andExpect(jsonPath("$.results").isArray())
+                .andExpect(jsonPath("$.results.length()").value(8))
+                .andExpect(jsonPath("$.results[0].numberOfPhases").exists())
+                .andExpect(jsonPath("$.results[0].cellDensity").exists());
+
+        projectStore.delete(projectId);
+    }
+
+    @Test
+    @Order(34)
+    @DisplayName("POST /api/projects/{id}/clusterSweep - Should reject an empty grid, invalid weight or parallelism")
+    void clusterSweep_InvalidRequest_ShouldReturn400() throws Exception {
+        String projectId = createAndLoadProject();
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterSweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numberOfPhases\": [], \"numberOfEntityGroups\": [2], \"changesWeights\": [0.5]}")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterSweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numberOfPhases\": [2], \"numberOfEntityGroups\": [2], \"changesWeights\": [1.5]}")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(
+                post("/api/projects/" + projectId + "/clusterSweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numberOfPhases\": [2], \"numberOfEntityGroups\": [2], \"changesWeights\": [0.5], \"parallelism\": 100000}")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        projectStore.delete(projectId);
+    }
+
     // CHART DATA TESTS 
     @Test
     @Order(30)
@@ -373,6 +629,43 @@ class DaintinessRestAPITest {
         projectStore.delete(projectId);
     }
 
+    @Test
+    @Order(52)
+    @DisplayName("GET /api/projects/{id}/patterns - Should evaluate other thresholds and ladder windows")
+    void getPatterns_OtherParameters_ShouldReturnList() throws Exception {
+        String projectId = createLoadAndClusterProject();
+
+        for (String threshold : new String[]{"1", "0", "3"}) {
+            mockMvc.perform(
+                    get("/api/projects/" + projectId + "/patterns")
+                            .param("patternType", "NO_TYPE")
+                            .param("threshold", threshold)
+                            .param("ladderPhaseWindow", "5")
+                            .param("ladderEntityWindow", "10")
+            )
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isArray());
+        }
+
+        projectStore.delete(projectId);
+    }
+
+    @Test
+    @Order(53)
+    @DisplayName("GET /api/projects/{id}/patterns - Should return 400 for a negative threshold")
+    void getPatterns_NegativeThreshold_ShouldReturn400() throws Exception {
+        String projectId = createLoadAndClusterProject();
+
+        mockMvc.perform(
+                get("/api/projects/" + projectId + "/patterns")
+                        .param("threshold", "-1")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        projectStore.delete(projectId);
+    }
+
     // CELL DETAILS TESTS 
 
     @Test
@@ -448,11 +741,34 @@ class DaintinessRestAPITest {
     void exportProject_AfterClustering_ShouldSucceed() throws Exception {
         String projectId = createLoadAndClusterProject();
 
-        mockMvc.perform(post("/api/projects/" + projectId + "/exportProject"))
+        MvcResult result = mockMvc.perform(post("/api/projects/" + projectId + "/exportProject"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", 
                         org.hamcrest.Matchers.containsString("attachment")));
 
+        // The streamed archive holds the tem.tsv and gpm.tsv of the project
+        IMainController controller = projectStore.get(projectId).orElseThrow();
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.put(entry.getName(), new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        Path exportFolder = Files.createTempDirectory("project-export-");
+        try {
+            controller.exportProject(exportFolder.toFile());
+            assertEquals(Files.readString(exportFolder.resolve("tem.tsv")), entries.get("tem.tsv"));
+            assertEquals(Files.readString(exportFolder.resolve("gpm.tsv")), entries.get("gpm.tsv"));
+        } finally {
+            Files.deleteIfExists(exportFolder.resolve("tem.tsv"));
+            Files.deleteIfExists(exportFolder.resolve("gpm.tsv"));
+            Files.deleteIfExists(exportFolder);
+        }
+
         projectStore.delete(projectId);
     }
 
@@ -475,11 +791,22 @@ class DaintinessRestAPITest {
     void saveData_WithLoadedData_ShouldSucceed() throws Exception {
         String projectId = createAndLoadProject();
 
-        mockMvc.perform(post("/api/projects/" + projectId + "/saveData"))
+        MvcResult result = mockMvc.perform(post("/api/projects/" + projectId + "/saveData"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition",
                         org.hamcrest.Matchers.containsString("attachment")));
 
+        Path savedFile = Files.createTempFile("data-export-", ".tsv");
+        try {
+            projectStore.get(projectId).orElseThrow().save(savedFile.toFile());
+            assertEquals(Files.readString(savedFile), result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(savedFile);
+        }
+
         projectStore.delete(projectId);
     }
 
@@ -0,0 +1,137 @@
+package daintiness.clustering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ClusteringSweepTest {
+
+    @Test
+    @DisplayName("Sweep results equal the clustering of every profile")
+    public void sweepEqualsClusteringTest() {
+        IDataHandler dataHandler = SyntheticData.generate(60, 80, 0.3, 41);
+        List<ClusteringProfile> profiles = createProfiles(new int[]{1, 7, 20, 100}, new int[]{1, 12, 40},
+                new double[]{0.2, 0.5, 0.8}, 1);
+
+        List<ClusteringSweep.Result> results = new ClusteringSweep(dataHandler, null, 1)
+                .evaluate(profiles, new ClusteringMonitor());
+        List<ClusteringSweep.Result> parallelResults = new ClusteringSweep(dataHandler, null, 4)
+                .evaluate(profiles, new ClusteringMonitor());
+
+        Assertions.assertEquals(profiles.size(), results.size());
+        for (int i = 0; i < profiles.size(); i++) {
+            ClusteringProfile profile = profiles.get(i);
+            List<Phase> phases = new PhaseExtractorFactory()
+                    .getPhaseExtractor("AGGLOMERATIVE_HEAP", profile.getBeatClusteringProfile(), dataHandler).clusterData();
+            List<EntityGroup> entityGroups = new EntityGroupExtractorFactory()
+                    .getPhaseExtractor("AGGLOMERATIVE_MATRIX", profile.getEntityClusteringProfile(), dataHandler).clusterData();
+
+            for (ClusteringSweep.Result result : new ClusteringSweep.Result[]{results.get(i), parallelResults.get(i)}) {
+                Assertions.assertSame(profile, result.getProfile());
+                Assertions.assertEquals(phases.size(), result.getNumberOfPhases());
+                Assertions.assertEquals(entityGroups.size(), result.getNumberOfEntityGroups());
+                Assertions.assertEquals(countActiveCells(dataHandler, phases, entityGroups), result.getActiveCells());
+                Assertions.assertEquals(phases.stream().mapToInt(phase -> phase.getPhaseComponentsIdList().size()).max().orElse(0),
+                        result.getLargestPhase());
+                Assertions.assertEquals(entityGroups.stream().mapToInt(group -> group.getGroupComponents().size()).max().orElse(0),
+                        result.getLargestEntityGroup());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Sweep reuses the cached dendrograms")
+    public void cachedDendrogramsTest() {
+        IDataHandler dataHandler = SyntheticData.generate(40, 50, 0.3, 43);
+        DendrogramCache dendrogramCache = new DendrogramCache();
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.setDendrogramCache(dendrogramCache);
+        clusteringHandler.clusterData(createProfiles(new int[]{10}, new int[]{10}, new double[]{0.5}, 1).get(0));
+
+        ClusteringMonitor monitor = new ClusteringMonitor();
+        List<ClusteringSweep.Result> results = new ClusteringSweep(dataHandler, dendrogramCache, 2)
+                .evaluate(createProfiles(new int[]{5, 10}, new int[]{5, 10, 20}, new double[]{0.5}, 1), monitor);
+
+        Assertions.assertEquals(0, monitor.getMergesDone());
+        Assertions.assertEquals(6, results.size());
+        Assertions.assertEquals(clusteringHandler.getPhases().size(), results.get(4).getNumberOfPhases());
+        Assertions.assertEquals(clusteringHandler.getEntityGroups().size(), results.get(4).getNumberOfEntityGroups());
+    }
+
+    @Test
+    @DisplayName("Sweep stores the dendrograms it builds in the cache")
+    public void storedDendrogramsTest() {
+        IDataHandler dataHandler = SyntheticData.generate(40, 50, 0.3, 45);
+        DendrogramCache dendrogramCache = new DendrogramCache();
+        List<ClusteringProfile> profiles = createProfiles(new int[]{5, 10}, new int[]{5, 10}, new double[]{0.7}, 1);
+
+        ClusteringMonitor monitor = new ClusteringMonitor();
+        List<ClusteringSweep.Result> results = new ClusteringSweep(dataHandler, dendrogramCache, 2).evaluate(profiles, monitor);
+        Assertions.assertTrue(monitor.getMergesDone() > 0);
+        Assertions.assertNotNull(dendrogramCache.getPhaseDendrogram(profiles.get(0).getBeatClusteringProfile(), dataHandler));
+        Assertions.assertNotNull(dendrogramCache.getEntityGroupDendrogram(profiles.get(0).getEntityClusteringProfile(), dataHandler));
+
+        ClusteringMonitor cachedMonitor = new ClusteringMonitor();
+        List<ClusteringSweep.Result> cachedResults = new ClusteringSweep(dataHandler, dendrogramCache, 2).evaluate(profiles, cachedMonitor);
+        Assertions.assertEquals(0, cachedMonitor.getMergesDone());
+        for (int i = 0; i < profiles.size(); i++) {
+            Assertions.assertEquals(results.get(i).getNumberOfPhases(), cachedResults.get(i).getNumberOfPhases());
+            Assertions.assertEquals(results.get(i).getActiveCells(), cachedResults.get(i).getActiveCells());
+        }
+    }
+
+
+    private List<ClusteringProfile> createProfiles(int[] numbersOfPhases, int[] numbersOfEntityGroups,
+                                                   double[] changesWeights, int parallelism) {
+        List<ClusteringProfile> profiles = new ArrayList<>();
+        for (double changesWeight : changesWeights) {
+            for (int numberOfPhases : numbersOfPhases) {
+                for (int numberOfEntityGroups : numbersOfEntityGroups) {
+                    profiles.add(new ClusteringProfile(
+                            new BeatClusteringProfile(numberOfPhases, changesWeight, false, parallelism),
+                            new EntityClusteringProfile(numberOfEntityGroups, 0.25, 0.25, 0.5, parallelism)));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * The (group, phase) cells that hold at least one TimeEntityMeasurement.
+     */
+    private long countActiveCells(IDataHandler dataHandler, List<Phase> phases, List<EntityGroup> entityGroups) {
+        Map<Integer, Integer> beatIdToPhase = new HashMap<>();
+        for (int p = 0; p < phases.size(); p++) {
+            for (int beatId : phases.get(p).getPhaseComponentsIdList()) {
+                beatIdToPhase.put(beatId, p);
+            }
+        }
+
+        long activeCells = 0;
+        for (EntityGroup entityGroup : entityGroups) {
+            Set<Integer> activePhases = new HashSet<>();
+            for (Entity entity : entityGroup.getGroupComponents()) {
+                Map<Integer, TimeEntityMeasurements> entityTEMs = dataHandler.getEntityNameToTEMMap().get(entity.getEntityName());
+                if (entityTEMs != null) {
+                    for (int beatId : entityTEMs.keySet()) {
+                        activePhases.add(beatIdToPhase.get(beatId));
+                    }
+                }
+            }
+            activeCells += activePhases.size();
+        }
+        return activeCells;
+    }
+}
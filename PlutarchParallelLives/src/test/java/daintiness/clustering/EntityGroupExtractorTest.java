@@ -0,0 +1,125 @@
+package daintiness.clustering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.data.IDataHandler;
+import daintiness.io.TestUtilities;
+
+import java.util.List;
+
+public class EntityGroupExtractorTest {
+
+    TestUtilities utilities = new TestUtilities();
+    EntityGroupExtractorFactory factory = new EntityGroupExtractorFactory();
+
+    @Test
+    @DisplayName("Matrix entityGroup extractor produces the same groups as the pair scan")
+    public void matrixExtractorEqualsPairScanExtractorTest() {
+        int[] desiredNumbersOfGroups = {1, 3, 10, 59, 60, 80};
+        double[][] weights = {{0.25, 0.25, 0.5}, {1, 0, 0}, {0, 0, 1}, {0.1, 0.6, 0.3}};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(40, 60, 0.3, seed);
+
+            for (int desiredNumberOfGroups : desiredNumbersOfGroups) {
+                for (double[] weight : weights) {
+                    EntityClusteringProfile profile =
+                            new EntityClusteringProfile(desiredNumberOfGroups, weight[0], weight[1], weight[2]);
+
+                    List<EntityGroup> expectedGroups = factory.getPhaseExtractor("AGGLOMERATIVE", profile, dataHandler).clusterData();
+                    List<EntityGroup> actualGroups = factory.getPhaseExtractor("AGGLOMERATIVE_MATRIX", profile, dataHandler).clusterData();
+
+                    Assertions.assertEquals(expectedGroups.size(), actualGroups.size());
+                    utilities.testEntityGroups(expectedGroups, actualGroups);
+                    for (int i = 0; i < expectedGroups.size(); i++) {
+                        Assertions.assertEquals(expectedGroups.get(i).getGroupComponentsNames(),
+                                actualGroups.get(i).getGroupComponentsNames());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel entityGroup extractors produce the same groups as the serial ones")
+    public void parallelExtractorsEqualSerialExtractorsTest() {
+        int[] desiredNumbersOfGroups = {1, 10, 59};
+        double[][] weights = {{0.25, 0.25, 0.5}, {1, 0, 0}, {0, 0, 1}};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(40, 60, 0.3, seed);
+
+            for (int desiredNumberOfGroups : desiredNumbersOfGroups) {
+                for (double[] weight : weights) {
+                    EntityClusteringProfile serialProfile =
+                            new EntityClusteringProfile(desiredNumberOfGroups, weight[0], weight[1], weight[2]);
+                    EntityClusteringProfile parallelProfile =
+                            new EntityClusteringProfile(desiredNumberOfGroups, weight[0], weight[1], weight[2], 4);
+
+                    List<EntityGroup> expectedGroups = factory.getPhaseExtractor("AGGLOMERATIVE", serialProfile, dataHandler).clusterData();
+                    for (String type : new String[]{"AGGLOMERATIVE", "AGGLOMERATIVE_MATRIX"}) {
+                        List<EntityGroup> actualGroups = factory.getPhaseExtractor(type, parallelProfile, dataHandler).clusterData();
+
+                        Assertions.assertEquals(expectedGroups.size(), actualGroups.size());
+                        utilities.testEntityGroups(expectedGroups, actualGroups);
+                        for (int i = 0; i < expectedGroups.size(); i++) {
+                            Assertions.assertEquals(expectedGroups.get(i).getGroupComponentsNames(),
+                                    actualGroups.get(i).getGroupComponentsNames());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cuts of the entityGroup dendrogram equal the clustering into the same number of groups")
+    public void dendrogramCutsEqualExtractorTest() {
+        int[] desiredNumbersOfGroups = {1, 3, 10, 59, 60, 80};
+        double[][] weights = {{0.25, 0.25, 0.5}, {1, 0, 0}, {0, 0, 1}};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(40, 60, 0.3, seed);
+
+            for (double[] weight : weights) {
+                EntityClusteringProfile dendrogramProfile = new EntityClusteringProfile(1, weight[0], weight[1], weight[2]);
+                EntityGroupDendrogram dendrogram = new EntityGroupDendrogram(dendrogramProfile, dataHandler);
+                IEntityGroupExtractor dendrogramExtractor = factory.getPhaseExtractor("AGGLOMERATIVE_MATRIX", dendrogramProfile, dataHandler);
+                dendrogramExtractor.setDendrogram(dendrogram);
+                dendrogramExtractor.clusterData();
+
+                for (int desiredNumberOfGroups : desiredNumbersOfGroups) {
+                    EntityClusteringProfile profile =
+                            new EntityClusteringProfile(desiredNumberOfGroups, weight[0], weight[1], weight[2]);
+                    Assertions.assertTrue(dendrogram.matches(profile, dataHandler));
+
+                    List<EntityGroup> expectedGroups = factory.getPhaseExtractor("AGGLOMERATIVE", profile, dataHandler).clusterData();
+                    List<EntityGroup> actualGroups = dendrogram.cut(desiredNumberOfGroups);
+
+                    Assertions.assertEquals(expectedGroups.size(), actualGroups.size());
+                    utilities.testEntityGroups(expectedGroups, actualGroups);
+                    for (int i = 0; i < expectedGroups.size(); i++) {
+                        Assertions.assertEquals(expectedGroups.get(i).getGroupComponentsNames(),
+                                actualGroups.get(i).getGroupComponentsNames());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Matrix entityGroup extractor keeps every entity of a large population")
+    public void matrixExtractorLargePopulationTest() {
+        int numberOfEntities = 500;
+        IDataHandler dataHandler = SyntheticData.generate(100, numberOfEntities, 0.1, numberOfEntities);
+        EntityClusteringProfile profile = new EntityClusteringProfile(10);
+
+        List<EntityGroup> groups = factory.getPhaseExtractor("AGGLOMERATIVE_MATRIX", profile, dataHandler).clusterData();
+
+        Assertions.assertEquals(10, groups.size());
+        Assertions.assertEquals(numberOfEntities,
+                groups.stream().mapToInt(group -> group.getGroupComponents().size()).sum());
+    }
+}
@@ -0,0 +1,132 @@
+package daintiness.clustering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.data.IDataHandler;
+import daintiness.io.input.schemaevo.SchemaEvoLoader;
+import daintiness.models.Entity;
+import daintiness.utilities.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class GPMWriterTest {
+
+    private static final int NUMBER_OF_BEATS = 1000;
+    private static final int NUMBER_OF_PHASES = 500;
+    private static final int NUMBER_OF_GROUPS = 200;
+    private static final int ENTITIES_PER_GROUP = 3;
+
+
+    @Test
+    @DisplayName("Streamed gpm of a clustered SchemaEvo project equals the previous gpm String")
+    public void clusteredProjectGPMTest() throws IOException {
+        IDataHandler dataHandler = new SchemaEvoLoader(new File(
+                "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "biosql")).load();
+        dataHandler.setType(Constants.FileType.SCHEMA_EVO);
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.clusterData(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        clusteringHandler.generateChartData(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+
+        StringWriter writer = new StringWriter();
+        clusteringHandler.writeGPM(writer);
+        String expected = gpmAsBefore(clusteringHandler);
+        Assertions.assertEquals(expected, writer.toString());
+        Assertions.assertEquals(expected, clusteringHandler.getGPMString());
+    }
+
+    @Test
+    @DisplayName("Streamed gpm of an imported project equals the previous gpm String")
+    public void importedProjectGPMTest() throws IOException {
+        ClusteringHandler clusteringHandler = createImportedProject(NUMBER_OF_GROUPS);
+
+        StringWriter writer = new StringWriter();
+        clusteringHandler.writeGPM(writer);
+        String expected = gpmAsBefore(clusteringHandler);
+        Assertions.assertEquals(expected, writer.toString());
+        Assertions.assertEquals(expected, clusteringHandler.getGPMString());
+    }
+
+
+    private ClusteringHandler createImportedProject(int numberOfGroups) {
+        IDataHandler dataHandler = SyntheticData.generate(NUMBER_OF_BEATS, numberOfGroups * ENTITIES_PER_GROUP, 0.2, 5);
+
+        List<int[]> phaseRanges = new ArrayList<>();
+        int beatsPerPhase = NUMBER_OF_BEATS / NUMBER_OF_PHASES;
+        for (int i = 0; i < NUMBER_OF_PHASES; i++) {
+            phaseRanges.add(new int[]{i, i * beatsPerPhase, (i + 1) * beatsPerPhase - 1});
+        }
+        Map<Integer, String[]> entityGroups = new HashMap<>();
+        for (int i = 0; i < numberOfGroups; i++) {
+            String[] components = new String[ENTITIES_PER_GROUP];
+            for (int j = 0; j < ENTITIES_PER_GROUP; j++) {
+                components[j] = "entity_" + (i * ENTITIES_PER_GROUP + j);
+            }
+            entityGroups.put(i, components);
+        }
+
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.loadPhases(phaseRanges);
+        clusteringHandler.loadEntityGroup(entityGroups);
+        clusteringHandler.loadClusteringData();
+        return clusteringHandler;
+    }
+
+    /**
+     * The gpm String of the ClusteringHandler before the streaming writer, as the reference output.
+     */
+    private String gpmAsBefore(ClusteringHandler clusteringHandler) {
+        List<Phase> phases = clusteringHandler.getPhases();
+        String header = "";
+        int i = 0;
+        for (Phase phase : phases) {
+            header = header.concat(phase.toString());
+            if (i < phases.size() - 1) {
+                header = header.concat("\t");
+            }
+            i++;
+        }
+
+        StringBuilder stringData = new StringBuilder(header.concat("\n"));
+        for (ChartGroupPhaseMeasurement gpm : clusteringHandler.getChartData()) {
+            String gpmString = String.format("%d\t{", gpm.getEntityGroup().getEntityGroupId());
+            i = 0;
+            for (Entity componentName : gpm.getEntityGroup().getGroupComponents()) {
+                gpmString = gpmString.concat(componentName.getEntityName());
+                if (i < gpm.getEntityGroup().getGroupComponentsNames().size() - 1) {
+                    gpmString = gpmString.concat(",");
+                } else {
+                    gpmString = gpmString.concat("}\t{");
+                }
+                i++;
+            }
+            i = 0;
+            for (Phase phase : phases) {
+                int phaseId = phase.getPhaseId();
+                if (gpm.containsMeasurementInPhase(phaseId)) {
+                    gpmString = gpmString.concat(String.format("%d:", phaseId))
+                            .concat(NumberFormat.getInstance(Locale.US).format(gpm.getMeasurement(phaseId).getValue()));
+                    if (i < gpm.getNumberOfMeasurements() - 1) {
+                        gpmString = gpmString.concat(",");
+                    }
+                    i++;
+                }
+            }
+            stringData.append(gpmString.concat("}")).append("\n");
+        }
+        return stringData.toString();
+    }
+}
@@ -0,0 +1,381 @@
+package daintiness.clustering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.clustering.measurements.GroupPhaseMeasurement;
+import daintiness.data.IDataHandler;
+import daintiness.io.TestUtilities;
+import daintiness.io.input.schemaevo.SchemaEvoLoader;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.utilities.Constants;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GroupMeasurementsTest {
+
+    private static final int NUMBER_OF_BEATS = 10000;
+    private static final int NUMBER_OF_ENTITIES = 200;
+    private static final int NUMBER_OF_PHASES = 100;
+    private static final int NUMBER_OF_GROUPS = 20;
+
+
+    @Test
+    @DisplayName("Group measurements on a 10k-beat timeline equal the per-phase List scan")
+    public void groupMeasurementsEqualListScanTest() {
+        IDataHandler dataHandler = SyntheticData.generate(NUMBER_OF_BEATS, NUMBER_OF_ENTITIES, 0.05, 7);
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.loadPhases(generatePhaseRanges());
+        clusteringHandler.loadEntityGroup(generateEntityGroups());
+
+        clusteringHandler.loadClusteringData();
+
+        Map<Integer, Map<Integer, Double>> expectedValues =
+                calculateWithListScan(dataHandler, clusteringHandler.getPhases(), clusteringHandler.getEntityGroups());
+
+        Assertions.assertEquals(NUMBER_OF_GROUPS, clusteringHandler.getChartData().size());
+        for (ChartGroupPhaseMeasurement chartRow : clusteringHandler.getChartData()) {
+            Map<Integer, Double> expectedRow = expectedValues.get(chartRow.getEntityGroup().getEntityGroupId());
+
+            Assertions.assertEquals(expectedRow.size(), chartRow.getActivity());
+            for (Phase phase : clusteringHandler.getPhases()) {
+                if (expectedRow.containsKey(phase.getPhaseId())) {
+                    Assertions.assertEquals(expectedRow.get(phase.getPhaseId()),
+                            chartRow.getMeasurement(phase.getPhaseId()).getValue());
+                } else {
+                    Assertions.assertFalse(chartRow.containsMeasurementInPhase(phase.getPhaseId()));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Aggregated group measurements equal GroupPhaseMeasurement.addTEM for all measurement types")
+    public void aggregatedMeasurementsEqualAddTEMTest() {
+        for (String projectName : new String[]{"biosql", "torrentpier__torrentpier"}) {
+            for (int parallelism : new int[]{1, 4}) {
+                File projectFolder = new File(
+                        "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + projectName);
+                IDataHandler dataHandler = loadSchemaEvo(projectFolder);
+                ClusteringHandler clusteringHandler = new ClusteringHandler();
+                clusteringHandler.setDataHandler(dataHandler);
+                clusteringHandler.clusterData(new ClusteringProfile(
+                        new BeatClusteringProfile(10, 0.5, false, parallelism),
+                        new EntityClusteringProfile(8, 0.25, 0.25, 0.5, parallelism)));
+
+                List<List<GroupPhaseMeasurement>> expectedGPMs = calculateWithAddTEM(dataHandler,
+                        clusteringHandler.getPhases(), clusteringHandler.getEntityGroups());
+
+                for (Constants.MeasurementType measurementType : clusteringHandler.getAvailableMeasurementTypesList()) {
+                    for (Constants.AggregationType aggregationType : clusteringHandler.getAvailableAggregationTypesList()) {
+                        clusteringHandler.generateChartData(measurementType, aggregationType);
+                        testChartData(expectedGPMs, clusteringHandler, measurementType, aggregationType);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Clustering with a dendrogram cache equals the clustering without it")
+    public void dendrogramCacheEqualsClusteringTest() {
+        File projectFolder = new File(
+                "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "torrentpier__torrentpier");
+        IDataHandler dataHandler = loadSchemaEvo(projectFolder);
+        DendrogramCache dendrogramCache = new DendrogramCache();
+        TestUtilities utilities = new TestUtilities();
+
+        for (int[] numbers : new int[][]{{20, 30}, {15, 30}, {5, 10}, {60, 2}}) {
+            ClusteringHandler expectedHandler = new ClusteringHandler();
+            expectedHandler.setDataHandler(dataHandler);
+            expectedHandler.clusterData(new ClusteringProfile(
+                    new BeatClusteringProfile(numbers[0]), new EntityClusteringProfile(numbers[1])));
+
+            ClusteringHandler actualHandler = new ClusteringHandler();
+            actualHandler.setDataHandler(dataHandler);
+            actualHandler.setDendrogramCache(dendrogramCache);
+            actualHandler.clusterData(new ClusteringProfile(
+                    new BeatClusteringProfile(numbers[0]), new EntityClusteringProfile(numbers[1])));
+
+            utilities.testPhases(expectedHandler.getPhases(), actualHandler.getPhases());
+            utilities.testEntityGroups(expectedHandler.getEntityGroups(), actualHandler.getEntityGroups());
+            for (int i = 0; i < expectedHandler.getChartData().size(); i++) {
+                ChartGroupPhaseMeasurement expectedRow = expectedHandler.getChartData().get(i);
+                ChartGroupPhaseMeasurement actualRow = actualHandler.getChartData().get(i);
+                Assertions.assertEquals(expectedRow.getNumberOfMeasurements(), actualRow.getNumberOfMeasurements());
+                for (Phase phase : expectedHandler.getPhases()) {
+                    if (expectedRow.containsMeasurementInPhase(phase.getPhaseId())) {
+                        Assertions.assertEquals(expectedRow.getMeasurement(phase.getPhaseId()).getValue(),
+                                actualRow.getMeasurement(phase.getPhaseId()).getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Chart grids equal the chart data scanned from the group measurements")
+    public void precomputedChartDataEqualsScannedChartDataTest() {
+        File projectFolder = new File(
+                "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "torrentpier__torrentpier");
+        IDataHandler dataHandler = loadSchemaEvo(projectFolder);
+        ClusteringProfile profile = new ClusteringProfile(new BeatClusteringProfile(30), new EntityClusteringProfile(20));
+
+        ClusteringHandler scanningHandler = new ClusteringHandler();
+        scanningHandler.setDataHandler(dataHandler);
+        scanningHandler.setPrecomputeChartData(false);
+        scanningHandler.clusterData(profile);
+        Assertions.assertEquals(0, scanningHandler.getChartDataFootprint());
+
+        ClusteringHandler precomputedHandler = new ClusteringHandler();
+        precomputedHandler.setDataHandler(dataHandler);
+        precomputedHandler.clusterData(profile);
+        // Only the grid of the shown type is built
+        long footprint = precomputedHandler.getChartDataFootprint();
+        Assertions.assertTrue(footprint > 0);
+
+        for (Constants.MeasurementType measurementType : precomputedHandler.getAvailableMeasurementTypesList()) {
+            for (Constants.AggregationType aggregationType : precomputedHandler.getAvailableAggregationTypesList()) {
+                boolean shown = measurementType == precomputedHandler.getMeasurementType() &&
+                        aggregationType == precomputedHandler.getAggregationType();
+                scanningHandler.generateChartData(measurementType, aggregationType);
+                precomputedHandler.generateChartData(measurementType, aggregationType);
+                // A new grid for every other type, none for the one that is already shown
+                Assertions.assertEquals(shown, precomputedHandler.getChartDataFootprint() == footprint);
+                footprint = precomputedHandler.getChartDataFootprint();
+
+                List<ChartGroupPhaseMeasurement> expectedChartData = scanningHandler.getChartData();
+                List<ChartGroupPhaseMeasurement> actualChartData = precomputedHandler.getChartData();
+                Assertions.assertEquals(expectedChartData.size(), actualChartData.size());
+                for (int i = 0; i < expectedChartData.size(); i++) {
+                    ChartGroupPhaseMeasurement expectedRow = expectedChartData.get(i);
+                    ChartGroupPhaseMeasurement actualRow = actualChartData.get(i);
+                    Assertions.assertEquals(expectedRow.getActivity(), actualRow.getActivity());
+                    Assertions.assertEquals(expectedRow.getNumberOfMeasurements(), actualRow.getNumberOfMeasurements());
+                    for (Phase phase : precomputedHandler.getPhases()) {
+                        int phaseId = phase.getPhaseId();
+                        Assertions.assertEquals(expectedRow.containsMeasurementInPhase(phaseId),
+                                actualRow.containsMeasurementInPhase(phaseId));
+                        Assertions.assertEquals(expectedRow.getValue(phaseId), actualRow.getValue(phaseId));
+                        Assertions.assertEquals(expectedRow.getColor(phaseId), actualRow.getColor(phaseId));
+                        if (expectedRow.containsMeasurementInPhase(phaseId)) {
+                            Assertions.assertEquals(expectedRow.getMeasurement(phaseId).getValue(),
+                                    actualRow.getMeasurement(phaseId).getValue());
+                            Assertions.assertEquals(expectedRow.getMeasurement(phaseId).getColor(),
+                                    actualRow.getMeasurement(phaseId).getColor());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Clusterings above the grid cell limit scan the group measurements")
+    public void chartGridCellLimitTest() {
+        File projectFolder = new File(
+                "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "torrentpier__torrentpier");
+        IDataHandler dataHandler = loadSchemaEvo(projectFolder);
+
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.setMaxChartGridCells(1);
+        clusteringHandler.clusterData(new ClusteringProfile(new BeatClusteringProfile(30), new EntityClusteringProfile(20)));
+        Assertions.assertEquals(0, clusteringHandler.getChartDataFootprint());
+        Assertions.assertFalse(clusteringHandler.getChartData().isEmpty());
+
+        clusteringHandler.setMaxChartGridCells(0);
+        clusteringHandler.clusterData(new ClusteringProfile(new BeatClusteringProfile(30), new EntityClusteringProfile(20)));
+        Assertions.assertTrue(clusteringHandler.getChartDataFootprint() > 0);
+    }
+
+    @Test
+    @DisplayName("Clustering and addTEM leave the TEM values unchanged")
+    public void temValuesUnchangedTest() {
+        File projectFolder = new File(
+                "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "torrentpier__torrentpier");
+        IDataHandler dataHandler = loadSchemaEvo(projectFolder);
+        Map<String, Map<Integer, List<Double>>> expectedValues = getValues(dataHandler);
+
+        ClusteringHandler clusteringHandler = new ClusteringHandler();
+        clusteringHandler.setDataHandler(dataHandler);
+        clusteringHandler.clusterData(new ClusteringProfile(
+                new BeatClusteringProfile(10), new EntityClusteringProfile(8)));
+        for (Constants.MeasurementType measurementType : clusteringHandler.getAvailableMeasurementTypesList()) {
+            for (Constants.AggregationType aggregationType : clusteringHandler.getAvailableAggregationTypesList()) {
+                clusteringHandler.generateChartData(measurementType, aggregationType);
+            }
+        }
+        calculateWithAddTEM(dataHandler, clusteringHandler.getPhases(), clusteringHandler.getEntityGroups());
+
+        Assertions.assertEquals(expectedValues, getValues(dataHandler));
+    }
+
+    @Test
+    @DisplayName("Phase range form and containsBeat")
+    public void phaseRangeTest() {
+        Phase phase = new Phase(0, List.of(3, 4, 5, 6));
+        Assertions.assertTrue(phase.isContiguous());
+        Assertions.assertEquals(3, phase.getFirstBeatId());
+        Assertions.assertEquals(6, phase.getLastBeatId());
+        Assertions.assertTrue(phase.containsBeat(3));
+        Assertions.assertTrue(phase.containsBeat(6));
+        Assertions.assertFalse(phase.containsBeat(2));
+        Assertions.assertFalse(phase.containsBeat(7));
+
+        Phase gappedPhase = new Phase(1, List.of(1, 2, 5));
+        Assertions.assertFalse(gappedPhase.isContiguous());
+        Assertions.assertTrue(gappedPhase.containsBeat(5));
+        Assertions.assertFalse(gappedPhase.containsBeat(3));
+    }
+
+
+    private List<int[]> generatePhaseRanges() {
+        List<int[]> phaseRanges = new ArrayList<>();
+        int beatsPerPhase = NUMBER_OF_BEATS / NUMBER_OF_PHASES;
+        for (int i = 0; i < NUMBER_OF_PHASES; i++) {
+            phaseRanges.add(new int[]{i, i * beatsPerPhase, (i + 1) * beatsPerPhase - 1});
+        }
+        return phaseRanges;
+    }
+
+    private Map<Integer, String[]> generateEntityGroups() {
+        Map<Integer, String[]> entityGroups = new HashMap<>();
+        int entitiesPerGroup = NUMBER_OF_ENTITIES / NUMBER_OF_GROUPS;
+        for (int i = 0; i < NUMBER_OF_GROUPS; i++) {
+            String[] components = new String[entitiesPerGroup];
+            for (int j = 0; j < entitiesPerGroup; j++) {
+                components[j] = "entity_" + (i * entitiesPerGroup + j);
+            }
+            entityGroups.put(i, components);
+        }
+        return entityGroups;
+    }
+
+    /**
+     * entityName -> (beatId -> the values of the TEM's measurements)
+     */
+    private Map<String, Map<Integer, List<Double>>> getValues(IDataHandler dataHandler) {
+        Map<String, Map<Integer, List<Double>>> values = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, TimeEntityMeasurements>> entityTEMs : dataHandler.getEntityNameToTEMMap().entrySet()) {
+            Map<Integer, List<Double>> entityValues = new HashMap<>();
+            for (Map.Entry<Integer, TimeEntityMeasurements> tem : entityTEMs.getValue().entrySet()) {
+                List<Double> temValues = new ArrayList<>();
+                for (IMeasurement measurement : tem.getValue().getMeasurements()) {
+                    temValues.add(measurement.getValue());
+                }
+                entityValues.put(tem.getKey(), temValues);
+            }
+            values.put(entityTEMs.getKey(), entityValues);
+        }
+        return values;
+    }
+
+    private IDataHandler loadSchemaEvo(File projectFolder) {
+        IDataHandler dataHandler = new SchemaEvoLoader(projectFolder).load();
+        dataHandler.setType(Constants.FileType.SCHEMA_EVO);
+        return dataHandler;
+    }
+
+    private void testChartData(List<List<GroupPhaseMeasurement>> expectedGPMs,
+                               ClusteringHandler clusteringHandler,
+                               Constants.MeasurementType measurementType,
+                               Constants.AggregationType aggregationType) {
+        List<ChartGroupPhaseMeasurement> chartData = clusteringHandler.getChartData();
+        Assertions.assertEquals(expectedGPMs.size(), chartData.size());
+
+        for (int i = 0; i < chartData.size(); i++) {
+            ChartGroupPhaseMeasurement chartRow = chartData.get(i);
+            int numberOfMeasurements = 0;
+            for (GroupPhaseMeasurement expectedGPM : expectedGPMs.get(i)) {
+                int index = expectedGPM.containsMeasurementType(measurementType, aggregationType);
+                int phaseId = expectedGPM.getPhase().getPhaseId();
+                if (index == -1) {
+                    Assertions.assertFalse(chartRow.containsMeasurementInPhase(phaseId));
+                    continue;
+                }
+                numberOfMeasurements++;
+                Assertions.assertEquals(expectedGPM.getMeasurementList().get(index).getValue(),
+                        chartRow.getMeasurement(phaseId).getValue());
+            }
+            Assertions.assertEquals(numberOfMeasurements, chartRow.getNumberOfMeasurements());
+        }
+    }
+
+    /**
+     * The non-empty GroupPhaseMeasurements of every group, built TEM by TEM with addTEM.
+     */
+    private List<List<GroupPhaseMeasurement>> calculateWithAddTEM(IDataHandler dataHandler,
+                                                                  List<Phase> phases,
+                                                                  List<EntityGroup> entityGroups) {
+        List<List<GroupPhaseMeasurement>> result = new ArrayList<>();
+        for (EntityGroup group : entityGroups) {
+            List<GroupPhaseMeasurement> groupPhaseMeasurements = new ArrayList<>();
+            for (Phase phase : phases) {
+                GroupPhaseMeasurement groupPhaseMeasurement = new GroupPhaseMeasurement(group, phase);
+                for (Entity entity : group.getGroupComponents()) {
+                    Map<Integer, TimeEntityMeasurements> entityTEMs =
+                            dataHandler.getEntityNameToTEMMap().get(entity.getEntityName());
+                    if (entityTEMs == null) {
+                        continue;
+                    }
+                    for (int beatId : entityTEMs.keySet()) {
+                        if (phase.containsBeat(beatId)) {
+                            groupPhaseMeasurement.addTEM(entityTEMs.get(beatId));
+                        }
+                    }
+                }
+                if (!groupPhaseMeasurement.getMeasurementList().isEmpty()) {
+                    groupPhaseMeasurements.add(groupPhaseMeasurement);
+                }
+            }
+            result.add(groupPhaseMeasurements);
+        }
+        return result;
+    }
+
+    /**
+     * entityGroupId -> (phaseId -> sum of the RAW_VALUE measurements), calculated like the
+     * original aggregation: every phase of every group scans the group's TEMs with List.contains.
+     */
+    private Map<Integer, Map<Integer, Double>> calculateWithListScan(IDataHandler dataHandler,
+                                                                     List<Phase> phases,
+                                                                     List<EntityGroup> entityGroups) {
+        Map<Integer, Map<Integer, Double>> values = new HashMap<>();
+        for (EntityGroup group : entityGroups) {
+            Map<Integer, Double> groupValues = new HashMap<>();
+            for (Phase phase : phases) {
+                boolean found = false;
+                double sum = 0;
+                for (Entity entity : group.getGroupComponents()) {
+                    Map<Integer, TimeEntityMeasurements> entityTEMs =
+                            dataHandler.getEntityNameToTEMMap().get(entity.getEntityName());
+                    if (entityTEMs == null) {
+                        continue;
+                    }
+                    for (int beatId : entityTEMs.keySet()) {
+                        if (phase.getPhaseComponentsIdList().contains(beatId)) {
+                            found = true;
+                            sum += entityTEMs.get(beatId).getMeasurementOfType(
+                                    Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.NO_AGGREGATION);
+                        }
+                    }
+                }
+                if (found) {
+                    groupValues.put(phase.getPhaseId(), sum);
+                }
+            }
+            values.put(group.getEntityGroupId(), groupValues);
+        }
+        return values;
+    }
+}
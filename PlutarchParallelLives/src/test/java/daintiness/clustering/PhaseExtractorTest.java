@@ -0,0 +1,137 @@
+package daintiness.clustering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.data.IDataHandler;
+import daintiness.io.TestUtilities;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+public class PhaseExtractorTest {
+
+    TestUtilities utilities = new TestUtilities();
+    PhaseExtractorFactory factory = new PhaseExtractorFactory();
+
+    @Test
+    @DisplayName("Heap phase extractor produces the same phases as the linear one")
+    public void heapExtractorEqualsLinearExtractorTest() {
+        int[] desiredNumbersOfPhases = {1, 2, 7, 40, 149, 150, 200};
+        double[] changesWeights = {0, 0.5, 0.9, 1};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(150, 40, 0.3, seed);
+
+            for (int desiredNumberOfPhases : desiredNumbersOfPhases) {
+                for (double changesWeight : changesWeights) {
+                    BeatClusteringProfile profile = new BeatClusteringProfile(desiredNumberOfPhases, changesWeight, false);
+
+                    List<Phase> expectedPhases = factory.getPhaseExtractor("AGGLOMERATIVE", profile, dataHandler).clusterData();
+                    List<Phase> actualPhases = factory.getPhaseExtractor("AGGLOMERATIVE_HEAP", profile, dataHandler).clusterData();
+
+                    Assertions.assertEquals(expectedPhases.size(), actualPhases.size());
+                    utilities.testPhases(expectedPhases, actualPhases);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel phase extractors produce the same phases as the serial ones")
+    public void parallelExtractorsEqualSerialExtractorsTest() {
+        int[] desiredNumbersOfPhases = {1, 7, 40};
+        double[] changesWeights = {0, 0.5, 1};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(150, 40, 0.3, seed);
+
+            for (int desiredNumberOfPhases : desiredNumbersOfPhases) {
+                for (double changesWeight : changesWeights) {
+                    BeatClusteringProfile serialProfile = new BeatClusteringProfile(desiredNumberOfPhases, changesWeight, false);
+                    BeatClusteringProfile parallelProfile = new BeatClusteringProfile(desiredNumberOfPhases, changesWeight, false, 4);
+
+                    List<Phase> expectedPhases = factory.getPhaseExtractor("AGGLOMERATIVE", serialProfile, dataHandler).clusterData();
+                    for (String type : new String[]{"AGGLOMERATIVE", "AGGLOMERATIVE_HEAP"}) {
+                        List<Phase> actualPhases = factory.getPhaseExtractor(type, parallelProfile, dataHandler).clusterData();
+
+                        Assertions.assertEquals(expectedPhases.size(), actualPhases.size());
+                        utilities.testPhases(expectedPhases, actualPhases);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cuts of the phase dendrogram equal the clustering into the same number of phases")
+    public void dendrogramCutsEqualExtractorTest() {
+        int[] desiredNumbersOfPhases = {1, 2, 7, 40, 149, 150, 200};
+        double[] changesWeights = {0, 0.5, 1};
+
+        for (long seed = 1; seed <= 3; seed++) {
+            IDataHandler dataHandler = SyntheticData.generate(150, 40, 0.3, seed);
+
+            for (double changesWeight : changesWeights) {
+                BeatClusteringProfile dendrogramProfile = new BeatClusteringProfile(1, changesWeight, false);
+                PhaseDendrogram dendrogram = new PhaseDendrogram(dendrogramProfile, dataHandler);
+                IPhaseExtractor dendrogramExtractor = factory.getPhaseExtractor("AGGLOMERATIVE_HEAP", dendrogramProfile, dataHandler);
+                dendrogramExtractor.setDendrogram(dendrogram);
+                dendrogramExtractor.clusterData();
+                Assertions.assertEquals(149, dendrogram.getNumberOfMerges());
+
+                for (int desiredNumberOfPhases : desiredNumbersOfPhases) {
+                    BeatClusteringProfile profile = new BeatClusteringProfile(desiredNumberOfPhases, changesWeight, false);
+                    Assertions.assertTrue(dendrogram.matches(profile, dataHandler));
+
+                    List<Phase> expectedPhases = factory.getPhaseExtractor("AGGLOMERATIVE", profile, dataHandler).clusterData();
+                    List<Phase> actualPhases = dendrogram.cut(desiredNumberOfPhases);
+
+                    Assertions.assertEquals(expectedPhases.size(), actualPhases.size());
+                    utilities.testPhases(expectedPhases, actualPhases);
+                }
+                Assertions.assertFalse(dendrogram.matches(new BeatClusteringProfile(7, 0.25, false), dataHandler));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Phase extractors report their merges and stop when cancelled")
+    public void extractorsReportProgressAndCancelTest() {
+        IDataHandler dataHandler = SyntheticData.generate(150, 40, 0.3, 1);
+        BeatClusteringProfile profile = new BeatClusteringProfile(10, 0.5, false);
+
+        for (String type : new String[]{"AGGLOMERATIVE", "AGGLOMERATIVE_HEAP"}) {
+            ClusteringMonitor monitor = new ClusteringMonitor();
+            monitor.addMergesNeeded(140);
+            IPhaseExtractor extractor = factory.getPhaseExtractor(type, profile, dataHandler);
+            extractor.setMonitor(monitor);
+            extractor.clusterData();
+
+            Assertions.assertEquals(140, monitor.getMergesDone());
+            Assertions.assertEquals(1.0, monitor.getProgress());
+
+            ClusteringMonitor cancelledMonitor = new ClusteringMonitor();
+            cancelledMonitor.cancel();
+            IPhaseExtractor cancelledExtractor = factory.getPhaseExtractor(type, profile, dataHandler);
+            cancelledExtractor.setMonitor(cancelledMonitor);
+            Assertions.assertThrows(CancellationException.class, cancelledExtractor::clusterData);
+            Assertions.assertEquals(0, cancelledMonitor.getMergesDone());
+        }
+    }
+
+    @Test
+    @DisplayName("Heap phase extractor keeps every beat of a long timeline")
+    public void heapExtractorLongTimelineTest() {
+        int numberOfBeats = 2000;
+        IDataHandler dataHandler = SyntheticData.generate(numberOfBeats, 200, 0.05, numberOfBeats);
+        BeatClusteringProfile profile = new BeatClusteringProfile(20, 0.5, false);
+
+        List<Phase> phases = factory.getPhaseExtractor("AGGLOMERATIVE_HEAP", profile, dataHandler).clusterData();
+
+        Assertions.assertEquals(20, phases.size());
+        Assertions.assertEquals(numberOfBeats,
+                phases.stream().mapToInt(phase -> phase.getPhaseComponents().size()).sum());
+    }
+}
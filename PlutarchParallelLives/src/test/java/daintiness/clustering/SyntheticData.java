@@ -0,0 +1,62 @@
+package daintiness.clustering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import daintiness.data.DataHandler;
+import daintiness.data.IDataHandler;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.MeasurementFactory;
+import daintiness.utilities.Constants;
+
+/**
+ * Generates reproducible synthetic timelines for the clustering tests.
+ * Values are small integers so that many distance ties occur.
+ */
+public class SyntheticData {
+
+    public static IDataHandler generate(int numberOfBeats, int numberOfEntities, double density, long seed) {
+        Random random = new Random(seed);
+        MeasurementFactory factory = new MeasurementFactory();
+
+        List<Beat> timeline = new ArrayList<>();
+        for (int i = 0; i < numberOfBeats; i++) {
+            timeline.add(new Beat(i, String.valueOf(i), null));
+        }
+
+        List<Entity> population = new ArrayList<>();
+        List<TimeEntityMeasurements> measurements = new ArrayList<>();
+        for (int e = 0; e < numberOfEntities; e++) {
+            int birth = random.nextInt(numberOfBeats);
+            int death = birth + random.nextInt(numberOfBeats - birth);
+            boolean isAlive = random.nextBoolean();
+            Entity entity = new Entity(e, "entity_" + e, new LifeDetails(birth, death, isAlive));
+            population.add(entity);
+
+            double previousValue = 0;
+            for (int b = birth; b <= death; b++) {
+                if (b != birth && random.nextDouble() > density) {
+                    continue;
+                }
+                double value = random.nextInt(4);
+                List<IMeasurement> measurementList = new ArrayList<>();
+                measurementList.add(factory.getRawMeasurement(value, Constants.AggregationType.NO_AGGREGATION));
+                if (b != birth) {
+                    measurementList.add(factory.getDeltaMeasurement(value - previousValue, Constants.AggregationType.NO_AGGREGATION));
+                }
+                previousValue = value;
+                measurements.add(new TimeEntityMeasurements(entity, timeline.get(b), measurementList));
+            }
+        }
+
+        DataHandler dataHandler = new DataHandler();
+        dataHandler.setType(Constants.FileType.TSV);
+        dataHandler.init(timeline, population, measurements);
+        return dataHandler;
+    }
+}
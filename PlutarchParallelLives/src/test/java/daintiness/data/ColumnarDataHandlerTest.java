@@ -0,0 +1,226 @@
+package daintiness.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.EntityClusteringProfile;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.io.input.schemaevo.SchemaEvoLoader;
+import daintiness.maincontroller.MainController;
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ColumnarDataHandlerTest {
+    File biosqlFile = new File(
+            "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "biosql");
+    File torrentpierFile = new File(
+            "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "torrentpier__torrentpier");
+
+    private static final int FOOTPRINT_LOADS = 10;
+
+    DataHandlerFactory factory = new DataHandlerFactory();
+
+
+    @Test
+    @DisplayName("Columnar dataHandler equals simple dataHandler on biosql")
+    public void biosqlColumnarEqualsSimpleTest() {
+        testColumnarEqualsSimple(biosqlFile);
+    }
+
+    @Test
+    @DisplayName("Columnar dataHandler equals simple dataHandler on torrentpier")
+    public void torrentpierColumnarEqualsSimpleTest() {
+        testColumnarEqualsSimple(torrentpierFile);
+    }
+
+    @Test
+    @DisplayName("Columnar dataHandler columns are a fraction of the simple dataHandler")
+    public void columnarMemoryFootprintTest() {
+        testMemoryFootprint(biosqlFile);
+        testMemoryFootprint(torrentpierFile);
+    }
+
+    @Test
+    @DisplayName("Clustering of a columnar load equals the clustering of a simple load")
+    public void columnarClusteringEqualsSimpleTest() {
+        MainController simpleController = new MainController();
+        simpleController.setColumnarData(false);
+        simpleController.load(torrentpierFile);
+        MainController columnarController = new MainController();
+        columnarController.load(torrentpierFile);
+
+        Assertions.assertTrue(columnarController.getDataHandler() instanceof ColumnarDataHandler);
+        Assertions.assertFalse(simpleController.getDataHandler() instanceof ColumnarDataHandler);
+
+        for (MainController controller : new MainController[]{simpleController, columnarController}) {
+            controller.fitDataToGroupPhaseMeasurements(new ClusteringProfile(
+                    new BeatClusteringProfile(40), new EntityClusteringProfile(20)));
+            controller.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+        }
+
+        Assertions.assertEquals(simpleController.getPhases().toString(), columnarController.getPhases().toString());
+        Assertions.assertEquals(simpleController.getEntityGroups().size(), columnarController.getEntityGroups().size());
+        for (int i = 0; i < simpleController.getEntityGroups().size(); i++) {
+            Assertions.assertEquals(simpleController.getEntityGroups().get(i).getGroupComponentsNames(),
+                    columnarController.getEntityGroups().get(i).getGroupComponentsNames());
+        }
+        for (int i = 0; i < simpleController.getChartData().size(); i++) {
+            ChartGroupPhaseMeasurement expected = simpleController.getChartData().get(i);
+            ChartGroupPhaseMeasurement actual = columnarController.getChartData().get(i);
+            for (Phase phase : simpleController.getPhases()) {
+                Assertions.assertEquals(expected.containsMeasurementInPhase(phase.getPhaseId()),
+                        actual.containsMeasurementInPhase(phase.getPhaseId()));
+                if (expected.containsMeasurementInPhase(phase.getPhaseId())) {
+                    Assertions.assertEquals(expected.getValue(phase.getPhaseId()), actual.getValue(phase.getPhaseId()), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Columnar dataHandler skips TEMs outside the population and the timeline")
+    public void unknownEntityAndBeatTest() {
+        List<Beat> timeline = new ArrayList<>();
+        timeline.add(new Beat(0, "0", null));
+        timeline.add(new Beat(1, "1", null));
+        List<Entity> population = new ArrayList<>();
+        population.add(new Entity(0, "known", new LifeDetails(0, 1, true, 2)));
+        Entity unknown = new Entity(1, "unknown", new LifeDetails(0, 1, true, 2));
+
+        List<TimeEntityMeasurements> measurementsList = new ArrayList<>();
+        measurementsList.add(createTEM(population.get(0), timeline.get(0), 1));
+        measurementsList.add(createTEM(unknown, timeline.get(1), 2));
+        measurementsList.add(createTEM(population.get(0), new Beat(5, "5", null), 3));
+
+        ColumnarDataHandler columnarDataHandler = (ColumnarDataHandler) factory.getDataHandler("COLUMNAR_DATA_HANDLER");
+        columnarDataHandler.init(timeline, population, measurementsList);
+
+        Assertions.assertEquals(1, columnarDataHandler.getNumberOfTEMs());
+        Assertions.assertEquals(1, columnarDataHandler.getTem(population.get(0), timeline.get(0)).getMeasurements().get(0).getValue());
+        Assertions.assertNull(columnarDataHandler.getEntityNameToTEMMap().get("unknown"));
+    }
+
+
+    private TimeEntityMeasurements createTEM(Entity entity, Beat beat, double value) {
+        List<IMeasurement> measurements = new ArrayList<>();
+        measurements.add(new Measurement(value, Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.NO_AGGREGATION));
+        return new TimeEntityMeasurements(entity, beat, measurements);
+    }
+
+    private void testColumnarEqualsSimple(File projectFolder) {
+        IDataHandler simpleDataHandler = new SchemaEvoLoader(projectFolder).load();
+        simpleDataHandler.setType(Constants.FileType.SCHEMA_EVO);
+        IDataHandler columnarDataHandler = createColumnarDataHandler(simpleDataHandler);
+
+        Assertions.assertEquals(simpleDataHandler.getNumberOfTEMs(), columnarDataHandler.getNumberOfTEMs());
+        Assertions.assertEquals(simpleDataHandler.getTimeEntityMeasurementAsString(),
+                columnarDataHandler.getTimeEntityMeasurementAsString());
+
+        for (Entity entity : simpleDataHandler.getPopulation()) {
+            Assertions.assertEquals(entity, columnarDataHandler.getEntityByName(entity.getEntityName()));
+            Assertions.assertEquals(entity, simpleDataHandler.getEntityById(entity.getEntityId()));
+            Assertions.assertEquals(entity, columnarDataHandler.getEntityById(entity.getEntityId()));
+            for (Beat beat : simpleDataHandler.getTimeline()) {
+                testTEMs(simpleDataHandler.getTem(entity, beat), columnarDataHandler.getTem(entity, beat));
+            }
+        }
+
+        Map<String, Map<Integer, TimeEntityMeasurements>> expectedEntityMap = simpleDataHandler.getEntityNameToTEMMap();
+        Map<String, Map<Integer, TimeEntityMeasurements>> actualEntityMap = columnarDataHandler.getEntityNameToTEMMap();
+        Assertions.assertEquals(expectedEntityMap.keySet(), actualEntityMap.keySet());
+        for (String entityName : expectedEntityMap.keySet()) {
+            Assertions.assertEquals(expectedEntityMap.get(entityName).keySet(), actualEntityMap.get(entityName).keySet());
+            for (Map.Entry<Integer, TimeEntityMeasurements> entry : actualEntityMap.get(entityName).entrySet()) {
+                testTEMs(expectedEntityMap.get(entityName).get(entry.getKey()), entry.getValue());
+            }
+        }
+
+        Map<Integer, Map<String, TimeEntityMeasurements>> expectedBeatMap = simpleDataHandler.getBeatIdToTEMMap();
+        Map<Integer, Map<String, TimeEntityMeasurements>> actualBeatMap = columnarDataHandler.getBeatIdToTEMMap();
+        Assertions.assertEquals(expectedBeatMap.keySet(), actualBeatMap.keySet());
+        for (Integer beatId : expectedBeatMap.keySet()) {
+            Assertions.assertEquals(expectedBeatMap.get(beatId).keySet(), actualBeatMap.get(beatId).keySet());
+            for (Map.Entry<String, TimeEntityMeasurements> entry : actualBeatMap.get(beatId).entrySet()) {
+                testTEMs(expectedBeatMap.get(beatId).get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private void testTEMs(TimeEntityMeasurements expectedTEM, TimeEntityMeasurements actualTEM) {
+        Assertions.assertEquals(expectedTEM.getEntity(), actualTEM.getEntity());
+        Assertions.assertEquals(expectedTEM.getBeat(), actualTEM.getBeat());
+        if (expectedTEM.getMeasurements() == null) {
+            Assertions.assertNull(actualTEM.getMeasurements());
+            return;
+        }
+
+        Assertions.assertEquals(expectedTEM.getMeasurements().size(), actualTEM.getMeasurements().size());
+        for (IMeasurement expectedMeasurement : expectedTEM.getMeasurements()) {
+            int index = actualTEM.containsMeasurementType(
+                    expectedMeasurement.getMeasurementType(), expectedMeasurement.getAggregationType());
+            Assertions.assertNotEquals(-1, index);
+            Assertions.assertEquals(expectedMeasurement.getValue(), actualTEM.getMeasurements().get(index).getValue());
+        }
+    }
+
+    private void testMemoryFootprint(File projectFolder) {
+        ColumnarDataHandler columnarDataHandler = createColumnarDataHandler(new SchemaEvoLoader(projectFolder).load());
+
+        // The heap that several loads free, so the allocations of other threads are a small part of the measurement
+        List<IDataHandler> simpleDataHandlers = new ArrayList<>();
+        for (int i = 0; i < FOOTPRINT_LOADS; i++) {
+            simpleDataHandlers.add(new SchemaEvoLoader(projectFolder).load());
+        }
+        long loadedMemory = usedMemory();
+        simpleDataHandlers.clear();
+        long simpleBytes = (loadedMemory - usedMemory()) / FOOTPRINT_LOADS;
+
+        // The columns hold a cell in a few primitives, the simple dataHandler in several objects and map entries
+        Assertions.assertTrue(columnarDataHandler.getColumnsFootprint() > 0);
+        Assertions.assertTrue(columnarDataHandler.getColumnsFootprint() * 3 < simpleBytes,
+                projectFolder.getName() + ": columns " + columnarDataHandler.getColumnsFootprint() +
+                " bytes, simple dataHandler " + simpleBytes + " bytes");
+    }
+
+    /**
+     * @return the least used heap of several full collections, as objects that are only reachable
+     * through finalizable or reference-queued objects are freed by a later collection
+     */
+    private long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            System.runFinalization();
+            usedMemory = Math.min(usedMemory, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return usedMemory;
+    }
+
+    private ColumnarDataHandler createColumnarDataHandler(IDataHandler dataHandler) {
+        List<TimeEntityMeasurements> measurementsList = new ArrayList<>();
+        for (Map<Integer, TimeEntityMeasurements> entityTEMs : dataHandler.getEntityNameToTEMMap().values()) {
+            measurementsList.addAll(entityTEMs.values());
+        }
+
+        ColumnarDataHandler columnarDataHandler =
+                (ColumnarDataHandler) factory.getDataHandler("COLUMNAR_DATA_HANDLER");
+        columnarDataHandler.setType(dataHandler.getType());
+        columnarDataHandler.init(dataHandler.getTimeline(), dataHandler.getPopulation(), measurementsList);
+        return columnarDataHandler;
+    }
+}
@@ -0,0 +1,46 @@
+package daintiness.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EntityLookupTest {
+
+    private final DataHandlerFactory factory = new DataHandlerFactory();
+
+
+    @Test
+    @DisplayName("Entity lookups by name and id on 10,000 entities")
+    public void entityLookupTest() {
+        int numberOfEntities = 10_000;
+        List<Beat> timeline = new ArrayList<>();
+        timeline.add(new Beat(0, null, null));
+        List<Entity> population = new ArrayList<>();
+        for (int entityId = 0; entityId < numberOfEntities; entityId++) {
+            population.add(new Entity(entityId, "entity_" + entityId, new LifeDetails(0, 0, true, 1)));
+        }
+        List<TimeEntityMeasurements> measurements = new ArrayList<>();
+
+        for (String dataHandlerType : new String[]{"SIMPLE_DATA_HANDLER", "COLUMNAR_DATA_HANDLER"}) {
+            IDataHandler dataHandler = factory.getDataHandler(dataHandlerType);
+            dataHandler.init(timeline, population, measurements);
+
+            for (Entity entity : population) {
+                Assertions.assertSame(entity, dataHandler.getEntityByName(entity.getEntityName()));
+                Assertions.assertSame(entity, dataHandler.getEntityById(entity.getEntityId()));
+            }
+
+            Assertions.assertNull(dataHandler.getEntityByName("missing"));
+            Assertions.assertNull(dataHandler.getEntityById(-1));
+            Assertions.assertNull(dataHandler.getEntityById(numberOfEntities));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package daintiness.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.models.Beat;
+import daintiness.models.Entity;
+import daintiness.models.LifeDetails;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.NumberFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class TEMSerializerTest {
+
+    private final DataHandlerFactory factory = new DataHandlerFactory();
+
+
+    @Test
+    @DisplayName("Streamed TEM serialization equals the String serialization")
+    public void streamedEqualsStringTest() throws IOException {
+        for (Constants.FileType type : new Constants.FileType[]{Constants.FileType.TSV, Constants.FileType.SCHEMA_EVO}) {
+            IDataHandler dataHandler = createGrid(300, 200, 50, type);
+
+            StringWriter writer = new StringWriter();
+            dataHandler.writeTimeEntityMeasurements(writer);
+            String expected = serializeAsBefore(dataHandler);
+            Assertions.assertEquals(expected, dataHandler.getTimeEntityMeasurementAsString());
+            Assertions.assertEquals(expected, writer.toString());
+        }
+    }
+
+    /**
+     * Grid of entities that live for cellsPerEntity consecutive beats. The values are mostly
+     * small counts, with fractions, values with grouping separators and NaN.
+     */
+    private IDataHandler createGrid(int numberOfEntities, int numberOfBeats, int cellsPerEntity, Constants.FileType type) {
+        Constants.AggregationType aggregationType = (type == Constants.FileType.SCHEMA_EVO) ?
+                Constants.AggregationType.SUM_OF_ALL : Constants.AggregationType.NO_AGGREGATION;
+
+        List<Beat> timeline = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2010, 1, 1, 0, 0);
+        for (int beatId = 0; beatId < numberOfBeats; beatId++) {
+            timeline.add(new Beat(beatId, null, (beatId % 2 == 0) ? date.plusHours(beatId) : null));
+        }
+
+        Random random = new Random(numberOfEntities);
+        List<Entity> population = new ArrayList<>();
+        List<TimeEntityMeasurements> measurements = new ArrayList<>();
+        for (int entityId = 0; entityId < numberOfEntities; entityId++) {
+            int birth = (entityId * 7) % (numberOfBeats - cellsPerEntity + 1);
+            int death = birth + cellsPerEntity - 1;
+            Entity entity = new Entity(entityId, "entity_" + entityId,
+                    new LifeDetails(birth, death, death == numberOfBeats - 1, cellsPerEntity));
+            population.add(entity);
+
+            for (int beatId = birth; beatId <= death; beatId++) {
+                double value;
+                int kind = random.nextInt(100);
+                if (kind < 85) {
+                    value = random.nextInt(20);
+                } else if (kind < 93) {
+                    value = random.nextInt(2000) / 8.0;
+                } else if (kind < 98) {
+                    value = random.nextInt(5_000_000) - 1_000_000;
+                } else {
+                    value = Double.NaN;
+                }
+                List<IMeasurement> measurementList = new ArrayList<>();
+                measurementList.add(new Measurement(value, Constants.MeasurementType.RAW_VALUE, aggregationType));
+                measurements.add(new TimeEntityMeasurements(entity, timeline.get(beatId), measurementList));
+            }
+        }
+
+        IDataHandler dataHandler = factory.getDataHandler("SIMPLE_DATA_HANDLER");
+        dataHandler.setType(type);
+        dataHandler.init(timeline, population, measurements);
+        return dataHandler;
+    }
+
+    /**
+     * The serialization of the DataHandler before the streaming serializer, as the reference output.
+     */
+    private String serializeAsBefore(IDataHandler dataHandler) {
+        String timelineString = "";
+        int i = 0;
+        for (Beat beat : dataHandler.getTimeline()) {
+            timelineString = timelineString.concat(beat.getDateAsString());
+            if (i < dataHandler.getTimeline().size() - 1) {
+                timelineString = timelineString.concat("\t");
+            } else {
+                timelineString = timelineString.concat("\n");
+            }
+            i++;
+        }
+
+        Constants.AggregationType aggregationType = (dataHandler.getType() == Constants.FileType.SCHEMA_EVO) ?
+                Constants.AggregationType.SUM_OF_ALL : Constants.AggregationType.NO_AGGREGATION;
+        StringBuilder temSB = new StringBuilder();
+        for (Entity entity : dataHandler.getPopulation()) {
+            String entityName = entity.getEntityName();
+            int birth = entity.getLifeDetails().getBirthBeatId();
+            int death = entity.getLifeDetails().getDeathBeatId();
+            int status = entity.getLifeDetails().isAlive() ? 1 : 0;
+            temSB.append(String.format("{%s,%d,%d,%d}\t", entityName, birth, death, status));
+
+            for (Beat beat : dataHandler.getTimeline()) {
+                double value = Double.NaN;
+                if (dataHandler.getEntityNameToTEMMap().containsKey(entityName) &&
+                        dataHandler.getEntityNameToTEMMap().get(entityName).containsKey(beat.getBeatId())) {
+                    int measurementIndex = dataHandler.getTem(entity, beat)
+                            .containsMeasurementType(Constants.MeasurementType.RAW_VALUE, aggregationType);
+                    if (measurementIndex != -1) {
+                        value = dataHandler.getTem(entity, beat).getMeasurements().get(measurementIndex).getValue();
+                    }
+                }
+                if (!Double.isNaN(value)) {
+                    temSB.append(NumberFormat.getInstance(Locale.US).format(value));
+                }
+                temSB.append("\t");
+            }
+            temSB.append("\n");
+        }
+        return "{name, birthId, deathId, status}\t".concat(timelineString).concat(temSB.toString());
+    }
+}
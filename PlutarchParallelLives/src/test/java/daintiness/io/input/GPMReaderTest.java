@@ -0,0 +1,143 @@
+package daintiness.io.input;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daintiness.io.FileHandler;
+import daintiness.io.output.FastNumberFormatter;
+import daintiness.utilities.Constants;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+public class GPMReaderTest {
+
+    @TempDir
+    File temporaryFolder;
+
+    @Test
+    @DisplayName("gpm.tsv with grouping separators, fractions and NaN")
+    public void groupedValuesTest() throws IOException {
+        File projectFolder = new File(temporaryFolder, "project");
+        Assertions.assertTrue(projectFolder.mkdir());
+        try (Writer writer = new FileWriter(new File(projectFolder, "gpm.tsv"))) {
+            writer.write("{0,0,4}\t{1,5,9}\t{2,10,12}\r\n");
+            writer.write("0\t{a,b}\t{0:1,234.5,1:2,2:-1,234,567}\r\n");
+            writer.write("\n");
+            writer.write("7\t{c}\t{1:0.125,2:NaN}\n");
+            writer.write("3\t{d,e,f}\t{}");
+        }
+
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setGivenFile(projectFolder, Constants.FileType.TEM_GPM);
+
+        List<int[]> phases = fileHandler.getPhasesData();
+        Assertions.assertEquals(3, phases.size());
+        Assertions.assertArrayEquals(new int[]{1, 5, 9}, phases.get(1));
+
+        Map<Integer, String[]> entityGroups = fileHandler.getEntityGroupData();
+        Assertions.assertArrayEquals(new String[]{"a", "b"}, entityGroups.get(0));
+        Assertions.assertArrayEquals(new String[]{"c"}, entityGroups.get(7));
+        Assertions.assertArrayEquals(new String[]{"d", "e", "f"}, entityGroups.get(3));
+
+        Map<Integer, Map<Integer, Double>> measurements = fileHandler.getLoadedMeasurementMap();
+        Assertions.assertEquals(Map.of(0, 1234.5, 1, 2.0, 2, -1234567.0), measurements.get(0));
+        Assertions.assertEquals(0.125, measurements.get(7).get(1));
+        Assertions.assertTrue(measurements.get(7).get(2).isNaN());
+        Assertions.assertTrue(measurements.get(3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Malformed gpm.tsv row")
+    public void malformedRowTest() throws IOException {
+        File gpmFile = new File(temporaryFolder, "gpm.tsv");
+        try (Writer writer = new FileWriter(gpmFile)) {
+            writer.write("{0,0,4}\n");
+            writer.write("0\t{a}\t{0:1,x:2}\n");
+        }
+
+        GPMReader.RowConsumer ignore = new GPMReader.RowConsumer() {
+            @Override
+            public void phase(int phaseId, int firstBeatId, int lastBeatId) {
+            }
+
+            @Override
+            public void entityGroup(int entityGroupId, String[] componentNames, int[] phaseIds, double[] values,
+                                    int numberOfMeasurements) {
+            }
+        };
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GPMReader(gpmFile).read(ignore));
+    }
+
+    @Test
+    @DisplayName("Import of a gpm.tsv with 1,000 groups x 100 phases")
+    public void largeProjectImportTest() throws IOException {
+        int numberOfGroups = 1000;
+        int numberOfPhases = 100;
+        File projectFolder = new File(temporaryFolder, "large");
+        Assertions.assertTrue(projectFolder.mkdir());
+        File gpmFile = new File(projectFolder, "gpm.tsv");
+        Map<Integer, Map<Integer, Double>> expected = writeGPMFile(gpmFile, numberOfGroups, numberOfPhases, 17);
+
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setGivenFile(projectFolder, Constants.FileType.TEM_GPM);
+
+        Assertions.assertEquals(numberOfPhases, fileHandler.getPhasesData().size());
+        Assertions.assertEquals(numberOfGroups, fileHandler.getEntityGroupData().size());
+        Assertions.assertEquals(expected, fileHandler.getLoadedMeasurementMap());
+    }
+
+
+    /**
+     * Writes a gpm.tsv like IClusteringHandler.writeGPM, with counts, fractions and values of 1000 or more.
+     * @return the measurements of the written groups
+     */
+    private Map<Integer, Map<Integer, Double>> writeGPMFile(File file, int numberOfGroups, int numberOfPhases, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        FastNumberFormatter formatter = new FastNumberFormatter(Locale.US);
+        Map<Integer, Map<Integer, Double>> measurements = new HashMap<>();
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            for (int phaseId = 0; phaseId < numberOfPhases; phaseId++) {
+                writer.write((phaseId == 0 ? "{" : "\t{") + phaseId + "," + (phaseId * 4) + "," + (phaseId * 4 + 3) + "}");
+            }
+            writer.write("\n");
+
+            for (int groupId = 0; groupId < numberOfGroups; groupId++) {
+                writer.write(groupId + "\t{table_" + (2 * groupId) + ",table_" + (2 * groupId + 1) + "}\t{");
+                Map<Integer, Double> groupMeasurements = new HashMap<>();
+                int birth = random.nextInt(numberOfPhases / 2);
+                for (int phaseId = birth; phaseId < numberOfPhases; phaseId++) {
+                    int kind = random.nextInt(100);
+                    double value;
+                    if (kind < 80) {
+                        value = random.nextInt(30);
+                    } else if (kind < 95) {
+                        value = random.nextInt(8000) / 8.0;
+                    } else {
+                        value = random.nextInt(2_000_000);
+                    }
+                    if (phaseId > birth) {
+                        writer.write(",");
+                    }
+                    writer.write(phaseId + ":");
+                    formatter.format(value, writer);
+                    groupMeasurements.put(phaseId, value);
+                }
+                writer.write("}\n");
+                measurements.put(groupId, groupMeasurements);
+            }
+        }
+        return measurements;
+    }
+}
@@ -0,0 +1,147 @@
+package daintiness.io.input;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daintiness.data.IDataHandler;
+import daintiness.models.Entity;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.utilities.Constants;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+public class StreamingLoaderTest {
+
+    private final String resources = "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS;
+
+    @TempDir
+    File temporaryFolder;
+
+    @Test
+    @DisplayName("FastDoubleParser equals NumberFormat")
+    public void fastDoubleParserEqualsNumberFormatTest() throws ParseException {
+        String[] cells = {"0", "-0", "7", "-7", "007", "1.5", "-1.25", "0.1", "0.3", "123456.789", "3.141592653589793",
+                "123456789012345", "1234567890123456", "12345678901234567890", "0.0000000000000000000001",
+                "0.00000000000000000000001", "1,234.5", "1e5", "2E-3", "5.", ".5", "12abc", "NaN", "-", "1.2.3"};
+
+        NumberFormat format = NumberFormat.getInstance(Locale.US);
+        FastDoubleParser parser = new FastDoubleParser(Locale.US);
+        for (String cell : cells) {
+            double expected;
+            try {
+                expected = format.parse(cell).doubleValue();
+            } catch (ParseException e) {
+                expected = -Double.MIN_NORMAL;
+            }
+            Assertions.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(parser.parse(cell)), cell);
+        }
+
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            String cell = String.format(Locale.US, "%." + random.nextInt(8) + "f", (random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(9)));
+            Assertions.assertEquals(format.parse(cell).doubleValue(), parser.parse(cell), cell);
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming loader equals SimpleLoader on the test files")
+    public void streamingLoaderEqualsSimpleLoaderTest() {
+        testLoadersAreEqual(new SimpleLoader(new File(resources + "test_data.csv")),
+                new StreamingSimpleLoader(new File(resources + "test_data.csv")));
+
+        String[] tsvFiles = {"test_data.tsv",
+                "converted_data" + Constants.FS + "test_data.tsv",
+                "converted_data" + Constants.FS + "schema_evo_mock_data.tsv",
+                "projects" + Constants.FS + "biosql_without_clustering" + Constants.FS + "tem.tsv"};
+        for (String tsvFile : tsvFiles) {
+            testLoadersAreEqual(new SimpleLoader(new File(resources + tsvFile), "\t"),
+                    new StreamingSimpleLoader(new File(resources + tsvFile), "\t"));
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming loader on a gapminder-style TSV")
+    public void streamingLoaderGapminderTest() throws IOException {
+        File tsvFile = new File(temporaryFolder, "gapminder.tsv");
+        writeGapminderFile(tsvFile, 500, 221, 11);
+
+        IDataHandler expected = new SimpleLoader(tsvFile, "\t").load();
+        IDataHandler actual = new StreamingSimpleLoader(tsvFile, "\t").load();
+
+        testDataHandlersAreEqual(expected, actual);
+    }
+
+
+    private void writeGapminderFile(File file, int rows, int years, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("country");
+            for (int year = 0; year < years; year++) {
+                writer.write("\t" + (1800 + year));
+            }
+            writer.write("\n");
+
+            for (int row = 0; row < rows; row++) {
+                writer.write(row % 50 == 0 ? "Country " + row + ", Rep." : "country_" + row);
+                int birth = random.nextInt(years / 2);
+                int death = years - random.nextInt(years / 4);
+                for (int year = 0; year < years; year++) {
+                    writer.write("\t");
+                    if (year >= birth && year < death && random.nextDouble() > 0.1) {
+                        double value = random.nextDouble() * Math.pow(10, random.nextInt(6));
+                        writer.write(String.format(Locale.US, "%." + random.nextInt(4) + "f", value));
+                    }
+                }
+                writer.write(row % 2 == 0 ? "\n" : "\r\n");
+            }
+        }
+    }
+
+    private void testLoadersAreEqual(ILoader expectedLoader, ILoader actualLoader) {
+        testDataHandlersAreEqual(expectedLoader.load(), actualLoader.load());
+    }
+
+    private void testDataHandlersAreEqual(IDataHandler expected, IDataHandler actual) {
+        Assertions.assertEquals(expected.getTimeline().size(), actual.getTimeline().size());
+        for (int i = 0; i < expected.getTimeline().size(); i++) {
+            Assertions.assertEquals(expected.getTimeline().get(i).getRawDate(), actual.getTimeline().get(i).getRawDate());
+            Assertions.assertEquals(expected.getTimeline().get(i).getDate(), actual.getTimeline().get(i).getDate());
+        }
+
+        List<Entity> expectedPopulation = expected.getPopulation();
+        List<Entity> actualPopulation = actual.getPopulation();
+        Assertions.assertEquals(expectedPopulation.size(), actualPopulation.size());
+        for (int i = 0; i < expectedPopulation.size(); i++) {
+            Assertions.assertEquals(expectedPopulation.get(i).getEntityName(), actualPopulation.get(i).getEntityName());
+            Assertions.assertEquals(expectedPopulation.get(i).getLifeDetails().getBirthBeatId(),
+                    actualPopulation.get(i).getLifeDetails().getBirthBeatId());
+            Assertions.assertEquals(expectedPopulation.get(i).getLifeDetails().getDeathBeatId(),
+                    actualPopulation.get(i).getLifeDetails().getDeathBeatId());
+        }
+
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+        for (String entityName : expected.getEntityNameToTEMMap().keySet()) {
+            Map<Integer, TimeEntityMeasurements> expectedTEMs = expected.getEntityNameToTEMMap().get(entityName);
+            Map<Integer, TimeEntityMeasurements> actualTEMs = actual.getEntityNameToTEMMap().get(entityName);
+            Assertions.assertEquals(expectedTEMs.keySet(), actualTEMs.keySet());
+            for (Integer beatId : expectedTEMs.keySet()) {
+                for (Constants.MeasurementType measurementType : Constants.MeasurementType.values()) {
+                    Assertions.assertEquals(
+                            expectedTEMs.get(beatId).getMeasurementOfType(measurementType, Constants.AggregationType.NO_AGGREGATION),
+                            actualTEMs.get(beatId).getMeasurementOfType(measurementType, Constants.AggregationType.NO_AGGREGATION));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package daintiness.io.input.schemaevo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daintiness.data.IDataHandler;
+import daintiness.io.input.LoaderFactory;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.utilities.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class MappedTransitionsTest {
+
+    private final String resources = "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS;
+    private final File torrentpierResults = new File(resources + "torrentpier__torrentpier" + Constants.FS + "results");
+
+    @TempDir
+    File temporaryFolder;
+
+    @Test
+    @DisplayName("Memory-mapped transitions equal the CsvReader transitions")
+    public void mappedTransitionsEqualCsvTransitionsTest() {
+        String[] projects = {"biosql", "torrentpier__torrentpier", "schema_evo_mock_data", "RefactoringTestData"};
+        for (String project : projects) {
+            File projectFolder = new File(resources + project);
+
+            IDataHandler expected = new SchemaEvoLoader(projectFolder).load();
+            IDataHandler actual = new SchemaEvoLoader(projectFolder, true).load();
+
+            testDataHandlersAreEqual(expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("Memory-mapped transitions with irregular lines")
+    public void mappedTransitionsIrregularLinesTest() throws IOException {
+        File projectFolder = createProject("irregular", irregularTransitions());
+
+        testDataHandlersAreEqual(new SchemaEvoLoader(projectFolder).load(), new SchemaEvoLoader(projectFolder, true).load());
+    }
+
+    @Test
+    @DisplayName("Line-aligned chunks of transitions.csv")
+    public void lineAlignedChunksTest() throws IOException {
+        File projectFolder = createProject("chunks", irregularTransitions());
+        File transitionsFile = new File(projectFolder, "results" + Constants.FS + "transitions.csv");
+        MappedTransitionsReader reader = new MappedTransitionsReader(transitionsFile, new SchemaEvoLoader(projectFolder).load().getPopulation());
+
+        List<String> expectedChanges = new ArrayList<>();
+        reader.read((beatId, entityIndex, transactionType) -> expectedChanges.add(beatId + " " + entityIndex + " " + transactionType));
+
+        int[] numbersOfChunks = {2, 3, 7, 16, 61, 100, 1000, 100000};
+        for (int numberOfChunks : numbersOfChunks) {
+            List<MappedTransitionsReader.Chunk> chunks = reader.split(numberOfChunks);
+            Assertions.assertEquals(numberOfChunks, chunks.size());
+
+            List<String> actualChanges = new ArrayList<>();
+            for (MappedTransitionsReader.Chunk chunk : chunks) {
+                reader.read(chunk, (beatId, entityIndex, transactionType) -> actualChanges.add(beatId + " " + entityIndex + " " + transactionType));
+            }
+            Assertions.assertEquals(expectedChanges, actualChanges, numberOfChunks + " chunks");
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel SchemaEvo loading equals the serial loading")
+    public void parallelLoadingEqualsSerialLoadingTest() throws IOException {
+        List<File> projectFolders = new ArrayList<>();
+        for (String project : new String[]{"biosql", "torrentpier__torrentpier", "schema_evo_mock_data", "RefactoringTestData"}) {
+            projectFolders.add(new File(resources + project));
+        }
+        projectFolders.add(createProject("irregular", irregularTransitions()));
+
+        for (File projectFolder : projectFolders) {
+            IDataHandler expected = new SchemaEvoLoader(projectFolder).load();
+            for (int parallelism : new int[]{2, 4, 7}) {
+                IDataHandler actual = new SchemaEvoLoader(projectFolder, true, parallelism).load();
+                testDataHandlersAreEqual(expected, actual);
+                Assertions.assertEquals(expected.getTimeEntityMeasurementAsString(), actual.getTimeEntityMeasurementAsString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("LoaderFactory loads SchemaEvo projects with and without the memory-mapped reader")
+    public void loaderFactoryMemoryMappedSwitchTest() {
+        File projectFolder = new File(resources + "biosql");
+        LoaderFactory factory = new LoaderFactory();
+
+        IDataHandler mapped = factory.getLoader(Constants.FileType.SCHEMA_EVO, projectFolder, 2, true).load();
+        IDataHandler csv = factory.getLoader(Constants.FileType.SCHEMA_EVO, projectFolder, 2, false).load();
+
+        testDataHandlersAreEqual(mapped, csv);
+        Assertions.assertEquals(mapped.getTimeEntityMeasurementAsString(), csv.getTimeEntityMeasurementAsString());
+    }
+
+    @Test
+    @DisplayName("Memory-mapped and parallel loading of a large transitions.csv")
+    public void mappedTransitionsLargeFileTest() throws IOException {
+        List<String> lines = Files.readAllLines(new File(torrentpierResults, "transitions.csv").toPath());
+        StringBuilder transitions = new StringBuilder(lines.get(0)).append("\n");
+        for (int copy = 0; copy < 50; copy++) {
+            for (String line : lines.subList(1, lines.size())) {
+                transitions.append(line).append("\n");
+            }
+        }
+        File projectFolder = createProject("large", transitions.toString());
+
+        IDataHandler expected = new SchemaEvoLoader(projectFolder).load();
+        testDataHandlersAreEqual(expected, new SchemaEvoLoader(projectFolder, true).load());
+        testDataHandlersAreEqual(expected, new SchemaEvoLoader(projectFolder, true, 4).load());
+    }
+
+
+    private File createProject(String name, String transitions) throws IOException {
+        File projectFolder = new File(temporaryFolder, name);
+        File resultsFolder = new File(projectFolder, "results");
+        if (!resultsFolder.exists()) {
+            Assertions.assertTrue(resultsFolder.mkdirs());
+            Files.copy(new File(torrentpierResults, "SchemaHeartbeat.tsv").toPath(), new File(resultsFolder, "SchemaHeartbeat.tsv").toPath());
+            Files.copy(new File(torrentpierResults, "tables_DetailedStats.tsv").toPath(), new File(resultsFolder, "tables_DetailedStats.tsv").toPath());
+        }
+        Files.write(new File(resultsFolder, "transitions.csv").toPath(), transitions.getBytes());
+        return projectFolder;
+    }
+
+    private String irregularTransitions() throws IOException {
+        // CRLF and CR terminators, empty and truncated lines, trailing separators and a last line without terminator
+        List<String> lines = Files.readAllLines(new File(torrentpierResults, "transitions.csv").toPath());
+        StringBuilder transitions = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            transitions.append(lines.get(i));
+            if (i % 7 == 3) {
+                transitions.append(";;;");
+            }
+            if (i == lines.size() - 1) {
+                break;
+            }
+            transitions.append(i % 3 == 0 ? "\r\n" : (i % 3 == 1 ? "\r" : "\n"));
+            if (i % 50 == 10) {
+                transitions.append("\n");
+            }
+            if (i % 50 == 20) {
+                transitions.append("5;a;b;").append(lines.get(1).split(";")[3]).append(";;;\n");
+            }
+        }
+        return transitions.toString();
+    }
+
+    private void testDataHandlersAreEqual(IDataHandler expected, IDataHandler actual) {
+        Assertions.assertEquals(expected.getTimeline().size(), actual.getTimeline().size());
+        Assertions.assertEquals(expected.getPopulation().size(), actual.getPopulation().size());
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+
+        Assertions.assertEquals(expected.getEntityNameToTEMMap().keySet(), actual.getEntityNameToTEMMap().keySet());
+        for (String entityName : expected.getEntityNameToTEMMap().keySet()) {
+            Map<Integer, TimeEntityMeasurements> expectedTEMs = expected.getEntityNameToTEMMap().get(entityName);
+            Map<Integer, TimeEntityMeasurements> actualTEMs = actual.getEntityNameToTEMMap().get(entityName);
+            Assertions.assertEquals(expectedTEMs.keySet(), actualTEMs.keySet());
+            for (Integer beatId : expectedTEMs.keySet()) {
+                Assertions.assertEquals(expectedTEMs.get(beatId).getMeasurements().size(), actualTEMs.get(beatId).getMeasurements().size());
+                for (Constants.MeasurementType measurementType : Constants.MeasurementType.values()) {
+                    for (Constants.AggregationType aggregationType : Constants.AggregationType.values()) {
+                        Assertions.assertEquals(
+                                expectedTEMs.get(beatId).getMeasurementOfType(measurementType, aggregationType),
+                                actualTEMs.get(beatId).getMeasurementOfType(measurementType, aggregationType),
+                                entityName + " " + beatId + " " + measurementType + " " + aggregationType);
+                    }
+                }
+            }
+        }
+    }
+}
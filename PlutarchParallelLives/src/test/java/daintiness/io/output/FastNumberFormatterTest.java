@@ -0,0 +1,38 @@
+package daintiness.io.output;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+public class FastNumberFormatterTest {
+
+    @Test
+    @DisplayName("FastNumberFormatter formats like NumberFormat")
+    public void formatsLikeNumberFormatTest() throws IOException {
+        double[] specialValues = {0, -0.0, 1, -1, 7, 999, 1000, -1000, 1234567, -987654321, 0.5, 1.0005, 2.675,
+                1e15 - 1, 1e15, -1e15 + 1, 1e18, Long.MAX_VALUE, Double.MAX_VALUE, Double.MIN_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (Locale locale : new Locale[]{Locale.US, Locale.GERMANY, Locale.FRANCE}) {
+            NumberFormat numberFormat = NumberFormat.getInstance(locale);
+            FastNumberFormatter formatter = new FastNumberFormatter(locale);
+
+            for (double value : specialValues) {
+                Assertions.assertEquals(numberFormat.format(value), formatter.format(value), "value " + value);
+            }
+
+            Random random = new Random(3);
+            for (int i = 0; i < 10000; i++) {
+                double value = (i % 2 == 0) ? random.nextInt() : random.nextGaussian() * 1e6;
+                StringWriter writer = new StringWriter();
+                formatter.format(value, writer);
+                Assertions.assertEquals(numberFormat.format(value), writer.toString(), "value " + value);
+            }
+        }
+    }
+}
@@ -8,10 +8,19 @@ import daintiness.clustering.*;
 import daintiness.data.IDataHandler;
 import daintiness.io.FileHandler;
 import daintiness.io.TestUtilities;
+import daintiness.maincontroller.IMainController;
 import daintiness.maincontroller.MainController;
 import daintiness.utilities.Constants;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 public class ProjectExporterTest {
     File projectWithoutClustering = new File(
@@ -89,4 +98,53 @@ public class ProjectExporterTest {
                 () -> utilities.testEntityGroups(mainController.getEntityGroups(), actualClusteringHandler.getEntityGroups())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Streamed export keeps the data of its creation test")
+    public void streamedExportSnapshotTest() throws IOException {
+        MainController mainController = new MainController();
+        mainController.load(originalFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(
+                        new BeatClusteringProfile(100),
+                        new EntityClusteringProfile(30)
+                )
+        );
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+
+        ByteArrayOutputStream expectedProject = new ByteArrayOutputStream();
+        mainController.exportProject(expectedProject);
+        ByteArrayOutputStream expectedData = new ByteArrayOutputStream();
+        mainController.save(expectedData);
+
+        IMainController.StreamExport projectExport = mainController.createProjectExport();
+        IMainController.StreamExport dataExport = mainController.createDataExport();
+
+        // The exports are written after the chart rows are sorted and swapped for another type
+        mainController.sortChartData(Constants.SortingType.BIRTH_ASCENDING);
+        mainController.generateChartDataOfType(Constants.MeasurementType.DELTA_VALUE, Constants.AggregationType.SUM_OF_ALL);
+        ByteArrayOutputStream actualProject = new ByteArrayOutputStream();
+        projectExport.writeTo(actualProject);
+        ByteArrayOutputStream actualData = new ByteArrayOutputStream();
+        dataExport.writeTo(actualData);
+
+        ByteArrayOutputStream changedProject = new ByteArrayOutputStream();
+        mainController.exportProject(changedProject);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(readEntries(expectedProject), readEntries(actualProject)),
+                () -> Assertions.assertArrayEquals(expectedData.toByteArray(), actualData.toByteArray()),
+                () -> Assertions.assertNotEquals(readEntries(expectedProject), readEntries(changedProject))
+        );
+    }
+
+    private Map<String, String> readEntries(ByteArrayOutputStream archive) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.put(entry.getName(), new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,192 @@
+package daintiness.io.snapshot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.EntityClusteringProfile;
+import daintiness.data.ColumnarDataHandler;
+import daintiness.data.IDataHandler;
+import daintiness.io.FileHandler;
+import daintiness.io.TestUtilities;
+import daintiness.maincontroller.IMainController;
+import daintiness.maincontroller.MainController;
+import daintiness.models.TimeEntityMeasurements;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.utilities.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProjectSnapshotTest {
+
+    private final String resources = "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS;
+
+    private final TestUtilities utilities = new TestUtilities();
+
+    @TempDir
+    File temporaryFolder;
+
+    @Test
+    @DisplayName("Snapshot of a clustered SchemaEvo project")
+    public void schemaEvoSnapshotTest() {
+        IMainController expected = new MainController();
+        expected.load(new File(resources + "biosql"));
+        expected.fitDataToGroupPhaseMeasurements(new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        expected.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_INSERTIONS);
+
+        File snapshotFile = new File(temporaryFolder, "biosql.snapshot");
+        expected.exportSnapshot(snapshotFile);
+
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setGivenFile(snapshotFile, Constants.FileType.SNAPSHOT);
+        IDataHandler actualDataHandler = fileHandler.loadTEM();
+        utilities.testGPM(expected.getChartData(), fileHandler.getLoadedMeasurementMap());
+
+        IMainController actual = new MainController();
+        actual.importSnapshot(snapshotFile);
+        actual.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_INSERTIONS);
+
+        Assertions.assertEquals(Constants.FileType.SCHEMA_EVO, actualDataHandler.getType());
+        testTEMsAreEqual(loadDataHandler(new File(resources + "biosql")), actualDataHandler);
+        Assertions.assertAll(
+                () -> utilities.testPhases(expected.getPhases(), actual.getPhases()),
+                () -> utilities.testEntityGroups(expected.getEntityGroups(), actual.getEntityGroups()),
+                () -> utilities.testGPM(expected.getChartData(), fileHandler.getLoadedMeasurementMap())
+        );
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+    }
+
+    @Test
+    @DisplayName("Snapshot of an imported project equals the TSV project")
+    public void importedProjectSnapshotTest() throws IOException {
+        File projectFolder = new File(resources + "projects" + Constants.FS + "torrentpier_with_clustering");
+        IMainController expected = new MainController();
+        expected.importProject(projectFolder);
+
+        File snapshotFile = new File(temporaryFolder, "torrentpier.snapshot");
+        expected.exportSnapshot(snapshotFile);
+
+        IMainController actual = new MainController();
+        actual.importSnapshot(snapshotFile);
+
+        Assertions.assertAll(
+                () -> utilities.testPhases(expected.getPhases(), actual.getPhases()),
+                () -> utilities.testEntityGroups(expected.getEntityGroups(), actual.getEntityGroups())
+        );
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+
+        // The same data as the TSV pair, reloaded as a plain snapshot file
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setGivenFile(snapshotFile);
+        Assertions.assertEquals(Constants.FileType.SNAPSHOT, fileHandler.getFileType());
+        IDataHandler snapshotDataHandler = fileHandler.loadTEM();
+        FileHandler tsvFileHandler = new FileHandler();
+        tsvFileHandler.setGivenFile(projectFolder, Constants.FileType.TEM_GPM);
+        IDataHandler tsvDataHandler = tsvFileHandler.loadTEM();
+        testTEMsAreEqual(tsvDataHandler, snapshotDataHandler);
+        Assertions.assertEquals(tsvDataHandler.getTimeEntityMeasurementAsString(), snapshotDataHandler.getTimeEntityMeasurementAsString());
+
+        long tsvSize = Files.size(new File(projectFolder, "tem.tsv").toPath()) + Files.size(new File(projectFolder, "gpm.tsv").toPath());
+        Assertions.assertTrue(snapshotFile.length() < tsvSize);
+    }
+
+    @Test
+    @DisplayName("Snapshot of a project without clustering")
+    public void unclusteredSnapshotTest() {
+        IMainController expected = new MainController();
+        expected.load(new File(resources + "test_data.tsv"));
+
+        File snapshotFile = new File(temporaryFolder, "test_data.snapshot");
+        expected.exportSnapshot(snapshotFile);
+
+        IMainController actual = new MainController();
+        actual.load(snapshotFile);
+        Assertions.assertEquals(expected.getNumberOfBeats(), actual.getNumberOfBeats());
+        Assertions.assertEquals(expected.getNumberOfEntities(), actual.getNumberOfEntities());
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+        testTEMsAreEqual(loadDataHandler(new File(resources + "test_data.tsv")), loadDataHandler(snapshotFile));
+    }
+
+    @Test
+    @DisplayName("Snapshot columns loaded into a ColumnarDataHandler equal its TEM initialization")
+    public void columnarSnapshotTest() {
+        IMainController expected = new MainController();
+        expected.load(new File(resources + "biosql"));
+        File snapshotFile = new File(temporaryFolder, "biosql.snapshot");
+        expected.exportSnapshot(snapshotFile);
+
+        SnapshotLoader columnarLoader = new SnapshotLoader(snapshotFile);
+        columnarLoader.setDataHandlerType("COLUMNAR_DATA_HANDLER");
+        ColumnarDataHandler actual = (ColumnarDataHandler) columnarLoader.load();
+
+        IDataHandler simpleDataHandler = new SnapshotLoader(snapshotFile).load();
+        List<TimeEntityMeasurements> measurements = new ArrayList<>();
+        for (Map<Integer, TimeEntityMeasurements> entityTEMs : simpleDataHandler.getEntityNameToTEMMap().values()) {
+            measurements.addAll(entityTEMs.values());
+        }
+        ColumnarDataHandler expectedColumnar = new ColumnarDataHandler();
+        expectedColumnar.init(simpleDataHandler.getTimeline(), simpleDataHandler.getPopulation(), measurements);
+
+        Assertions.assertEquals(Constants.FileType.SCHEMA_EVO, actual.getType());
+        Assertions.assertArrayEquals(expectedColumnar.getRowOffsets(), actual.getRowOffsets());
+        Assertions.assertArrayEquals(expectedColumnar.getCellColumns(), actual.getCellColumns());
+        Assertions.assertArrayEquals(expectedColumnar.getColumnCells(), actual.getColumnCells());
+        Assertions.assertEquals(expectedColumnar.getNumberOfMeasurementColumns(), actual.getNumberOfMeasurementColumns());
+        for (int i = 0; i < actual.getNumberOfMeasurementColumns(); i++) {
+            int expectedColumn = expectedColumnar.findMeasurementColumn(actual.getMeasurementType(i), actual.getAggregationType(i));
+            Assertions.assertArrayEquals(expectedColumnar.getMeasurementColumn(expectedColumn), actual.getMeasurementColumn(i));
+        }
+        testTEMsAreEqual(loadDataHandler(new File(resources + "biosql")), actual);
+    }
+
+    @Test
+    @DisplayName("Snapshot with an unknown header")
+    public void invalidSnapshotTest() throws IOException {
+        File notASnapshot = new File(temporaryFolder, "tem.snapshot");
+        Files.copy(new File(resources + "test_data.tsv").toPath(), notASnapshot.toPath());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnapshotLoader(notASnapshot).load());
+    }
+
+
+    private IDataHandler loadDataHandler(File file) {
+        FileHandler fileHandler = new FileHandler();
+        fileHandler.setGivenFile(file);
+        return fileHandler.loadTEM();
+    }
+
+    private void testTEMsAreEqual(IDataHandler expected, IDataHandler actual) {
+        Assertions.assertEquals(expected.getTimeline().size(), actual.getTimeline().size());
+        for (int i = 0; i < expected.getTimeline().size(); i++) {
+            utilities.testBeat(expected.getTimeline().get(i), actual.getTimeline().get(i));
+            Assertions.assertEquals(expected.getTimeline().get(i).getRawDate(), actual.getTimeline().get(i).getRawDate());
+        }
+        utilities.testEntityLists(expected.getPopulation(), actual.getPopulation());
+
+        Assertions.assertEquals(expected.getNumberOfTEMs(), actual.getNumberOfTEMs());
+        Assertions.assertEquals(expected.getEntityNameToTEMMap().keySet(), actual.getEntityNameToTEMMap().keySet());
+        for (String entityName : expected.getEntityNameToTEMMap().keySet()) {
+            Map<Integer, TimeEntityMeasurements> expectedTEMs = expected.getEntityNameToTEMMap().get(entityName);
+            Map<Integer, TimeEntityMeasurements> actualTEMs = actual.getEntityNameToTEMMap().get(entityName);
+            Assertions.assertEquals(expectedTEMs.keySet(), actualTEMs.keySet());
+            for (Integer beatId : expectedTEMs.keySet()) {
+                List<IMeasurement> expectedMeasurements = expectedTEMs.get(beatId).getMeasurements();
+                List<IMeasurement> actualMeasurements = actualTEMs.get(beatId).getMeasurements();
+                Assertions.assertEquals(expectedMeasurements.size(), actualMeasurements.size());
+                for (int i = 0; i < expectedMeasurements.size(); i++) {
+                    Assertions.assertEquals(expectedMeasurements.get(i).getMeasurementType(), actualMeasurements.get(i).getMeasurementType());
+                    Assertions.assertEquals(expectedMeasurements.get(i).getAggregationType(), actualMeasurements.get(i).getAggregationType());
+                    Assertions.assertEquals(Double.doubleToLongBits(expectedMeasurements.get(i).getValue()),
+                            Double.doubleToLongBits(actualMeasurements.get(i).getValue()));
+                }
+            }
+        }
+    }
+}
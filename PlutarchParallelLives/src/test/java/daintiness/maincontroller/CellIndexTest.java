@@ -0,0 +1,165 @@
+package daintiness.maincontroller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.EntityClusteringProfile;
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.models.CellInfo;
+import daintiness.models.PatternData;
+import daintiness.models.measurement.IMeasurement;
+import daintiness.utilities.Constants;
+import daintiness.utilities.Constants.PatternType;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class CellIndexTest {
+    File biosqlFile = new File(
+            "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "biosql");
+
+
+    @Test
+    @DisplayName("Indexed cell lookups equal the scans over groups, phases, chart data and patterns")
+    public void indexedLookupsEqualScansTest() {
+        IMainController mainController = new MainController();
+        mainController.load(biosqlFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+
+        Map<PatternType, List<PatternData>> patterns = new EnumMap<>(PatternType.class);
+        for (PatternType patternType : PatternType.values()) {
+            if (patternType != PatternType.NO_TYPE) {
+                patterns.put(patternType, mainController.getPatterns(patternType));
+            }
+        }
+
+        int cellsInPatterns = 0;
+        for (EntityGroup entityGroup : mainController.getEntityGroups()) {
+            int entityGroupId = entityGroup.getEntityGroupId();
+            Assertions.assertSame(entityGroup, mainController.getEntityGroupById(entityGroupId));
+
+            for (Phase phase : mainController.getPhases()) {
+                int phaseId = phase.getPhaseId();
+                Assertions.assertSame(phase, mainController.getPhaseById(phaseId));
+                IMeasurement expectedMeasurement = measurementAsBefore(mainController, entityGroupId, phaseId);
+                IMeasurement measurement = mainController.getCellMeasurement(entityGroupId, phaseId);
+                if (expectedMeasurement == null) {
+                    Assertions.assertNull(measurement);
+                } else {
+                    Assertions.assertEquals(expectedMeasurement.getValue(), measurement.getValue());
+                    Assertions.assertEquals(expectedMeasurement.getColor(), measurement.getColor());
+                }
+
+                PatternType expected = patternTypeAsBefore(patterns, entityGroup, phaseId);
+                Assertions.assertEquals(expected, mainController.getCellPatternType(entityGroupId, phaseId));
+                cellsInPatterns += (expected != null) ? 1 : 0;
+            }
+        }
+        Assertions.assertTrue(cellsInPatterns > 0);
+
+        Assertions.assertNull(mainController.getEntityGroupById(-1));
+        Assertions.assertNull(mainController.getPhaseById(mainController.getPhases().size()));
+        Assertions.assertNull(mainController.getCellMeasurement(-1, 0));
+        Assertions.assertNull(mainController.getCellPatternType(-1, 0));
+    }
+
+    @Test
+    @DisplayName("Cell index follows the re-clustering")
+    public void indexFollowsReclusteringTest() {
+        IMainController mainController = new MainController();
+        mainController.load(biosqlFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+        Phase firstPhase = mainController.getPhaseById(0);
+
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(10), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+
+        Assertions.assertNotSame(firstPhase, mainController.getPhaseById(0));
+        Assertions.assertSame(mainController.getPhases().get(0), mainController.getPhaseById(0));
+        Assertions.assertNull(mainController.getPhaseById(10));
+    }
+
+
+    @Test
+    @DisplayName("Patterns are detected once per type until the clustering or the chart data change")
+    public void patternCacheTest() {
+        IMainController mainController = new MainController();
+        mainController.load(biosqlFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+
+        List<PatternData> births = mainController.getPatterns(PatternType.MULTIPLE_BIRTHS);
+        List<PatternData> ladders = mainController.getPatterns(PatternType.LADDER);
+        Assertions.assertSame(births, mainController.getPatterns(PatternType.MULTIPLE_BIRTHS));
+
+        // The cell lookups reuse the detected patterns, and every pattern reaches its cells
+        for (PatternData pattern : mainController.getPatterns(PatternType.NO_TYPE)) {
+            for (CellInfo cell : pattern.getPatternCellsList()) {
+                EntityGroup entityGroup = findGroupOf(mainController, cell.getEntityName());
+                Assertions.assertTrue(mainController.getCellPatterns(entityGroup.getEntityGroupId(), cell.getPhaseId())
+                        .stream().anyMatch(cellPattern -> cellPattern.getPatternType() == pattern.getPatternType() &&
+                                cellPattern.getPatternCellsList().size() == pattern.getPatternCellsList().size()));
+            }
+        }
+        Assertions.assertSame(births, mainController.getPatterns(PatternType.MULTIPLE_BIRTHS));
+        Assertions.assertSame(ladders, mainController.getPatterns(PatternType.LADDER));
+
+        mainController.sortChartData(Constants.SortingType.BIRTH_ASCENDING);
+        Assertions.assertNotSame(births, mainController.getPatterns(PatternType.MULTIPLE_BIRTHS));
+
+        births = mainController.getPatterns(PatternType.MULTIPLE_BIRTHS);
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+        Assertions.assertNotSame(births, mainController.getPatterns(PatternType.MULTIPLE_BIRTHS));
+    }
+
+
+    private EntityGroup findGroupOf(IMainController mainController, String entityName) {
+        for (EntityGroup entityGroup : mainController.getEntityGroups()) {
+            if (entityGroup.getGroupComponentsNames().contains(entityName)) {
+                return entityGroup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The chart measurement as the cellDetails endpoint found it before the index.
+     */
+    private IMeasurement measurementAsBefore(IMainController mainController, int entityGroupId, int phaseId) {
+        for (ChartGroupPhaseMeasurement cgpm : mainController.getChartData()) {
+            if (cgpm.getEntityGroup().getEntityGroupId() == entityGroupId) {
+                return cgpm.getMeasurement(phaseId);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The pattern type as the cellDetails endpoint found it before the index.
+     */
+    private PatternType patternTypeAsBefore(Map<PatternType, List<PatternData>> patterns, EntityGroup group, int phaseId) {
+        for (List<PatternData> patternsOfType : patterns.values()) {
+            for (PatternData pattern : patternsOfType) {
+                for (CellInfo cell : pattern.getPatternCellsList()) {
+                    if (group.getGroupComponentsNames().contains(cell.getEntityName()) && cell.getPhaseId() == phaseId) {
+                        return pattern.getPatternType();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
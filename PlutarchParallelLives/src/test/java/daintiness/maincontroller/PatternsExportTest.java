@@ -0,0 +1,77 @@
+package daintiness.maincontroller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.EntityClusteringProfile;
+import daintiness.models.PatternData;
+import daintiness.utilities.Constants;
+import daintiness.utilities.Constants.PatternType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class PatternsExportTest {
+    File biosqlFile = new File(
+            "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "biosql");
+
+    IMainController mainController;
+
+    @TempDir
+    File tempDir;
+
+
+    @BeforeEach
+    public void setUp() {
+        mainController = new MainController();
+        mainController.load(biosqlFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+    }
+
+    @Test
+    @DisplayName("The report of cached patterns has the computation time of their detection")
+    public void cachedPatternsTimeTest() throws IOException {
+        List<PatternData> patterns = mainController.getPatterns(PatternType.NO_TYPE);
+        String report = export(patterns);
+
+        mainController.getPatterns(PatternType.MULTIPLE_BIRTHS);
+        List<PatternData> cachedPatterns = mainController.getPatterns(PatternType.NO_TYPE);
+        Assertions.assertSame(patterns, cachedPatterns);
+
+        String cachedReport = export(cachedPatterns);
+        Assertions.assertEquals(report, cachedReport);
+        Assertions.assertTrue(report.contains("\tNumber of columns:\t" + mainController.getPhases().size() + "\n"));
+        Assertions.assertTrue(report.contains("\tNumber of rows:\t" + mainController.getChartData().size() + "\n"));
+    }
+
+    @Test
+    @DisplayName("The patterns of other parameters than the defaults are printed to a file")
+    public void printSummaryPatternsTest() throws IOException {
+        List<PatternData> patterns = mainController.getPatterns(PatternType.NO_TYPE, 0, 2, 2);
+        Assertions.assertFalse(patterns.isEmpty());
+
+        File file = new File(tempDir, "patterns.txt");
+        mainController.printPatterns(file);
+
+        String report = Files.readString(file.toPath());
+        Assertions.assertEquals(export(patterns), report);
+        Assertions.assertTrue(report.contains("\tNumber of total patterns:\t" + patterns.size() + "\n"));
+    }
+
+    private String export(List<PatternData> patterns) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        mainController.createPatternsExport(patterns).writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
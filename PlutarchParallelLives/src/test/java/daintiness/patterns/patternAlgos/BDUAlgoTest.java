@@ -0,0 +1,186 @@
+package daintiness.patterns.patternAlgos;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGrid;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.models.CellInfo;
+import daintiness.models.LifeDetails;
+import daintiness.models.PatternData;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+import daintiness.utilities.Constants.PatternType;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BDUAlgoTest {
+
+    private static final PatternType[] BDU_TYPES = {PatternType.NO_TYPE, PatternType.MULTIPLE_BIRTHS,
+            PatternType.MULTIPLE_UPDATES, PatternType.MULTIPLE_DEATHS};
+
+
+    @Test
+    @DisplayName("BDU patterns equal the per-cell detection on random grids")
+    public void bduEqualsPerCellDetectionTest() {
+        Random random = new Random(5);
+        for (int round = 0; round < 30; round++) {
+            int numberOfPhases = 1 + random.nextInt(40);
+            int beatsPerPhase = 1 + random.nextInt(4);
+            List<Phase> phases = createPhases(numberOfPhases, beatsPerPhase, round % 3 == 0);
+            ObservableList<ChartGroupPhaseMeasurement> rows =
+                    createRows(random, 1 + random.nextInt(300), phases, numberOfPhases * beatsPerPhase, round % 2 == 0);
+
+            for (PatternType patternType : BDU_TYPES) {
+                int threshold = random.nextInt(6);
+                testPatternsAreEqual(findPatternAsBefore(rows, phases, threshold, patternType),
+                        BDUAlgo.FindPattern(rows, phases, threshold, patternType));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("BDU patterns of phases that are not sorted, disjoint ranges")
+    public void unsortedPhasesTest() {
+        Random random = new Random(7);
+        List<Phase> phases = createPhases(12, 3, false);
+        Phase first = phases.remove(0);
+        phases.add(first);
+        ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 200, phases, 36, false);
+
+        for (PatternType patternType : BDU_TYPES) {
+            testPatternsAreEqual(findPatternAsBefore(rows, phases, 3, patternType),
+                    BDUAlgo.FindPattern(rows, phases, 3, patternType));
+        }
+    }
+
+    @Test
+    @DisplayName("BDU pattern detection on a 2,000 x 200 grid")
+    public void largeGridTest() {
+        Random random = new Random(11);
+        int numberOfPhases = 200;
+        List<Phase> phases = createPhases(numberOfPhases, 2, false);
+        ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 2000, phases, numberOfPhases * 2, true);
+
+        for (PatternType patternType : BDU_TYPES) {
+            testPatternsAreEqual(findPatternAsBefore(rows, phases, 3, patternType),
+                    BDUAlgo.FindPattern(rows, phases, 3, patternType));
+        }
+    }
+
+
+    /**
+     * Phases of consecutive beats, with a gap of one beat after every phase if gaps is set.
+     */
+    private List<Phase> createPhases(int numberOfPhases, int beatsPerPhase, boolean gaps) {
+        List<Phase> phases = new ArrayList<>();
+        int beatId = 0;
+        for (int phaseId = 0; phaseId < numberOfPhases; phaseId++) {
+            List<Integer> beatIds = new ArrayList<>();
+            for (int i = 0; i < beatsPerPhase; i++) {
+                beatIds.add(beatId++);
+            }
+            if (gaps) {
+                beatId++;
+            }
+            phases.add(new Phase(phaseId, beatIds));
+        }
+        return phases;
+    }
+
+    /**
+     * Groups with random lives (some alive, some born and dead in one phase) and random measurements,
+     * in map rows or in the rows of a ChartGrid.
+     */
+    private ObservableList<ChartGroupPhaseMeasurement> createRows(Random random, int numberOfGroups, List<Phase> phases,
+                                                                  int numberOfBeats, boolean gridRows) {
+        List<EntityGroup> entityGroups = new ArrayList<>();
+        for (int groupId = 0; groupId < numberOfGroups; groupId++) {
+            int birth = random.nextInt(numberOfBeats + 2) - 1;
+            int death = birth + random.nextInt(numberOfBeats / 2 + 2);
+            boolean alive = random.nextInt(3) == 0;
+            List<String> names = new ArrayList<>();
+            names.add("group_" + groupId);
+            entityGroups.add(new EntityGroup(groupId, names, new LifeDetails(birth, death, alive)));
+        }
+
+        ChartGrid grid = gridRows ? new ChartGrid(Constants.MeasurementType.RAW_VALUE,
+                Constants.AggregationType.SUM_OF_ALL, entityGroups, phases) : null;
+        ObservableList<ChartGroupPhaseMeasurement> rows = FXCollections.observableArrayList();
+        for (int row = 0; row < numberOfGroups; row++) {
+            ChartGroupPhaseMeasurement chartRow = gridRows ? grid.getRows().get(row) :
+                    new ChartGroupPhaseMeasurement(entityGroups.get(row));
+            for (Phase phase : phases) {
+                if (random.nextInt(4) != 0) {
+                    Measurement measurement = new Measurement(random.nextInt(10),
+                            Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+                    if (gridRows) {
+                        grid.setMeasurement(row, phase.getPhaseId(), measurement);
+                    } else {
+                        chartRow.addMeasurement(phase.getPhaseId(), measurement);
+                    }
+                }
+            }
+            rows.add(chartRow);
+        }
+        return rows;
+    }
+
+    private void testPatternsAreEqual(List<PatternData> expected, List<PatternData> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getPatternType(), actual.get(i).getPatternType());
+            List<CellInfo> expectedCells = expected.get(i).getPatternCellsList();
+            List<CellInfo> actualCells = actual.get(i).getPatternCellsList();
+            Assertions.assertEquals(expectedCells.size(), actualCells.size());
+            for (int j = 0; j < expectedCells.size(); j++) {
+                Assertions.assertEquals(expectedCells.get(j).getEntityName(), actualCells.get(j).getEntityName());
+                Assertions.assertEquals(expectedCells.get(j).getPhaseId(), actualCells.get(j).getPhaseId());
+            }
+        }
+    }
+
+    /**
+     * BDUAlgo.FindPattern before the bucketed detection, as the reference output.
+     */
+    private List<PatternData> findPatternAsBefore(ObservableList<ChartGroupPhaseMeasurement> totalValues,
+                                                  List<Phase> totalPhases, int threshold, PatternType patternType) {
+        List<PatternData> patternList = new ArrayList<>();
+        for (Phase phase : totalPhases) {
+            List<CellInfo> births = new ArrayList<>();
+            List<CellInfo> updates = new ArrayList<>();
+            List<CellInfo> deaths = new ArrayList<>();
+            for (ChartGroupPhaseMeasurement tab : totalValues) {
+                Constants.GPMType type = tab.getEntityGroup().getGPMType(phase.getFirstBeatId(), phase.getLastBeatId());
+                CellInfo cell = new CellInfo(tab.getEntityGroup().getGroupComponentsNames().get(0), phase.getPhaseId());
+                if (type == Constants.GPMType.BIRTH) {
+                    births.add(cell);
+                } else if (type == Constants.GPMType.ACTIVE && tab.getMeasurement(phase.getPhaseId()) != null) {
+                    updates.add(cell);
+                } else if (type == Constants.GPMType.DEATH) {
+                    deaths.add(cell);
+                }
+            }
+
+            boolean allTypes = patternType != PatternType.MULTIPLE_BIRTHS &&
+                    patternType != PatternType.MULTIPLE_UPDATES && patternType != PatternType.MULTIPLE_DEATHS;
+            if ((allTypes || patternType == PatternType.MULTIPLE_BIRTHS) && births.size() > threshold) {
+                patternList.add(new PatternData(PatternType.MULTIPLE_BIRTHS, births));
+            }
+            if ((allTypes || patternType == PatternType.MULTIPLE_UPDATES) && updates.size() > threshold) {
+                patternList.add(new PatternData(PatternType.MULTIPLE_UPDATES, updates));
+            }
+            if ((allTypes || patternType == PatternType.MULTIPLE_DEATHS) && deaths.size() > threshold) {
+                patternList.add(new PatternData(PatternType.MULTIPLE_DEATHS, deaths));
+            }
+        }
+        return patternList;
+    }
+}
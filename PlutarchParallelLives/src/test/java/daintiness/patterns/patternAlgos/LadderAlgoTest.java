@@ -0,0 +1,120 @@
+package daintiness.patterns.patternAlgos;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.models.CellInfo;
+import daintiness.models.PatternData;
+import daintiness.utilities.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class LadderAlgoTest {
+
+    @Test
+    @DisplayName("Ladders equal the ladders of the indexOf detection")
+    public void laddersEqualIndexOfDetectionTest() {
+        Random random = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            List<String> entityNames = createEntityNames(random, 1 + random.nextInt(200));
+            List<List<CellInfo>> births = createBirths(random, entityNames, random.nextInt(60));
+            // Names that are not in the table
+            if (round % 10 == 0 && !births.isEmpty()) {
+                births.get(0).add(new CellInfo("missing", births.get(0).get(0).getPhaseId()));
+            }
+
+            int threshold = random.nextInt(5);
+            testPatternsAreEqual(findPatternAsBefore(births, entityNames, threshold),
+                    LadderAlgo.FindPattern(births, entityNames, threshold));
+        }
+    }
+
+    @Test
+    @DisplayName("Ladder detection on 2,000 phases with births")
+    public void largeLadderTest() {
+        Random random = new Random(17);
+        List<String> entityNames = createEntityNames(random, 5000);
+        List<List<CellInfo>> births = createBirths(random, entityNames, 2000);
+
+        testPatternsAreEqual(findPatternAsBefore(births, entityNames, 3), LadderAlgo.FindPattern(births, entityNames, 3));
+    }
+
+
+    private List<String> createEntityNames(Random random, int numberOfEntities) {
+        List<String> entityNames = new ArrayList<>();
+        for (int i = 0; i < numberOfEntities; i++) {
+            entityNames.add("entity_" + i);
+        }
+        Collections.shuffle(entityNames, random);
+        return entityNames;
+    }
+
+    /**
+     * Births of the phases that have births, like PatternComputationHandler collects them:
+     * one CellInfo per born entity, the phases in ascending order, mostly close to each other.
+     */
+    private List<List<CellInfo>> createBirths(Random random, List<String> entityNames, int numberOfPhases) {
+        List<List<CellInfo>> births = new ArrayList<>();
+        int phaseId = 0;
+        for (int i = 0; i < numberOfPhases; i++) {
+            phaseId += 1 + ((random.nextInt(4) == 0) ? random.nextInt(8) : 0);
+            List<CellInfo> cells = new ArrayList<>();
+            int row = random.nextInt(entityNames.size());
+            int numberOfBirths = 1 + random.nextInt(4);
+            for (int j = 0; j < numberOfBirths; j++) {
+                cells.add(new CellInfo(entityNames.get((row + j) % entityNames.size()), phaseId));
+            }
+            births.add(cells);
+        }
+        return births;
+    }
+
+    private void testPatternsAreEqual(List<PatternData> expected, List<PatternData> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getPatternType(), actual.get(i).getPatternType());
+            Assertions.assertEquals(expected.get(i).getPatternCellsList(), actual.get(i).getPatternCellsList());
+        }
+    }
+
+    /**
+     * LadderAlgo.FindPattern before the entity index, as the reference output.
+     */
+    private List<PatternData> findPatternAsBefore(List<List<CellInfo>> listOfBirthsEachPhase,
+                                                  List<String> totalEntitiesNamesAscOrder, int threshold) {
+        List<PatternData> patternList = new ArrayList<>();
+        List<CellInfo> cellsLadderPattern = new ArrayList<>();
+        int totalCellsInRow = 1;
+        for (int j = 0; j < listOfBirthsEachPhase.size() - 1; j++) {
+            List<CellInfo> currentPhaseCells = listOfBirthsEachPhase.get(j);
+            CellInfo currentLastCell = currentPhaseCells.get(currentPhaseCells.size() - 1);
+            CellInfo nextFirstCell = listOfBirthsEachPhase.get(j + 1).get(0);
+            int difPhases = nextFirstCell.getPhaseId() - currentLastCell.getPhaseId();
+            int difEntities = totalEntitiesNamesAscOrder.indexOf(nextFirstCell.getEntityName()) -
+                    totalEntitiesNamesAscOrder.indexOf(currentLastCell.getEntityName());
+
+            if (difPhases <= 3 && difEntities <= 3) {
+                cellsLadderPattern.addAll(listOfBirthsEachPhase.get(j));
+                cellsLadderPattern.addAll(listOfBirthsEachPhase.get(j + 1));
+                totalCellsInRow++;
+            } else {
+                if (totalCellsInRow >= threshold) {
+                    patternList.add(new PatternData(Constants.PatternType.LADDER,
+                            cellsLadderPattern.stream().distinct().collect(Collectors.toList())));
+                }
+                totalCellsInRow = 1;
+                cellsLadderPattern = new ArrayList<>();
+            }
+        }
+        if (totalCellsInRow >= threshold) {
+            patternList.add(new PatternData(Constants.PatternType.LADDER,
+                    cellsLadderPattern.stream().distinct().collect(Collectors.toList())));
+        }
+        return patternList;
+    }
+}
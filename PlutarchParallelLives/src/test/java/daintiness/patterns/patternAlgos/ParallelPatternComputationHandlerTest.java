@@ -0,0 +1,150 @@
+package daintiness.patterns.patternAlgos;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.BeatClusteringProfile;
+import daintiness.clustering.ClusteringProfile;
+import daintiness.clustering.EntityClusteringProfile;
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.maincontroller.IMainController;
+import daintiness.maincontroller.MainController;
+import daintiness.models.Beat;
+import daintiness.models.CellInfo;
+import daintiness.models.LifeDetails;
+import daintiness.models.PatternData;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+import daintiness.utilities.Constants.PatternType;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ParallelPatternComputationHandlerTest {
+    File biosqlFile = new File(
+            "src" + Constants.FS + "test" + Constants.FS + "resources" + Constants.FS + "biosql");
+
+    private final PatternComputationHandlerFactory factory = new PatternComputationHandlerFactory();
+
+
+    @Test
+    @DisplayName("Parallel patterns equal the sequential patterns on random grids")
+    public void parallelEqualsSequentialTest() {
+        Random random = new Random(19);
+        for (int round = 0; round < 20; round++) {
+            List<Phase> phases = createPhases(1 + random.nextInt(60), 1 + random.nextInt(3));
+            ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 1 + random.nextInt(200), phases);
+
+            for (PatternType patternType : PatternType.values()) {
+                List<PatternData> expected = factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER")
+                        .computePatterns(rows, phases, patternType);
+                for (int parallelism : new int[]{1, 2, 3, 8}) {
+                    testPatternsAreEqual(expected, factory.getPatternComputationHandler(
+                            "PARALLEL_PATTERN_COMPUTATION_HANDLER", parallelism).computePatterns(rows, phases, patternType));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Patterns of biosql with parallel detection")
+    public void biosqlPatternsTest() {
+        IMainController sequential = createController(1);
+        IMainController parallel = createController(4);
+        for (PatternType patternType : PatternType.values()) {
+            testPatternsAreEqual(sequential.getPatterns(patternType), parallel.getPatterns(patternType));
+        }
+        Assertions.assertFalse(parallel.getPatterns(PatternType.NO_TYPE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Parallel pattern detection on a 1,000 x 200 grid")
+    public void largeGridTest() {
+        Random random = new Random(23);
+        List<Phase> phases = createPhases(200, 2);
+        ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 1000, phases);
+
+        List<PatternData> expected = factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER")
+                .computePatterns(rows, phases, PatternType.NO_TYPE);
+        List<PatternData> actual = factory.getPatternComputationHandler("PARALLEL_PATTERN_COMPUTATION_HANDLER", 4)
+                .computePatterns(rows, phases, PatternType.NO_TYPE);
+        testPatternsAreEqual(expected, actual);
+    }
+
+
+    private IMainController createController(int patternParallelism) {
+        IMainController mainController = new MainController();
+        mainController.setPatternParallelism(patternParallelism);
+        mainController.load(biosqlFile);
+        mainController.fitDataToGroupPhaseMeasurements(
+                new ClusteringProfile(new BeatClusteringProfile(20), new EntityClusteringProfile(25)));
+        mainController.generateChartDataOfType(Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL);
+        return mainController;
+    }
+
+    /**
+     * Phases of consecutive beats, built from the beats like the clustering builds them.
+     */
+    private List<Phase> createPhases(int numberOfPhases, int beatsPerPhase) {
+        List<Phase> phases = new ArrayList<>();
+        int beatId = 0;
+        for (int phaseId = 0; phaseId < numberOfPhases; phaseId++) {
+            Phase phase = new Phase(phaseId, new Beat(beatId, String.valueOf(beatId), null));
+            beatId++;
+            for (int i = 1; i < beatsPerPhase; i++) {
+                phase.addBeat(new Beat(beatId, String.valueOf(beatId), null));
+                beatId++;
+            }
+            phases.add(phase);
+        }
+        return phases;
+    }
+
+    /**
+     * Groups born in bursts, so that births, ladders and deaths all occur, with random measurements.
+     */
+    private ObservableList<ChartGroupPhaseMeasurement> createRows(Random random, int numberOfGroups, List<Phase> phases) {
+        int numberOfBeats = phases.get(phases.size() - 1).getLastBeatId() + 1;
+        ObservableList<ChartGroupPhaseMeasurement> rows = FXCollections.observableArrayList();
+        int birth = 0;
+        for (int groupId = 0; groupId < numberOfGroups; groupId++) {
+            if (random.nextInt(5) == 0) {
+                birth = random.nextInt(numberOfBeats);
+            }
+            int death = birth + random.nextInt(numberOfBeats / 2 + 2);
+            List<String> names = new ArrayList<>();
+            names.add("group_" + groupId);
+            ChartGroupPhaseMeasurement chartRow = new ChartGroupPhaseMeasurement(
+                    new EntityGroup(groupId, names, new LifeDetails(birth, death, random.nextInt(3) == 0)));
+            for (Phase phase : phases) {
+                if (random.nextInt(3) != 0) {
+                    chartRow.addMeasurement(phase.getPhaseId(), new Measurement(random.nextInt(10),
+                            Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL));
+                }
+            }
+            rows.add(chartRow);
+        }
+        return rows;
+    }
+
+    private void testPatternsAreEqual(List<PatternData> expected, List<PatternData> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getPatternType(), actual.get(i).getPatternType());
+            List<CellInfo> expectedCells = expected.get(i).getPatternCellsList();
+            List<CellInfo> actualCells = actual.get(i).getPatternCellsList();
+            Assertions.assertEquals(expectedCells.size(), actualCells.size());
+            for (int j = 0; j < expectedCells.size(); j++) {
+                Assertions.assertEquals(expectedCells.get(j).getEntityName(), actualCells.get(j).getEntityName());
+                Assertions.assertEquals(expectedCells.get(j).getPhaseId(), actualCells.get(j).getPhaseId());
+            }
+        }
+    }
+}
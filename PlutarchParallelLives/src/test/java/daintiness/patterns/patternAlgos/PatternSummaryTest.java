@@ -0,0 +1,179 @@
+package daintiness.patterns.patternAlgos;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import daintiness.clustering.EntityGroup;
+import daintiness.clustering.Phase;
+import daintiness.clustering.measurements.ChartGroupPhaseMeasurement;
+import daintiness.models.Beat;
+import daintiness.models.CellInfo;
+import daintiness.models.LifeDetails;
+import daintiness.models.PatternData;
+import daintiness.models.measurement.Measurement;
+import daintiness.utilities.Constants;
+import daintiness.utilities.Constants.PatternType;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PatternSummaryTest {
+    private final PatternComputationHandlerFactory factory = new PatternComputationHandlerFactory();
+
+
+    @Test
+    @DisplayName("Summary patterns of the default parameters equal the computed patterns")
+    public void defaultParametersTest() {
+        Random random = new Random(29);
+        for (int round = 0; round < 20; round++) {
+            List<Phase> phases = createPhases(1 + random.nextInt(60), 1 + random.nextInt(3));
+            if (round % 4 == 0) {
+                // Not sorted, disjoint ranges
+                phases.add(phases.remove(0));
+            }
+            ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 1 + random.nextInt(200), phases);
+            PatternSummary summary = factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER")
+                    .summarize(rows, phases);
+
+            for (PatternType patternType : PatternType.values()) {
+                testPatternsAreEqual(factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER")
+                                .computePatterns(rows, phases, patternType),
+                        summary.getPatterns(patternType, PatternComputationHandler.DEFAULT_THRESHOLD,
+                                LadderAlgo.DEFAULT_PHASE_WINDOW, LadderAlgo.DEFAULT_ENTITY_WINDOW));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Summary patterns of other thresholds and ladder windows equal the detection")
+    public void otherParametersTest() {
+        Random random = new Random(31);
+        for (int round = 0; round < 20; round++) {
+            List<Phase> phases = createPhases(1 + random.nextInt(60), 1 + random.nextInt(3));
+            ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 1 + random.nextInt(200), phases);
+            PatternSummary summary = factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER")
+                    .summarize(rows, phases);
+            PatternSummary parallelSummary = factory.getPatternComputationHandler("PARALLEL_PATTERN_COMPUTATION_HANDLER", 3)
+                    .summarize(rows, phases);
+
+            for (int i = 0; i < 10; i++) {
+                int threshold = random.nextInt(8);
+                int phaseWindow = random.nextInt(6);
+                int entityWindow = random.nextInt(12);
+                for (PatternType patternType : PatternType.values()) {
+                    List<PatternData> expected = findPatterns(rows, phases, patternType, threshold, phaseWindow, entityWindow);
+                    testPatternsAreEqual(expected, summary.getPatterns(patternType, threshold, phaseWindow, entityWindow));
+                    testPatternsAreEqual(expected, parallelSummary.getPatterns(patternType, threshold, phaseWindow, entityWindow));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parameter sweep on the summary of a 1,000 x 200 grid")
+    public void parameterSweepTest() {
+        Random random = new Random(37);
+        List<Phase> phases = createPhases(200, 2);
+        ObservableList<ChartGroupPhaseMeasurement> rows = createRows(random, 1000, phases);
+        PatternSummary summary = factory.getPatternComputationHandler("SIMPLE_PATTERN_COMPUTATION_HANDLER").summarize(rows, phases);
+
+        for (int threshold = 0; threshold < 10; threshold += 3) {
+            for (int window = 0; window < 10; window += 3) {
+                testPatternsAreEqual(findPatterns(rows, phases, PatternType.NO_TYPE, threshold, window, window),
+                        summary.getPatterns(PatternType.NO_TYPE, threshold, window, window));
+            }
+        }
+    }
+
+
+    /**
+     * The patterns of the parameters from BDUAlgo and LadderAlgo, as the sequential handler detects them.
+     */
+    private List<PatternData> findPatterns(ObservableList<ChartGroupPhaseMeasurement> rows, List<Phase> phases,
+                                           PatternType patternType, int threshold, int phaseWindow, int entityWindow) {
+        boolean findLadders = patternType != PatternType.MULTIPLE_BIRTHS &&
+                patternType != PatternType.MULTIPLE_UPDATES && patternType != PatternType.MULTIPLE_DEATHS;
+        List<PatternData> patterns = new ArrayList<>();
+        if (patternType != PatternType.LADDER) {
+            patterns.addAll(BDUAlgo.FindPattern(rows, phases, threshold, findLadders ? PatternType.NO_TYPE : patternType));
+        }
+        if (findLadders) {
+            List<List<CellInfo>> births = new ArrayList<>();
+            for (PatternData phaseBirths : BDUAlgo.FindPattern(rows, phases, 0, PatternType.MULTIPLE_BIRTHS)) {
+                births.add(phaseBirths.getPatternCellsList());
+            }
+            List<String> entityNames = new ArrayList<>();
+            for (ChartGroupPhaseMeasurement row : rows) {
+                entityNames.add(row.getEntityGroup().getGroupComponentsNames().get(0));
+            }
+            patterns.addAll(LadderAlgo.FindPattern(births, entityNames, threshold, phaseWindow, entityWindow));
+        }
+        return patterns;
+    }
+
+    /**
+     * Phases of consecutive beats, built from the beats like the clustering builds them.
+     */
+    private List<Phase> createPhases(int numberOfPhases, int beatsPerPhase) {
+        List<Phase> phases = new ArrayList<>();
+        int beatId = 0;
+        for (int phaseId = 0; phaseId < numberOfPhases; phaseId++) {
+            Phase phase = new Phase(phaseId, new Beat(beatId, String.valueOf(beatId), null));
+            beatId++;
+            for (int i = 1; i < beatsPerPhase; i++) {
+                phase.addBeat(new Beat(beatId, String.valueOf(beatId), null));
+                beatId++;
+            }
+            phases.add(phase);
+        }
+        return phases;
+    }
+
+    /**
+     * Groups born in bursts, so that births, ladders and deaths all occur, with random measurements.
+     */
+    private ObservableList<ChartGroupPhaseMeasurement> createRows(Random random, int numberOfGroups, List<Phase> phases) {
+        int numberOfBeats = 0;
+        for (Phase phase : phases) {
+            numberOfBeats = Math.max(numberOfBeats, phase.getLastBeatId() + 1);
+        }
+        ObservableList<ChartGroupPhaseMeasurement> rows = FXCollections.observableArrayList();
+        int birth = 0;
+        for (int groupId = 0; groupId < numberOfGroups; groupId++) {
+            if (random.nextInt(5) == 0) {
+                birth = random.nextInt(numberOfBeats);
+            }
+            int death = birth + random.nextInt(numberOfBeats / 2 + 2);
+            List<String> names = new ArrayList<>();
+            names.add("group_" + groupId);
+            ChartGroupPhaseMeasurement chartRow = new ChartGroupPhaseMeasurement(
+                    new EntityGroup(groupId, names, new LifeDetails(birth, death, random.nextInt(3) == 0)));
+            for (Phase phase : phases) {
+                if (random.nextInt(3) != 0) {
+                    chartRow.addMeasurement(phase.getPhaseId(), new Measurement(random.nextInt(10),
+                            Constants.MeasurementType.RAW_VALUE, Constants.AggregationType.SUM_OF_ALL));
+                }
+            }
+            rows.add(chartRow);
+        }
+        return rows;
+    }
+
+    private void testPatternsAreEqual(List<PatternData> expected, List<PatternData> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getPatternType(), actual.get(i).getPatternType());
+            List<CellInfo> expectedCells = expected.get(i).getPatternCellsList();
+            List<CellInfo> actualCells = actual.get(i).getPatternCellsList();
+            Assertions.assertEquals(expectedCells.size(), actualCells.size());
+            for (int j = 0; j < expectedCells.size(); j++) {
+                Assertions.assertEquals(expectedCells.get(j).getEntityName(), actualCells.get(j).getEntityName());
+                Assertions.assertEquals(expectedCells.get(j).getPhaseId(), actualCells.get(j).getPhaseId());
+            }
+        }
+    }
+}